@@ -0,0 +1,45 @@
+package com.programacion.inventario.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Argumentos de línea de comandos con la forma: posicional --opcion valor ...
+ */
+final class Argumentos {
+
+    private final String posicional;
+    private final Map<String, String> opciones = new HashMap<>();
+
+    Argumentos(String[] args, String uso) {
+        if (args.length == 0 || args[0].startsWith("--") || args.length % 2 == 0) {
+            System.err.println("Uso: " + uso);
+            System.exit(2);
+        }
+        posicional = args[0];
+        for (int i = 1; i < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                System.err.println("Opción inválida: " + args[i] + "\nUso: " + uso);
+                System.exit(2);
+            }
+            opciones.put(args[i].substring(2), args[i + 1]);
+        }
+    }
+
+    String posicional() {
+        return posicional;
+    }
+
+    int entero(String nombre, int porDefecto) {
+        String valor = opciones.get(nombre);
+        try {
+            return valor == null ? porDefecto : Integer.parseInt(valor.replace("_", ""));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + nombre + " debe ser un número: " + valor);
+        }
+    }
+
+    String texto(String nombre, String porDefecto) {
+        return opciones.getOrDefault(nombre, porDefecto);
+    }
+}
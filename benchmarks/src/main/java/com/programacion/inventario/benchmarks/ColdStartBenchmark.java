@@ -0,0 +1,78 @@
+package com.programacion.inventario.benchmarks;
+
+import com.programacion.inventario.model.MovimientoStock;
+import com.programacion.inventario.util.FileManager;
+import com.programacion.inventario.util.StockLedger;
+import com.programacion.inventario.util.StockSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arranque en frío del StockLedger: primera llamada a getInstance() en una
+ * JVM nueva, reproduciendo movimientos.txt completo o partiendo de
+ * stock.snapshot (sin movimientos posteriores)
+ *
+ * El ledger es un singleton, así que cada medición es una JVM distinta
+ * (SingleShotTime con varios forks). Los datos se generan antes de medir.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 5, jvmArgsAppend = Datos.JVM_ARGS)
+public class ColdStartBenchmark {
+
+    private static final int PRODUCTOS = 1000;
+
+    @Param({"completo", "snapshot"})
+    public String arranque;
+
+    @Param({"2000000"})
+    public int movimientos;
+
+    @Setup
+    public void preparar() throws IOException {
+        DataGenerator generador = new DataGenerator(Datos.directorioDatos(), 42);
+        generador.generarProductos(PRODUCTOS, 100);
+        generador.generarMovimientos(movimientos, PRODUCTOS);
+        if ("snapshot".equals(arranque)) {
+            escribirSnapshot();
+        }
+    }
+
+    /**
+     * Foto de los saldos al final del log, como la que escribe el ledger al cerrar
+     */
+    private void escribirSnapshot() throws IOException {
+        String[] skus = new String[PRODUCTOS];
+        for (int i = 0; i < PRODUCTOS; i++) {
+            skus[i] = "SKU" + i;
+        }
+        long[] saldos = new long[PRODUCTOS];
+        FileManager fileManager = new FileManager();
+        long cantidad = fileManager.forEachLine(StockLedger.MOVIMIENTOS_FILE, linea -> {
+            MovimientoStock movimiento = MovimientoStock.fromRegistro(linea);
+            saldos[Integer.parseInt(movimiento.getSku().substring(3))] += movimiento.getDelta();
+        });
+        new StockSnapshot(fileManager.getFileSize(StockLedger.MOVIMIENTOS_FILE), cantidad, skus, saldos)
+                .escribir(StockLedger.SNAPSHOT_FILE);
+    }
+
+    @Benchmark
+    public long cargar() {
+        return StockLedger.getInstance().getMovimientosRegistrados();
+    }
+}
@@ -0,0 +1,110 @@
+package com.programacion.inventario.benchmarks;
+
+import com.programacion.inventario.model.Proveedor;
+import com.programacion.inventario.util.BlockRepository;
+import com.programacion.inventario.util.Metrics;
+import com.programacion.inventario.util.Repositorios;
+import com.programacion.inventario.util.Repository;
+import com.programacion.inventario.util.TextRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Proveedores en texto plano (proveedores.txt) contra bloques comprimidos
+ * (proveedores.blq): carga completa (abrir y recorrer todos los registros,
+ * como la tabla de proveedores) y búsqueda de un proveedor
+ *
+ * Al terminar cada prueba imprime el tamaño del archivo y los bytes leídos
+ * del disco por operación (contador repositorio.bytesLeidos).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Datos.JVM_ARGS)
+public class CompressionBenchmark {
+
+    @Param({"texto", "bloques"})
+    public String tipo;
+
+    @Param({"100000"})
+    public int registros;
+
+    private Path archivo;
+    private Repository<String, Proveedor> repositorio;
+    private final Metrics.Contador bytesLeidos = Metrics.getInstance().contador("repositorio.bytesLeidos");
+    private long bytesAlInicio;
+    private long operaciones;
+
+    @Setup
+    public void preparar() throws IOException {
+        archivo = Datos.directorioDatos().resolve("compresion-" + tipo);
+        Files.deleteIfExists(archivo);
+        repositorio = abrir();
+
+        List<Proveedor> proveedores = new ArrayList<>(registros);
+        for (int i = 0; i < registros; i++) {
+            proveedores.add(Proveedor.fromRegistro(Datos.proveedor(i)));
+        }
+        repositorio.guardarTodos(proveedores);
+    }
+
+    private Repository<String, Proveedor> abrir() {
+        return "bloques".equals(tipo)
+                ? new BlockRepository<>(archivo.toString(), Repositorios.FORMATO_PROVEEDOR)
+                : new TextRepository<>(archivo.toString(), Repositorios.FORMATO_PROVEEDOR, false);
+    }
+
+    @Setup(Level.Iteration)
+    public void iniciarConteo() {
+        bytesAlInicio = bytesLeidos.get();
+        operaciones = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void informar() throws IOException {
+        System.out.printf("  %s: archivo de %d bytes, %d bytes leídos por operación%n", tipo,
+                Files.size(archivo), (bytesLeidos.get() - bytesAlInicio) / Math.max(1, operaciones));
+    }
+
+    @TearDown
+    public void cerrar() {
+        repositorio.close();
+    }
+
+    @Benchmark
+    public long cargar() {
+        operaciones++;
+        long[] cantidad = {0};
+        try (Repository<String, Proveedor> otro = abrir()) {
+            otro.forEach(proveedor -> cantidad[0]++);
+        }
+        return cantidad[0];
+    }
+
+    @Benchmark
+    public Proveedor buscar() {
+        operaciones++;
+        return repositorio.buscar("PRV" + ThreadLocalRandom.current().nextInt(registros));
+    }
+}
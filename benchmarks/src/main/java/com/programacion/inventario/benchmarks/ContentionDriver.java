@@ -0,0 +1,187 @@
+package com.programacion.inventario.benchmarks;
+
+import com.programacion.inventario.model.Proveedor;
+import com.programacion.inventario.util.FileManager;
+import com.programacion.inventario.util.Repositorios;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ContentionDriver - Escrituras concurrentes de varios procesos sobre el mismo
+ * directorio de datos
+ *
+ * Lanza N JVMs que escriben a la vez en el mismo archivo, como varias
+ * instancias de la aplicación sobre un recurso compartido:
+ * - archivo: líneas agregadas con FileManager.writeToFile
+ * - repositorio: proveedores nuevos con Repositorios.proveedores().guardar
+ *   (texto o btree según --repositorio)
+ *
+ * Informa la latencia por proceso, el rendimiento total y si se perdieron o
+ * mezclaron registros. Con --bloqueos no se desactiva FileLocks para ver el
+ * resultado sin coordinación entre procesos.
+ */
+public class ContentionDriver {
+
+    static final String USO = "ContentionDriver directorio [--procesos 4] [--escrituras 2000]"
+            + " [--modo archivo|repositorio] [--repositorio texto|btree] [--bloqueos si|no]";
+
+    private static final String ARCHIVO = "contencion.txt";
+    // Relleno para que cada línea ocupe varios bloques de escritura del FileWriter
+    private static final String RELLENO = "x".repeat(120);
+
+    public static void main(String[] args) {
+        Argumentos argumentos = new Argumentos(args, USO);
+
+        // Debe fijarse antes de que se cargue cualquier clase del inventario
+        System.setProperty("inventario.data", argumentos.posicional());
+        System.setProperty("inventario.repositorio", argumentos.texto("repositorio", "texto"));
+        System.setProperty("inventario.bloqueos", String.valueOf(!"no".equals(argumentos.texto("bloqueos", "si"))));
+
+        try {
+            if (argumentos.texto("proceso", null) != null) {
+                escribir(argumentos);
+            } else {
+                coordinar(argumentos);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Parámetro inválido: " + e.getMessage());
+            System.exit(2);
+        } catch (Exception e) {
+            System.err.println("Error en la prueba de contención: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    // ===== PROCESO COORDINADOR =====
+
+    private static void coordinar(Argumentos argumentos) throws Exception {
+        int procesos = Math.max(1, argumentos.entero("procesos", 4));
+        int escrituras = argumentos.entero("escrituras", 2000);
+        String modo = argumentos.texto("modo", "archivo");
+        if (!"archivo".equals(modo) && !"repositorio".equals(modo)) {
+            throw new IllegalArgumentException("--modo debe ser archivo o repositorio: " + modo);
+        }
+
+        Path directorio = Paths.get(FileManager.DATA_DIRECTORY);
+        Files.createDirectories(directorio);
+        for (String nombre : new String[]{ARCHIVO, "proveedores.txt", "proveedores.db"}) {
+            Files.deleteIfExists(directorio.resolve(nombre));
+        }
+
+        // Todos empiezan a escribir en el mismo instante, con las JVMs ya arrancadas
+        long inicio = System.currentTimeMillis() + 1500 + 100L * procesos;
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<Process> hijos = new ArrayList<>();
+        for (int p = 0; p < procesos; p++) {
+            hijos.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    ContentionDriver.class.getName(), argumentos.posicional(),
+                    "--proceso", String.valueOf(p), "--escrituras", String.valueOf(escrituras),
+                    "--modo", modo, "--inicio", String.valueOf(inicio),
+                    "--repositorio", System.getProperty("inventario.repositorio"),
+                    "--bloqueos", argumentos.texto("bloqueos", "si"))
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start());
+        }
+
+        List<String> filas = new ArrayList<>();
+        long fin = inicio;
+        for (Process hijo : hijos) {
+            try (BufferedReader salida = new BufferedReader(
+                    new InputStreamReader(hijo.getInputStream(), StandardCharsets.UTF_8))) {
+                String linea;
+                while ((linea = salida.readLine()) != null) {
+                    if (linea.startsWith("FIN ")) {
+                        fin = Math.max(fin, Long.parseLong(linea.substring(4)));
+                    } else {
+                        filas.add(linea);
+                    }
+                }
+            }
+            if (hijo.waitFor() != 0) {
+                throw new IllegalStateException("Un proceso de escritura terminó con código " + hijo.exitValue());
+            }
+        }
+
+        long total = (long) procesos * escrituras;
+        double segundos = Math.max(1, fin - inicio) / 1000.0;
+        System.out.println();
+        System.out.println("Contención: " + procesos + " procesos x " + escrituras + " escrituras (" + modo
+                + ("repositorio".equals(modo) ? " " + Repositorios.TIPO : "") + ", bloqueos "
+                + argumentos.texto("bloqueos", "si") + ", " + Runtime.getRuntime().availableProcessors() + " CPU)");
+        System.out.println(Latencias.cabecera());
+        filas.forEach(System.out::println);
+        System.out.printf("Total: %d escrituras en %.2f s (%.0f escrituras/s)%n", total, segundos, total / segundos);
+        System.out.println("archivo".equals(modo) ? verificarArchivo(procesos, escrituras) : verificarRepositorio(total));
+    }
+
+    private static String verificarArchivo(int procesos, int escrituras) {
+        Set<String> vistos = new HashSet<>();
+        int[] mezcladas = {0};
+        new FileManager().forEachLine(FileManager.DATA_DIRECTORY + "/" + ARCHIVO, linea -> {
+            String[] partes = linea.split("\\|");
+            if (partes.length != 3 || !partes[2].equals(RELLENO) || !vistos.add(partes[0] + "|" + partes[1])) {
+                mezcladas[0]++;
+            }
+        });
+        long perdidas = (long) procesos * escrituras - vistos.size();
+        return "Verificación: " + vistos.size() + " líneas íntegras, " + mezcladas[0] + " mezcladas o repetidas, "
+                + perdidas + " perdidas";
+    }
+
+    private static String verificarRepositorio(long esperados) {
+        long guardados = Repositorios.proveedores().contar();
+        Repositorios.cerrar();
+        return "Verificación: " + guardados + " proveedores de " + esperados + " esperados ("
+                + (esperados - guardados) + " perdidos)";
+    }
+
+    // ===== PROCESO DE ESCRITURA =====
+
+    private static void escribir(Argumentos argumentos) throws InterruptedException {
+        int proceso = argumentos.entero("proceso", 0);
+        int escrituras = argumentos.entero("escrituras", 2000);
+        boolean archivo = "archivo".equals(argumentos.texto("modo", "archivo"));
+        long inicio = Long.parseLong(argumentos.texto("inicio", "0"));
+
+        FileManager fileManager = new FileManager();
+        String destino = FileManager.DATA_DIRECTORY + "/" + ARCHIVO;
+        if (!archivo) {
+            Repositorios.proveedores();
+        }
+        Thread.sleep(Math.max(0, inicio - System.currentTimeMillis()));
+
+        Latencias latencias = new Latencias("proceso-" + proceso);
+        Latencias.Hilo registro = new Latencias.Hilo();
+        long t = System.nanoTime();
+        for (int i = 0; i < escrituras; i++) {
+            long t0 = System.nanoTime();
+            if (archivo) {
+                fileManager.writeToFile(destino, "P" + proceso + "|" + i + "|" + RELLENO + "\n", true);
+            } else {
+                Proveedor proveedor = Proveedor.fromRegistro(Datos.proveedor(i));
+                proveedor.setId("C" + proceso + "-" + i);
+                Repositorios.proveedores().guardar(proveedor);
+            }
+            registro.registrar(System.nanoTime() - t0);
+        }
+        latencias.unir(registro);
+        latencias.setDuracionTotal(System.nanoTime() - t);
+        latencias.ordenar();
+        Repositorios.cerrar();
+
+        System.out.println(latencias.fila());
+        System.out.println("FIN " + System.currentTimeMillis());
+    }
+}
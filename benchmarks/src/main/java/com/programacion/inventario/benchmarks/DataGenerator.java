@@ -0,0 +1,131 @@
+package com.programacion.inventario.benchmarks;
+
+import com.programacion.inventario.util.Pbkdf2Hasher;
+import com.programacion.inventario.util.SecurityUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * DataGenerator - Genera un directorio de datos sintético a escala de producción
+ *
+ * Escribe usuarios.txt (mezcla de texto plano, SHA-256 antiguo y PBKDF2 con
+ * rol), proveedores.txt, productos.txt y movimientos.txt. La contraseña de
+ * usuarioN es siempre clave-N, así LoadDriver puede iniciar sesión con
+ * cualquier usuario generado. Con la misma semilla el resultado es idéntico.
+ *
+ * Uso: DataGenerator directorio [--usuarios N] [--textoPlano %] [--sha256 %]
+ *      [--iteraciones N] [--proveedores N] [--productos N] [--movimientos N] [--semilla N]
+ */
+public class DataGenerator {
+
+    static final String USO = "DataGenerator directorio [--usuarios 10000] [--textoPlano 30] [--sha256 30]"
+            + " [--iteraciones 10000] [--proveedores 100000] [--productos 5000] [--movimientos 1000000] [--semilla 42]";
+
+    private static final String[] ROLES = {"Usuario", "Usuario", "Estudiante", "Estudiante", "Profesor", "Administrador"};
+    private static final String[] CATEGORIAS = {"Papelería", "Limpieza", "Electrónica", "Herramientas", "Oficina", "Cafetería"};
+
+    private final Path directorio;
+    private final long semilla;
+
+    public DataGenerator(Path directorio, long semilla) {
+        this.directorio = directorio;
+        this.semilla = semilla;
+    }
+
+    /**
+     * Los hashes PBKDF2 se calculan en paralelo; el archivo se escribe en orden
+     *
+     * @param textoPlano porcentaje de usuarios en texto plano
+     * @param sha256     porcentaje de usuarios con el hash SHA-256 antiguo (el resto usa PBKDF2)
+     */
+    public void generarUsuarios(int cantidad, int textoPlano, int sha256, int iteraciones) throws IOException {
+        Pbkdf2Hasher pbkdf2 = new Pbkdf2Hasher(iteraciones);
+        String[] lineas = new String[cantidad];
+        IntStream.range(0, cantidad).parallel().forEach(i -> {
+            SplittableRandom random = new SplittableRandom(semilla * 31 + i);
+            String nombre = "usuario" + i;
+            String password = Datos.password(i);
+            int formato = random.nextInt(100);
+            if (formato < textoPlano) {
+                lineas[i] = nombre + ":" + password;
+            } else {
+                String salt = "c2FsdC0" + Long.toString(random.nextLong() & Long.MAX_VALUE, 36);
+                if (formato < textoPlano + sha256) {
+                    lineas[i] = nombre + ":" + SecurityUtils.hashPassword(password, salt) + ":" + salt;
+                } else {
+                    lineas[i] = nombre + ":" + pbkdf2.hash(password, salt) + ":" + salt + ":"
+                            + ROLES[random.nextInt(ROLES.length)];
+                }
+            }
+        });
+        escribir("usuarios.txt", cantidad, i -> lineas[i]);
+    }
+
+    public void generarProveedores(int cantidad) throws IOException {
+        escribir("proveedores.txt", cantidad, Datos::proveedor);
+    }
+
+    public void generarProductos(int cantidad, int proveedores) throws IOException {
+        escribir("productos.txt", cantidad, i -> "SKU" + i + "|Producto " + i + "|" + CATEGORIAS[i % CATEGORIAS.length]
+                + "|" + (1 + (i * 37 % 50_000) / 100.0) + "|" + (5 + i % 20) + "|PRV" + (i % Math.max(1, proveedores)));
+    }
+
+    /**
+     * Entradas y salidas sobre los productos generados; se eliminan los
+     * snapshots previos para que el próximo arranque reproduzca el log completo
+     */
+    public void generarMovimientos(int cantidad, int productos) throws IOException {
+        SplittableRandom random = new SplittableRandom(semilla);
+        long inicio = System.currentTimeMillis() - cantidad * 1000L;
+        escribir("movimientos.txt", cantidad, i -> {
+            String tipo = random.nextInt(3) == 0 ? "SALIDA" : "ENTRADA";
+            return (inicio + i * 1000L) + "|SKU" + random.nextInt(Math.max(1, productos)) + "|" + tipo + "|"
+                    + (1 + random.nextInt(20)) + "|carga " + i;
+        });
+        Files.deleteIfExists(directorio.resolve("stock.snapshot"));
+    }
+
+    private void escribir(String archivo, int cantidad, IntFunction<String> linea) throws IOException {
+        long inicio = System.nanoTime();
+        Files.createDirectories(directorio);
+        Path destino = directorio.resolve(archivo);
+        try (BufferedWriter writer = Files.newBufferedWriter(destino, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < cantidad; i++) {
+                writer.write(linea.apply(i));
+                writer.newLine();
+            }
+        }
+        System.out.println(archivo + ": " + cantidad + " registros, " + Files.size(destino) / 1024 + " KB en "
+                + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+    }
+
+    public static void main(String[] args) {
+        Argumentos argumentos = new Argumentos(args, USO);
+        try {
+            DataGenerator generador = new DataGenerator(Paths.get(argumentos.posicional()),
+                    argumentos.entero("semilla", 42));
+            int proveedores = argumentos.entero("proveedores", 100_000);
+            int productos = argumentos.entero("productos", 5_000);
+
+            generador.generarUsuarios(argumentos.entero("usuarios", 10_000), argumentos.entero("textoPlano", 30),
+                    argumentos.entero("sha256", 30), argumentos.entero("iteraciones", Pbkdf2Hasher.MIN_ITERACIONES));
+            generador.generarProveedores(proveedores);
+            generador.generarProductos(productos, proveedores);
+            generador.generarMovimientos(argumentos.entero("movimientos", 1_000_000), productos);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Parámetro inválido: " + e.getMessage());
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("Error al generar datos: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
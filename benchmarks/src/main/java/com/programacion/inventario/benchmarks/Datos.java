@@ -0,0 +1,81 @@
+package com.programacion.inventario.benchmarks;
+
+import com.programacion.inventario.util.FileManager;
+import com.programacion.inventario.util.SecurityUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Datos - Registros sintéticos y deterministas para los benchmarks
+ *
+ * Los benchmarks se ejecutan con -Dinventario.data apuntando a un directorio
+ * propio (ver @Fork en cada clase), así nunca tocan el directorio data/ real.
+ */
+final class Datos {
+
+    static final String JVM_ARGS = "-Dinventario.data=target/datos-benchmark";
+
+    private static final String[] CIUDADES = {"Quito", "Guayaquil", "Cuenca", "Loja", "Ambato", "Manta"};
+
+    private Datos() {
+    }
+
+    static String proveedor(int i) {
+        return "PRV" + i + "|Proveedor " + i + "|Contacto " + (i % 997) + "|09" + (10_000_000 + i % 90_000_000)
+                + "|ventas" + i + "@proveedor.com|Av. Principal " + (i % 500) + ", " + CIUDADES[i % CIUDADES.length];
+    }
+
+    static List<String> proveedores(int cantidad) {
+        List<String> lineas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            lineas.add(proveedor(i));
+        }
+        return lineas;
+    }
+
+    static String movimiento(int i) {
+        String tipo = i % 3 == 0 ? "SALIDA" : "ENTRADA";
+        return (1_700_000_000_000L + i * 1000L) + "|SKU" + (i % 5000) + "|" + tipo + "|" + (1 + i % 50) + "|lote " + i;
+    }
+
+    /**
+     * Usuario con hash SHA-256 (barato de generar y de verificar, para medir la búsqueda)
+     */
+    static String usuario(int i) {
+        String salt = "c2FsdC0" + Integer.toString(i, 36);
+        return "usuario" + i + ":" + SecurityUtils.hashPassword(password(i), salt) + ":" + salt + ":Usuario";
+    }
+
+    static String password(int i) {
+        return "clave-" + i;
+    }
+
+    static Path directorioDatos() {
+        Path directorio = Paths.get(FileManager.DATA_DIRECTORY);
+        try {
+            Files.createDirectories(directorio);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return directorio;
+    }
+
+    static void escribir(Path archivo, List<String> lineas) {
+        try (BufferedWriter writer = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+            for (String linea : lineas) {
+                writer.write(linea);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.programacion.inventario.benchmarks;
+
+import com.programacion.inventario.util.FileManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lectura, agregado y reescritura de proveedores.txt con FileManager
+ * a 1k, 100k y 1M registros
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Datos.JVM_ARGS)
+public class FileManagerBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int registros;
+
+    private FileManager fileManager;
+    private List<String> lineas;
+    private String archivo;
+    private String archivoReescritura;
+    private String nuevaLinea;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        fileManager = new FileManager();
+        lineas = Datos.proveedores(registros);
+        Path directorio = Datos.directorioDatos();
+        archivo = directorio.resolve("proveedores-" + registros + ".txt").toString();
+        archivoReescritura = directorio.resolve("reescritura-" + registros + ".txt").toString();
+        nuevaLinea = Datos.proveedor(registros) + "\n";
+    }
+
+    /**
+     * El archivo vuelve a su tamaño original en cada iteración para que los
+     * agregados no lo hagan crecer sin límite
+     */
+    @Setup(Level.Iteration)
+    public void restaurarArchivo() {
+        Datos.escribir(Path.of(archivo), lineas);
+    }
+
+    @TearDown(Level.Trial)
+    public void limpiar() throws IOException {
+        Files.deleteIfExists(Path.of(archivo));
+        Files.deleteIfExists(Path.of(archivoReescritura));
+    }
+
+    @Benchmark
+    public List<String> leerCompleto() {
+        return fileManager.readFromFile(archivo);
+    }
+
+    @Benchmark
+    public long recorrerLineas(Blackhole blackhole) {
+        return fileManager.forEachLine(archivo, blackhole::consume);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void agregarLinea() {
+        fileManager.writeToFile(archivo, nuevaLinea, true);
+    }
+
+    @Benchmark
+    public boolean reescribir() {
+        return fileManager.rewriteFile(archivoReescritura, lineas);
+    }
+}
@@ -0,0 +1,81 @@
+package com.programacion.inventario.benchmarks;
+
+import com.programacion.inventario.util.Pbkdf2Hasher;
+import com.programacion.inventario.util.SecurityUtils;
+import com.programacion.inventario.util.Sha256Hasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput de hash y verificación de contraseñas
+ *
+ * PBKDF2 se mide con iteraciones fijas (y no con las calibradas al iniciar)
+ * para que los resultados sean comparables entre commits y máquinas.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Datos.JVM_ARGS)
+public class HashingBenchmark {
+
+    private static final String PASSWORD = "clase2024-Segura!";
+    private static final String SALT = "c2FsdC1iZW5jaG1hcmstMTY=";
+
+    @State(Scope.Benchmark)
+    public static class Sha256 {
+        final Sha256Hasher hasher = new Sha256Hasher();
+        String almacenado;
+
+        @Setup
+        public void preparar() {
+            almacenado = SecurityUtils.hashPassword(PASSWORD, SALT);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Pbkdf2 {
+        @Param({"10000", "100000"})
+        public int iteraciones;
+
+        Pbkdf2Hasher hasher;
+        String almacenado;
+
+        @Setup
+        public void preparar() {
+            hasher = new Pbkdf2Hasher(iteraciones);
+            almacenado = hasher.hash(PASSWORD, SALT);
+        }
+    }
+
+    @Benchmark
+    public String sha256Hash() {
+        return SecurityUtils.hashPassword(PASSWORD, SALT);
+    }
+
+    @Benchmark
+    public boolean sha256Verificar(Sha256 estado) {
+        return estado.hasher.verificar(PASSWORD, estado.almacenado, SALT);
+    }
+
+    @Benchmark
+    public String pbkdf2Hash(Pbkdf2 estado) {
+        return estado.hasher.hash(PASSWORD, SALT);
+    }
+
+    @Benchmark
+    public boolean pbkdf2Verificar(Pbkdf2 estado) {
+        return estado.hasher.verificar(PASSWORD, estado.almacenado, SALT);
+    }
+}
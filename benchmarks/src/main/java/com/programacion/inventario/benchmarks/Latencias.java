@@ -0,0 +1,97 @@
+package com.programacion.inventario.benchmarks;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Latencias de un flujo de la prueba de carga y sus percentiles
+ *
+ * Cada hilo registra en su propio arreglo (sin sincronización); al terminar
+ * se unen y se ordenan una sola vez.
+ */
+final class Latencias {
+
+    private final String flujo;
+    private long[] nanos = new long[0];
+    private int cantidad;
+    private long duracionTotal;
+
+    Latencias(String flujo) {
+        this.flujo = flujo;
+    }
+
+    /**
+     * Registro de un hilo
+     */
+    static final class Hilo {
+        private long[] nanos = new long[1024];
+        private int cantidad;
+
+        void registrar(long duracion) {
+            if (cantidad == nanos.length) {
+                nanos = Arrays.copyOf(nanos, cantidad * 2);
+            }
+            nanos[cantidad++] = duracion;
+        }
+    }
+
+    synchronized void unir(Hilo hilo) {
+        nanos = Arrays.copyOf(nanos, cantidad + hilo.cantidad);
+        System.arraycopy(hilo.nanos, 0, nanos, cantidad, hilo.cantidad);
+        cantidad += hilo.cantidad;
+    }
+
+    void setDuracionTotal(long nanosTotales) {
+        this.duracionTotal = nanosTotales;
+    }
+
+    String getFlujo() {
+        return flujo;
+    }
+
+    int getCantidad() {
+        return cantidad;
+    }
+
+    /**
+     * Percentil por rango más cercano, en nanosegundos
+     */
+    long percentil(double p) {
+        if (cantidad == 0) {
+            return 0;
+        }
+        int indice = (int) Math.ceil(p / 100.0 * cantidad) - 1;
+        return nanos[Math.max(0, Math.min(cantidad - 1, indice))];
+    }
+
+    void ordenar() {
+        nanos = Arrays.copyOf(nanos, cantidad);
+        Arrays.sort(nanos);
+    }
+
+    double operacionesPorSegundo() {
+        return duracionTotal == 0 ? 0 : cantidad * 1e9 / duracionTotal;
+    }
+
+    static String cabecera() {
+        return String.format(Locale.ROOT, "%-22s %8s %10s %10s %10s %10s %10s %10s",
+                "flujo", "ops", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+    }
+
+    String fila() {
+        return String.format(Locale.ROOT, "%-22s %8d %10.1f %10.3f %10.3f %10.3f %10.3f %10.3f",
+                flujo, cantidad, operacionesPorSegundo(), ms(percentil(50)), ms(percentil(90)),
+                ms(percentil(99)), ms(percentil(99.9)), ms(percentil(100)));
+    }
+
+    String json() {
+        return String.format(Locale.ROOT, "{\"flujo\":\"%s\",\"ops\":%d,\"opsPorSegundo\":%.1f,"
+                        + "\"p50Ms\":%.3f,\"p90Ms\":%.3f,\"p99Ms\":%.3f,\"p999Ms\":%.3f,\"maxMs\":%.3f}",
+                flujo, cantidad, operacionesPorSegundo(), ms(percentil(50)), ms(percentil(90)),
+                ms(percentil(99)), ms(percentil(99.9)), ms(percentil(100)));
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,173 @@
+package com.programacion.inventario.benchmarks;
+
+import com.programacion.inventario.util.FileManager;
+import com.programacion.inventario.util.LoginService;
+import com.programacion.inventario.util.PasswordHashing;
+import com.programacion.inventario.util.ProveedorColumnStore;
+import com.programacion.inventario.util.StockLedger;
+import com.programacion.inventario.util.UsuarioStore;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+/**
+ * LoadDriver - Prueba de carga de extremo a extremo sin interfaz gráfica
+ *
+ * Ejecuta sobre un directorio de datos (por ejemplo, uno creado con
+ * DataGenerator) los mismos flujos que usan los controladores: arranque de
+ * usuarios y stock, carga de proveedores, login (LoginService), registro y
+ * migración de contraseñas en texto plano. Informa la latencia de cada flujo
+ * en percentiles.
+ *
+ * Los datos se modifican (hashes actualizados, usuarios nuevos, accesos.txt):
+ * conviene usar una copia generada para la prueba.
+ */
+public class LoadDriver {
+
+    static final String USO = "LoadDriver directorio [--logins 2000] [--registros 200] [--hilos 4]"
+            + " [--fallidos 10] [--cargas 5] [--semilla 42] [--limite no|si] [--salida resultados.jsonl]";
+
+    private final Argumentos argumentos;
+    private final List<Latencias> resultados = new ArrayList<>();
+
+    LoadDriver(Argumentos argumentos) {
+        this.argumentos = argumentos;
+    }
+
+    public static void main(String[] args) {
+        Argumentos argumentos = new Argumentos(args, USO);
+
+        // Debe fijarse antes de que se cargue cualquier clase del inventario
+        System.setProperty("inventario.data", argumentos.posicional());
+        if (!"si".equals(argumentos.texto("limite", "no"))) {
+            // Sin límite de intentos: la prueba mide el login, no el throttle
+            System.setProperty("inventario.login.rafagaUsuario", "1000000");
+            System.setProperty("inventario.login.intervaloUsuarioMs", "1");
+            System.setProperty("inventario.login.rafagaGlobal", "1000000");
+            System.setProperty("inventario.login.intervaloGlobalMs", "1");
+        }
+
+        try {
+            new LoadDriver(argumentos).ejecutar();
+        } catch (IllegalArgumentException e) {
+            System.err.println("Parámetro inválido: " + e.getMessage());
+            System.exit(2);
+        } catch (Exception e) {
+            System.err.println("Error en la prueba de carga: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    void ejecutar() throws Exception {
+        int hilos = Math.max(1, argumentos.entero("hilos", 4));
+        long semilla = argumentos.entero("semilla", 42);
+
+        medirUnaVez("arranque-usuarios", UsuarioStore::getInstance);
+        medirUnaVez("calibracion-hash", PasswordHashing::getInstance);
+        medirUnaVez("arranque-stock", StockLedger::getInstance);
+
+        FileManager fileManager = new FileManager();
+        String proveedoresFile = FileManager.DATA_DIRECTORY + "/proveedores.txt";
+        medir("carga-proveedores", argumentos.entero("cargas", 5), 1,
+                i -> ProveedorColumnStore.fromFile(fileManager, proveedoresFile));
+
+        // Los usuarios generados se llaman usuarioN con contraseña clave-N
+        int usuarios = UsuarioStore.getInstance().contar(null);
+        int fallidos = argumentos.entero("fallidos", 10);
+        LoginService loginService = LoginService.getInstance();
+        Map<LoginService.Estado, Integer> estados = new EnumMap<>(LoginService.Estado.class);
+        medir("login", argumentos.entero("logins", 2000), hilos, i -> {
+            SplittableRandom random = new SplittableRandom(semilla * 31 + i);
+            int usuario = random.nextInt(Math.max(1, usuarios));
+            String password = random.nextInt(100) < fallidos ? "incorrecta" : Datos.password(usuario);
+            LoginService.Estado estado = loginService.autenticar("usuario" + usuario, password).getEstado();
+            synchronized (estados) {
+                estados.merge(estado, 1, Integer::sum);
+            }
+        });
+
+        String prefijo = "carga" + Long.toString(System.currentTimeMillis(), 36) + "-";
+        medir("registro", argumentos.entero("registros", 200), hilos,
+                i -> loginService.registrar(prefijo + i, Datos.password(i), UsuarioStore.ROL_POR_DEFECTO));
+
+        medirUnaVez("migracion-texto-plano", () -> UsuarioStore.getInstance().migrarTextoPlano());
+
+        StockLedger.getInstance().cerrar();
+        informar(usuarios, hilos, estados);
+    }
+
+    private void medirUnaVez(String flujo, Runnable operacion) throws Exception {
+        medir(flujo, 1, 1, i -> operacion.run());
+    }
+
+    /**
+     * Ejecuta la operación 'cantidad' veces repartidas entre los hilos
+     */
+    private void medir(String flujo, int cantidad, int hilos, IntConsumer operacion) throws Exception {
+        Latencias latencias = new Latencias(flujo);
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        List<Future<?>> tareas = new ArrayList<>(hilos);
+        long inicio = System.nanoTime();
+        for (int h = 0; h < hilos; h++) {
+            int hilo = h;
+            tareas.add(executor.submit(() -> {
+                Latencias.Hilo registro = new Latencias.Hilo();
+                for (int i = hilo; i < cantidad; i += hilos) {
+                    long t0 = System.nanoTime();
+                    operacion.accept(i);
+                    registro.registrar(System.nanoTime() - t0);
+                }
+                latencias.unir(registro);
+            }));
+        }
+        try {
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        latencias.setDuracionTotal(System.nanoTime() - inicio);
+        latencias.ordenar();
+        resultados.add(latencias);
+    }
+
+    private void informar(int usuarios, int hilos, Map<LoginService.Estado, Integer> estados) throws IOException {
+        System.out.println();
+        System.out.println("Prueba de carga: " + FileManager.DATA_DIRECTORY + " (" + usuarios + " usuarios, "
+                + hilos + " hilos, " + Runtime.getRuntime().availableProcessors() + " CPU)");
+        System.out.println("Resultados de login: " + estados);
+        System.out.println(Latencias.cabecera());
+        for (Latencias latencias : resultados) {
+            System.out.println(latencias.fila());
+        }
+
+        String salida = argumentos.texto("salida", null);
+        if (salida != null) {
+            StringBuilder lineas = new StringBuilder();
+            long ahora = System.currentTimeMillis();
+            for (Latencias latencias : resultados) {
+                String json = latencias.json();
+                lineas.append("{\"timestamp\":").append(ahora).append(",\"usuarios\":").append(usuarios)
+                        .append(",\"hilos\":").append(hilos).append(',').append(json, 1, json.length()).append('\n');
+            }
+            Files.writeString(Paths.get(salida), lineas, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            System.out.println("Resultados agregados a " + salida);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.programacion.inventario.benchmarks;
+
+import com.programacion.inventario.util.SessionManager;
+import com.programacion.inventario.util.Sha256Hasher;
+import com.programacion.inventario.util.UsuarioStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsqueda del usuario en el login, con usuarios.txt de 1k y 100k registros
+ *
+ * Los registros usan SHA-256 para que el costo medido sea el de la búsqueda
+ * y no el de PBKDF2 (medido aparte en HashingBenchmark). Cada combinación de
+ * parámetros corre en su propia JVM, así UsuarioStore carga el archivo una vez.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Datos.JVM_ARGS)
+public class LoginBenchmark {
+
+    @Param({"1000", "100000"})
+    public int usuarios;
+
+    private final Sha256Hasher hasher = new Sha256Hasher();
+    private UsuarioStore store;
+    private SessionManager sessionManager;
+
+    @Setup
+    public void preparar() {
+        List<String> lineas = new ArrayList<>(usuarios);
+        for (int i = 0; i < usuarios; i++) {
+            lineas.add(Datos.usuario(i));
+        }
+        Datos.directorioDatos();
+        Datos.escribir(Path.of(UsuarioStore.USUARIOS_FILE), lineas);
+        store = UsuarioStore.getInstance();
+
+        sessionManager = SessionManager.getInstance();
+        sessionManager.iniciar("usuario0", UsuarioStore.ROL_POR_DEFECTO, Datos.password(0));
+    }
+
+    @Benchmark
+    public UsuarioStore.Registro buscarUsuario() {
+        return store.getRegistro("usuario" + ThreadLocalRandom.current().nextInt(usuarios));
+    }
+
+    @Benchmark
+    public boolean validarCredencial() {
+        int i = ThreadLocalRandom.current().nextInt(usuarios);
+        UsuarioStore.Registro registro = store.getRegistro("usuario" + i);
+        return registro != null && hasher.verificar(Datos.password(i), registro.getHash(), registro.getSalt());
+    }
+
+    @Benchmark
+    public boolean reautenticar() {
+        return sessionManager.reautenticar("usuario0", Datos.password(0));
+    }
+
+    @Benchmark
+    public boolean usuarioInexistente() {
+        return store.getRegistro("no-existe-" + ThreadLocalRandom.current().nextInt(usuarios)) != null;
+    }
+}
@@ -0,0 +1,50 @@
+package com.programacion.inventario.benchmarks;
+
+import com.programacion.inventario.model.Proveedor;
+import com.programacion.inventario.util.ProveedorColumnStore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MemoryDriver - Heap usado por los proveedores en ArrayList<Proveedor>
+ * frente a ProveedorColumnStore
+ *
+ * Mide el heap ocupado después de varios System.gc(), así que conviene
+ * ejecutarlo con un heap amplio (p. ej. -Xmx2g). Argumento opcional: filas
+ * (1.000.000 por defecto).
+ */
+public class MemoryDriver {
+
+    public static void main(String[] args) {
+        int filas = args.length > 0 ? Integer.parseInt(args[0].replace("_", "")) : 1_000_000;
+
+        long base = heapUsado();
+        List<Proveedor> lista = new ArrayList<>();
+        for (int i = 0; i < filas; i++) {
+            lista.add(Proveedor.fromRegistro(Datos.proveedor(i)));
+        }
+        long bytesModelo = heapUsado() - base;
+        System.out.printf("ArrayList<Proveedor>: %,d bytes (%d bytes/fila)%n", bytesModelo, bytesModelo / filas);
+        System.out.println("Filas en la lista: " + lista.size()); // Mantiene la lista viva hasta medir
+        lista = null;
+
+        base = heapUsado();
+        ProveedorColumnStore store = new ProveedorColumnStore();
+        for (int i = 0; i < filas; i++) {
+            store.agregar(Proveedor.fromRegistro(Datos.proveedor(i)));
+        }
+        long bytesColumnas = heapUsado() - base;
+        System.out.printf("ProveedorColumnStore: %,d bytes (%d bytes/fila)%n", bytesColumnas, bytesColumnas / filas);
+        System.out.printf("Reducción: %.1f%%%n", 100.0 * (bytesModelo - bytesColumnas) / bytesModelo);
+        System.out.println("Filas en el store: " + store.size());
+    }
+
+    private static long heapUsado() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
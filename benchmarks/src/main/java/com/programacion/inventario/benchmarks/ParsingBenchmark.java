@@ -0,0 +1,71 @@
+package com.programacion.inventario.benchmarks;
+
+import com.programacion.inventario.model.MovimientoStock;
+import com.programacion.inventario.model.Proveedor;
+import com.programacion.inventario.util.UsuarioStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interpretación de líneas de proveedores.txt, movimientos.txt y usuarios.txt
+ * (tiempo por línea, sobre un lote de líneas distintas)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Datos.JVM_ARGS)
+public class ParsingBenchmark {
+
+    private static final int LOTE = 1024;
+
+    private final String[] proveedores = new String[LOTE];
+    private final String[] movimientos = new String[LOTE];
+    private final String[] usuarios = new String[LOTE];
+
+    @Setup
+    public void preparar() {
+        for (int i = 0; i < LOTE; i++) {
+            proveedores[i] = Datos.proveedor(i);
+            movimientos[i] = Datos.movimiento(i);
+            usuarios[i] = Datos.usuario(i);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public void proveedor(Blackhole blackhole) {
+        for (String linea : proveedores) {
+            blackhole.consume(Proveedor.fromRegistro(linea));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public void movimiento(Blackhole blackhole) {
+        for (String linea : movimientos) {
+            blackhole.consume(MovimientoStock.fromRegistro(linea));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public void usuario(Blackhole blackhole) {
+        for (String linea : usuarios) {
+            blackhole.consume(UsuarioStore.parsear(linea));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.programacion.inventario.benchmarks;
+
+import com.programacion.inventario.model.Proveedor;
+import com.programacion.inventario.util.BTreeRepository;
+import com.programacion.inventario.util.BlockRepository;
+import com.programacion.inventario.util.Repositorios;
+import com.programacion.inventario.util.Repository;
+import com.programacion.inventario.util.TextRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsqueda, actualización y recorrido por rango de proveedores con el
+ * repositorio de texto (líneas simples o registros enmarcados con CRC32C),
+ * con bloques comprimidos y con el árbol B+, y apertura del repositorio
+ * (carga del índice o lectura de la cabecera del árbol).
+ *
+ * El rango cubre los ids con un mismo prefijo de tres cifras (p. ej. PRV123,
+ * PRV1230..PRV1239, PRV12300..PRV12399): 111 registros con 100k proveedores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Datos.JVM_ARGS)
+public class RepositoryBenchmark {
+
+    @Param({"texto", "enmarcado", "bloques", "btree"})
+    public String tipo;
+
+    @Param({"10000", "100000"})
+    public int registros;
+
+    private Path archivo;
+    private Repository<String, Proveedor> repositorio;
+
+    @Setup
+    public void preparar() throws IOException {
+        archivo = Datos.directorioDatos().resolve("repositorio-" + tipo);
+        Files.deleteIfExists(archivo);
+        repositorio = abrir();
+
+        List<Proveedor> proveedores = new ArrayList<>(registros);
+        for (int i = 0; i < registros; i++) {
+            proveedores.add(Proveedor.fromRegistro(Datos.proveedor(i)));
+        }
+        repositorio.guardarTodos(proveedores);
+    }
+
+    private Repository<String, Proveedor> abrir() {
+        if ("btree".equals(tipo)) {
+            return new BTreeRepository<>(archivo.toString(), Repositorios.FORMATO_PROVEEDOR);
+        }
+        if ("bloques".equals(tipo)) {
+            return new BlockRepository<>(archivo.toString(), Repositorios.FORMATO_PROVEEDOR);
+        }
+        return new TextRepository<>(archivo.toString(), Repositorios.FORMATO_PROVEEDOR, "enmarcado".equals(tipo));
+    }
+
+    @TearDown
+    public void cerrar() {
+        repositorio.close();
+    }
+
+    @Benchmark
+    public long cargar() {
+        try (Repository<String, Proveedor> otro = abrir()) {
+            return otro.contar();
+        }
+    }
+
+    @Benchmark
+    public Proveedor buscar() {
+        return repositorio.buscar("PRV" + ThreadLocalRandom.current().nextInt(registros));
+    }
+
+    @Benchmark
+    public void actualizar() {
+        int i = ThreadLocalRandom.current().nextInt(registros);
+        Proveedor proveedor = Proveedor.fromRegistro(Datos.proveedor(i));
+        proveedor.setTelefono("09" + ThreadLocalRandom.current().nextInt(10_000_000, 99_999_999));
+        repositorio.guardar(proveedor);
+    }
+
+    @Benchmark
+    public int recorrerRango() {
+        String prefijo = "PRV" + (100 + ThreadLocalRandom.current().nextInt(Math.max(1, registros / 100 - 100)));
+        int[] cantidad = {0};
+        repositorio.recorrer(prefijo, prefijo + Character.MAX_VALUE, proveedor -> cantidad[0]++);
+        return cantidad[0];
+    }
+}
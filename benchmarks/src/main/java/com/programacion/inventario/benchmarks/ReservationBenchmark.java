@@ -0,0 +1,99 @@
+package com.programacion.inventario.benchmarks;
+
+import com.programacion.inventario.model.Producto;
+import com.programacion.inventario.util.StockLedger;
+import com.programacion.inventario.util.StockReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ventas (reservar y confirmar) con 1, 4 y 16 hilos sobre un solo SKU o
+ * repartidas entre 64
+ *
+ * Cada confirmación agrega su línea a movimientos.txt; con varios hilos las
+ * líneas se escriben en lotes. Al terminar se verifica que el disponible de
+ * cada SKU coincida con el saldo del ledger (ver ReservationDriver para la
+ * prueba de sobreventa).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Datos.JVM_ARGS)
+public class ReservationBenchmark {
+
+    // Alcanza para todas las ventas de la prueba
+    private static final long STOCK_INICIAL = 1_000_000_000L;
+
+    @Param({"1", "64"})
+    public int skus;
+
+    private StockLedger ledger;
+    private StockReservationService reservas;
+
+    @Setup
+    public void preparar() throws IOException {
+        for (String archivo : new String[]{"productos.txt", "movimientos.txt", "stock.snapshot"}) {
+            Files.deleteIfExists(Datos.directorioDatos().resolve(archivo));
+        }
+        ledger = StockLedger.getInstance();
+        for (int i = 0; i < skus; i++) {
+            ledger.agregarProducto(new Producto(sku(i), "Producto " + i, "Prueba", 1.0));
+            ledger.registrarEntrada(sku(i), STOCK_INICIAL, "inicial");
+        }
+        reservas = StockReservationService.getInstance();
+    }
+
+    private static String sku(int i) {
+        return "RES" + i;
+    }
+
+    @TearDown
+    public void verificar() {
+        for (int i = 0; i < skus; i++) {
+            if (reservas.getDisponible(sku(i)) != ledger.getStock(sku(i))) {
+                throw new IllegalStateException("Disponible y saldo no coinciden para " + sku(i));
+            }
+        }
+        ledger.cerrar();
+    }
+
+    private boolean vender() {
+        return reservas.vender(sku(ThreadLocalRandom.current().nextInt(skus)), 1, "venta");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean vender1() {
+        return vender();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean vender4() {
+        return vender();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean vender16() {
+        return vender();
+    }
+}
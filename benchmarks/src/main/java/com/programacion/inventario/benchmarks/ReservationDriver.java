@@ -0,0 +1,133 @@
+package com.programacion.inventario.benchmarks;
+
+import com.programacion.inventario.model.MovimientoStock;
+import com.programacion.inventario.model.Producto;
+import com.programacion.inventario.util.FileManager;
+import com.programacion.inventario.util.StockLedger;
+import com.programacion.inventario.util.StockReservationService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ReservationDriver - Prueba de sobreventa con varios hilos vendiendo el
+ * mismo producto
+ *
+ * Carga un SKU con un stock limitado y lanza N hilos que venden (reservar y
+ * confirmar) de 1 a 3 unidades hasta agotarlo; la mitad de las reservas se
+ * liberan antes de confirmar. Al terminar verifica que las unidades vendidas
+ * no superen el stock, que el saldo del ledger, el disponible del servicio
+ * y la suma de movimientos.txt coincidan, y que el saldo nunca sea negativo.
+ *
+ * Usa un directorio propio: borra los productos y movimientos que contenga.
+ */
+public class ReservationDriver {
+
+    static final String USO = "ReservationDriver directorio [--hilos 16] [--stock 20000]";
+
+    private static final String SKU = "SOBREVENTA";
+
+    public static void main(String[] args) {
+        Argumentos argumentos = new Argumentos(args, USO);
+
+        // Debe fijarse antes de que se cargue cualquier clase del inventario
+        System.setProperty("inventario.data", argumentos.posicional());
+
+        try {
+            System.exit(ejecutar(Math.max(1, argumentos.entero("hilos", 16)), argumentos.entero("stock", 20_000))
+                    ? 0 : 1);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Parámetro inválido: " + e.getMessage());
+            System.exit(2);
+        } catch (Exception e) {
+            System.err.println("Error en la prueba de sobreventa: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private static boolean ejecutar(int hilos, long stock) throws Exception {
+        Path directorio = Paths.get(FileManager.DATA_DIRECTORY);
+        Files.createDirectories(directorio);
+        for (String nombre : new String[]{"productos.txt", "movimientos.txt", "stock.snapshot"}) {
+            Files.deleteIfExists(directorio.resolve(nombre));
+        }
+
+        StockLedger ledger = StockLedger.getInstance();
+        ledger.agregarProducto(new Producto(SKU, "Producto disputado", "Prueba", 1.0));
+        ledger.registrarEntrada(SKU, stock, "inicial");
+        StockReservationService reservas = StockReservationService.getInstance();
+
+        AtomicLong vendidas = new AtomicLong();
+        AtomicLong rechazadas = new AtomicLong();
+        AtomicLong saldoNegativo = new AtomicLong();
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Thread> trabajadores = new ArrayList<>(hilos);
+        for (int h = 0; h < hilos; h++) {
+            Thread hilo = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    salida.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                // Se detiene tras varios rechazos seguidos: ya no queda stock para ninguna cantidad
+                int rechazosSeguidos = 0;
+                while (rechazosSeguidos < 50) {
+                    long cantidad = 1 + random.nextInt(3);
+                    long id = reservas.reservar(SKU, cantidad);
+                    if (id < 0) {
+                        rechazadas.incrementAndGet();
+                        rechazosSeguidos++;
+                        continue;
+                    }
+                    rechazosSeguidos = 0;
+                    if (random.nextBoolean()) {
+                        reservas.liberar(id);
+                    } else if (reservas.confirmar(id, "venta")) {
+                        vendidas.addAndGet(cantidad);
+                    }
+                    if (ledger.getStock(SKU) < 0) {
+                        saldoNegativo.incrementAndGet();
+                    }
+                }
+            }, "venta-" + h);
+            hilo.start();
+            trabajadores.add(hilo);
+        }
+
+        long inicio = System.nanoTime();
+        salida.countDown();
+        for (Thread hilo : trabajadores) {
+            hilo.join();
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        ledger.cerrar();
+
+        long[] enArchivo = {0};
+        new FileManager().forEachLine(StockLedger.MOVIMIENTOS_FILE, linea -> {
+            MovimientoStock movimiento = MovimientoStock.fromRegistro(linea);
+            if (movimiento != null && SKU.equals(movimiento.getSku())) {
+                enArchivo[0] += movimiento.getDelta();
+            }
+        });
+
+        long saldo = ledger.getStock(SKU);
+        boolean correcto = vendidas.get() <= stock && saldoNegativo.get() == 0 && saldo == stock - vendidas.get()
+                && reservas.getDisponible(SKU) == saldo && enArchivo[0] == saldo;
+
+        System.out.printf("Sobreventa: %d hilos, stock inicial %d, %d unidades vendidas en %.2f s, %d reservas rechazadas%n",
+                hilos, stock, vendidas.get(), segundos, rechazadas.get());
+        System.out.printf("Saldo del ledger %d, disponible %d, suma de movimientos.txt %d, lecturas negativas %d%n",
+                saldo, reservas.getDisponible(SKU), enArchivo[0], saldoNegativo.get());
+        System.out.println("Verificación: " + (correcto ? "correcta" : "FALLIDA"));
+        return correcto;
+    }
+}
@@ -0,0 +1,83 @@
+package com.programacion.inventario.benchmarks;
+
+import com.programacion.inventario.model.Proveedor;
+import com.programacion.inventario.util.Repositorios;
+import com.programacion.inventario.util.Repository;
+import com.programacion.inventario.util.ShardedRepository;
+import com.programacion.inventario.util.TextRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carga de proveedores repartidos en 1, 2, 4 u 8 particiones de texto:
+ * abrir todas (cada una arma su índice) y pasar los registros a un mapa por
+ * id, como la carga de la tabla o de UsuarioStore
+ *
+ * La mejora depende de los núcleos disponibles; con una sola partición es la
+ * carga secuencial de un único archivo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Datos.JVM_ARGS)
+public class ShardingBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int particiones;
+
+    @Param({"200000"})
+    public int registros;
+
+    private List<String> archivos;
+
+    @Setup
+    public void preparar() throws IOException {
+        archivos = new ArrayList<>(particiones);
+        for (int i = 0; i < particiones; i++) {
+            Path archivo = Datos.directorioDatos().resolve("particion-" + i + "de" + particiones + ".txt");
+            Files.deleteIfExists(archivo);
+            archivos.add(archivo.toString());
+        }
+        List<Proveedor> proveedores = new ArrayList<>(registros);
+        for (int i = 0; i < registros; i++) {
+            proveedores.add(Proveedor.fromRegistro(Datos.proveedor(i)));
+        }
+        try (Repository<String, Proveedor> repositorio = abrir()) {
+            repositorio.guardarTodos(proveedores);
+        }
+    }
+
+    private Repository<String, Proveedor> abrir() {
+        return new ShardedRepository<>(archivos, Repositorios.FORMATO_PROVEEDOR,
+                archivo -> new TextRepository<>(archivo, Repositorios.FORMATO_PROVEEDOR, false));
+    }
+
+    @Benchmark
+    public Map<String, Proveedor> cargar() {
+        Map<String, Proveedor> porId = new HashMap<>(registros * 2);
+        try (Repository<String, Proveedor> repositorio = abrir()) {
+            repositorio.forEach(proveedor -> porId.put(proveedor.getId(), proveedor));
+        }
+        return porId;
+    }
+}
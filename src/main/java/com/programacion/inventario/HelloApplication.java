@@ -1,6 +1,13 @@
 package com.programacion.inventario;
 
+import com.programacion.inventario.util.Log;
+import com.programacion.inventario.util.Metrics;
 import com.programacion.inventario.util.NavigationManager;
+import com.programacion.inventario.util.PasswordHashing;
+import com.programacion.inventario.util.Repositorios;
+import com.programacion.inventario.util.StockLedger;
+import com.programacion.inventario.util.SystemStatistics;
+import com.programacion.inventario.util.UsuarioStore;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -9,11 +16,31 @@ import javafx.stage.Stage;
 import java.io.IOException;
 
 public class HelloApplication extends Application {
+
+    private static final Log LOG = Log.get(HelloApplication.class);
+
     @Override
     public void start(Stage stage) throws IOException {
         // Inicializar el NavigationManager con el stage principal
         NavigationManager navigationManager = NavigationManager.getInstance();
         navigationManager.initialize(stage);
+
+        // Cargar el inventario y las estadísticas en segundo plano (snapshot + cola del log de movimientos)
+        Thread cargaInventario = new Thread(() -> {
+            StockLedger.getInstance();
+            SystemStatistics.getInstance();
+            UsuarioStore.getInstance();
+        }, "carga-inventario");
+        cargaInventario.setDaemon(true);
+        cargaInventario.start();
+
+        // Calibrar el costo de PBKDF2 antes del primer login
+        Thread calibracion = new Thread(PasswordHashing::getInstance, "calibracion-hash");
+        calibracion.setDaemon(true);
+        calibracion.start();
+
+        // Volcado periódico de métricas a data/metrics.jsonl
+        Metrics.getInstance().iniciarVolcado();
         
         // Cargar la vista de login por defecto
         FXMLLoader fxmlLoader = new FXMLLoader(HelloApplication.class.getResource("view/login-view.fxml"));
@@ -27,7 +54,16 @@ public class HelloApplication extends Application {
         stage.setScene(scene);
         stage.show();
         
-        System.out.println("Aplicación iniciada - Sistema de navegación configurado");
+        LOG.info("Aplicación iniciada - Sistema de navegación configurado");
+    }
+
+    @Override
+    public void stop() {
+        // Guardar una foto final de los saldos para acelerar el próximo arranque
+        StockLedger.getInstance().cerrar();
+        Metrics.getInstance().volcar();
+        Repositorios.cerrar();
+        Log.cerrar();
     }
 
     public static void main(String[] args) {
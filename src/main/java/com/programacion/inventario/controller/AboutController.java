@@ -1,5 +1,6 @@
 package com.programacion.inventario.controller;
 
+import com.programacion.inventario.util.Log;
 import com.programacion.inventario.util.NavigationManager;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -14,9 +15,11 @@ import java.util.ResourceBundle;
  */
 public class AboutController implements Initializable {
 
+    private static final Log LOG = Log.get(AboutController.class);
+
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        System.out.println("AboutController inicializado");
+        LOG.debug("AboutController inicializado");
     }
 
     /**
@@ -28,7 +31,7 @@ public class AboutController implements Initializable {
             NavigationManager navigationManager = NavigationManager.getInstance();
             navigationManager.navigateTo(NavigationManager.Screen.MAIN);
         } catch (Exception e) {
-            System.err.println("Error al volver al menú: " + e.getMessage());
+            LOG.error("Error al volver al menú", e);
             showAlert("Error", "No se pudo volver al menú principal", Alert.AlertType.ERROR);
         }
     }
@@ -0,0 +1,116 @@
+package com.programacion.inventario.controller;
+
+import com.programacion.inventario.util.Log;
+import com.programacion.inventario.util.Metrics;
+import com.programacion.inventario.util.NavigationManager;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.*;
+import javafx.stage.Window;
+import javafx.util.Duration;
+
+import java.net.URL;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+/**
+ * DiagnosticoController - Pantalla con las métricas del proceso
+ *
+ * Muestra contadores, gauges e histogramas del registro Metrics y se
+ * actualiza cada 2 segundos mientras la pantalla está visible.
+ */
+public class DiagnosticoController implements Initializable {
+
+    private static final Log LOG = Log.get(DiagnosticoController.class);
+
+    private static final int COLUMNAS = 7;
+
+    @FXML private Label estadoLabel;
+    @FXML private TableView<String[]> metricasTable;
+    @FXML private TableColumn<String[], String> nombreColumn;
+    @FXML private TableColumn<String[], String> tipoColumn;
+    @FXML private TableColumn<String[], String> valorColumn;
+    @FXML private TableColumn<String[], String> mediaColumn;
+    @FXML private TableColumn<String[], String> p50Column;
+    @FXML private TableColumn<String[], String> p99Column;
+    @FXML private TableColumn<String[], String> maxColumn;
+
+    private final ObservableList<String[]> filas = FXCollections.observableArrayList();
+    private final Timeline actualizacion = new Timeline(new KeyFrame(Duration.seconds(2), event -> actualizar()));
+
+    @Override
+    public void initialize(URL url, ResourceBundle resourceBundle) {
+        List<TableColumn<String[], String>> columnas = List.of(nombreColumn, tipoColumn, valorColumn,
+                mediaColumn, p50Column, p99Column, maxColumn);
+        for (int i = 0; i < COLUMNAS; i++) {
+            int indice = i;
+            columnas.get(i).setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue()[indice]));
+        }
+        metricasTable.setItems(filas);
+        actualizar();
+
+        // La actualización se detiene cuando la ventana cambia de pantalla
+        actualizacion.setCycleCount(Timeline.INDEFINITE);
+        actualizacion.play();
+        Platform.runLater(() -> {
+            if (metricasTable.getScene() == null || metricasTable.getScene().getWindow() == null) {
+                actualizacion.stop();
+                return;
+            }
+            Window ventana = metricasTable.getScene().getWindow();
+            ventana.sceneProperty().addListener((obs, anterior, nueva) -> {
+                if (nueva != metricasTable.getScene()) {
+                    actualizacion.stop();
+                }
+            });
+        });
+
+        LOG.debug("DiagnosticoController inicializado");
+    }
+
+    @FXML
+    private void actualizar() {
+        Metrics metrics = Metrics.getInstance();
+        List<String[]> nuevas = new ArrayList<>();
+        for (Map.Entry<String, Long> contador : metrics.getContadores().entrySet()) {
+            nuevas.add(new String[]{contador.getKey(), "contador", String.valueOf(contador.getValue()), "", "", "", ""});
+        }
+        for (Map.Entry<String, Long> gauge : metrics.getGauges().entrySet()) {
+            nuevas.add(new String[]{gauge.getKey(), "gauge", String.valueOf(gauge.getValue()), "", "", "", ""});
+        }
+        for (Map.Entry<String, Metrics.Histograma> entrada : metrics.getHistogramas().entrySet()) {
+            Metrics.Histograma h = entrada.getValue();
+            nuevas.add(new String[]{entrada.getKey(), "histograma", String.valueOf(h.getCantidad()),
+                    ms(h.getMedia()), ms(h.percentil(50)), ms(h.percentil(99)), ms(h.getMaximo())});
+        }
+        filas.setAll(nuevas);
+        estadoLabel.setText("Actualizado: " + new SimpleDateFormat("HH:mm:ss").format(new Date()));
+    }
+
+    @FXML
+    private void volcar() {
+        Metrics.getInstance().volcar();
+        estadoLabel.setText("Métricas agregadas a " + Metrics.METRICS_FILE);
+    }
+
+    @FXML
+    private void volverAlMenu() {
+        actualizacion.stop();
+        NavigationManager.getInstance().navigateTo(NavigationManager.Screen.MAIN);
+    }
+
+    private static String ms(double nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+}
@@ -1,38 +1,55 @@
 package com.programacion.inventario.controller;
 
 import com.programacion.inventario.util.FileManager;
+import com.programacion.inventario.util.Log;
+import com.programacion.inventario.util.LoginService;
 import com.programacion.inventario.util.NavigationManager;
-import com.programacion.inventario.util.SecurityUtils;
+import com.programacion.inventario.util.Repositorios;
+import com.programacion.inventario.util.SecurityAuditor;
+import com.programacion.inventario.util.UsuarioStore;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
 
+import java.io.BufferedReader;
+import java.io.Writer;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 
 public class LoginController implements Initializable {
+
+    private static final Log LOG = Log.get(LoginController.class);
+
     @FXML private TextField usernameField;
     @FXML private PasswordField passwordField;
     @FXML private Button loginButton;
     @FXML private Button registerButton;
     @FXML private Label messageLabel;
     @FXML private Button decryptButton;
+    @FXML private Button migrateButton;
     @FXML private VBox securityReportBox;
     @FXML private Text securityReportText;
 
     private FileManager fileManager;
     private String USERS_FILE;
 
+    // Líneas del detalle que se muestran en el panel del reporte de seguridad
+    private static final int PREVIEW_LINES = 60;
+
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         // Inicializar los managers
         fileManager = new FileManager();
-        this.USERS_FILE = fileManager.DATA_DIRECTORY + "/usuarios.txt";
+        this.USERS_FILE = UsuarioStore.USUARIOS_FILE;
 
         // Configurar eventos de teclado (Enter para login)
         passwordField.setOnAction(event -> handleLogin());
@@ -45,7 +62,7 @@ public class LoginController implements Initializable {
         // Ocultar panel de reporte inicialmente
         securityReportBox.setVisible(false);
 
-        System.out.println("LoginController inicializado - Sistema de cifrado listo");
+        LOG.debug("LoginController inicializado - Sistema de cifrado listo");
     }
 
     /**
@@ -76,9 +93,15 @@ public class LoginController implements Initializable {
 
         try {
             // CONCEPTO CLAVE: Validación de credenciales desde archivo TXT
-            boolean isValid = validateUserCredentials(username, password);
-
-            if (isValid) {
+            // (límite de intentos, credencial reciente en memoria, hash y sesión en LoginService)
+            LoginService.Resultado resultado = LoginService.getInstance().autenticar(username, password);
+
+            if (resultado.getEstado() == LoginService.Estado.LIMITADO) {
+                showMessage("Demasiados intentos. Espere " + (resultado.getEsperaMs() + 999) / 1000
+                        + " s e intente de nuevo", "error");
+            } else if (resultado.isExitoso()) {
+                String role = resultado.getRol();
+                String sessionToken = resultado.getToken();
                 showMessage("¡Login exitoso! Cargando sistema principal...", "success");
 
                 // Pequeña pausa para mostrar el mensaje
@@ -96,14 +119,15 @@ public class LoginController implements Initializable {
                             // Crear parámetros para pasar al MainController
                             Map<String, Object> parameters = new HashMap<>();
                             parameters.put("username", username);
-                            parameters.put("role", "Usuario"); // Por defecto, se puede mejorar
+                            parameters.put("role", role);
+                            parameters.put("sessionToken", sessionToken);
 
                             // Navegar a la pantalla principal
                             NavigationManager navigationManager = NavigationManager.getInstance();
                             navigationManager.navigateTo(NavigationManager.Screen.MAIN, parameters);
 
                         } catch (Exception e) {
-                            System.err.println("Error al navegar: " + e.getMessage());
+                            LOG.error("Error al navegar a la pantalla principal", e);
                             showMessage("Error al cargar la pantalla principal", "error");
                         }
                     }
@@ -150,10 +174,8 @@ public class LoginController implements Initializable {
             return;
         }
 
-        // Verificar si el usuario ya existe
-        if (validateUserCredentials(username, "dummy")) {
-            // Si las credenciales son válidas con cualquier contraseña dummy,
-            // significa que el usuario ya existe
+        // Verificar si el usuario ya existe (búsqueda en el índice por nombre)
+        if (UsuarioStore.getInstance().existe(username)) {
             showMessage("El usuario ya existe. Intente con otro nombre.", "error");
             return;
         }
@@ -218,139 +240,87 @@ public class LoginController implements Initializable {
     }
 
     /**
-     * Guarda credenciales de usuario con cifrado SHA-256
+     * Guarda credenciales de usuario con el hash actual (PBKDF2 calibrado)
      */
     private boolean saveUserCredentials(String username, String password) {
-        try {
-            String salt = SecurityUtils.generateSalt();
-            String hashedPassword = SecurityUtils.hashPassword(password, salt);
-            String userRecord = username + ":" + hashedPassword + ":" + salt + "\n";
-
-            fileManager.writeToFile(USERS_FILE, userRecord, true);
-            System.out.println("Credenciales cifradas guardadas para usuario: " + username);
-            return true;
-        } catch (Exception e) {
-            System.err.println("Error al guardar credenciales cifradas: " + e.getMessage());
-            return false;
-        }
-    }
-
-    private void createDefaultUser() {
-        //SEEDER con cifrado
-        saveUserCredentials("admin", "admin123");
-        saveUserCredentials("profesor", "clase2024");
+        return LoginService.getInstance().registrar(username, password, UsuarioStore.ROL_POR_DEFECTO);
     }
 
     /**
      * Valida credenciales de usuario contra hashes almacenados
+     * (la lógica, incluida la actualización del hash, está en LoginService)
      */
     public boolean validateUserCredentials(String username, String password) {
-        try {
-            // Verificar si el archivo existe
-            if (!fileManager.fileExists(USERS_FILE)) {
-                System.out.println("Archivo de usuarios no existe, creando usuario por defecto...");
-                createDefaultUser();
-                return false;
-            }
-
-            List<String> listUsuarios = fileManager.readFromFile(USERS_FILE);
-            boolean needsMigration = false;
-
-            for(int i = 0; i < listUsuarios.size(); i++) {
-                String line = listUsuarios.get(i);
-                if (line.trim().isEmpty()) continue;
-
-                // Migrar formato antiguo si es necesario
-                if (SecurityUtils.isPlainTextFormat(line)) {
-                    String migratedLine = SecurityUtils.migrateToHashedFormat(line);
-                    listUsuarios.set(i, migratedLine);
-                    needsMigration = true;
-                    line = migratedLine;
-                }
-
-                String[] credentials = line.split(":");
-                if (credentials.length == 3 && credentials[0].equals(username)) {
-                    String storedHash = credentials[1];
-                    String salt = credentials[2];
-
-                    boolean isValid = SecurityUtils.verifyPassword(password, storedHash, salt);
-                    if (isValid) {
-                        System.out.println("Credenciales válidas para: " + username);
-                        return true;
-                    }
-                }
-            }
-
-            // Migrar archivo completo si se detectaron formatos antiguos
-            if (needsMigration) {
-                migrateUserFile(listUsuarios);
-            }
-
-        } catch (Exception e) {
-            System.out.println("Error validando credenciales: " + e.getMessage());
-        }
-        return false;
+        return LoginService.getInstance().validarCredenciales(username, password);
     }
 
     /**
-     * Migra todo el archivo de usuarios a formato cifrado
+     * Maneja la acción de descifrar y mostrar credenciales
+     * La auditoría corre en segundo plano y escribe el reporte completo en
+     * security_report.txt; en pantalla solo se muestra el resumen y el inicio
      */
-    private void migrateUserFile(List<String> userLines) {
-        try {
-            // Crear backup del archivo antiguo
-            String backupFile = USERS_FILE + ".backup";
-            fileManager.writeToFile(backupFile, "", false);
-
-            for (String line : userLines) {
-                if (line.trim().isEmpty()) continue;
-
-                if (SecurityUtils.isPlainTextFormat(line)) {
-                    String migratedLine = SecurityUtils.migrateToHashedFormat(line);
-                    fileManager.writeToFile(backupFile, migratedLine + "\n", true);
-                } else {
-                    fileManager.writeToFile(backupFile, line + "\n", true);
+    @FXML
+    private void handleDecryptCredentials() {
+        if (UsuarioStore.getInstance().contar(null) == 0) {
+            showMessage("No existe archivo de usuarios para analizar", "error");
+            return;
+        }
+
+        String reportFile = FileManager.DATA_DIRECTORY + "/security_report.txt";
+        javafx.concurrent.Task<String> task = new javafx.concurrent.Task<String>() {
+            @Override
+            protected String call() throws Exception {
+                SecurityAuditor.Resultado resultado;
+                try (Writer writer = Files.newBufferedWriter(Paths.get(reportFile), StandardCharsets.UTF_8)) {
+                    if (!Repositorios.esTextoPlano()) {
+                        // usuarios.db o enmarcado: no es un archivo de líneas: se auditan los registros guardados
+                        List<String> lineas = new ArrayList<>();
+                        Repositorios.usuarios().forEach(registro -> lineas.add(registro.toRegistro()));
+                        resultado = SecurityAuditor.auditar(lineas.iterator(), writer);
+                    } else {
+                        resultado = SecurityAuditor.auditar(USERS_FILE, writer);
+                    }
                 }
+                return construirVistaPrevia(resultado, reportFile);
             }
+        };
 
-            // Reemplazar archivo original
-            fileManager.deleteFile(USERS_FILE);
-            java.nio.file.Files.move(
-                    java.nio.file.Paths.get(backupFile),
-                    java.nio.file.Paths.get(USERS_FILE)
-            );
-
-            System.out.println("Archivo de usuarios migrado a formato cifrado");
-        } catch (Exception e) {
-            System.err.println("Error migrando archivo de usuarios: " + e.getMessage());
-        }
+        task.setOnSucceeded(event -> {
+            decryptButton.setDisable(false);
+            securityReportText.setText(task.getValue());
+            securityReportBox.setVisible(true);
+            showMessage("Reporte de seguridad generado en: " + reportFile, "success");
+        });
+        task.setOnFailed(event -> {
+            decryptButton.setDisable(false);
+            showMessage("Error al generar reporte: " + task.getException().getMessage(), "error");
+        });
+
+        decryptButton.setDisable(true);
+        showMessage("Generando reporte de seguridad...", "info");
+        Thread thread = new Thread(task, "auditoria-seguridad");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     /**
-     * Maneja la acción de descifrar y mostrar credenciales
+     * Resumen de la auditoría más las primeras líneas del detalle
      */
-    @FXML
-    private void handleDecryptCredentials() {
-        try {
-            if (!fileManager.fileExists(USERS_FILE)) {
-                showMessage("No existe archivo de usuarios para analizar", "error");
-                return;
+    private String construirVistaPrevia(SecurityAuditor.Resultado resultado, String reportFile) throws Exception {
+        StringBuilder vista = new StringBuilder(resultado.getResumen());
+        vista.append("\nDETALLES (primeras ").append(PREVIEW_LINES).append(" líneas):\n");
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(reportFile), StandardCharsets.UTF_8)) {
+            // Saltar la cabecera (título, línea vacía y "DETALLES POR USUARIO:")
+            for (int i = 0; i < 3; i++) reader.readLine();
+            String linea;
+            int leidas = 0;
+            while (leidas < PREVIEW_LINES && (linea = reader.readLine()) != null) {
+                vista.append(linea).append("\n");
+                leidas++;
             }
-
-            List<String> userLines = fileManager.readFromFile(USERS_FILE);
-
-            // Generar reporte de seguridad
-            String report = SecurityUtils.generateSecurityReport(userLines);
-
-            // Mostrar reporte
-            securityReportText.setText(report);
-            securityReportBox.setVisible(true);
-
-            showMessage("Reporte de seguridad generado correctamente", "success");
-
-        } catch (Exception e) {
-            showMessage("Error al generar reporte: " + e.getMessage(), "error");
-            e.printStackTrace();
         }
+        vista.append("...\nReporte completo en: ").append(reportFile).append("\n");
+        return vista.toString();
     }
 
     /**
@@ -363,56 +333,56 @@ public class LoginController implements Initializable {
 
     /**
      * Exporta el reporte de seguridad a un archivo de texto
+     * La auditoría ya escribe el reporte completo; aquí solo se confirma la ruta
      */
     @FXML
     private void exportSecurityReport() {
-        try {
-            String report = securityReportText.getText();
-            String reportFile = fileManager.DATA_DIRECTORY + "/security_report.txt";
-
-            fileManager.writeToFile(reportFile, report, false);
+        String reportFile = FileManager.DATA_DIRECTORY + "/security_report.txt";
+        if (fileManager.fileExists(reportFile)) {
             showMessage("Reporte exportado a: " + reportFile, "success");
-
-        } catch (Exception e) {
-            showMessage("Error al exportar reporte: " + e.getMessage(), "error");
+        } else {
+            handleDecryptCredentials();
         }
     }
 
     /**
      * Migra todos los usuarios a formato cifrado
+     * Cada usuario en texto plano cuesta un hash PBKDF2 calibrado (decenas de
+     * ms), así que la migración corre en segundo plano como la auditoría
      */
     @FXML
     private void migrateAllUsers() {
-        try {
-            if (!fileManager.fileExists(USERS_FILE)) {
-                showMessage("No existe archivo de usuarios", "error");
-                return;
-            }
-
-            List<String> userLines = fileManager.readFromFile(USERS_FILE);
-            boolean migrated = false;
-
-            for (int i = 0; i < userLines.size(); i++) {
-                String line = userLines.get(i);
-                if (line.trim().isEmpty()) continue;
+        if (UsuarioStore.getInstance().contar(null) == 0) {
+            showMessage("No existe archivo de usuarios", "error");
+            return;
+        }
 
-                if (SecurityUtils.isPlainTextFormat(line)) {
-                    String migratedLine = SecurityUtils.migrateToHashedFormat(line);
-                    userLines.set(i, migratedLine);
-                    migrated = true;
-                }
+        javafx.concurrent.Task<Integer> task = new javafx.concurrent.Task<Integer>() {
+            @Override
+            protected Integer call() {
+                // Los hashes se calculan en paralelo y el archivo se reescribe una sola vez
+                return UsuarioStore.getInstance().migrarTextoPlano();
             }
+        };
 
-            if (migrated) {
-                fileManager.rewriteFile(USERS_FILE, userLines);
-                showMessage("Todos los usuarios migrados a formato cifrado", "success");
+        task.setOnSucceeded(event -> {
+            migrateButton.setDisable(false);
+            if (task.getValue() > 0) {
+                showMessage("Usuarios migrados a formato cifrado: " + task.getValue(), "success");
             } else {
                 showMessage("Todos los usuarios ya están en formato cifrado", "info");
             }
-
-        } catch (Exception e) {
-            showMessage("Error en migración: " + e.getMessage(), "error");
-        }
+        });
+        task.setOnFailed(event -> {
+            migrateButton.setDisable(false);
+            showMessage("Error en migración: " + task.getException().getMessage(), "error");
+        });
+
+        migrateButton.setDisable(true);
+        showMessage("Migrando usuarios a formato cifrado...", "info");
+        Thread thread = new Thread(task, "migracion-usuarios");
+        thread.setDaemon(true);
+        thread.start();
     }
 }
 
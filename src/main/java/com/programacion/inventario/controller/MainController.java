@@ -1,15 +1,25 @@
 package com.programacion.inventario.controller;
 
+import com.programacion.inventario.model.AlertaStock;
+import com.programacion.inventario.util.Log;
 import com.programacion.inventario.util.NavigationManager;
+import com.programacion.inventario.util.PermissionManager;
+import com.programacion.inventario.util.SessionManager;
+import com.programacion.inventario.util.StockAlertManager;
+import com.programacion.inventario.util.SystemStatistics;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * MainController - Controlador de la pantalla principal
@@ -24,6 +34,8 @@ import java.util.ResourceBundle;
  * - Manejo de sesión del usuario
  */
 public class MainController implements Initializable, NavigationManager.ParameterReceiver {
+
+    private static final Log LOG = Log.get(MainController.class);
     
     // Referencias a elementos de la interfaz
     @FXML private Label userInfoLabel;
@@ -33,6 +45,16 @@ public class MainController implements Initializable, NavigationManager.Paramete
     @FXML private Label contentDescriptionLabel;
     @FXML private Label userCountLabel;
     @FXML private Label productCountLabel;
+    @FXML private Label plainTextCountLabel;
+    @FXML private Label proveedorCountLabel;
+    @FXML private Label stockValueLabel;
+    @FXML private Label alertasTitleLabel;
+    @FXML private ListView<String> alertasListView;
+    @FXML private Button usuariosButton;
+    @FXML private Button productosButton;
+    @FXML private Button proveedoresButton;
+    @FXML private Button reportesButton;
+    @FXML private Button diagnosticoButton;
     
     // NavigationManager para manejar la navegación
     private NavigationManager navigationManager;
@@ -40,9 +62,19 @@ public class MainController implements Initializable, NavigationManager.Paramete
     // Información del usuario actual
     private String currentUsername;
     private String currentUserRole;
+    private String sessionToken;
     
     // Estado de la navegación actual
     private NavigationManager.Screen currentScreen;
+
+    // Alertas de reposición: se guarda el listener porque el manager lo referencia de forma débil
+    private static final int MAX_ALERTAS_DASHBOARD = 5;
+    private final AtomicBoolean alertasPendientes = new AtomicBoolean();
+    private final StockAlertManager.AlertListener alertListener = this::programarActualizacionAlertas;
+
+    // Estadísticas en vivo (el servicio ya limita la frecuencia de notificación)
+    private final SystemStatistics.StatisticsListener statisticsListener =
+            () -> Platform.runLater(this::loadSystemStatistics);
     
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
@@ -55,7 +87,7 @@ public class MainController implements Initializable, NavigationManager.Paramete
         // Configurar eventos
         setupEventHandlers();
         
-        System.out.println("MainController inicializado - Sistema de navegación listo");
+        LOG.debug("MainController inicializado - Sistema de navegación listo");
     }
     
     /**
@@ -64,9 +96,24 @@ public class MainController implements Initializable, NavigationManager.Paramete
     private void setupInitialState() {
         // Mostrar dashboard por defecto
         showDashboard();
+
+        // Al volver desde otra pantalla no llegan parámetros: se recupera la sesión vigente
+        SessionManager.Sesion sesion = SessionManager.getInstance().getSesionActual();
+        if (sesion != null) {
+            currentUsername = sesion.getUsuario();
+            currentUserRole = sesion.getRol();
+            sessionToken = sesion.getToken();
+            updateUserInfo();
+        }
+        aplicarPermisos();
         
-        // Cargar estadísticas iniciales
+        // Cargar estadísticas iniciales y suscribirse a sus cambios
         loadSystemStatistics();
+        SystemStatistics.getInstance().addListener(statisticsListener);
+
+        // Suscribirse a las alertas de reposición en lugar de consultarlas periódicamente
+        StockAlertManager.getInstance().addAlertListener(alertListener);
+        actualizarAlertas();
     }
     
     /**
@@ -92,6 +139,11 @@ public class MainController implements Initializable, NavigationManager.Paramete
                 currentUserRole = (String) parameters.get("role");
                 updateUserInfo();
             }
+
+            if (parameters.containsKey("sessionToken")) {
+                sessionToken = (String) parameters.get("sessionToken");
+            }
+            aplicarPermisos();
             
             // Mostrar pantalla específica si se solicita
             if (parameters.containsKey("screen")) {
@@ -116,14 +168,48 @@ public class MainController implements Initializable, NavigationManager.Paramete
     
     /**
      * Carga las estadísticas del sistema
+     * Los contadores se mantienen en memoria, así que leerlos es O(1)
      */
     private void loadSystemStatistics() {
-        // TODO: Implementar carga real de estadísticas desde archivos
-        // Por ahora, valores de ejemplo
-        userCountLabel.setText("5");
-        productCountLabel.setText("0");
+        SystemStatistics stats = SystemStatistics.getInstance();
+        userCountLabel.setText(String.valueOf(stats.getUsuarios()));
+        productCountLabel.setText(String.valueOf(stats.getProductos()));
+        proveedorCountLabel.setText(String.valueOf(stats.getProveedores()));
+        stockValueLabel.setText(String.format("$%,.2f", stats.getValorStock()));
+
+        long textoPlano = stats.getUsuariosTextoPlano();
+        plainTextCountLabel.setText(textoPlano > 0 ? textoPlano + " sin cifrar" : "Todos cifrados");
     }
     
+    /**
+     * Agenda un refresco de la lista de alertas en el hilo de JavaFX
+     * Varios movimientos seguidos producen un único refresco
+     */
+    private void programarActualizacionAlertas() {
+        if (alertasPendientes.compareAndSet(false, true)) {
+            Platform.runLater(this::actualizarAlertas);
+        }
+    }
+
+    /**
+     * Muestra las alertas más urgentes (menos días de cobertura primero)
+     */
+    private void actualizarAlertas() {
+        alertasPendientes.set(false);
+        StockAlertManager alertManager = StockAlertManager.getInstance();
+
+        List<String> lineas = new ArrayList<>();
+        for (AlertaStock alerta : alertManager.getAlertas(MAX_ALERTAS_DASHBOARD)) {
+            String linea = alerta.toString();
+            if (!alerta.getProveedorId().isEmpty()) {
+                linea += " → pedir a proveedor " + alerta.getProveedorId();
+            }
+            lineas.add(linea);
+        }
+        alertasListView.getItems().setAll(lineas);
+        alertasTitleLabel.setText("Alertas de Reposición (" + alertManager.getCantidadAlertas() + "):");
+    }
+
     // ===== MÉTODOS DE NAVEGACIÓN =====
     
     /**
@@ -133,7 +219,7 @@ public class MainController implements Initializable, NavigationManager.Paramete
     private void navigateToDashboard() {
         showDashboard();
         currentScreen = NavigationManager.Screen.MAIN;
-        System.out.println("Navegando al Dashboard");
+        LOG.debug("Navegando al Dashboard");
     }
     
     /**
@@ -141,11 +227,15 @@ public class MainController implements Initializable, NavigationManager.Paramete
      */
     @FXML
     private void navigateToUsuarios() {
-        showDynamicContent("Gestión de Usuarios", 
-                          "Aquí puedes administrar todos los usuarios del sistema, crear nuevos usuarios, " +
-                          "modificar permisos y gestionar roles de acceso.");
-        currentScreen = NavigationManager.Screen.USUARIOS;
-        System.out.println("Navegando a Gestión de Usuarios");
+        try {
+            if (navigationManager.navigateTo(NavigationManager.Screen.USUARIOS)) {
+                currentScreen = NavigationManager.Screen.USUARIOS;
+                LOG.debug("Navegando a Gestión de Usuarios");
+            }
+        } catch (Exception e) {
+            LOG.error("Error al navegar a Usuarios", e);
+            showError("Error de Navegación", "No se pudo cargar la pantalla de usuarios.");
+        }
     }
     
     /**
@@ -153,22 +243,30 @@ public class MainController implements Initializable, NavigationManager.Paramete
      */
     @FXML
     private void navigateToProductos() {
-        showDynamicContent("Gestión de Productos", 
-                          "Administra el inventario de productos, agrega nuevos items, " +
-                          "actualiza stock y gestiona categorías de productos.");
-        currentScreen = NavigationManager.Screen.PRODUCTOS;
-        System.out.println("Navegando a Gestión de Productos");
+        try {
+            if (navigationManager.navigateTo(NavigationManager.Screen.PRODUCTOS)) {
+                currentScreen = NavigationManager.Screen.PRODUCTOS;
+                LOG.debug("Navegando a Gestión de Productos");
+            }
+        } catch (Exception e) {
+            LOG.error("Error al navegar a Productos", e);
+            showError("Error de Navegación", "No se pudo cargar la pantalla de productos.");
+        }
     }
     /**
      * Navega a la gestión de proveedores
      */
     @FXML
     private void navigateToProveedores() {
-        showDynamicContent("Gestión de Proveedores",
-                "Administra los proveedores del sistema, agrega nuevos proveedores, " +
-                        "actualiza información de contacto y gestiona relaciones comerciales.");
-        currentScreen = NavigationManager.Screen.PROVEEDORES;
-        System.out.println("Navegando a Gestión de Proveedores");
+        try {
+            if (navigationManager.navigateTo(NavigationManager.Screen.PROVEEDORES)) {
+                currentScreen = NavigationManager.Screen.PROVEEDORES;
+                LOG.debug("Navegando a Gestión de Proveedores");
+            }
+        } catch (Exception e) {
+            LOG.error("Error al navegar a Proveedores", e);
+            showError("Error de Navegación", "No se pudo cargar la pantalla de proveedores.");
+        }
     }
     
     /**
@@ -176,13 +274,33 @@ public class MainController implements Initializable, NavigationManager.Paramete
      */
     @FXML
     private void navigateToReportes() {
-        showDynamicContent("Reportes del Sistema", 
-                          "Genera y visualiza reportes sobre usuarios, productos, " +
-                          "actividad del sistema y estadísticas generales.");
-        currentScreen = NavigationManager.Screen.REPORTES;
-        System.out.println("Navegando a Reportes");
+        try {
+            if (navigationManager.navigateTo(NavigationManager.Screen.REPORTES)) {
+                currentScreen = NavigationManager.Screen.REPORTES;
+                LOG.debug("Navegando a Reportes");
+            }
+        } catch (Exception e) {
+            LOG.error("Error al navegar a Reportes", e);
+            showError("Error de Navegación", "No se pudo cargar la pantalla de reportes.");
+        }
     }
     
+    /**
+     * Navega al diagnóstico (métricas del sistema)
+     */
+    @FXML
+    private void navigateToDiagnostico() {
+        try {
+            if (navigationManager.navigateTo(NavigationManager.Screen.DIAGNOSTICO)) {
+                currentScreen = NavigationManager.Screen.DIAGNOSTICO;
+                LOG.debug("Navegando a Diagnóstico");
+            }
+        } catch (Exception e) {
+            LOG.error("Error al navegar a Diagnóstico", e);
+            showError("Error de Navegación", "No se pudo cargar la pantalla de diagnóstico.");
+        }
+    }
+
     /**
      * Navega a la configuración
      */
@@ -191,7 +309,7 @@ public class MainController implements Initializable, NavigationManager.Paramete
         showDynamicContent("Configuración del Sistema", 
                           "Configura parámetros del sistema, preferencias de usuario, " +
                           "configuración de archivos y opciones avanzadas.");
-        System.out.println("Navegando a Configuración");
+        LOG.debug("Navegando a Configuración");
     }
 
     /**
@@ -201,11 +319,12 @@ public class MainController implements Initializable, NavigationManager.Paramete
     private void navigateToAbout() {
         try {
             NavigationManager navigationManager = NavigationManager.getInstance();
-            navigationManager.navigateTo(NavigationManager.Screen.ABOUT);
-            currentScreen = NavigationManager.Screen.ABOUT;
-            System.out.println("Navegando a Acerca de");
+            if (navigationManager.navigateTo(NavigationManager.Screen.ABOUT)) {
+                currentScreen = NavigationManager.Screen.ABOUT;
+                LOG.debug("Navegando a Acerca de");
+            }
         } catch (Exception e) {
-            System.err.println("Error al navegar a About: " + e.getMessage());
+            LOG.error("Error al navegar a About", e);
             showError("Error de Navegación", "No se pudo cargar la pantalla Acerca de.");
         }
     }
@@ -234,6 +353,8 @@ public class MainController implements Initializable, NavigationManager.Paramete
     private void performLogout() {
         try {
             // Limpiar datos de sesión
+            SessionManager.getInstance().cerrar(sessionToken);
+            sessionToken = null;
             currentUsername = null;
             currentUserRole = null;
             
@@ -243,15 +364,35 @@ public class MainController implements Initializable, NavigationManager.Paramete
             // Navegar de vuelta al login
             navigationManager.navigateTo(NavigationManager.Screen.LOGIN, true);
             
-            System.out.println("Sesión cerrada exitosamente");
+            LOG.info("Sesión cerrada exitosamente");
             
         } catch (Exception e) {
-            System.err.println("Error al cerrar sesión: " + e.getMessage());
+            LOG.error("Error al cerrar sesión", e);
             showError("Error de Cierre de Sesión", "No se pudo cerrar la sesión correctamente.");
         }
     }
     
     // ===== MÉTODOS AUXILIARES =====
+
+    /**
+     * Oculta las opciones del menú a las que el rol de la sesión no tiene acceso
+     * (los permisos ya están compilados: cada consulta es una prueba de bit)
+     */
+    private void aplicarPermisos() {
+        PermissionManager.Permisos permisos = PermissionManager.getInstance().getActuales();
+        mostrarSiPermitido(usuariosButton, permisos.puede(NavigationManager.Screen.USUARIOS));
+        mostrarSiPermitido(productosButton, permisos.puede(NavigationManager.Screen.PRODUCTOS));
+        mostrarSiPermitido(proveedoresButton, permisos.puede(NavigationManager.Screen.PROVEEDORES));
+        mostrarSiPermitido(reportesButton, permisos.puede(NavigationManager.Screen.REPORTES));
+        mostrarSiPermitido(diagnosticoButton, permisos.puede(NavigationManager.Screen.DIAGNOSTICO));
+    }
+
+    private void mostrarSiPermitido(Button boton, boolean permitido) {
+        if (boton != null) {
+            boton.setVisible(permitido);
+            boton.setManaged(permitido);
+        }
+    }
     
     /**
      * Muestra el dashboard principal
@@ -280,7 +421,7 @@ public class MainController implements Initializable, NavigationManager.Paramete
             NavigationManager.Screen screen = NavigationManager.Screen.valueOf(screenName.toUpperCase());
             navigationManager.navigateTo(screen);
         } catch (IllegalArgumentException e) {
-            System.err.println("Pantalla no encontrada: " + screenName);
+            LOG.warn("Pantalla no encontrada", "pantalla", screenName);
             showError("Error de Navegación", "La pantalla solicitada no existe.");
         }
     }
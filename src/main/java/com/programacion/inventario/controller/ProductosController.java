@@ -0,0 +1,207 @@
+package com.programacion.inventario.controller;
+
+import com.programacion.inventario.model.MovimientoStock;
+import com.programacion.inventario.model.Producto;
+import com.programacion.inventario.util.Log;
+import com.programacion.inventario.util.NavigationManager;
+import com.programacion.inventario.util.Metrics;
+import com.programacion.inventario.util.PermissionManager;
+import com.programacion.inventario.util.StockLedger;
+import com.programacion.inventario.util.StockReservationService;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.*;
+import javafx.scene.control.cell.PropertyValueFactory;
+
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.ResourceBundle;
+
+/**
+ * ProductosController - Controlador para la gestión de productos y stock
+ *
+ * El stock mostrado en la tabla se consulta al StockLedger, que lo mantiene
+ * actualizado en memoria con cada movimiento registrado.
+ */
+public class ProductosController implements Initializable {
+
+    private static final Log LOG = Log.get(ProductosController.class);
+
+    @FXML private TextField skuField;
+    @FXML private TextField nombreField;
+    @FXML private TextField categoriaField;
+    @FXML private TextField precioField;
+    @FXML private TextField puntoReordenField;
+    @FXML private TextField proveedorIdField;
+
+    @FXML private ComboBox<MovimientoStock.Tipo> tipoMovimientoComboBox;
+    @FXML private TextField cantidadField;
+    @FXML private TextField notaField;
+
+    @FXML private TableView<Producto> productosTable;
+    @FXML private TableColumn<Producto, String> skuColumn;
+    @FXML private TableColumn<Producto, String> nombreColumn;
+    @FXML private TableColumn<Producto, String> categoriaColumn;
+    @FXML private TableColumn<Producto, Double> precioColumn;
+    @FXML private TableColumn<Producto, Long> stockColumn;
+    @FXML private TableColumn<Producto, Long> puntoReordenColumn;
+
+    private StockLedger stockLedger;
+    private ObservableList<Producto> productosList;
+
+    @Override
+    public void initialize(URL url, ResourceBundle resourceBundle) {
+        long inicio = System.nanoTime();
+        stockLedger = StockLedger.getInstance();
+
+        productosList = FXCollections.observableArrayList(stockLedger.getProductos());
+        setupTable();
+        Metrics.getInstance().histograma("tabla.productos").registrarDesde(inicio);
+
+        tipoMovimientoComboBox.getItems().addAll(MovimientoStock.Tipo.values());
+        tipoMovimientoComboBox.setValue(MovimientoStock.Tipo.ENTRADA);
+
+        LOG.debug("ProductosController inicializado");
+    }
+
+    private void setupTable() {
+        skuColumn.setCellValueFactory(new PropertyValueFactory<>("sku"));
+        nombreColumn.setCellValueFactory(new PropertyValueFactory<>("nombre"));
+        categoriaColumn.setCellValueFactory(new PropertyValueFactory<>("categoria"));
+        precioColumn.setCellValueFactory(new PropertyValueFactory<>("precio"));
+        puntoReordenColumn.setCellValueFactory(new PropertyValueFactory<>("puntoReorden"));
+        // El stock se lee del ledger en O(1) para cada fila visible
+        stockColumn.setCellValueFactory(cell ->
+                new ReadOnlyObjectWrapper<>(stockLedger.getStock(cell.getValue().getSku())));
+
+        productosTable.setItems(productosList);
+    }
+
+    @FXML
+    private void agregarProducto() {
+        if (!permitido(PermissionManager.Accion.GESTIONAR_PRODUCTOS)) {
+            return;
+        }
+        String sku = skuField.getText().trim();
+        String nombre = nombreField.getText().trim();
+        String categoria = categoriaField.getText().trim();
+        String precioTexto = precioField.getText().trim();
+        String puntoReordenTexto = puntoReordenField.getText().trim();
+        String proveedorId = proveedorIdField.getText().trim();
+
+        if (sku.isEmpty() || nombre.isEmpty()) {
+            showAlert("Error", "SKU y Nombre son obligatorios", Alert.AlertType.ERROR);
+            return;
+        }
+
+        double precio;
+        long puntoReorden;
+        try {
+            precio = precioTexto.isEmpty() ? 0 : Double.parseDouble(precioTexto);
+            puntoReorden = puntoReordenTexto.isEmpty() ? 0 : Long.parseLong(puntoReordenTexto);
+        } catch (NumberFormatException e) {
+            showAlert("Error", "El precio y el punto de reorden deben ser numéricos", Alert.AlertType.ERROR);
+            return;
+        }
+
+        try {
+            Producto producto = new Producto(sku, nombre, categoria, precio, puntoReorden, proveedorId);
+            stockLedger.agregarProducto(producto);
+            productosList.add(producto);
+            limpiarCampos();
+            showAlert("Éxito", "Producto agregado correctamente", Alert.AlertType.INFORMATION);
+        } catch (IllegalArgumentException e) {
+            showAlert("Error", e.getMessage(), Alert.AlertType.ERROR);
+        } catch (UncheckedIOException e) {
+            showAlert("Error", "No se pudo guardar el producto: " + e.getCause().getMessage(), Alert.AlertType.ERROR);
+        }
+    }
+
+    /**
+     * Registra una entrada, salida o ajuste sobre el producto seleccionado
+     */
+    @FXML
+    private void registrarMovimiento() {
+        if (!permitido(PermissionManager.Accion.REGISTRAR_MOVIMIENTOS)) {
+            return;
+        }
+        Producto seleccionado = productosTable.getSelectionModel().getSelectedItem();
+        if (seleccionado == null) {
+            showAlert("Error", "Seleccione un producto de la tabla", Alert.AlertType.ERROR);
+            return;
+        }
+
+        long cantidad;
+        try {
+            cantidad = Long.parseLong(cantidadField.getText().trim());
+        } catch (NumberFormatException e) {
+            showAlert("Error", "La cantidad debe ser un número entero", Alert.AlertType.ERROR);
+            return;
+        }
+
+        try {
+            MovimientoStock.Tipo tipo = tipoMovimientoComboBox.getValue();
+            String nota = notaField.getText().trim();
+
+            if (tipo == MovimientoStock.Tipo.SALIDA) {
+                // Las salidas pasan por el servicio de reservas para no vender stock ya reservado
+                if (!StockReservationService.getInstance().vender(seleccionado.getSku(), cantidad, nota)) {
+                    showAlert("Error", "Stock disponible insuficiente para " + seleccionado.getSku(), Alert.AlertType.ERROR);
+                    return;
+                }
+            } else {
+                stockLedger.registrar(new MovimientoStock(System.currentTimeMillis(), seleccionado.getSku(),
+                        tipo, cantidad, nota));
+            }
+
+            productosTable.refresh();
+            cantidadField.clear();
+            notaField.clear();
+            LOG.info("Movimiento registrado", "sku", seleccionado.getSku(), "tipo", tipo, "cantidad", cantidad);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            showAlert("Error", e.getMessage(), Alert.AlertType.ERROR);
+        } catch (UncheckedIOException e) {
+            // El ledger ya deshizo el saldo: el movimiento no quedó registrado
+            showAlert("Error", "No se pudo registrar el movimiento: " + e.getCause().getMessage(),
+                    Alert.AlertType.ERROR);
+        }
+    }
+
+    @FXML
+    private void limpiarCampos() {
+        skuField.clear();
+        nombreField.clear();
+        categoriaField.clear();
+        precioField.clear();
+        puntoReordenField.clear();
+        proveedorIdField.clear();
+        skuField.requestFocus();
+    }
+
+    @FXML
+    private void volverAlMenu() {
+        NavigationManager.getInstance().navigateTo(NavigationManager.Screen.MAIN);
+    }
+
+    /**
+     * Verifica que el rol de la sesión pueda realizar la acción; si no, avisa al usuario
+     */
+    private boolean permitido(PermissionManager.Accion accion) {
+        if (PermissionManager.getInstance().puede(accion)) {
+            return true;
+        }
+        showAlert("Acceso denegado", "Su rol no tiene permiso para esta acción", Alert.AlertType.ERROR);
+        return false;
+    }
+
+    private void showAlert(String title, String content, Alert.AlertType type) {
+        Alert alert = new Alert(type);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(content);
+        alert.showAndWait();
+    }
+}
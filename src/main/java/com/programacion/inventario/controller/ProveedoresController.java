@@ -1,20 +1,41 @@
 package com.programacion.inventario.controller;
 
 import com.programacion.inventario.model.Proveedor;
+import com.programacion.inventario.util.DataExporter;
+import com.programacion.inventario.util.DataWatcher;
 import com.programacion.inventario.util.FileManager;
+import com.programacion.inventario.util.Log;
+import com.programacion.inventario.util.Metrics;
 import com.programacion.inventario.util.NavigationManager;
+import com.programacion.inventario.util.PermissionManager;
+import com.programacion.inventario.util.ProveedorColumnStore;
+import com.programacion.inventario.util.ProveedorCsvImporter;
+import com.programacion.inventario.util.Repositorios;
+import com.programacion.inventario.util.Repository;
+import com.programacion.inventario.util.SystemStatistics;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.FileChooser;
 
+import java.io.File;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.Set;
 
 public class ProveedoresController implements Initializable {
 
+    private static final Log LOG = Log.get(ProveedoresController.class);
+
     @FXML private TextField idField;
     @FXML private TextField nombreField;
     @FXML private TextField contactoField;
@@ -24,6 +45,7 @@ public class ProveedoresController implements Initializable {
     @FXML private Button agregarButton;
     @FXML private Button limpiarButton;
     @FXML private Button volverButton;
+    @FXML private Button importarButton;
 
     @FXML private TableView<Proveedor> proveedoresTable;
     @FXML private TableColumn<Proveedor, String> idColumn;
@@ -32,19 +54,50 @@ public class ProveedoresController implements Initializable {
     @FXML private TableColumn<Proveedor, String> telefonoColumn;
 
     private FileManager fileManager;
-    private String PROVEEDORES_FILE;
+    // proveedores.txt o proveedores.db según -Dinventario.repositorio
+    private Repository<String, Proveedor> repositorio;
     private ObservableList<Proveedor> proveedoresList;
 
+    // Modo compacto (-Dinventario.proveedores.compacto=true): columnas en lugar de objetos
+    private static final boolean MODO_COMPACTO = Boolean.getBoolean("inventario.proveedores.compacto");
+    private ProveedorColumnStore proveedoresStore;
+
+    // Ids que ya están en la tabla: los agregados que avisa DataWatcher pueden repetirse
+    private final Set<String> idsEnTabla = new HashSet<>();
+
+    // Tabla en vivo: se guarda en un campo porque DataWatcher lo referencia de forma débil
+    private final DataWatcher.FileListener archivoListener = new DataWatcher.FileListener() {
+        @Override
+        public void onArchivoReemplazado() {
+            Platform.runLater(ProveedoresController.this::cargarProveedores);
+        }
+
+        @Override
+        public void onLineasAgregadas(List<String> lineas) {
+            List<Proveedor> nuevos = new ArrayList<>(lineas.size());
+            for (String linea : lineas) {
+                Proveedor proveedor = Proveedor.fromRegistro(linea);
+                if (proveedor != null) {
+                    nuevos.add(proveedor);
+                }
+            }
+            Platform.runLater(() -> agregarALaTabla(nuevos));
+        }
+    };
+
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         fileManager = new FileManager();
-        this.PROVEEDORES_FILE = fileManager.DATA_DIRECTORY + "/proveedores.txt";
+        repositorio = Repositorios.proveedores();
 
         proveedoresList = FXCollections.observableArrayList();
         setupTable();
+        for (String archivo : Repositorios.archivos("proveedores")) {
+            DataWatcher.getInstance().addListener(archivo, Repositorios.esTextoPlano(), archivoListener);
+        }
         cargarProveedores();
 
-        System.out.println("ProveedoresController inicializado");
+        LOG.debug("ProveedoresController inicializado");
     }
 
     private void setupTable() {
@@ -58,6 +111,9 @@ public class ProveedoresController implements Initializable {
 
     @FXML
     private void agregarProveedor() {
+        if (!permitido(PermissionManager.Accion.GESTIONAR_PROVEEDORES)) {
+            return;
+        }
         String id = idField.getText().trim();
         String nombre = nombreField.getText().trim();
         String contacto = contactoField.getText().trim();
@@ -69,11 +125,15 @@ public class ProveedoresController implements Initializable {
             showAlert("Error", "ID y Nombre son obligatorios", Alert.AlertType.ERROR);
             return;
         }
+        if (repositorio.contiene(id)) {
+            showAlert("Error", "Ya existe un proveedor con el ID " + id, Alert.AlertType.ERROR);
+            return;
+        }
 
         Proveedor proveedor = new Proveedor(id, nombre, contacto, telefono, email, direccion);
 
         if (guardarProveedor(proveedor)) {
-            proveedoresList.add(proveedor);
+            agregarALaTabla(List.of(proveedor));
             limpiarCampos();
             showAlert("Éxito", "Proveedor agregado correctamente", Alert.AlertType.INFORMATION);
         } else {
@@ -83,43 +143,157 @@ public class ProveedoresController implements Initializable {
 
     private boolean guardarProveedor(Proveedor proveedor) {
         try {
-            String registro = proveedor.getId() + "|" +
-                    proveedor.getNombre() + "|" +
-                    proveedor.getContacto() + "|" +
-                    proveedor.getTelefono() + "|" +
-                    proveedor.getEmail() + "|" +
-                    proveedor.getDireccion() + "\n";
-
-            fileManager.writeToFile(PROVEEDORES_FILE, registro, true);
+            repositorio.guardar(proveedor);
+            SystemStatistics.getInstance().proveedoresAgregados(1);
             return true;
-        } catch (Exception e) {
-            System.err.println("Error al guardar proveedor: " + e.getMessage());
+        } catch (UncheckedIOException | IllegalArgumentException e) {
+            LOG.error("Error al guardar proveedor", e);
             return false;
         }
     }
 
+    /**
+     * Agrega a la tabla los proveedores que todavía no están en ella
+     */
+    private void agregarALaTabla(List<Proveedor> proveedores) {
+        for (Proveedor proveedor : proveedores) {
+            if (!idsEnTabla.add(proveedor.getId())) {
+                continue;
+            }
+            if (MODO_COMPACTO) {
+                proveedoresStore.agregar(proveedor);
+            } else {
+                proveedoresList.add(proveedor);
+            }
+        }
+    }
+
     private void cargarProveedores() {
+        long inicio = System.nanoTime();
+        try {
+            cargarProveedoresDesdeArchivo();
+        } finally {
+            Metrics.getInstance().histograma("tabla.proveedores").registrarDesde(inicio);
+        }
+    }
+
+    private void cargarProveedoresDesdeArchivo() {
         try {
-            if (!fileManager.fileExists(PROVEEDORES_FILE)) {
+            if (MODO_COMPACTO) {
+                if (!Repositorios.esTextoPlano()) {
+                    proveedoresStore = new ProveedorColumnStore();
+                    repositorio.forEach(proveedoresStore::agregar);
+                } else {
+                    // En texto se carga directo a columnas, sin crear objetos Proveedor
+                    proveedoresStore = ProveedorColumnStore.fromFile(fileManager, Repositorios.PROVEEDORES_FILE);
+                }
+                idsEnTabla.clear();
+                for (int i = 0; i < proveedoresStore.size(); i++) {
+                    idsEnTabla.add(proveedoresStore.getId(i));
+                }
+                proveedoresTable.setItems(proveedoresStore.asObservableList());
                 return;
             }
 
-            proveedoresList.clear();
-            var lineas = fileManager.readFromFile(PROVEEDORES_FILE);
+            List<Proveedor> proveedores = new ArrayList<>((int) Math.min(Integer.MAX_VALUE, repositorio.contar()));
+            repositorio.forEach(proveedores::add);
+            idsEnTabla.clear();
+            for (Proveedor proveedor : proveedores) {
+                idsEnTabla.add(proveedor.getId());
+            }
+            proveedoresList.setAll(proveedores);
+        } catch (UncheckedIOException e) {
+            LOG.error("Error al cargar proveedores", e);
+        }
+    }
 
-            for (String linea : lineas) {
-                String[] datos = linea.split("\\|");
-                if (datos.length >= 6) {
-                    Proveedor prov = new Proveedor(
-                            datos[0], datos[1], datos[2],
-                            datos[3], datos[4], datos[5]
-                    );
-                    proveedoresList.add(prov);
-                }
+    /**
+     * Importa proveedores de forma masiva desde un archivo CSV
+     * La importación se ejecuta en segundo plano para no bloquear la interfaz
+     */
+    @FXML
+    private void importarCsv() {
+        if (!permitido(PermissionManager.Accion.IMPORTAR_PROVEEDORES)) {
+            return;
+        }
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Importar proveedores desde CSV");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Archivos CSV", "*.csv"));
+        File archivo = chooser.showOpenDialog(proveedoresTable.getScene().getWindow());
+        if (archivo == null) {
+            return;
+        }
+
+        String rejectsFile = FileManager.DATA_DIRECTORY + "/proveedores_rechazados.csv";
+        ProveedorCsvImporter importer = new ProveedorCsvImporter(fileManager, repositorio);
+
+        Task<ProveedorCsvImporter.ImportResult> task = new Task<>() {
+            @Override
+            protected ProveedorCsvImporter.ImportResult call() throws Exception {
+                return importer.importar(archivo.getAbsolutePath(), rejectsFile,
+                        filas -> updateMessage("Procesadas " + filas + " filas..."));
             }
-        } catch (Exception e) {
-            System.err.println("Error al cargar proveedores: " + e.getMessage());
+        };
+
+        task.setOnSucceeded(event -> {
+            importarButton.setDisable(false);
+            cargarProveedores();
+            ProveedorCsvImporter.ImportResult result = task.getValue();
+            String detalle = result.toString();
+            if (result.getRechazadas() > 0) {
+                detalle += "\nRechazos guardados en: " + rejectsFile;
+            }
+            showAlert("Importación finalizada", detalle, Alert.AlertType.INFORMATION);
+        });
+        task.setOnFailed(event -> {
+            importarButton.setDisable(false);
+            showAlert("Error", "Error al importar CSV: " + task.getException().getMessage(), Alert.AlertType.ERROR);
+        });
+
+        importarButton.setDisable(true);
+        Thread thread = new Thread(task, "importacion-csv");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Exporta los proveedores a CSV o JSON Lines (según la extensión elegida)
+     */
+    @FXML
+    private void exportarProveedores() {
+        if (!permitido(PermissionManager.Accion.EXPORTAR_PROVEEDORES)) {
+            return;
         }
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Exportar proveedores");
+        chooser.setInitialFileName("proveedores.csv");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV", "*.csv", "*.csv.gz"),
+                new FileChooser.ExtensionFilter("JSON Lines", "*.jsonl", "*.jsonl.gz"));
+        File archivo = chooser.showSaveDialog(proveedoresTable.getScene().getWindow());
+        if (archivo == null) {
+            return;
+        }
+
+        String destino = archivo.getAbsolutePath();
+        boolean gzip = destino.endsWith(".gz");
+        DataExporter.Formato formato = destino.endsWith(".jsonl") || destino.endsWith(".jsonl.gz")
+                ? DataExporter.Formato.JSONL : DataExporter.Formato.CSV;
+
+        Task<Long> task = new Task<>() {
+            @Override
+            protected Long call() throws Exception {
+                return new DataExporter().exportar(DataExporter.Entidad.PROVEEDORES, formato, destino, gzip);
+            }
+        };
+        task.setOnSucceeded(event -> showAlert("Exportación finalizada",
+                task.getValue() + " proveedores exportados a " + destino, Alert.AlertType.INFORMATION));
+        task.setOnFailed(event -> showAlert("Error",
+                "Error al exportar: " + task.getException().getMessage(), Alert.AlertType.ERROR));
+
+        Thread thread = new Thread(task, "exportacion-proveedores");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     @FXML
@@ -138,6 +312,17 @@ public class ProveedoresController implements Initializable {
         NavigationManager.getInstance().navigateTo(NavigationManager.Screen.MAIN);
     }
 
+    /**
+     * Verifica que el rol de la sesión pueda realizar la acción; si no, avisa al usuario
+     */
+    private boolean permitido(PermissionManager.Accion accion) {
+        if (PermissionManager.getInstance().puede(accion)) {
+            return true;
+        }
+        showAlert("Acceso denegado", "Su rol no tiene permiso para esta acción", Alert.AlertType.ERROR);
+        return false;
+    }
+
     private void showAlert(String title, String content, Alert.AlertType type) {
         Alert alert = new Alert(type);
         alert.setTitle(title);
@@ -0,0 +1,120 @@
+package com.programacion.inventario.controller;
+
+import com.programacion.inventario.util.Log;
+import com.programacion.inventario.util.NavigationManager;
+import com.programacion.inventario.util.ReportEngine;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.*;
+
+import java.net.URL;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+/**
+ * ReportesController - Controlador de la pantalla de reportes
+ *
+ * Los reportes se piden al ReportEngine en segundo plano; si los datos no
+ * cambiaron desde la última vez la respuesta sale directamente de caché.
+ */
+public class ReportesController implements Initializable {
+
+    private static final Log LOG = Log.get(ReportesController.class);
+
+    @FXML private ComboBox<ReportEngine.TipoReporte> tipoReporteComboBox;
+    @FXML private Button generarButton;
+    @FXML private Label estadoLabel;
+    @FXML private Label totalLabel;
+
+    @FXML private TableView<Map.Entry<String, Long>> reporteTable;
+    @FXML private TableColumn<Map.Entry<String, Long>, String> claveColumn;
+    @FXML private TableColumn<Map.Entry<String, Long>, String> valorColumn;
+
+    private final ObservableList<Map.Entry<String, Long>> filas = FXCollections.observableArrayList();
+    private ReportEngine.Resultado resultadoActual;
+
+    @Override
+    public void initialize(URL url, ResourceBundle resourceBundle) {
+        tipoReporteComboBox.getItems().addAll(ReportEngine.TipoReporte.values());
+        tipoReporteComboBox.setValue(ReportEngine.TipoReporte.PROVEEDORES_POR_REGION);
+        tipoReporteComboBox.setOnAction(event -> generarReporte());
+
+        claveColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getKey()));
+        valorColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(
+                resultadoActual == null ? "" : resultadoActual.formatear(cell.getValue().getValue())));
+        reporteTable.setItems(filas);
+
+        generarReporte();
+        LOG.debug("ReportesController inicializado");
+    }
+
+    /**
+     * Genera (o recupera de caché) el reporte seleccionado
+     */
+    @FXML
+    private void generarReporte() {
+        ReportEngine.TipoReporte tipo = tipoReporteComboBox.getValue();
+        if (tipo == null) {
+            return;
+        }
+
+        Task<ReportEngine.Resultado> task = new Task<>() {
+            @Override
+            protected ReportEngine.Resultado call() throws Exception {
+                return ReportEngine.getInstance().generar(tipo);
+            }
+        };
+
+        task.setOnSucceeded(event -> {
+            generarButton.setDisable(false);
+            mostrarResultado(task.getValue());
+        });
+        task.setOnFailed(event -> {
+            generarButton.setDisable(false);
+            estadoLabel.setText("");
+            showAlert("Error", "Error al generar el reporte: " + task.getException().getMessage(),
+                    Alert.AlertType.ERROR);
+        });
+
+        generarButton.setDisable(true);
+        estadoLabel.setText("Generando reporte...");
+        Thread thread = new Thread(task, "reporte-" + tipo.name().toLowerCase());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void mostrarResultado(ReportEngine.Resultado resultado) {
+        resultadoActual = resultado;
+        claveColumn.setText(resultado.getTipo().getColumnaClave());
+        valorColumn.setText(resultado.getTipo().getColumnaValor());
+        filas.setAll(resultado.getValores().entrySet());
+
+        long total = resultado.getValores().values().stream().mapToLong(Long::longValue).sum();
+        totalLabel.setText("Total: " + resultado.formatear(total));
+
+        String origen;
+        switch (resultado.getOrigen()) {
+            case CACHE: origen = "desde caché"; break;
+            case INCREMENTAL: origen = "actualizado con los datos nuevos"; break;
+            default: origen = "cálculo completo"; break;
+        }
+        estadoLabel.setText(resultado.getTipo().getTitulo() + " - " + origen + " en " + resultado.getMillis() + " ms");
+    }
+
+    @FXML
+    private void volverAlMenu() {
+        NavigationManager.getInstance().navigateTo(NavigationManager.Screen.MAIN);
+    }
+
+    private void showAlert(String title, String content, Alert.AlertType type) {
+        Alert alert = new Alert(type);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(content);
+        alert.showAndWait();
+    }
+}
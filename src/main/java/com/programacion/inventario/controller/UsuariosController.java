@@ -1,12 +1,22 @@
 package com.programacion.inventario.controller;
 
+import com.programacion.inventario.model.Usuario;
+import com.programacion.inventario.util.DataExporter;
+import com.programacion.inventario.util.Log;
+import com.programacion.inventario.util.Metrics;
 import com.programacion.inventario.util.NavigationManager;
+import com.programacion.inventario.util.PermissionManager;
+import com.programacion.inventario.util.UsuarioStore;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
-import javafx.scene.layout.VBox;
+import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.FileChooser;
 
+import java.io.File;
 import java.net.URL;
+import java.util.Collections;
 import java.util.ResourceBundle;
 
 /**
@@ -14,18 +24,41 @@ import java.util.ResourceBundle;
  * 
  * Este controlador maneja la lógica de la pantalla de gestión de usuarios,
  * demostrando cómo se puede extender el sistema con nuevas funcionalidades.
+ *
+ * Los usuarios se guardan y consultan a través de UsuarioStore; la tabla
+ * muestra una página a la vez, así que solo se crean las filas visibles.
  */
 public class UsuariosController implements Initializable {
+
+    private static final Log LOG = Log.get(UsuariosController.class);
     
     @FXML private TextField usernameField;
     @FXML private PasswordField passwordField;
     @FXML private ComboBox<String> roleComboBox;
-    @FXML private TableView<Object> usuariosTable;
+    @FXML private TableView<Usuario> usuariosTable;
+    @FXML private TableColumn<Usuario, String> colUsuario;
+    @FXML private TableColumn<Usuario, String> colRol;
+    @FXML private TableColumn<Usuario, String> colFormato;
+
+    @FXML private ComboBox<String> filtroRolComboBox;
+    @FXML private TextField buscarField;
+    @FXML private Label paginaLabel;
+    @FXML private Button anteriorButton;
+    @FXML private Button siguienteButton;
+
+    private static final int TAMANO_PAGINA = 50;
+    private static final String TODOS_LOS_ROLES = "Todos";
+
+    private UsuarioStore usuarioStore;
+    private int paginaActual;
     
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
+        usuarioStore = UsuarioStore.getInstance();
         setupRoleComboBox();
-        System.out.println("UsuariosController inicializado");
+        setupTable();
+        cargarPagina();
+        LOG.debug("UsuariosController inicializado");
     }
     
     /**
@@ -34,6 +67,80 @@ public class UsuariosController implements Initializable {
     private void setupRoleComboBox() {
         roleComboBox.getItems().addAll("Usuario", "Administrador", "Profesor", "Estudiante");
         roleComboBox.setValue("Usuario");
+
+        filtroRolComboBox.getItems().add(TODOS_LOS_ROLES);
+        filtroRolComboBox.getItems().addAll(roleComboBox.getItems());
+        // Roles que existan en el archivo aunque no estén en la lista
+        for (String rol : usuarioStore.getRoles()) {
+            if (!filtroRolComboBox.getItems().contains(rol)) {
+                filtroRolComboBox.getItems().add(rol);
+            }
+        }
+        filtroRolComboBox.setValue(TODOS_LOS_ROLES);
+        filtroRolComboBox.setOnAction(event -> {
+            paginaActual = 0;
+            cargarPagina();
+        });
+    }
+
+    private void setupTable() {
+        colUsuario.setCellValueFactory(new PropertyValueFactory<>("nombre"));
+        colRol.setCellValueFactory(new PropertyValueFactory<>("rol"));
+        colFormato.setCellValueFactory(cell -> {
+            UsuarioStore.Registro registro = usuarioStore.getRegistro(cell.getValue().getNombre());
+            return new ReadOnlyStringWrapper(registro == null ? "" : registro.isTextoPlano() ? "Texto plano" : "Cifrado");
+        });
+    }
+
+    /**
+     * Muestra la página actual según el rol filtrado
+     */
+    private void cargarPagina() {
+        long inicio = System.nanoTime();
+        String rol = getRolFiltrado();
+        int total = usuarioStore.contar(rol);
+        int paginas = Math.max(1, (total + TAMANO_PAGINA - 1) / TAMANO_PAGINA);
+        paginaActual = Math.max(0, Math.min(paginaActual, paginas - 1));
+
+        usuariosTable.getItems().setAll(usuarioStore.pagina(rol, paginaActual * TAMANO_PAGINA, TAMANO_PAGINA));
+        paginaLabel.setText("Página " + (paginaActual + 1) + " de " + paginas + " (" + total + " usuarios)");
+        anteriorButton.setDisable(paginaActual == 0);
+        siguienteButton.setDisable(paginaActual >= paginas - 1);
+        Metrics.getInstance().histograma("tabla.usuarios").registrarDesde(inicio);
+    }
+
+    private String getRolFiltrado() {
+        String rol = filtroRolComboBox.getValue();
+        return rol == null || TODOS_LOS_ROLES.equals(rol) ? null : rol;
+    }
+
+    @FXML
+    private void paginaAnterior() {
+        paginaActual--;
+        cargarPagina();
+    }
+
+    @FXML
+    private void paginaSiguiente() {
+        paginaActual++;
+        cargarPagina();
+    }
+
+    /**
+     * Busca un usuario por nombre exacto (índice por nombre)
+     */
+    @FXML
+    private void buscarUsuario() {
+        String nombre = buscarField.getText().trim();
+        if (nombre.isEmpty()) {
+            cargarPagina();
+            return;
+        }
+        Usuario usuario = usuarioStore.buscar(nombre);
+        usuariosTable.getItems().setAll(usuario == null ? Collections.emptyList() : Collections.singletonList(usuario));
+        paginaLabel.setText(usuario == null ? "Sin resultados para: " + nombre : "Resultado de la búsqueda");
+        anteriorButton.setDisable(true);
+        siguienteButton.setDisable(true);
     }
     
     /**
@@ -41,6 +148,9 @@ public class UsuariosController implements Initializable {
      */
     @FXML
     private void agregarUsuario() {
+        if (!permitido(PermissionManager.Accion.GESTIONAR_USUARIOS)) {
+            return;
+        }
         String username = usernameField.getText().trim();
         String password = passwordField.getText();
         String role = roleComboBox.getValue();
@@ -61,14 +171,68 @@ public class UsuariosController implements Initializable {
             return;
         }
         
-        // TODO: Implementar lógica real de guardado
-        // Por ahora, solo mostrar mensaje de éxito
+        try {
+            if (!usuarioStore.agregar(username, password, role)) {
+                showAlert("Error", "Ya existe un usuario con el nombre: " + username, Alert.AlertType.ERROR);
+                return;
+            }
+        } catch (IllegalArgumentException e) {
+            showAlert("Error", e.getMessage(), Alert.AlertType.ERROR);
+            return;
+        }
+
         showAlert("Éxito", "Usuario agregado correctamente: " + username, Alert.AlertType.INFORMATION);
-        
-        // Limpiar campos
+
+        // Limpiar campos y mostrar la última página, donde queda el usuario nuevo
         limpiarCampos();
+        buscarField.clear();
+        paginaActual = Integer.MAX_VALUE;
+        cargarPagina();
     }
     
+    /**
+     * Exporta los metadatos de usuarios (sin credenciales) a CSV o JSON Lines
+     */
+    @FXML
+    private void exportarUsuarios() {
+        if (!permitido(PermissionManager.Accion.EXPORTAR_USUARIOS)) {
+            return;
+        }
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Exportar usuarios");
+        chooser.setInitialFileName("usuarios.csv");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV", "*.csv", "*.csv.gz"),
+                new FileChooser.ExtensionFilter("JSON Lines", "*.jsonl", "*.jsonl.gz"));
+        File archivo = chooser.showSaveDialog(usuariosTable.getScene().getWindow());
+        if (archivo == null) {
+            return;
+        }
+
+        String destino = archivo.getAbsolutePath();
+        DataExporter.Formato formato = destino.endsWith(".jsonl") || destino.endsWith(".jsonl.gz")
+                ? DataExporter.Formato.JSONL : DataExporter.Formato.CSV;
+        try {
+            long total = new DataExporter()
+                    .exportar(DataExporter.Entidad.USUARIOS, formato, destino, destino.endsWith(".gz"));
+            showAlert("Exportación finalizada", total + " usuarios exportados a " + destino, Alert.AlertType.INFORMATION);
+        } catch (Exception e) {
+            LOG.error("Error al exportar usuarios", e);
+            showAlert("Error", "No se pudo exportar el archivo de usuarios", Alert.AlertType.ERROR);
+        }
+    }
+
+    /**
+     * Verifica que el rol de la sesión pueda realizar la acción; si no, avisa al usuario
+     */
+    private boolean permitido(PermissionManager.Accion accion) {
+        if (PermissionManager.getInstance().puede(accion)) {
+            return true;
+        }
+        showAlert("Acceso denegado", "Su rol no tiene permiso para esta acción", Alert.AlertType.ERROR);
+        return false;
+    }
+
     /**
      * Maneja el retorno al menú principal
      */
@@ -78,7 +242,7 @@ public class UsuariosController implements Initializable {
             NavigationManager navigationManager = NavigationManager.getInstance();
             navigationManager.navigateTo(NavigationManager.Screen.MAIN);
         } catch (Exception e) {
-            System.err.println("Error al volver al menú: " + e.getMessage());
+            LOG.error("Error al volver al menú", e);
             showAlert("Error", "No se pudo volver al menú principal", Alert.AlertType.ERROR);
         }
     }
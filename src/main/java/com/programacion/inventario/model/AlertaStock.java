@@ -0,0 +1,43 @@
+package com.programacion.inventario.model;
+
+/**
+ * Alerta de reposición: un producto cuyo stock está en o bajo su punto de reorden
+ */
+public class AlertaStock {
+    private final String sku;
+    private final String nombre;
+    private final long stock;
+    private final long puntoReorden;
+    private final double diasCobertura;
+    private final String proveedorId;
+
+    public AlertaStock(String sku, String nombre, long stock, long puntoReorden,
+                       double diasCobertura, String proveedorId) {
+        this.sku = sku;
+        this.nombre = nombre;
+        this.stock = stock;
+        this.puntoReorden = puntoReorden;
+        this.diasCobertura = diasCobertura;
+        this.proveedorId = proveedorId;
+    }
+
+    public String getSku() { return sku; }
+    public String getNombre() { return nombre; }
+    public long getStock() { return stock; }
+    public long getPuntoReorden() { return puntoReorden; }
+    public String getProveedorId() { return proveedorId; }
+
+    /**
+     * Días que alcanza el stock al ritmo de consumo observado
+     * (Double.POSITIVE_INFINITY si aún no hay consumo registrado)
+     */
+    public double getDiasCobertura() { return diasCobertura; }
+
+    @Override
+    public String toString() {
+        String cobertura = Double.isInfinite(diasCobertura)
+                ? "sin consumo reciente"
+                : String.format("%.1f días de cobertura", diasCobertura);
+        return sku + " - " + nombre + ": " + stock + "/" + puntoReorden + " (" + cobertura + ")";
+    }
+}
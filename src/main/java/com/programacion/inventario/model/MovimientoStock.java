@@ -0,0 +1,68 @@
+package com.programacion.inventario.model;
+
+/**
+ * Movimiento de stock registrado en el libro de movimientos (movimientos.txt)
+ * Los movimientos nunca se modifican: el stock actual es la suma de sus deltas
+ */
+public class MovimientoStock {
+
+    public enum Tipo { ENTRADA, SALIDA, AJUSTE }
+
+    private final long timestamp;
+    private final String sku;
+    private final Tipo tipo;
+    private final long cantidad;
+    private final String nota;
+
+    /**
+     * @param cantidad Unidades del movimiento: positiva para ENTRADA y SALIDA,
+     *                 con signo para AJUSTE (diferencia encontrada al contar)
+     */
+    public MovimientoStock(long timestamp, String sku, Tipo tipo, long cantidad, String nota) {
+        this.timestamp = timestamp;
+        this.sku = sku;
+        this.tipo = tipo;
+        this.cantidad = cantidad;
+        this.nota = nota == null ? "" : nota;
+    }
+
+    public long getTimestamp() { return timestamp; }
+    public String getSku() { return sku; }
+    public Tipo getTipo() { return tipo; }
+    public long getCantidad() { return cantidad; }
+    public String getNota() { return nota; }
+
+    /**
+     * Variación que el movimiento aplica sobre el stock
+     */
+    public long getDelta() {
+        return tipo == Tipo.SALIDA ? -cantidad : cantidad;
+    }
+
+    /**
+     * Convierte el movimiento a una línea del archivo movimientos.txt
+     */
+    public String toRegistro() {
+        return timestamp + "|" + sku + "|" + tipo.name() + "|" + cantidad + "|" + nota;
+    }
+
+    /**
+     * Crea un movimiento a partir de una línea del archivo movimientos.txt
+     * Retorna null si la línea no es válida
+     */
+    public static MovimientoStock fromRegistro(String linea) {
+        String[] datos = linea.split("\\|", 5);
+        if (datos.length < 4) return null;
+        try {
+            return new MovimientoStock(Long.parseLong(datos[0]), datos[1], Tipo.valueOf(datos[2]),
+                    Long.parseLong(datos[3]), datos.length > 4 ? datos[4] : "");
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return tipo + " " + cantidad + " de " + sku;
+    }
+}
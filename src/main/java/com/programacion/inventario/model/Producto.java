@@ -0,0 +1,79 @@
+package com.programacion.inventario.model;
+
+public class Producto {
+    private String sku;
+    private String nombre;
+    private String categoria;
+    private double precio;
+    private long puntoReorden;
+    private String proveedorId;
+
+    // Constructor vacío
+    public Producto() {
+    }
+
+    // Constructor con parámetros
+    public Producto(String sku, String nombre, String categoria, double precio) {
+        this.sku = sku;
+        this.nombre = nombre;
+        this.categoria = categoria;
+        this.precio = precio;
+        this.proveedorId = "";
+    }
+
+    public Producto(String sku, String nombre, String categoria, double precio, long puntoReorden, String proveedorId) {
+        this(sku, nombre, categoria, precio);
+        this.puntoReorden = puntoReorden;
+        this.proveedorId = proveedorId;
+    }
+
+    // Getters y Setters
+    public String getSku() { return sku; }
+    public void setSku(String sku) { this.sku = sku; }
+
+    public String getNombre() { return nombre; }
+    public void setNombre(String nombre) { this.nombre = nombre; }
+
+    public String getCategoria() { return categoria; }
+    public void setCategoria(String categoria) { this.categoria = categoria; }
+
+    public double getPrecio() { return precio; }
+    public void setPrecio(double precio) { this.precio = precio; }
+
+    public long getPuntoReorden() { return puntoReorden; }
+    public void setPuntoReorden(long puntoReorden) { this.puntoReorden = puntoReorden; }
+
+    public String getProveedorId() { return proveedorId; }
+    public void setProveedorId(String proveedorId) { this.proveedorId = proveedorId; }
+
+    /**
+     * Convierte el producto a una línea del archivo productos.txt
+     */
+    public String toRegistro() {
+        return sku + "|" + nombre + "|" + categoria + "|" + precio + "|" + puntoReorden + "|" + proveedorId;
+    }
+
+    /**
+     * Crea un producto a partir de una línea del archivo productos.txt
+     * Acepta también el formato anterior sin punto de reorden ni proveedor
+     * Retorna null si la línea no es válida
+     */
+    public static Producto fromRegistro(String linea) {
+        String[] datos = linea.split("\\|", -1);
+        if (datos.length < 4) return null;
+        try {
+            if (datos.length >= 6) {
+                return new Producto(datos[0], datos[1], datos[2], Double.parseDouble(datos[3]),
+                        Long.parseLong(datos[4]), datos[5]);
+            }
+            return new Producto(datos[0], datos[1], datos[2], Double.parseDouble(datos[3]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return sku + " - " + nombre;
+    }
+}
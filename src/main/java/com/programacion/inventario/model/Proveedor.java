@@ -41,6 +41,27 @@ public class Proveedor {
     public String getDireccion() { return direccion; }
     public void setDireccion(String direccion) { this.direccion = direccion; }
 
+    /**
+     * Convierte el proveedor a una línea del archivo proveedores.txt
+     */
+    public String toRegistro() {
+        return id + "|" + nombre + "|" + contacto + "|" + telefono + "|" + email + "|" + direccion;
+    }
+
+    /**
+     * Crea un proveedor a partir de una línea del archivo proveedores.txt
+     * Retorna null si la línea no tiene los 6 campos esperados
+     *
+     * Los campos vacíos al final se conservan (split con límite -1): una línea
+     * con la dirección vacía, como la que escribe toRegistro, es un proveedor
+     * válido con dirección "".
+     */
+    public static Proveedor fromRegistro(String linea) {
+        String[] datos = linea.split("\\|", -1);
+        if (datos.length < 6) return null;
+        return new Proveedor(datos[0], datos[1], datos[2], datos[3], datos[4], datos[5]);
+    }
+
     @Override
     public String toString() {
         return nombre + " (" + contacto + ")";
@@ -0,0 +1,723 @@
+package com.programacion.inventario.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * BTreeRepository - Repository sobre un árbol B+ paginado en un FileChannel
+ *
+ * El archivo se divide en páginas de 4 KB: la página 0 es la cabecera (raíz,
+ * cantidad de páginas y de registros) y el resto son nodos. Las hojas guardan
+ * pares clave/registro ordenados y están enlazadas con la hoja siguiente; los
+ * nodos internos guardan claves separadoras y números de página hijos.
+ *
+ * Buscar, insertar o reemplazar recorre un camino raíz-hoja (O(log n)
+ * páginas) y escribe solo las páginas modificadas más la cabecera; un
+ * recorrido por rango baja una vez y sigue las hojas enlazadas. Las páginas
+ * leídas quedan en una caché LRU (inventario.btree.paginasCache, 1024 por
+ * defecto) y las modificadas se escriben juntas al terminar cada operación.
+ *
+ * Un registro que no entra en un cuarto de página va a una cadena de páginas
+ * de desborde y la hoja guarda solo la primera página y el tamaño.
+ *
+ * Simplificaciones: al eliminar no se fusionan páginas (una hoja puede quedar
+ * vacía y se reutiliza al insertar claves en su rango) y las páginas no se
+ * liberan (tampoco las cadenas de desborde reemplazadas). La cabecera se
+ * escribe después de los nodos, pero no hay diario: un corte durante una
+ * división puede dejar el árbol inconsistente. Si una escritura falla a
+ * mitad, la instancia descarta las páginas en memoria y relee la cabecera.
+ *
+ * Varias instancias pueden abrir el mismo archivo: cada operación toma el
+ * bloqueo del archivo (ver FileLocks) y, si la versión cambió desde la
+ * operación anterior, descarta la caché de páginas y relee la cabecera.
+ */
+// Las lecturas solo toman el bloqueo compartido: el recurso no se usa dentro del try
+@SuppressWarnings("try")
+public class BTreeRepository<K extends Comparable<? super K>, V> implements Repository<K, V> {
+
+    public static final int TAMANO_PAGINA = 4096;
+
+    private static final int MAGIC = 0x42545245; // "BTRE"
+    // La versión 2 agrega las páginas de desborde; se siguen leyendo archivos de la 1
+    private static final int VERSION = 2;
+
+    private static final byte HOJA = 0;
+    private static final byte INTERNO = 1;
+    private static final byte DESBORDE = 2;
+    // tipo (1) + cantidad de claves (2) + hoja siguiente o primer hijo (4)
+    private static final int CABECERA_NODO = 7;
+    // Con entradas de hasta un cuarto de página, las dos mitades de una división siempre caben
+    private static final int MAX_ENTRADA = (TAMANO_PAGINA - CABECERA_NODO) / 4;
+    // Largo máximo de una clave codificada (lo valida también la importación de CSV)
+    static final int MAX_CLAVE = 255;
+    // Página de desborde: tipo (1) + página siguiente (4) + bytes usados (2)
+    private static final int CABECERA_DESBORDE = 7;
+    // Largo de valor que indica una referencia a desborde (primera página y tamaño total)
+    private static final int MARCA_DESBORDE = 0xFFFF;
+
+    private static final int PAGINAS_CACHE = Integer.getInteger("inventario.btree.paginasCache", 1024);
+
+    private static final Metrics.Contador PAGINAS_LEIDAS = Metrics.getInstance().contador("btree.paginasLeidas");
+    private static final Metrics.Contador PAGINAS_ESCRITAS = Metrics.getInstance().contador("btree.paginasEscritas");
+    private static final Metrics.Contador ACIERTOS_CACHE = Metrics.getInstance().contador("btree.aciertosCache");
+
+    private final Path archivo;
+    private final Formato<K, V> formato;
+    private final FileChannel canal;
+
+    // Páginas sin cambios (se pueden descartar) y páginas modificadas pendientes de escribir
+    private final Map<Integer, Nodo<K>> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Nodo<K>> eldest) {
+            return size() > PAGINAS_CACHE;
+        }
+    };
+    private final Map<Integer, Nodo<K>> sucios = new HashMap<>();
+
+    private int raiz;
+    private int paginas;
+    private long registros;
+    // Versión del archivo con la que se leyeron la cabecera y la caché (-1 = sin leer)
+    private long version = -1;
+
+    public BTreeRepository(String archivo, Formato<K, V> formato) {
+        this.archivo = Paths.get(archivo);
+        this.formato = formato;
+        FileChannel abierto = null;
+        try {
+            abierto = FileChannel.open(this.archivo, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            canal = abierto;
+            try (FileLocks.Bloqueo bloqueo = FileLocks.exclusivo(this.archivo)) {
+                if (canal.size() == 0) {
+                    raiz = 1;
+                    paginas = 2;
+                    marcar(new Nodo<>(raiz, true));
+                    vaciar();
+                    version = bloqueo.incrementarVersion();
+                } else {
+                    leerCabecera();
+                    version = bloqueo.version();
+                }
+            }
+        } catch (IOException e) {
+            cerrarSilencioso(abierto);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            cerrarSilencioso(abierto);
+            throw e;
+        }
+    }
+
+    /**
+     * Toma el bloqueo del archivo y, si otra instancia lo modificó, descarta
+     * la caché y relee la cabecera
+     */
+    private FileLocks.Bloqueo bloquear(boolean exclusivo) throws IOException {
+        FileLocks.Bloqueo bloqueo = exclusivo ? FileLocks.exclusivo(archivo) : FileLocks.compartido(archivo);
+        try {
+            if (bloqueo.version() != version) {
+                cache.clear();
+                sucios.clear();
+                leerCabecera();
+                version = bloqueo.version();
+            }
+        } catch (IOException | RuntimeException e) {
+            bloqueo.close();
+            throw e;
+        }
+        return bloqueo;
+    }
+
+    // ===== CONSULTAS =====
+
+    @Override
+    public synchronized V buscar(K clave) {
+        try (FileLocks.Bloqueo bloqueo = bloquear(false)) {
+            Nodo<K> hoja = buscarHoja(clave);
+            int i = Collections.binarySearch(hoja.claves, clave);
+            return i >= 0 ? decodificar(hoja.valores.get(i)) : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * No modificar el repositorio desde la acción: el recorrido sigue las hojas enlazadas
+     */
+    @Override
+    public synchronized void recorrer(K desde, K hasta, Consumer<? super V> accion) {
+        try (FileLocks.Bloqueo bloqueo = bloquear(false)) {
+            Nodo<K> hoja = buscarHoja(desde);
+            int i = 0;
+            if (desde != null) {
+                i = Collections.binarySearch(hoja.claves, desde);
+                i = i >= 0 ? i : -i - 1;
+            }
+            while (true) {
+                for (; i < hoja.claves.size(); i++) {
+                    if (hasta != null && hoja.claves.get(i).compareTo(hasta) > 0) {
+                        return;
+                    }
+                    accion.accept(decodificar(hoja.valores.get(i)));
+                }
+                if (hoja.siguiente == 0) {
+                    return;
+                }
+                hoja = leer(hoja.siguiente);
+                i = 0;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<? super V> accion) {
+        recorrer(null, null, accion);
+    }
+
+    @Override
+    public synchronized long contar() {
+        try (FileLocks.Bloqueo bloqueo = bloquear(false)) {
+            return registros;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Hoja donde está (o iría) la clave; null = la primera hoja
+     */
+    private Nodo<K> buscarHoja(K clave) throws IOException {
+        Nodo<K> nodo = leer(raiz);
+        while (!nodo.hoja) {
+            nodo = leer(nodo.hijos.get(clave == null ? 0 : indiceHijo(nodo, clave)));
+        }
+        return nodo;
+    }
+
+    /**
+     * Hijo que cubre la clave: claves[i - 1] <= clave < claves[i]
+     */
+    private int indiceHijo(Nodo<K> nodo, K clave) {
+        int i = Collections.binarySearch(nodo.claves, clave);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    // ===== ESCRITURAS =====
+
+    @Override
+    public void guardar(V valor) {
+        guardarTodos(Collections.singletonList(valor));
+    }
+
+    /**
+     * Todos los registros se codifican y validan antes de tocar el árbol: uno
+     * inválido no deja el lote a medias
+     */
+    @Override
+    public synchronized void guardarTodos(Collection<? extends V> valores) {
+        if (valores.isEmpty()) {
+            return;
+        }
+        List<Entrada<K>> entradas = new ArrayList<>(valores.size());
+        for (V valor : valores) {
+            entradas.add(codificar(valor));
+        }
+        try (FileLocks.Bloqueo bloqueo = bloquear(true)) {
+            try {
+                for (Entrada<K> entrada : entradas) {
+                    insertar(entrada);
+                    if (sucios.size() >= PAGINAS_CACHE) {
+                        vaciar();
+                    }
+                }
+                vaciar();
+            } catch (IOException | RuntimeException e) {
+                descartarCambios(bloqueo);
+                throw e;
+            }
+            version = bloqueo.incrementarVersion();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized boolean eliminar(K clave) {
+        try (FileLocks.Bloqueo bloqueo = bloquear(true)) {
+            try {
+                Nodo<K> hoja = buscarHoja(clave);
+                int i = Collections.binarySearch(hoja.claves, clave);
+                if (i < 0) {
+                    return false;
+                }
+                hoja.eliminar(i);
+                registros--;
+                marcar(hoja);
+                vaciar();
+            } catch (IOException | RuntimeException e) {
+                descartarCambios(bloqueo);
+                throw e;
+            }
+            version = bloqueo.incrementarVersion();
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Después de un error a mitad de una escritura: descarta las páginas en
+     * memoria (la próxima operación relee la cabecera) y cambia la versión,
+     * porque un vaciado intermedio pudo haber escrito parte del lote
+     */
+    private void descartarCambios(FileLocks.Bloqueo bloqueo) {
+        cache.clear();
+        sucios.clear();
+        version = -1;
+        try {
+            bloqueo.incrementarVersion();
+        } catch (RuntimeException ignored) {
+            // Ya se informa el error original; esta instancia relee igual con version = -1
+        }
+    }
+
+    private Entrada<K> codificar(V valor) {
+        K clave = formato.clave(valor);
+        byte[] claveBytes = formato.codificarClave(clave);
+        if (claveBytes.length > MAX_CLAVE) {
+            throw new IllegalArgumentException("Clave demasiado larga para el árbol: " + clave);
+        }
+        byte[] valorBytes = formato.codificar(valor).getBytes(StandardCharsets.UTF_8);
+        if (valorBytes.length > MAX_REGISTRO) {
+            throw new IllegalArgumentException("Registro demasiado grande: " + valorBytes.length + " bytes");
+        }
+        return new Entrada<>(clave, claveBytes, valorBytes);
+    }
+
+    private void insertar(Entrada<K> entrada) throws IOException {
+        K clave = entrada.clave;
+        byte[] claveBytes = entrada.claveBytes;
+        byte[] valorBytes = entrada.valor;
+        // Con el valor en desborde la entrada de la hoja ocupa a lo sumo 4 + MAX_CLAVE + 8 bytes
+        int desborde = 4 + claveBytes.length + valorBytes.length > MAX_ENTRADA ? escribirDesborde(valorBytes) : 0;
+
+        // Bajar hasta la hoja recordando el camino para propagar divisiones
+        List<Nodo<K>> camino = new ArrayList<>();
+        List<Integer> indices = new ArrayList<>();
+        Nodo<K> nodo = leer(raiz);
+        while (!nodo.hoja) {
+            int i = indiceHijo(nodo, clave);
+            camino.add(nodo);
+            indices.add(i);
+            nodo = leer(nodo.hijos.get(i));
+        }
+
+        int posicion = Collections.binarySearch(nodo.claves, clave);
+        if (posicion >= 0) {
+            nodo.reemplazar(posicion, valorBytes, desborde);
+        } else {
+            nodo.insertarEnHoja(-posicion - 1, clave, claveBytes, valorBytes, desborde);
+            registros++;
+        }
+        marcar(nodo);
+
+        int nivel = camino.size();
+        while (nodo.bytes > TAMANO_PAGINA) {
+            Nodo<K> derecho = new Nodo<>(paginas++, nodo.hoja);
+            int separador = nodo.hoja ? dividirHoja(nodo, derecho) : dividirInterno(nodo, derecho);
+            K clavePromovida = separador < 0 ? derecho.claves.get(0) : nodo.claves.get(separador);
+            byte[] bytesPromovidos = separador < 0 ? derecho.clavesBytes.get(0) : nodo.clavesBytes.get(separador);
+            if (separador >= 0) {
+                nodo.truncarInterno(separador);
+            }
+            marcar(derecho);
+
+            if (nivel == 0) {
+                Nodo<K> nuevaRaiz = new Nodo<>(paginas++, false);
+                nuevaRaiz.hijos.add(nodo.pagina);
+                nuevaRaiz.insertarEnInterno(0, clavePromovida, bytesPromovidos, derecho.pagina);
+                raiz = nuevaRaiz.pagina;
+                marcar(nuevaRaiz);
+                return;
+            }
+            nivel--;
+            Nodo<K> padre = camino.get(nivel);
+            padre.insertarEnInterno(indices.get(nivel), clavePromovida, bytesPromovidos, derecho.pagina);
+            marcar(padre);
+            nodo = padre;
+        }
+    }
+
+    /**
+     * Mueve la mitad derecha (en bytes) de la hoja a 'derecho' y la enlaza
+     *
+     * @return -1: la clave separadora es la primera de 'derecho' (se copia al padre)
+     */
+    private int dividirHoja(Nodo<K> hoja, Nodo<K> derecho) {
+        int corte = puntoDeCorte(hoja, 1, hoja.claves.size() - 1);
+        for (int i = corte; i < hoja.claves.size(); i++) {
+            derecho.insertarEnHoja(i - corte, hoja.claves.get(i), hoja.clavesBytes.get(i), hoja.valores.get(i),
+                    hoja.desbordes.get(i));
+        }
+        hoja.truncarHoja(corte);
+        derecho.siguiente = hoja.siguiente;
+        hoja.siguiente = derecho.pagina;
+        return -1;
+    }
+
+    /**
+     * Mueve las claves e hijos a la derecha del corte a 'derecho'
+     *
+     * @return posición de la clave que sube al padre (sigue en el nodo hasta truncarlo)
+     */
+    private int dividirInterno(Nodo<K> nodo, Nodo<K> derecho) {
+        int corte = puntoDeCorte(nodo, 1, nodo.claves.size() - 2);
+        derecho.hijos.add(nodo.hijos.get(corte + 1));
+        for (int i = corte + 1; i < nodo.claves.size(); i++) {
+            derecho.insertarEnInterno(i - corte - 1, nodo.claves.get(i), nodo.clavesBytes.get(i),
+                    nodo.hijos.get(i + 1));
+        }
+        return corte;
+    }
+
+    /**
+     * Primera posición donde el tamaño acumulado supera la mitad del nodo
+     */
+    private int puntoDeCorte(Nodo<K> nodo, int minimo, int maximo) {
+        int mitad = (nodo.bytes - CABECERA_NODO) / 2;
+        int acumulado = 0;
+        int i = 0;
+        while (i < nodo.claves.size() && acumulado < mitad) {
+            acumulado += nodo.tamanoEntrada(i);
+            i++;
+        }
+        return Math.max(minimo, Math.min(maximo, i));
+    }
+
+    // ===== PÁGINAS =====
+
+    private Nodo<K> leer(int pagina) throws IOException {
+        Nodo<K> nodo = sucios.get(pagina);
+        if (nodo == null) {
+            nodo = cache.get(pagina);
+            if (nodo == null) {
+                nodo = leerNodo(pagina);
+                cache.put(pagina, nodo);
+            } else {
+                ACIERTOS_CACHE.incrementar();
+            }
+        }
+        return nodo;
+    }
+
+    /**
+     * La página queda fuera de la caché (no se puede descartar) hasta el próximo vaciado
+     */
+    private void marcar(Nodo<K> nodo) {
+        cache.remove(nodo.pagina);
+        sucios.put(nodo.pagina, nodo);
+    }
+
+    /**
+     * Escribe las páginas modificadas y después la cabecera
+     */
+    private void vaciar() throws IOException {
+        for (Nodo<K> nodo : sucios.values()) {
+            escribirNodo(nodo);
+            cache.put(nodo.pagina, nodo);
+        }
+        sucios.clear();
+        escribirCabecera();
+    }
+
+    private Nodo<K> leerNodo(int pagina) throws IOException {
+        ByteBuffer buffer = leerPagina(pagina);
+        Nodo<K> nodo = new Nodo<>(pagina, buffer.get() == HOJA);
+        int cantidad = buffer.getShort() & 0xFFFF;
+        int enlace = buffer.getInt();
+        if (nodo.hoja) {
+            nodo.siguiente = enlace;
+            for (int i = 0; i < cantidad; i++) {
+                byte[] claveBytes = leerBytes(buffer);
+                int largo = buffer.getShort() & 0xFFFF;
+                if (largo == MARCA_DESBORDE) {
+                    int primera = buffer.getInt();
+                    nodo.insertarEnHoja(i, formato.decodificarClave(claveBytes), claveBytes,
+                            leerDesborde(primera, buffer.getInt()), primera);
+                } else {
+                    byte[] valor = new byte[largo];
+                    buffer.get(valor);
+                    nodo.insertarEnHoja(i, formato.decodificarClave(claveBytes), claveBytes, valor, 0);
+                }
+            }
+        } else {
+            nodo.hijos.add(enlace);
+            for (int i = 0; i < cantidad; i++) {
+                byte[] claveBytes = leerBytes(buffer);
+                nodo.insertarEnInterno(i, formato.decodificarClave(claveBytes), claveBytes, buffer.getInt());
+            }
+        }
+        PAGINAS_LEIDAS.incrementar();
+        return nodo;
+    }
+
+    private void escribirNodo(Nodo<K> nodo) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANO_PAGINA);
+        buffer.put(nodo.hoja ? HOJA : INTERNO);
+        buffer.putShort((short) nodo.claves.size());
+        buffer.putInt(nodo.hoja ? nodo.siguiente : nodo.hijos.get(0));
+        for (int i = 0; i < nodo.claves.size(); i++) {
+            byte[] claveBytes = nodo.clavesBytes.get(i);
+            buffer.putShort((short) claveBytes.length).put(claveBytes);
+            if (nodo.hoja && nodo.desbordes.get(i) != 0) {
+                buffer.putShort((short) MARCA_DESBORDE).putInt(nodo.desbordes.get(i))
+                        .putInt(nodo.valores.get(i).length);
+            } else if (nodo.hoja) {
+                byte[] valor = nodo.valores.get(i);
+                buffer.putShort((short) valor.length).put(valor);
+            } else {
+                buffer.putInt(nodo.hijos.get(i + 1));
+            }
+        }
+        escribirPagina(nodo.pagina, buffer.clear());
+        PAGINAS_ESCRITAS.incrementar();
+    }
+
+    /**
+     * Escribe el valor en páginas nuevas al final, encadenadas
+     *
+     * @return la primera página de la cadena
+     */
+    private int escribirDesborde(byte[] valor) throws IOException {
+        int capacidad = TAMANO_PAGINA - CABECERA_DESBORDE;
+        int cantidad = (valor.length + capacidad - 1) / capacidad;
+        int primera = paginas;
+        paginas += cantidad;
+        for (int i = 0; i < cantidad; i++) {
+            int desde = i * capacidad;
+            int largo = Math.min(capacidad, valor.length - desde);
+            ByteBuffer buffer = ByteBuffer.allocate(TAMANO_PAGINA);
+            buffer.put(DESBORDE).putInt(i + 1 < cantidad ? primera + i + 1 : 0).putShort((short) largo)
+                    .put(valor, desde, largo);
+            escribirPagina(primera + i, buffer.clear());
+            PAGINAS_ESCRITAS.incrementar();
+        }
+        return primera;
+    }
+
+    private byte[] leerDesborde(int primera, int total) throws IOException {
+        if (total < 0 || total > MAX_REGISTRO) {
+            throw new IOException("Referencia de desborde corrupta en " + archivo);
+        }
+        byte[] valor = new byte[total];
+        int leido = 0;
+        int pagina = primera;
+        while (leido < total) {
+            if (pagina <= 0 || pagina >= paginas) {
+                throw new IOException("Cadena de desborde corrupta en " + archivo);
+            }
+            ByteBuffer buffer = leerPagina(pagina);
+            if (buffer.get() != DESBORDE) {
+                throw new IOException("Página " + pagina + " no es de desborde: " + archivo);
+            }
+            pagina = buffer.getInt();
+            int largo = buffer.getShort() & 0xFFFF;
+            if (largo > total - leido || largo > buffer.remaining()) {
+                throw new IOException("Cadena de desborde corrupta en " + archivo);
+            }
+            buffer.get(valor, leido, largo);
+            leido += largo;
+            PAGINAS_LEIDAS.incrementar();
+        }
+        return valor;
+    }
+
+    private void leerCabecera() throws IOException {
+        ByteBuffer buffer = leerPagina(0);
+        int formatoArchivo = buffer.getInt() == MAGIC ? buffer.getInt() : -1;
+        if ((formatoArchivo != 1 && formatoArchivo != VERSION) || buffer.getInt() != TAMANO_PAGINA) {
+            throw new IOException("No es un archivo de árbol B+ válido: " + archivo);
+        }
+        raiz = buffer.getInt();
+        paginas = buffer.getInt();
+        registros = buffer.getLong();
+        if (raiz <= 0 || raiz >= paginas || registros < 0) {
+            throw new IOException("Cabecera del árbol B+ corrupta: " + archivo);
+        }
+    }
+
+    private void escribirCabecera() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANO_PAGINA);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(TAMANO_PAGINA)
+                .putInt(raiz).putInt(paginas).putLong(registros);
+        escribirPagina(0, buffer.clear());
+    }
+
+    private ByteBuffer leerPagina(int pagina) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANO_PAGINA);
+        long posicion = (long) pagina * TAMANO_PAGINA;
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, posicion + buffer.position()) < 0) {
+                throw new IOException("Página " + pagina + " fuera del archivo: " + archivo);
+            }
+        }
+        return buffer.flip();
+    }
+
+    private void escribirPagina(int pagina, ByteBuffer buffer) throws IOException {
+        long posicion = (long) pagina * TAMANO_PAGINA;
+        while (buffer.hasRemaining()) {
+            canal.write(buffer, posicion + buffer.position());
+        }
+    }
+
+    private static byte[] leerBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private V decodificar(byte[] valor) {
+        return formato.decodificar(new String(valor, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Cada escritura ya vació sus páginas: cerrar no escribe nada (otra
+     * instancia puede haber cambiado la cabecera)
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            canal.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void cerrarSilencioso(FileChannel canal) {
+        if (canal != null) {
+            try {
+                canal.close();
+            } catch (IOException ignored) {
+                // Ya se informa el error original
+            }
+        }
+    }
+
+    /**
+     * Registro codificado y validado, listo para insertar
+     */
+    private static final class Entrada<K> {
+        final K clave;
+        final byte[] claveBytes;
+        final byte[] valor;
+
+        Entrada(K clave, byte[] claveBytes, byte[] valor) {
+            this.clave = clave;
+            this.claveBytes = claveBytes;
+            this.valor = valor;
+        }
+    }
+
+    /**
+     * Página decodificada; 'bytes' es su tamaño una vez escrita
+     */
+    private static final class Nodo<K> {
+        final int pagina;
+        final boolean hoja;
+        final List<K> claves = new ArrayList<>();
+        final List<byte[]> clavesBytes = new ArrayList<>();
+        // Hojas: registro de cada clave, primera página de su desborde (0 = en la hoja)
+        // y página de la hoja siguiente (0 = última)
+        final List<byte[]> valores;
+        final List<Integer> desbordes;
+        int siguiente;
+        // Nodos internos: hijos.size() == claves.size() + 1
+        final List<Integer> hijos;
+        int bytes = CABECERA_NODO;
+
+        Nodo(int pagina, boolean hoja) {
+            this.pagina = pagina;
+            this.hoja = hoja;
+            this.valores = hoja ? new ArrayList<>() : null;
+            this.desbordes = hoja ? new ArrayList<>() : null;
+            this.hijos = hoja ? null : new ArrayList<>();
+        }
+
+        int tamanoEntrada(int i) {
+            if (!hoja) {
+                return 2 + clavesBytes.get(i).length + 4;
+            }
+            return 2 + clavesBytes.get(i).length + 2 + (desbordes.get(i) != 0 ? 8 : valores.get(i).length);
+        }
+
+        void insertarEnHoja(int i, K clave, byte[] claveBytes, byte[] valor, int desborde) {
+            claves.add(i, clave);
+            clavesBytes.add(i, claveBytes);
+            valores.add(i, valor);
+            desbordes.add(i, desborde);
+            bytes += tamanoEntrada(i);
+        }
+
+        void reemplazar(int i, byte[] valor, int desborde) {
+            bytes -= tamanoEntrada(i);
+            valores.set(i, valor);
+            desbordes.set(i, desborde);
+            bytes += tamanoEntrada(i);
+        }
+
+        void eliminar(int i) {
+            bytes -= tamanoEntrada(i);
+            claves.remove(i);
+            clavesBytes.remove(i);
+            valores.remove(i);
+            desbordes.remove(i);
+        }
+
+        /**
+         * Inserta la clave en la posición i y su hijo derecho en i + 1
+         */
+        void insertarEnInterno(int i, K clave, byte[] claveBytes, int hijoDerecho) {
+            claves.add(i, clave);
+            clavesBytes.add(i, claveBytes);
+            hijos.add(i + 1, hijoDerecho);
+            bytes += tamanoEntrada(i);
+        }
+
+        void truncarHoja(int desde) {
+            while (claves.size() > desde) {
+                eliminar(claves.size() - 1);
+            }
+        }
+
+        /**
+         * Deja las claves [0, desde) y los hijos [0, desde]
+         */
+        void truncarInterno(int desde) {
+            while (claves.size() > desde) {
+                int ultimo = claves.size() - 1;
+                bytes -= tamanoEntrada(ultimo);
+                claves.remove(ultimo);
+                clavesBytes.remove(ultimo);
+                hijos.remove(ultimo + 1);
+            }
+        }
+    }
+}
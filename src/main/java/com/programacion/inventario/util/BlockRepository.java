@@ -0,0 +1,882 @@
+package com.programacion.inventario.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * BlockRepository - Repository sobre bloques comprimidos con Deflater
+ *
+ * Los registros (las mismas líneas que en el archivo de texto) se agrupan en
+ * bloques de unos 64 KB sin comprimir (inventario.bloques.tamano) que se
+ * comprimen por separado. Cada bloque lleva delante su tamaño comprimido, su
+ * tamaño sin comprimir y el CRC32C de los bytes comprimidos; el archivo
+ * empieza con MAGIC.
+ *
+ * Al abrir se leen las cabeceras (el índice de bloques: posición y tamaños)
+ * y se descomprimen todos los bloques en paralelo para armar el índice
+ * clave -> bloque y desplazamiento dentro del bloque. Buscar descomprime solo
+ * el bloque del registro (los últimos usados quedan en una caché LRU,
+ * inventario.bloques.cache) y forEach descomprime y decodifica en paralelo,
+ * entregando los registros en el orden del archivo.
+ *
+ * Los registros nuevos van en bloques nuevos al final. Reemplazar o eliminar
+ * reescribe el archivo, y también se reescribe cuando al final se juntan
+ * muchos bloques chicos (registros guardados de a uno) para recuperar la
+ * compresión. Tras una cabecera imposible se busca el siguiente bloque que
+ * valide su CRC y se sigue desde ahí; solo si no queda ninguno (escritura
+ * cortada al final) la cola se trunca al abrir con el bloqueo exclusivo.
+ * Los bloques con otro CRC y las regiones salteadas se omiten al leer y se
+ * copian sin cambios al reescribir.
+ *
+ * El bloqueo y la recarga entre instancias son los de TextRepository.
+ */
+// Las lecturas solo toman el bloqueo compartido: el recurso no se usa dentro del try
+@SuppressWarnings("try")
+public class BlockRepository<K extends Comparable<? super K>, V> implements Repository<K, V> {
+
+    private static final Log LOG = Log.get(BlockRepository.class);
+
+    private static final int TAMANO_BLOQUE = Integer.getInteger("inventario.bloques.tamano", 64 * 1024);
+    private static final int NIVEL = Integer.getInteger("inventario.bloques.nivel", Deflater.DEFAULT_COMPRESSION);
+    private static final int BLOQUES_CACHE = Integer.getInteger("inventario.bloques.cache", 16);
+
+    private static final byte[] MAGIC = "INVBLQ1\n".getBytes(StandardCharsets.US_ASCII);
+    // Tamaño comprimido (4) + tamaño sin comprimir (4) + CRC32C (4)
+    private static final int CABECERA_BLOQUE = 12;
+    private static final int MAX_BLOQUE = 64 * 1024 * 1024;
+    // Bloques de menos de medio TAMANO_BLOQUE seguidos al final que disparan una reescritura
+    private static final int MAX_BLOQUES_CHICOS = 16;
+
+    private static final Metrics.Contador BYTES_LEIDOS = Metrics.getInstance().contador("repositorio.bytesLeidos");
+    private static final Metrics.Contador DESCOMPRIMIDOS = Metrics.getInstance().contador("bloques.descomprimidos");
+    private static final Metrics.Contador ACIERTOS_CACHE = Metrics.getInstance().contador("bloques.aciertosCache");
+    private static final Metrics.Contador BLOQUES_DANADOS = Metrics.getInstance().contador("bloques.danados");
+    private static final Metrics.Contador BYTES_TRUNCADOS = Metrics.getInstance().contador("registros.bytesTruncados");
+
+    private final Path archivo;
+    private final Formato<K, V> formato;
+    private final ForkJoinPool pool;
+    // clave -> número de bloque (32 bits altos) y desplazamiento de la línea en el bloque
+    private final Map<K, Long> indice = new HashMap<>();
+    private final List<Bloque> bloques = new ArrayList<>();
+    // Regiones sin cabecera válida entre bloques, en orden
+    private final List<Hueco> huecos = new ArrayList<>();
+    private final Map<Integer, byte[]> cache = new LinkedHashMap<>(32, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, byte[]> eldest) {
+            return size() > BLOQUES_CACHE;
+        }
+    };
+
+    private long tamano;
+    // Inicio de una cola sin ningún bloque válido (escritura cortada; -1 = no hay)
+    private long colaIncompleta = -1;
+    private FileChannel lector;
+    // Versión y fecha de modificación con las que se cargó el índice (-1 = sin cargar)
+    private long version = -1;
+    private FileTime modificado;
+
+    public BlockRepository(String archivo, Formato<K, V> formato) {
+        this(archivo, formato, ForkJoinPool.commonPool());
+    }
+
+    public BlockRepository(String archivo, Formato<K, V> formato, ForkJoinPool pool) {
+        this.archivo = Paths.get(archivo);
+        this.formato = formato;
+        this.pool = pool;
+        bloquear(true).close();
+    }
+
+    /**
+     * Bloque del archivo: posición de su cabecera, tamaños y CRC32C de los bytes comprimidos
+     */
+    private static final class Bloque {
+        final long posicion;
+        final int comprimido;
+        final int crudo;
+        final int crc;
+
+        Bloque(long posicion, int comprimido, int crudo, int crc) {
+            this.posicion = posicion;
+            this.comprimido = comprimido;
+            this.crudo = crudo;
+            this.crc = crc;
+        }
+
+        long fin() {
+            return posicion + CABECERA_BLOQUE + comprimido;
+        }
+    }
+
+    /**
+     * Bytes dañados entre dos bloques: desde una cabecera imposible hasta el siguiente bloque válido
+     */
+    private static final class Hueco {
+        final long posicion;
+        final long fin;
+
+        Hueco(long posicion, long fin) {
+            this.posicion = posicion;
+            this.fin = fin;
+        }
+    }
+
+    private static long ubicacion(int bloque, int desplazamiento) {
+        return (long) bloque << 32 | desplazamiento;
+    }
+
+    /**
+     * Toma el bloqueo del archivo y recarga el índice si quedó desactualizado;
+     * con el bloqueo exclusivo además trunca un bloque incompleto al final
+     */
+    private FileLocks.Bloqueo bloquear(boolean exclusivo) {
+        FileLocks.Bloqueo bloqueo = exclusivo ? FileLocks.exclusivo(archivo) : FileLocks.compartido(archivo);
+        try {
+            BasicFileAttributes atributos = atributos();
+            long tamanoActual = atributos == null ? 0 : atributos.size();
+            FileTime modificadoActual = atributos == null ? null : atributos.lastModifiedTime();
+            if (bloqueo.version() != version || tamanoActual != tamano || !Objects.equals(modificadoActual, modificado)) {
+                if (version >= 0) {
+                    LOG.debug("Archivo modificado fuera de este repositorio, se recarga el índice",
+                            "archivo", archivo.getFileName());
+                }
+                cargarIndice();
+                version = bloqueo.version();
+                modificado = modificadoActual;
+            }
+            if (exclusivo && colaIncompleta >= 0) {
+                truncarCola();
+                escrito(bloqueo);
+            }
+        } catch (RuntimeException e) {
+            bloqueo.close();
+            throw e;
+        }
+        return bloqueo;
+    }
+
+    /**
+     * Marca el índice como vigente después de escribir el archivo
+     */
+    private void escrito(FileLocks.Bloqueo bloqueo) {
+        version = bloqueo.incrementarVersion();
+        BasicFileAttributes atributos = atributos();
+        modificado = atributos == null ? null : atributos.lastModifiedTime();
+    }
+
+    private BasicFileAttributes atributos() {
+        try {
+            return Files.readAttributes(archivo, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lee las cabeceras de los bloques y descomprime todos en paralelo para
+     * indexar sus claves
+     */
+    private void cargarIndice() {
+        indice.clear();
+        bloques.clear();
+        huecos.clear();
+        cache.clear();
+        cerrarLector();
+        tamano = 0;
+        colaIncompleta = -1;
+        if (!Files.exists(archivo)) {
+            return;
+        }
+        try {
+            leerCabeceras(lector());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        recorrerBloques(todos(), (numero, datos) -> {
+            if (datos == null) {
+                return null;
+            }
+            List<Map.Entry<K, Integer>> claves = new ArrayList<>();
+            lineas(datos, (desplazamiento, linea) ->
+                    claves.add(new AbstractMap.SimpleImmutableEntry<>(formato.claveDeLinea(linea), desplazamiento)));
+            return claves;
+        }, (numero, claves) -> {
+            if (claves == null) {
+                LOG.warn("Bloque dañado omitido", "archivo", archivo.getFileName(),
+                        "posicion", bloques.get(numero).posicion);
+                BLOQUES_DANADOS.incrementar();
+                return;
+            }
+            for (Map.Entry<K, Integer> entrada : claves) {
+                K clave = entrada.getKey();
+                if (clave == null) {
+                    LOG.warn("Línea inválida omitida", "archivo", archivo.getFileName(), "bloque", numero);
+                } else if (indice.putIfAbsent(clave, ubicacion(numero, entrada.getValue())) != null) {
+                    LOG.warn("Clave duplicada omitida", "archivo", archivo.getFileName(), "clave", clave);
+                }
+            }
+        });
+    }
+
+    /**
+     * Índice de bloques: recorre las cabeceras hasta el final del archivo.
+     * Una cabecera imposible o un bloque cortado con algún bloque válido
+     * después es un hueco; sin ninguno después es la cola incompleta
+     */
+    private void leerCabeceras(FileChannel canal) throws IOException {
+        tamano = canal.size();
+        if (tamano == 0) {
+            return;
+        }
+        ByteBuffer cabecera = ByteBuffer.allocate(Math.max(MAGIC.length, CABECERA_BLOQUE));
+        if (!leer(canal, cabecera.limit(MAGIC.length), 0)) {
+            // Cortado mientras se escribía la primera vez
+            colaIncompleta = 0;
+            return;
+        }
+        if (!Arrays.equals(Arrays.copyOf(cabecera.array(), MAGIC.length), MAGIC)) {
+            throw new IOException("No es un archivo de bloques comprimidos: " + archivo);
+        }
+        long posicion = MAGIC.length;
+        while (posicion < tamano) {
+            cabecera.clear().limit(CABECERA_BLOQUE);
+            if (leer(canal, cabecera, posicion) && cabeceraPosible(posicion, cabecera.getInt(0), cabecera.getInt(4))) {
+                Bloque bloque = new Bloque(posicion, cabecera.getInt(0), cabecera.getInt(4), cabecera.getInt(8));
+                bloques.add(bloque);
+                posicion = bloque.fin();
+                continue;
+            }
+            long siguiente = siguienteBloque(canal, posicion + 1);
+            if (siguiente < 0) {
+                colaIncompleta = posicion;
+                return;
+            }
+            LOG.warn("Cabecera dañada en medio del archivo, se omite hasta el siguiente bloque",
+                    "archivo", archivo.getFileName(), "bytes", siguiente - posicion);
+            BLOQUES_DANADOS.incrementar();
+            huecos.add(new Hueco(posicion, siguiente));
+            posicion = siguiente;
+        }
+    }
+
+    private boolean cabeceraPosible(long posicion, int comprimido, int crudo) {
+        return comprimido > 0 && comprimido <= MAX_BLOQUE && crudo >= 0 && crudo <= MAX_BLOQUE
+                && posicion + CABECERA_BLOQUE + comprimido <= tamano;
+    }
+
+    /**
+     * Primera posición desde 'desde' con una cabecera posible cuyo bloque
+     * valida el CRC y se descomprime (-1 si no hay ninguna). Solo se usa con
+     * el archivo dañado: revisa byte por byte
+     */
+    private long siguienteBloque(FileChannel canal, long desde) throws IOException {
+        ByteBuffer ventana = ByteBuffer.allocate(64 * 1024);
+        long inicio = desde;
+        while (tamano - inicio >= CABECERA_BLOQUE) {
+            ventana.clear().limit((int) Math.min(ventana.capacity(), tamano - inicio));
+            if (!leer(canal, ventana, inicio)) {
+                return -1;
+            }
+            int ultima = ventana.limit() - CABECERA_BLOQUE;
+            for (int i = 0; i <= ultima; i++) {
+                long posicion = inicio + i;
+                if (cabeceraPosible(posicion, ventana.getInt(i), ventana.getInt(i + 4))) {
+                    Bloque candidato = new Bloque(posicion, ventana.getInt(i), ventana.getInt(i + 4),
+                            ventana.getInt(i + 8));
+                    if (descomprimir(canal, candidato) != null) {
+                        return posicion;
+                    }
+                }
+            }
+            inicio += ultima + 1;
+        }
+        return -1;
+    }
+
+    private void truncarCola() {
+        cerrarLector();
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+            canal.truncate(colaIncompleta);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        LOG.warn("Bloque incompleto al final del archivo, se trunca", "archivo", archivo.getFileName(),
+                "bytes", tamano - colaIncompleta);
+        BYTES_TRUNCADOS.sumar(tamano - colaIncompleta);
+        tamano = colaIncompleta;
+        colaIncompleta = -1;
+    }
+
+    // ===== CONSULTAS =====
+
+    @Override
+    public synchronized V buscar(K clave) {
+        try (FileLocks.Bloqueo bloqueo = bloquear(false)) {
+            Long ubicacion = indice.get(clave);
+            if (ubicacion == null) {
+                return null;
+            }
+            byte[] datos = leerBloque((int) (ubicacion >>> 32));
+            return datos == null ? null : formato.decodificar(linea(datos, (int) (long) ubicacion));
+        }
+    }
+
+    @Override
+    public synchronized boolean contiene(K clave) {
+        try (FileLocks.Bloqueo bloqueo = bloquear(false)) {
+            return indice.containsKey(clave);
+        }
+    }
+
+    /**
+     * Descomprime una vez cada bloque con claves del rango y las entrega ordenadas
+     */
+    @Override
+    public synchronized void recorrer(K desde, K hasta, Consumer<? super V> accion) {
+        try (FileLocks.Bloqueo bloqueo = bloquear(false)) {
+            List<Integer> numeros = new ArrayList<>();
+            boolean[] marcados = new boolean[bloques.size()];
+            for (Map.Entry<K, Long> entrada : indice.entrySet()) {
+                if (enRango(entrada.getKey(), desde, hasta)) {
+                    int numero = (int) (entrada.getValue() >>> 32);
+                    if (!marcados[numero]) {
+                        marcados[numero] = true;
+                        numeros.add(numero);
+                    }
+                }
+            }
+            Collections.sort(numeros);
+            TreeMap<K, V> valores = new TreeMap<>();
+            recorrerBloques(numeros, (numero, datos) -> {
+                Map<K, V> delBloque = new HashMap<>();
+                if (datos != null) {
+                    lineas(datos, (desplazamiento, linea) -> {
+                        K clave = formato.claveDeLinea(linea);
+                        if (clave != null && enRango(clave, desde, hasta) && esVigente(clave, numero, desplazamiento)) {
+                            V valor = formato.decodificar(linea);
+                            if (valor != null) {
+                                delBloque.put(clave, valor);
+                            }
+                        }
+                    });
+                }
+                return delBloque;
+            }, (numero, delBloque) -> valores.putAll(delBloque));
+            valores.values().forEach(accion);
+        }
+    }
+
+    private boolean enRango(K clave, K desde, K hasta) {
+        return (desde == null || clave.compareTo(desde) >= 0) && (hasta == null || clave.compareTo(hasta) <= 0);
+    }
+
+    /**
+     * Los bloques se descomprimen y decodifican en paralelo; los registros se
+     * entregan en el orden del archivo
+     */
+    @Override
+    public synchronized void forEach(Consumer<? super V> accion) {
+        try (FileLocks.Bloqueo bloqueo = bloquear(false)) {
+            recorrerBloques(todos(), (numero, datos) -> {
+                List<V> valores = new ArrayList<>();
+                if (datos != null) {
+                    lineas(datos, (desplazamiento, linea) -> {
+                        K clave = formato.claveDeLinea(linea);
+                        if (clave != null && esVigente(clave, numero, desplazamiento)) {
+                            V valor = formato.decodificar(linea);
+                            if (valor != null) {
+                                valores.add(valor);
+                            }
+                        }
+                    });
+                }
+                return valores;
+            }, (numero, valores) -> valores.forEach(accion));
+        }
+    }
+
+    @Override
+    public synchronized long contar() {
+        try (FileLocks.Bloqueo bloqueo = bloquear(false)) {
+            return indice.size();
+        }
+    }
+
+    /**
+     * La línea es la que el índice registra para su clave (no es duplicada)
+     */
+    private boolean esVigente(K clave, int numero, int desplazamiento) {
+        Long ubicacion = indice.get(clave);
+        return ubicacion != null && ubicacion == ubicacion(numero, desplazamiento);
+    }
+
+    // ===== ESCRITURAS =====
+
+    @Override
+    public void guardar(V valor) {
+        guardarTodos(Collections.singletonList(valor));
+    }
+
+    /**
+     * Los registros nuevos van en bloques nuevos al final; si alguno
+     * reemplaza a uno existente el archivo se reescribe una sola vez
+     */
+    @Override
+    public synchronized void guardarTodos(Collection<? extends V> valores) {
+        if (valores.isEmpty()) {
+            return;
+        }
+        try (FileLocks.Bloqueo bloqueo = bloquear(true)) {
+            Map<K, V> reemplazos = new HashMap<>();
+            Map<K, V> nuevos = new LinkedHashMap<>();
+            for (V valor : valores) {
+                K clave = formato.clave(valor);
+                (indice.containsKey(clave) ? reemplazos : nuevos).put(clave, valor);
+            }
+            if (!reemplazos.isEmpty() || bloquesChicosAlFinal() >= MAX_BLOQUES_CHICOS) {
+                reescribir(reemplazos, null, nuevos);
+            } else {
+                agregar(nuevos);
+            }
+            escrito(bloqueo);
+        }
+    }
+
+    @Override
+    public synchronized boolean eliminar(K clave) {
+        try (FileLocks.Bloqueo bloqueo = bloquear(true)) {
+            if (!indice.containsKey(clave)) {
+                return false;
+            }
+            reescribir(Collections.emptyMap(), clave, Collections.emptyMap());
+            escrito(bloqueo);
+            return true;
+        }
+    }
+
+    private int bloquesChicosAlFinal() {
+        int chicos = 0;
+        for (int i = bloques.size() - 1; i >= 0 && bloques.get(i).crudo < TAMANO_BLOQUE / 2; i--) {
+            chicos++;
+        }
+        return chicos;
+    }
+
+    private void agregar(Map<K, V> nuevos) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (tamano == 0) {
+            bytes.writeBytes(MAGIC);
+        }
+        Escritor escritor = new Escritor(bytes, tamano + bytes.size(), bloques.size());
+        try {
+            for (Map.Entry<K, V> entrada : nuevos.entrySet()) {
+                escritor.agregar(entrada.getKey(), codificar(entrada.getValue()));
+            }
+            escritor.terminar();
+            Files.write(archivo, bytes.toByteArray(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        bloques.addAll(escritor.escritos);
+        indice.putAll(escritor.ubicaciones);
+        tamano = escritor.posicion;
+    }
+
+    /**
+     * Copia los registros vigentes a un archivo temporal en bloques llenos,
+     * aplicando los cambios, y lo reemplaza. Los bloques dañados y los huecos
+     * se copian sin cambios en su lugar, para no perder lo que se pueda
+     * recuperar a mano
+     */
+    private void reescribir(Map<K, V> reemplazos, K eliminada, Map<K, V> nuevos) {
+        long inicio = System.nanoTime();
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        Escritor escritor;
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporal), 64 * 1024)) {
+            out.write(MAGIC);
+            escritor = new Escritor(out, MAGIC.length, 0);
+            int[] siguienteHueco = {0};
+            recorrerBloques(todos(), (numero, datos) -> {
+                if (datos == null) {
+                    return null;
+                }
+                List<Map.Entry<K, byte[]>> registros = new ArrayList<>();
+                lineas(datos, (desplazamiento, linea) -> {
+                    K clave = formato.claveDeLinea(linea);
+                    if (clave == null || !esVigente(clave, numero, desplazamiento) || clave.equals(eliminada)) {
+                        return;
+                    }
+                    V reemplazo = reemplazos.get(clave);
+                    byte[] bytes = reemplazo != null ? codificar(reemplazo) : linea.getBytes(StandardCharsets.UTF_8);
+                    registros.add(new AbstractMap.SimpleImmutableEntry<>(clave, bytes));
+                });
+                return registros;
+            }, (numero, registros) -> {
+                Bloque bloque = bloques.get(numero);
+                try {
+                    while (siguienteHueco[0] < huecos.size()
+                            && huecos.get(siguienteHueco[0]).posicion < bloque.posicion) {
+                        Hueco hueco = huecos.get(siguienteHueco[0]++);
+                        escritor.copiar(hueco.posicion, hueco.fin, null);
+                    }
+                    if (registros == null) {
+                        escritor.copiar(bloque.posicion, bloque.fin(), bloque);
+                        return;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                for (Map.Entry<K, byte[]> registro : registros) {
+                    escritor.agregarSinExcepcion(registro.getKey(), registro.getValue());
+                }
+            });
+            while (siguienteHueco[0] < huecos.size()) {
+                Hueco hueco = huecos.get(siguienteHueco[0]++);
+                escritor.copiar(hueco.posicion, hueco.fin, null);
+            }
+            for (Map.Entry<K, V> entrada : nuevos.entrySet()) {
+                escritor.agregar(entrada.getKey(), codificar(entrada.getValue()));
+            }
+            escritor.terminar();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        cerrarLector();
+        try {
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        indice.clear();
+        indice.putAll(escritor.ubicaciones);
+        bloques.clear();
+        bloques.addAll(escritor.escritos);
+        huecos.clear();
+        huecos.addAll(escritor.huecos);
+        cache.clear();
+        tamano = escritor.posicion;
+        colaIncompleta = -1;
+        if (escritor.copiados > 0) {
+            LOG.warn("Bloques dañados copiados sin cambios al reescribir", "archivo", archivo.getFileName(),
+                    "copiados", escritor.copiados);
+        }
+        LOG.debug("Archivo de bloques reescrito", "archivo", archivo.getFileName(),
+                "ms", (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private byte[] codificar(V valor) {
+        String linea = formato.codificar(valor);
+        if (linea.indexOf('\n') >= 0 || linea.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("El registro no puede contener saltos de línea");
+        }
+        byte[] datos = linea.getBytes(StandardCharsets.UTF_8);
+        if (datos.length > MAX_REGISTRO) {
+            throw new IllegalArgumentException("Registro demasiado grande: " + datos.length + " bytes");
+        }
+        return datos;
+    }
+
+    /**
+     * Junta líneas hasta TAMANO_BLOQUE, comprime el bloque y lo escribe con su cabecera
+     */
+    private final class Escritor {
+        private final OutputStream out;
+        private final ByteArrayOutputStream crudo = new ByteArrayOutputStream(TAMANO_BLOQUE + 1024);
+        private final Deflater deflater = new Deflater(NIVEL);
+        private final CRC32C crc = new CRC32C();
+        private final byte[] salida = new byte[16 * 1024];
+        final List<Bloque> escritos = new ArrayList<>();
+        final List<Hueco> huecos = new ArrayList<>();
+        final Map<K, Long> ubicaciones = new HashMap<>();
+        long posicion;
+        int copiados;
+        private int numero;
+
+        Escritor(OutputStream out, long posicion, int numero) {
+            this.out = out;
+            this.posicion = posicion;
+            this.numero = numero;
+        }
+
+        void agregar(K clave, byte[] linea) throws IOException {
+            ubicaciones.put(clave, ubicacion(numero, crudo.size()));
+            crudo.write(linea);
+            crudo.write('\n');
+            if (crudo.size() >= TAMANO_BLOQUE) {
+                cerrarBloque();
+            }
+        }
+
+        void agregarSinExcepcion(K clave, byte[] linea) {
+            try {
+                agregar(clave, linea);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Cierra el bloque en curso y copia sin cambios bytes del archivo
+         * actual: un bloque con otro CRC ('danado') o un hueco (null)
+         */
+        void copiar(long desde, long hasta, Bloque danado) throws IOException {
+            cerrarBloque();
+            FileChannel canal = lector();
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            for (long leido = desde; leido < hasta; leido += buffer.limit()) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), hasta - leido));
+                if (!leer(canal, buffer, leido)) {
+                    throw new IOException("El archivo terminó antes de lo esperado: " + archivo);
+                }
+                out.write(buffer.array(), 0, buffer.limit());
+            }
+            if (danado != null) {
+                escritos.add(new Bloque(posicion, danado.comprimido, danado.crudo, danado.crc));
+                numero++;
+            } else {
+                huecos.add(new Hueco(posicion, posicion + hasta - desde));
+            }
+            posicion += hasta - desde;
+            copiados++;
+        }
+
+        void terminar() throws IOException {
+            try {
+                cerrarBloque();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        private void cerrarBloque() throws IOException {
+            if (crudo.size() == 0) {
+                return;
+            }
+            byte[] datos = crudo.toByteArray();
+            ByteArrayOutputStream comprimido = new ByteArrayOutputStream(datos.length / 4 + 64);
+            deflater.reset();
+            deflater.setInput(datos);
+            deflater.finish();
+            while (!deflater.finished()) {
+                comprimido.write(salida, 0, deflater.deflate(salida));
+            }
+            byte[] bytes = comprimido.toByteArray();
+            crc.reset();
+            crc.update(bytes, 0, bytes.length);
+
+            Bloque bloque = new Bloque(posicion, bytes.length, datos.length, (int) crc.getValue());
+            out.write(ByteBuffer.allocate(CABECERA_BLOQUE)
+                    .putInt(bloque.comprimido).putInt(bloque.crudo).putInt(bloque.crc).array());
+            out.write(bytes);
+            escritos.add(bloque);
+            posicion = bloque.fin();
+            numero++;
+            crudo.reset();
+        }
+    }
+
+    // ===== LECTURA DE BLOQUES =====
+
+    private interface LineaConsumer {
+        void aceptar(int desplazamiento, String linea);
+    }
+
+    private List<Integer> todos() {
+        List<Integer> numeros = new ArrayList<>(bloques.size());
+        for (int i = 0; i < bloques.size(); i++) {
+            numeros.add(i);
+        }
+        return numeros;
+    }
+
+    /**
+     * Lee y procesa los bloques en el pool (hasta dos por hilo por delante) y
+     * entrega los resultados en orden en el hilo que llama. procesar recibe
+     * null si el bloque está dañado.
+     */
+    private <R> void recorrerBloques(List<Integer> numeros, BiFunction<Integer, byte[], R> procesar,
+                                     BiConsumer<Integer, R> accion) {
+        if (numeros.isEmpty()) {
+            return;
+        }
+        FileChannel canal;
+        try {
+            canal = lector();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int adelante = Math.max(2, pool.getParallelism() * 2);
+        ArrayDeque<ForkJoinTask<R>> pendientes = new ArrayDeque<>();
+        int siguiente = 0;
+        for (Integer numero : numeros) {
+            while (siguiente < numeros.size() && pendientes.size() < adelante) {
+                Integer enviado = numeros.get(siguiente++);
+                Bloque bloque = bloques.get(enviado);
+                pendientes.add(pool.submit(() -> procesar.apply(enviado, descomprimir(canal, bloque))));
+            }
+            accion.accept(numero, pendientes.poll().join());
+        }
+    }
+
+    /**
+     * Bloque descomprimido desde la caché o desde el archivo (null si está dañado)
+     */
+    private byte[] leerBloque(int numero) {
+        byte[] datos = cache.get(numero);
+        if (datos != null) {
+            ACIERTOS_CACHE.incrementar();
+            return datos;
+        }
+        try {
+            datos = descomprimir(lector(), bloques.get(numero));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (datos == null) {
+            LOG.warn("Bloque dañado", "archivo", archivo.getFileName(), "posicion", bloques.get(numero).posicion);
+            BLOQUES_DANADOS.incrementar();
+        } else {
+            cache.put(numero, datos);
+        }
+        return datos;
+    }
+
+    /**
+     * Lectura posicional de un bloque; verifica el CRC y lo descomprime (null si no valida)
+     */
+    private static byte[] descomprimir(FileChannel canal, Bloque bloque) throws IOException {
+        ByteBuffer comprimido = ByteBuffer.allocate(bloque.comprimido);
+        if (!leer(canal, comprimido, bloque.posicion + CABECERA_BLOQUE)) {
+            return null;
+        }
+        BYTES_LEIDOS.sumar(CABECERA_BLOQUE + bloque.comprimido);
+        CRC32C crc = new CRC32C();
+        crc.update(comprimido.array(), 0, bloque.comprimido);
+        if ((int) crc.getValue() != bloque.crc) {
+            return null;
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(comprimido.array(), 0, bloque.comprimido);
+            byte[] datos = new byte[bloque.crudo];
+            int largo = 0;
+            while (largo < datos.length && !inflater.finished()) {
+                int leidos = inflater.inflate(datos, largo, datos.length - largo);
+                if (leidos == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    return null;
+                }
+                largo += leidos;
+            }
+            DESCOMPRIMIDOS.incrementar();
+            return largo == datos.length ? datos : null;
+        } catch (DataFormatException e) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Llena el buffer desde la posición dada; false si el archivo termina antes
+     */
+    private static boolean leer(FileChannel canal, ByteBuffer buffer, long posicion) throws IOException {
+        int inicio = buffer.position();
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, posicion + buffer.position() - inicio) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void lineas(byte[] datos, LineaConsumer consumer) {
+        int inicio = 0;
+        for (int i = 0; i < datos.length; i++) {
+            if (datos[i] == '\n') {
+                if (i > inicio) {
+                    consumer.aceptar(inicio, new String(datos, inicio, i - inicio, StandardCharsets.UTF_8));
+                }
+                inicio = i + 1;
+            }
+        }
+    }
+
+    private static String linea(byte[] datos, int desplazamiento) {
+        int fin = desplazamiento;
+        while (fin < datos.length && datos[fin] != '\n') {
+            fin++;
+        }
+        return new String(datos, desplazamiento, fin - desplazamiento, StandardCharsets.UTF_8);
+    }
+
+    private FileChannel lector() throws IOException {
+        if (lector == null) {
+            lector = FileChannel.open(archivo, StandardOpenOption.READ);
+        }
+        return lector;
+    }
+
+    private void cerrarLector() {
+        if (lector != null) {
+            try {
+                lector.close();
+            } catch (IOException e) {
+                LOG.warn("Error al cerrar el archivo", "archivo", archivo.getFileName());
+            }
+            lector = null;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        cerrarLector();
+    }
+}
@@ -0,0 +1,184 @@
+package com.programacion.inventario.util;
+
+import com.programacion.inventario.model.Proveedor;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * DataExporter - Exportación de proveedores y usuarios a CSV o JSON Lines
+ *
+ * Los registros se recorren de uno en uno en el repositorio (en texto, una
+ * lectura secuencial del archivo) y se codifican directamente sobre un stream
+ * con buffer (opcionalmente gzip), de modo que el uso de memoria no depende
+ * de la cantidad de registros.
+ *
+ * Uso desde línea de comandos:
+ *   DataExporter proveedores|usuarios csv|jsonl destino [--gzip]
+ */
+public class DataExporter {
+
+    private static final Log LOG = Log.get(DataExporter.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public enum Entidad { PROVEEDORES, USUARIOS }
+
+    public enum Formato { CSV, JSONL }
+
+    /**
+     * Exporta una entidad al archivo destino
+     * Retorna el número de registros escritos
+     */
+    public long exportar(Entidad entidad, Formato formato, String destino, boolean gzip) throws IOException {
+        long inicio = System.nanoTime();
+        long[] registros = {0};
+
+        try (Writer writer = abrirDestino(destino, gzip)) {
+            if (formato == Formato.CSV) {
+                writer.write(entidad == Entidad.PROVEEDORES
+                        ? "id,nombre,contacto,telefono,email,direccion\n"
+                        : "usuario,formato,rol\n");
+            }
+            try {
+                if (entidad == Entidad.PROVEEDORES) {
+                    Repositorios.proveedores().forEach(proveedor -> {
+                        escribirProveedor(writer, proveedor, formato);
+                        registros[0]++;
+                    });
+                } else {
+                    Repositorios.usuarios().forEach(registro -> {
+                        escribirUsuario(writer, registro, formato);
+                        registros[0]++;
+                    });
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        LOG.info("Exportación finalizada", "entidad", entidad, "registros", registros[0],
+                "ms", (System.nanoTime() - inicio) / 1_000_000);
+        return registros[0];
+    }
+
+    private static Writer abrirDestino(String destino, boolean gzip) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(destino)), BUFFER_SIZE);
+        if (gzip) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private static void escribirProveedor(Writer writer, Proveedor p, Formato formato) {
+        String[] campos = {p.getId(), p.getNombre(), p.getContacto(), p.getTelefono(), p.getEmail(), p.getDireccion()};
+        try {
+            if (formato == Formato.CSV) {
+                escribirCsv(writer, campos);
+            } else {
+                escribirJson(writer, new String[]{"id", "nombre", "contacto", "telefono", "email", "direccion"}, campos);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Solo se exportan metadatos: nunca contraseñas, hashes ni salts
+     */
+    private static void escribirUsuario(Writer writer, UsuarioStore.Registro registro, Formato formato) {
+        String[] campos = {registro.getNombre(), registro.isTextoPlano() ? "texto_plano" : "cifrado", registro.getRol()};
+        try {
+            if (formato == Formato.CSV) {
+                escribirCsv(writer, campos);
+            } else {
+                escribirJson(writer, new String[]{"usuario", "formato", "rol"}, campos);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void escribirCsv(Writer writer, String[] campos) throws IOException {
+        for (int i = 0; i < campos.length; i++) {
+            if (i > 0) writer.write(',');
+            String valor = campos[i];
+            if (valor.indexOf(',') >= 0 || valor.indexOf('"') >= 0) {
+                writer.write('"');
+                writer.write(valor.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(valor);
+            }
+        }
+        writer.write('\n');
+    }
+
+    private static void escribirJson(Writer writer, String[] claves, String[] valores) throws IOException {
+        writer.write('{');
+        for (int i = 0; i < claves.length; i++) {
+            if (i > 0) writer.write(',');
+            writer.write('"');
+            writer.write(claves[i]);
+            writer.write("\":\"");
+            escaparJson(writer, valores[i]);
+            writer.write('"');
+        }
+        writer.write("}\n");
+    }
+
+    private static void escaparJson(Writer writer, String valor) throws IOException {
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\t' -> writer.write("\\t");
+                case '\r' -> writer.write("\\r");
+                case '\n' -> writer.write("\\n");
+                default -> {
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Exportación sin interfaz gráfica (por ejemplo, desde una tarea nocturna)
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Uso: DataExporter proveedores|usuarios csv|jsonl destino [--gzip]");
+            System.exit(2);
+        }
+
+        try {
+            Entidad entidad = Entidad.valueOf(args[0].toUpperCase());
+            Formato formato = Formato.valueOf(args[1].toUpperCase());
+            String destino = args[2];
+            boolean gzip = destino.endsWith(".gz") || (args.length > 3 && "--gzip".equals(args[3]));
+
+            new DataExporter().exportar(entidad, formato, destino, gzip);
+            Repositorios.cerrar();
+        } catch (IllegalArgumentException e) {
+            System.err.println("Parámetro inválido: " + e.getMessage());
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("Error al exportar: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package com.programacion.inventario.util;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DataWatcher - Aviso de cambios en los archivos del directorio de datos
+ *
+ * Un hilo vigila FileManager.DATA_DIRECTORY con un WatchService. Los eventos
+ * de un archivo se agrupan (inventario.vigilancia.esperaMs, 200 por defecto,
+ * como máximo 5 veces esa espera si no dejan de llegar) y después se comparan
+ * tamaño, fecha de modificación e identidad del archivo con lo visto antes:
+ * - creció, es el mismo archivo y los últimos bytes conocidos no cambiaron:
+ *   se leen solo las líneas completas agregadas al final
+ * - cualquier otro cambio (renombrado encima, truncado, editado en el medio,
+ *   eliminado): el archivo se debe releer completo
+ *
+ * Como los eventos no siempre llegan desde otra máquina en un recurso de red,
+ * además se comparan los atributos cada inventario.vigilancia.revisionMs
+ * (5000 por defecto; 0 lo desactiva); el contenido solo se lee si cambiaron.
+ * -Dinventario.vigilancia=false desactiva todo.
+ *
+ * Los cambios que hizo esta misma instancia no se notifican: si la versión
+ * del archivo (FileLocks) es la que escribió este proceso, ninguna otra
+ * escritura pasó por FileLocks desde lo visto y los atributos son los que
+ * dejó, el cambio ya está en memoria y solo se toma como punto de partida.
+ *
+ * Los listeners se guardan con referencia débil (el suscriptor debe conservar
+ * el suyo) y se invocan en el hilo de vigilancia.
+ */
+public class DataWatcher {
+
+    private static final Log LOG = Log.get(DataWatcher.class);
+
+    private static DataWatcher instance;
+
+    private static final boolean ACTIVO = Boolean.parseBoolean(System.getProperty("inventario.vigilancia", "true"));
+    private static final long ESPERA_MS = Long.getLong("inventario.vigilancia.esperaMs", 200);
+    private static final long REVISION_MS = Long.getLong("inventario.vigilancia.revisionMs", 5000);
+
+    // Bytes al final de lo ya leído que se comparan para confirmar que solo se agregó
+    private static final int COLA = 64;
+    // Más que esto agregado de una vez se trata como reemplazo (releer es más barato)
+    private static final long MAX_AGREGADO = 16L * 1024 * 1024;
+
+    private static final Metrics.Contador LINEAS_AGREGADAS = Metrics.getInstance().contador("vigilancia.lineasAgregadas");
+    private static final Metrics.Contador REEMPLAZOS = Metrics.getInstance().contador("vigilancia.reemplazos");
+    private static final Metrics.Contador PROPIOS = Metrics.getInstance().contador("vigilancia.propios");
+
+    private final Path directorio = Paths.get(FileManager.DATA_DIRECTORY).toAbsolutePath().normalize();
+    private final Map<Path, Estado> archivos = new ConcurrentHashMap<>();
+    private Thread hilo;
+
+    private DataWatcher() {
+    }
+
+    public static synchronized DataWatcher getInstance() {
+        if (instance == null) {
+            instance = new DataWatcher();
+        }
+        return instance;
+    }
+
+    /**
+     * Avisos de un archivo del directorio de datos (se invocan fuera del hilo de JavaFX)
+     */
+    public interface FileListener {
+
+        /**
+         * El archivo se reemplazó o se modificó de otra forma que agregando al final
+         */
+        void onArchivoReemplazado();
+
+        /**
+         * Líneas completas agregadas al final (solo si el archivo se vigila por líneas)
+         */
+        default void onLineasAgregadas(List<String> lineas) {
+            onArchivoReemplazado();
+        }
+    }
+
+    /**
+     * Se guarda con referencia débil: el suscriptor debe conservar su listener
+     *
+     * @param porLineas el archivo es de texto y los agregados se entregan como
+     *                  líneas; si no, todo cambio es un reemplazo
+     */
+    public synchronized void addListener(String archivo, boolean porLineas, FileListener listener) {
+        if (!ACTIVO) {
+            return;
+        }
+        Path ruta = Paths.get(archivo).toAbsolutePath().normalize();
+        if (!directorio.equals(ruta.getParent())) {
+            throw new IllegalArgumentException("Solo se vigilan archivos del directorio de datos: " + archivo);
+        }
+        Estado estado = archivos.computeIfAbsent(ruta.getFileName(), nombre -> new Estado(ruta));
+        estado.porLineas |= porLineas;
+        synchronized (estado.listeners) {
+            estado.listeners.add(listener);
+        }
+        if (hilo == null) {
+            hilo = new Thread(this::vigilar, "vigilancia-datos");
+            hilo.setDaemon(true);
+            hilo.start();
+        }
+    }
+
+    // ===== HILO DE VIGILANCIA =====
+
+    private void vigilar() {
+        WatchService servicio = null;
+        try {
+            Files.createDirectories(directorio);
+            servicio = FileSystems.getDefault().newWatchService();
+            directorio.register(servicio, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            LOG.warn("No se puede vigilar el directorio, solo se revisará periódicamente",
+                    "directorio", directorio, "error", e.getMessage());
+            servicio = null;
+        }
+        if (servicio == null && REVISION_MS <= 0) {
+            return;
+        }
+
+        long ultimaRevision = System.nanoTime();
+        while (true) {
+            try {
+                long espera = esperaHastaProximo(ultimaRevision);
+                WatchKey clave = servicio != null
+                        ? servicio.poll(espera, TimeUnit.MILLISECONDS)
+                        : dormir(espera);
+                long ahora = System.nanoTime();
+                if (clave != null) {
+                    registrarEventos(clave, ahora);
+                }
+
+                boolean revisarTodos = REVISION_MS > 0 && ahora - ultimaRevision >= TimeUnit.MILLISECONDS.toNanos(REVISION_MS);
+                if (revisarTodos) {
+                    ultimaRevision = ahora;
+                }
+                for (Estado estado : archivos.values()) {
+                    if (revisarTodos || estado.listo(ahora)) {
+                        estado.pendienteDesde = 0;
+                        revisar(estado);
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            } catch (RuntimeException e) {
+                LOG.error("Error en la vigilancia de archivos", e);
+            }
+        }
+    }
+
+    private static WatchKey dormir(long milisegundos) throws InterruptedException {
+        Thread.sleep(milisegundos);
+        return null;
+    }
+
+    private long esperaHastaProximo(long ultimaRevision) {
+        long ahora = System.nanoTime();
+        long espera = REVISION_MS > 0
+                ? TimeUnit.NANOSECONDS.toMillis(ultimaRevision - ahora) + REVISION_MS
+                : TimeUnit.MINUTES.toMillis(1);
+        for (Estado estado : archivos.values()) {
+            if (estado.pendienteDesde != 0) {
+                espera = Math.min(espera, TimeUnit.NANOSECONDS.toMillis(estado.listoEn() - ahora));
+            }
+        }
+        return Math.max(1, espera);
+    }
+
+    private void registrarEventos(WatchKey clave, long ahora) {
+        for (WatchEvent<?> evento : clave.pollEvents()) {
+            if (evento.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Se perdieron eventos: se revisan todos los archivos vigilados
+                archivos.values().forEach(estado -> estado.marcar(ahora));
+                continue;
+            }
+            Estado estado = archivos.get((Path) evento.context());
+            if (estado != null) {
+                estado.marcar(ahora);
+            }
+        }
+        if (!clave.reset()) {
+            LOG.warn("El directorio de datos ya no se puede vigilar", "directorio", directorio);
+        }
+    }
+
+    /**
+     * Compara los atributos del archivo con los vistos antes y avisa si cambió
+     */
+    private void revisar(Estado estado) {
+        // La versión se lee antes que los atributos: una escritura entre las dos lecturas cambia la versión
+        long version = version(estado.archivo);
+        BasicFileAttributes atributos = atributos(estado.archivo);
+        if (atributos == null) {
+            if (estado.existe) {
+                estado.existe = false;
+                estado.tamano = 0;
+                estado.cola = new byte[0];
+                notificarReemplazo(estado);
+            }
+            return;
+        }
+
+        boolean mismoArchivo = estado.existe && Objects.equals(atributos.fileKey(), estado.identidad);
+        long tamano = atributos.size();
+        FileTime modificado = atributos.lastModifiedTime();
+        if (mismoArchivo && tamano == estado.tamano && modificado.equals(estado.modificado)) {
+            return;
+        }
+
+        try {
+            if (FileLocks.esCambioPropio(estado.archivo, estado.version)) {
+                // Si los atributos se leyeron durante la escritura, la próxima revisión recuerda los finales
+                PROPIOS.incrementar();
+                estado.recordar(atributos);
+                estado.version = version;
+                return;
+            }
+            if (estado.porLineas && mismoArchivo && tamano > estado.tamano
+                    && tamano - estado.tamano <= MAX_AGREGADO && estado.colaIntacta()) {
+                estado.modificado = modificado;
+                List<String> lineas = estado.leerAgregado(tamano);
+                estado.version = version;
+                if (!lineas.isEmpty()) {
+                    notificarLineas(estado, lineas);
+                }
+                return;
+            }
+            estado.recordar(atributos);
+            estado.version = version;
+        } catch (IOException e) {
+            LOG.warn("Error al leer el archivo vigilado", "archivo", estado.archivo.getFileName(),
+                    "error", e.getMessage());
+            estado.existe = false;
+        }
+        notificarReemplazo(estado);
+    }
+
+    /**
+     * Versión del archivo según FileLocks, o -1 si no se puede leer (ningún cambio se toma como propio)
+     */
+    private static long version(Path archivo) {
+        try {
+            return FileLocks.version(archivo);
+        } catch (UncheckedIOException e) {
+            LOG.warn("No se puede leer la versión", "archivo", archivo.getFileName(), "error", e.getMessage());
+            return -1;
+        }
+    }
+
+    private static BasicFileAttributes atributos(Path archivo) {
+        try {
+            return Files.readAttributes(archivo, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOG.warn("No se pueden leer los atributos", "archivo", archivo.getFileName(), "error", e.getMessage());
+            return null;
+        }
+    }
+
+    private void notificarLineas(Estado estado, List<String> lineas) {
+        LINEAS_AGREGADAS.sumar(lineas.size());
+        LOG.debug("Líneas agregadas", "archivo", estado.archivo.getFileName(), "lineas", lineas.size());
+        List<String> inmutables = Collections.unmodifiableList(lineas);
+        for (FileListener listener : estado.copiaListeners()) {
+            try {
+                listener.onLineasAgregadas(inmutables);
+            } catch (RuntimeException e) {
+                LOG.error("Error notificando líneas agregadas", "listener", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    private void notificarReemplazo(Estado estado) {
+        REEMPLAZOS.incrementar();
+        LOG.debug("Archivo reemplazado", "archivo", estado.archivo.getFileName());
+        for (FileListener listener : estado.copiaListeners()) {
+            try {
+                listener.onArchivoReemplazado();
+            } catch (RuntimeException e) {
+                LOG.error("Error notificando archivo reemplazado", "listener", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    /**
+     * Lo último que se vio de un archivo; salvo listeners y porLineas, solo lo usa el hilo de vigilancia
+     */
+    private static final class Estado {
+
+        private final Path archivo;
+        private final Set<FileListener> listeners = Collections.newSetFromMap(new WeakHashMap<>());
+        private volatile boolean porLineas;
+
+        private boolean existe;
+        private long tamano;
+        private FileTime modificado;
+        private Object identidad;
+        private byte[] cola = new byte[0];
+        // Versión de FileLocks leída antes de los atributos recordados
+        private long version = -1;
+
+        // Primer y último evento sin revisar (nanoTime; 0 = nada pendiente)
+        private long pendienteDesde;
+        private long ultimoEvento;
+
+        Estado(Path archivo) {
+            this.archivo = archivo;
+            long versionLeida = version(archivo);
+            BasicFileAttributes atributos = atributos(archivo);
+            if (atributos != null) {
+                try {
+                    recordar(atributos);
+                    version = versionLeida;
+                } catch (IOException e) {
+                    existe = false;
+                }
+            }
+        }
+
+        List<FileListener> copiaListeners() {
+            synchronized (listeners) {
+                return new ArrayList<>(listeners);
+            }
+        }
+
+        void marcar(long ahora) {
+            if (pendienteDesde == 0) {
+                pendienteDesde = ahora;
+            }
+            ultimoEvento = ahora;
+        }
+
+        long listoEn() {
+            return Math.min(ultimoEvento + TimeUnit.MILLISECONDS.toNanos(ESPERA_MS),
+                    pendienteDesde + TimeUnit.MILLISECONDS.toNanos(ESPERA_MS * 5));
+        }
+
+        boolean listo(long ahora) {
+            return pendienteDesde != 0 && ahora >= listoEn();
+        }
+
+        /**
+         * Toma los atributos como punto de partida (después de un reemplazo)
+         */
+        void recordar(BasicFileAttributes atributos) throws IOException {
+            existe = true;
+            tamano = atributos.size();
+            modificado = atributos.lastModifiedTime();
+            identidad = atributos.fileKey();
+            try (RandomAccessFile file = new RandomAccessFile(archivo.toFile(), "r")) {
+                cola = leer(file, Math.max(0, tamano - COLA), (int) Math.min(COLA, tamano));
+            }
+        }
+
+        boolean colaIntacta() throws IOException {
+            try (RandomAccessFile file = new RandomAccessFile(archivo.toFile(), "r")) {
+                return Arrays.equals(cola, leer(file, tamano - cola.length, cola.length));
+            }
+        }
+
+        /**
+         * Líneas completas entre lo ya leído y 'hasta'; una línea a medio
+         * escribir queda para la próxima revisión
+         */
+        List<String> leerAgregado(long hasta) throws IOException {
+            byte[] bytes;
+            try (RandomAccessFile file = new RandomAccessFile(archivo.toFile(), "r")) {
+                bytes = leer(file, tamano, (int) (hasta - tamano));
+            }
+            List<String> lineas = new ArrayList<>();
+            int inicio = 0;
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] == '\n') {
+                    int fin = i > inicio && bytes[i - 1] == '\r' ? i - 1 : i;
+                    if (fin > inicio) {
+                        lineas.add(new String(bytes, inicio, fin - inicio, StandardCharsets.UTF_8));
+                    }
+                    inicio = i + 1;
+                }
+            }
+            if (inicio > 0) {
+                tamano += inicio;
+                byte[] nuevaCola = new byte[(int) Math.min(COLA, tamano)];
+                int deBytes = Math.min(nuevaCola.length, inicio);
+                int deCola = nuevaCola.length - deBytes;
+                System.arraycopy(cola, cola.length - deCola, nuevaCola, 0, deCola);
+                System.arraycopy(bytes, inicio - deBytes, nuevaCola, deCola, deBytes);
+                cola = nuevaCola;
+            }
+            return lineas;
+        }
+
+        private static byte[] leer(RandomAccessFile file, long desde, int cantidad) throws IOException {
+            byte[] bytes = new byte[cantidad];
+            file.seek(desde);
+            file.readFully(bytes);
+            return bytes;
+        }
+    }
+}
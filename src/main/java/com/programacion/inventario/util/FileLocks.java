@@ -0,0 +1,306 @@
+package com.programacion.inventario.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * FileLocks - Coordinación entre procesos que comparten el directorio de datos
+ *
+ * Cada archivo de datos tiene un archivo auxiliar "archivo.lock" sobre el que
+ * se toma un FileChannel.lock compartido (lecturas) o exclusivo (escrituras).
+ * Se bloquea el auxiliar y no el archivo de datos porque este se reemplaza con
+ * un renombrado al reescribirlo, y un bloqueo sobre el archivo viejo no
+ * protegería al nuevo.
+ *
+ * Los primeros 8 bytes del auxiliar son la versión del archivo: quien escribe
+ * la incrementa antes de soltar el bloqueo exclusivo, y quien tiene datos en
+ * caché compara la versión que vio con la actual (una lectura de 8 bytes)
+ * para saber si debe recargar. Cada proceso recuerda además qué versiones
+ * escribió él mismo (ver esCambioPropio), para que DataWatcher no recargue
+ * lo que esta instancia ya tiene en memoria.
+ *
+ * Dentro del proceso los hilos se turnan con un ReentrantLock por archivo
+ * (FileChannel.lock es por proceso, no por hilo), y el mismo hilo puede volver
+ * a tomar un bloqueo que ya tiene. Los canales de los auxiliares quedan
+ * abiertos: cerrarlos soltaría los bloqueos que otros hilos tengan sobre el
+ * mismo archivo.
+ *
+ * -Dinventario.bloqueos=false deja solo la coordinación entre hilos (una
+ * sola instancia sobre un disco local). En recursos de red el bloqueo depende
+ * del servidor: NFS necesita lockd y SMB oplocks/bloqueos por rangos.
+ */
+public final class FileLocks {
+
+    private static final Log LOG = Log.get(FileLocks.class);
+
+    private static final boolean ENTRE_PROCESOS =
+            Boolean.parseBoolean(System.getProperty("inventario.bloqueos", "true"));
+
+    private static final Metrics.Histograma ESPERAS = Metrics.getInstance().histograma("bloqueo.espera");
+
+    private static final Map<Path, Entrada> ENTRADAS = new ConcurrentHashMap<>();
+
+    private FileLocks() {
+    }
+
+    /**
+     * Bloqueo tomado; se suelta con close (try-with-resources)
+     */
+    public interface Bloqueo extends AutoCloseable {
+
+        /**
+         * Versión del archivo al tomar el bloqueo
+         */
+        long version();
+
+        /**
+         * Marca el archivo como modificado (solo con bloqueo exclusivo)
+         *
+         * @return la nueva versión
+         */
+        long incrementarVersion();
+
+        @Override
+        void close();
+    }
+
+    public static Bloqueo compartido(Path archivo) {
+        return tomar(archivo, false);
+    }
+
+    public static Bloqueo exclusivo(Path archivo) {
+        return tomar(archivo, true);
+    }
+
+    /**
+     * true si todos los cambios del archivo desde la versión 'vista' los hizo
+     * este proceso y el archivo sigue como quedó tras su última escritura
+     * (un script que lo edita sin pasar por FileLocks cambia los atributos).
+     * Espera a que termine una escritura de este proceso en curso
+     */
+    public static boolean esCambioPropio(Path archivo, long vista) {
+        Entrada entrada = entrada(archivo);
+        entrada.local.lock();
+        try {
+            if (entrada.propiaHasta < 0 || vista < entrada.propiaDesde || entrada.modificadoPropio == null
+                    || entrada.leerVersion() != entrada.propiaHasta) {
+                return false;
+            }
+            BasicFileAttributes atributos = Files.readAttributes(archivo, BasicFileAttributes.class);
+            return atributos.size() == entrada.tamanoPropio
+                    && atributos.lastModifiedTime().equals(entrada.modificadoPropio)
+                    && Objects.equals(atributos.fileKey(), entrada.identidadPropia);
+        } catch (IOException | UncheckedIOException e) {
+            return false;
+        } finally {
+            entrada.local.unlock();
+        }
+    }
+
+    /**
+     * Versión actual sin tomar el bloqueo (0 si el archivo nunca se escribió)
+     */
+    public static long version(Path archivo) {
+        Entrada entrada = entrada(archivo);
+        entrada.local.lock();
+        try {
+            return entrada.leerVersion();
+        } finally {
+            entrada.local.unlock();
+        }
+    }
+
+    private static Bloqueo tomar(Path archivo, boolean exclusivo) {
+        long inicio = System.nanoTime();
+        Entrada entrada = entrada(archivo);
+        entrada.local.lock();
+        long version;
+        try {
+            if (entrada.local.getHoldCount() == 1) {
+                entrada.bloquear(exclusivo);
+            } else if (exclusivo && !entrada.exclusivo) {
+                throw new IllegalStateException("No se puede pasar de un bloqueo compartido a uno exclusivo: "
+                        + archivo.getFileName());
+            }
+            version = entrada.leerVersion();
+        } catch (RuntimeException e) {
+            // Se sueltan los dos bloqueos, salvo el del archivo si ya estaba tomado por este hilo
+            if (entrada.local.getHoldCount() == 1) {
+                entrada.soltar();
+            }
+            entrada.local.unlock();
+            throw e;
+        }
+        ESPERAS.registrarDesde(inicio);
+        return new Bloqueo() {
+            private boolean suelto;
+
+            @Override
+            public long version() {
+                return version;
+            }
+
+            @Override
+            public long incrementarVersion() {
+                if (!entrada.exclusivo) {
+                    throw new IllegalStateException("Se necesita el bloqueo exclusivo para modificar "
+                            + archivo.getFileName());
+                }
+                long anterior = entrada.leerVersion();
+                if (anterior != entrada.propiaHasta) {
+                    // Otro proceso escribió desde la última escritura propia
+                    entrada.propiaDesde = anterior;
+                }
+                entrada.propiaHasta = entrada.escribirVersion(anterior + 1);
+                entrada.modificado = true;
+                return entrada.propiaHasta;
+            }
+
+            @Override
+            public void close() {
+                if (suelto) {
+                    return;
+                }
+                suelto = true;
+                try {
+                    if (entrada.local.getHoldCount() == 1) {
+                        if (entrada.modificado) {
+                            entrada.recordarPropio(archivo);
+                        }
+                        entrada.soltar();
+                    }
+                } finally {
+                    entrada.local.unlock();
+                }
+            }
+        };
+    }
+
+    private static Entrada entrada(Path archivo) {
+        Path clave = archivo.toAbsolutePath().normalize();
+        return ENTRADAS.computeIfAbsent(clave, k -> new Entrada(Paths.get(k + ".lock")));
+    }
+
+    /**
+     * Auxiliar de un archivo; sus campos se usan solo con 'local' tomado
+     */
+    private static final class Entrada {
+
+        private final Path auxiliar;
+        private final ReentrantLock local = new ReentrantLock();
+        private final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+
+        private FileChannel canal;
+        private FileLock bloqueo;
+        private boolean exclusivo;
+        private boolean modificado;
+
+        // Escrituras seguidas de este proceso: versiones (propiaDesde, propiaHasta]
+        // y atributos del archivo de datos al soltar el bloqueo de la última
+        private long propiaDesde = -1;
+        private long propiaHasta = -1;
+        private long tamanoPropio;
+        private FileTime modificadoPropio;
+        private Object identidadPropia;
+
+        Entrada(Path auxiliar) {
+            this.auxiliar = auxiliar;
+        }
+
+        void bloquear(boolean exclusivo) {
+            this.exclusivo = exclusivo;
+            if (!ENTRE_PROCESOS) {
+                return;
+            }
+            try {
+                bloqueo = canal().lock(0, Long.MAX_VALUE, !exclusivo);
+            } catch (ClosedChannelException e) {
+                // Un hilo interrumpido mientras esperaba cierra el canal: se abre otro
+                canal = null;
+                try {
+                    bloqueo = canal().lock(0, Long.MAX_VALUE, !exclusivo);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void recordarPropio(Path archivo) {
+            modificado = false;
+            try {
+                BasicFileAttributes atributos = Files.readAttributes(archivo, BasicFileAttributes.class);
+                tamanoPropio = atributos.size();
+                modificadoPropio = atributos.lastModifiedTime();
+                identidadPropia = atributos.fileKey();
+            } catch (IOException e) {
+                // Sin atributos no se puede reconocer el cambio propio: se notificará como ajeno
+                modificadoPropio = null;
+            }
+        }
+
+        void soltar() {
+            if (bloqueo == null) {
+                return;
+            }
+            try {
+                bloqueo.release();
+            } catch (IOException e) {
+                LOG.warn("Error al soltar el bloqueo", "archivo", auxiliar.getFileName());
+            }
+            bloqueo = null;
+        }
+
+        long leerVersion() {
+            try {
+                buffer.clear();
+                FileChannel lector = canal();
+                while (buffer.hasRemaining()) {
+                    if (lector.read(buffer, buffer.position()) < 0) {
+                        return 0;
+                    }
+                }
+                return buffer.flip().getLong();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        long escribirVersion(long version) {
+            try {
+                buffer.clear();
+                buffer.putLong(version).flip();
+                FileChannel escritor = canal();
+                while (buffer.hasRemaining()) {
+                    escritor.write(buffer, buffer.position());
+                }
+                return version;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private FileChannel canal() throws IOException {
+            if (canal == null || !canal.isOpen()) {
+                canal = FileChannel.open(auxiliar, StandardOpenOption.CREATE,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            return canal;
+        }
+    }
+}
@@ -1,14 +1,33 @@
 package com.programacion.inventario.util;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class FileManager {
+
+    private static final Log LOG = Log.get(FileManager.class);
+
     // Directorio donde se almacenarán los archivos de la aplicación
-    public static final String DATA_DIRECTORY = "data";
+    // (configurable con -Dinventario.data para benchmarks y pruebas de carga)
+    public static final String DATA_DIRECTORY = System.getProperty("inventario.data", "data");
+    private static final Path DATOS = Paths.get(DATA_DIRECTORY).toAbsolutePath().normalize();
+
+    // Métricas de E/S (los bytes se cuentan en caracteres: iguales para texto ASCII)
+    private static final Metrics.Histograma LECTURAS = Metrics.getInstance().histograma("archivo.lectura");
+    private static final Metrics.Histograma ESCRITURAS = Metrics.getInstance().histograma("archivo.escritura");
+    private static final Metrics.Histograma REESCRITURAS = Metrics.getInstance().histograma("archivo.reescritura");
+    private static final Metrics.Contador BYTES_LEIDOS = Metrics.getInstance().contador("archivo.bytesLeidos");
+    private static final Metrics.Contador BYTES_ESCRITOS = Metrics.getInstance().contador("archivo.bytesEscritos");
 
     // Constructor que crea el directorio de datos si no existe
     public FileManager() {
@@ -20,36 +39,148 @@ public class FileManager {
             Path dataPath = Paths.get(DATA_DIRECTORY);
             if (!Files.exists(dataPath)) {
                 Files.createDirectories(dataPath);
-                System.out.println("Directorio de datos creado: " + DATA_DIRECTORY);
+                LOG.info("Directorio de datos creado", "directorio", DATA_DIRECTORY);
             }
         } catch (IOException e) {
-            System.err.println("Error al crear directorio de datos: " + e.getMessage());
+            LOG.error("Error al crear directorio de datos", "directorio", DATA_DIRECTORY, e);
         }
     }
 
     //ESCRIBIR
-    public void writeToFile(String filename, String content, boolean append) {
-        try (FileWriter writer = new FileWriter(filename, append)) {
-            writer.write(content);
-            writer.flush();
+    /**
+     * En el directorio de datos la escritura se hace con el bloqueo exclusivo
+     * del archivo (ver FileLocks): las escrituras de otras instancias no se
+     * intercalan con esta
+     *
+     * @return false si no se pudo escribir (el error se registra); un
+     *         agregado que falla a mitad se recorta al tamaño anterior
+     */
+    public boolean writeToFile(String filename, String content, boolean append) {
+        long inicio = System.nanoTime();
+        boolean escrito = false;
+        try (FileLocks.Bloqueo bloqueo = bloquear(filename, true)) {
+            Path archivo = Paths.get(filename);
+            long tamanoAnterior = append && Files.exists(archivo) ? Files.size(archivo) : 0;
+            try (FileWriter writer = new FileWriter(filename, append)) {
+                writer.write(content);
+                writer.flush();
+            } catch (IOException e) {
+                if (append) {
+                    recortar(archivo, tamanoAnterior);
+                }
+                throw e;
+            }
+            if (bloqueo != null) {
+                bloqueo.incrementarVersion();
+            }
+            BYTES_ESCRITOS.sumar(content.length());
+            escrito = true;
+        } catch (IOException | UncheckedIOException e) {
+            LOG.error("Error al escribir en el archivo", "archivo", filename, e);
+        }
+        ESCRITURAS.registrarDesde(inicio);
+        return escrito;
+    }
+
+    /**
+     * Quita lo que un agregado fallido llegó a escribir, para que el próximo
+     * no quede pegado a una línea cortada
+     */
+    private static void recortar(Path archivo, long tamano) {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+            if (canal.size() > tamano) {
+                canal.truncate(tamano);
+            }
         } catch (IOException e) {
-            System.err.println("Error al escribir en el archivo: " + e.getMessage());
+            LOG.warn("No se pudo recortar el agregado fallido", "archivo", archivo.getFileName(),
+                    "error", e.getMessage());
         }
     }
 
     //LEER
     public List<String> readFromFile(String filename) {
         List<String> listLine = new java.util.ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+        forEachLine(filename, listLine::add);
+        return listLine;
+    }
+
+    /**
+     * Recorre el archivo línea por línea sin cargarlo completo en memoria
+     * Retorna el número de líneas entregadas (se saltan las vacías)
+     */
+    public long forEachLine(String filename, Consumer<String> consumer) {
+        long[] count = {0};
+        forEachLineFrom(filename, 0, line -> {
+            consumer.accept(line);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    /**
+     * Recorre las líneas a partir de una posición en bytes (por ejemplo, la
+     * cola de un archivo que solo crece). Retorna la posición final leída.
+     *
+     * Solo se lee hasta el tamaño observado al abrir, tomado con el bloqueo
+     * compartido: hasta ahí hay escrituras completas, y lo que se agregue
+     * mientras tanto queda para la siguiente lectura desde esa posición. El
+     * bloqueo se suelta antes de leer (una reescritura reemplaza el archivo y
+     * el que ya está abierto se sigue leyendo entero).
+     */
+    @SuppressWarnings("try") // El bloqueo solo se toma: el recurso no se usa dentro del try
+    public long forEachLineFrom(String filename, long offset, Consumer<String> consumer) {
+        long inicio = System.nanoTime();
+        try (RandomAccessFile file = new RandomAccessFile(filename, "r")) {
+            long length;
+            try (FileLocks.Bloqueo bloqueo = bloquear(filename, false)) {
+                length = file.length();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (offset >= length) {
+                return length;
+            }
+            file.seek(offset);
+            InputStream tail = new FilterInputStream(Channels.newInputStream(file.getChannel())) {
+                private long remaining = length - offset;
+
+                @Override
+                public int read() throws IOException {
+                    if (remaining <= 0) return -1;
+                    int b = super.read();
+                    if (b >= 0) remaining--;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int off, int len) throws IOException {
+                    if (remaining <= 0) return -1;
+                    int n = super.read(buffer, off, (int) Math.min(len, remaining));
+                    if (n > 0) remaining -= n;
+                    return n;
+                }
+            };
+            BufferedReader reader = new BufferedReader(new InputStreamReader(tail, Charset.defaultCharset()));
             String line;
             while ((line = reader.readLine()) != null) {
                 if (line.trim().isEmpty()) continue; // Saltar líneas vacías
-                listLine.add(line);
+                consumer.accept(line);
             }
+            BYTES_LEIDOS.sumar(length - offset);
+            LECTURAS.registrarDesde(inicio);
+            return length;
         } catch (IOException e) {
-            System.err.println("Error al leer el archivo: " + e.getMessage());
+            LOG.error("Error al leer el archivo", "archivo", filename, e);
+            return offset;
         }
-        return listLine;
+    }
+
+    /**
+     * Versión del archivo (ver FileLocks): si no cambió desde la última
+     * lectura, lo que se tenga en caché sigue vigente
+     */
+    public long getVersion(String filename) {
+        return enDirectorioDeDatos(filename) ? FileLocks.version(Paths.get(filename)) : 0;
     }
 
     public boolean fileExists(String filename) {
@@ -60,7 +191,7 @@ public class FileManager {
         try {
             return Files.deleteIfExists(Paths.get(filename));
         } catch (IOException e) {
-            System.err.println("Error al eliminar archivo: " + e.getMessage());
+            LOG.error("Error al eliminar archivo", "archivo", filename, e);
             return false;
         }
     }
@@ -77,26 +208,61 @@ public class FileManager {
      * Reescribe completamente un archivo
      */
     public boolean rewriteFile(String filename, List<String> lines) {
-        try {
-            // Crear archivo temporal
-            String tempFile = filename + ".tmp";
-            writeToFile(tempFile, "", false);
+        return rewriteFile(filename, lines, -1);
+    }
 
-            for (String line : lines) {
-                writeToFile(tempFile, line + "\n", true);
+    /**
+     * Reescribe el archivo solo si sigue en la versión dada (la que tenía al
+     * leer las líneas); si otra instancia lo modificó mientras tanto retorna
+     * false sin tocarlo, y hay que volver a leerlo y aplicar el cambio.
+     * Con version = -1 se reescribe siempre.
+     */
+    public boolean rewriteFile(String filename, List<String> lines, long version) {
+        long inicio = System.nanoTime();
+        Path destino = Paths.get(filename);
+        Path temporal = Paths.get(filename + ".tmp");
+        try (FileLocks.Bloqueo bloqueo = bloquear(filename, true)) {
+            if (version >= 0 && bloqueo != null && bloqueo.version() != version) {
+                LOG.warn("El archivo cambió desde la lectura, no se reescribe", "archivo", filename,
+                        "version", version);
+                return false;
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(temporal, Charset.defaultCharset())) {
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+            try {
+                Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (bloqueo != null) {
+                bloqueo.incrementarVersion();
             }
-
-            // Reemplazar archivo original
-            deleteFile(filename);
-            java.nio.file.Files.move(
-                    java.nio.file.Paths.get(tempFile),
-                    java.nio.file.Paths.get(filename)
-            );
-
             return true;
-        } catch (Exception e) {
-            System.err.println("Error reescribiendo archivo: " + e.getMessage());
+        } catch (IOException | UncheckedIOException e) {
+            LOG.error("Error reescribiendo archivo", "archivo", filename, e);
             return false;
+        } finally {
+            REESCRITURAS.registrarDesde(inicio);
         }
     }
+
+    /**
+     * Bloqueo del archivo si está en el directorio de datos (null fuera de él:
+     * exportaciones, CSV a importar, etc.)
+     */
+    private static FileLocks.Bloqueo bloquear(String filename, boolean exclusivo) {
+        if (!enDirectorioDeDatos(filename)) {
+            return null;
+        }
+        Path archivo = Paths.get(filename);
+        return exclusivo ? FileLocks.exclusivo(archivo) : FileLocks.compartido(archivo);
+    }
+
+    private static boolean enDirectorioDeDatos(String filename) {
+        return Paths.get(filename).toAbsolutePath().normalize().startsWith(DATOS);
+    }
 }
@@ -0,0 +1,424 @@
+package com.programacion.inventario.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log - Registro asíncrono con niveles y campos estructurados
+ *
+ * Quien registra solo copia referencias (nivel, mensaje, campos) a una celda
+ * de un buffer circular preasignado; un hilo de fondo da formato, escribe en
+ * data/logs/inventario.log (rotando por tamaño) y, si está activado, repite
+ * en consola. Un nivel suprimido cuesta una comparación: los mensajes usan
+ * campos clave/valor en lugar de concatenar texto antes de la llamada.
+ *
+ * Si el buffer se llena los eventos nuevos se descartan (y se cuentan) en
+ * lugar de bloquear a quien registra.
+ *
+ * Configuración (propiedades del sistema):
+ * - inventario.log.nivel: DEBUG, INFO (por defecto), WARN, ERROR
+ * - inventario.log.consola: repetir en consola (false por defecto)
+ * - inventario.log.maxMB / inventario.log.archivos: tamaño y cantidad de archivos rotados
+ *
+ * Varias instancias sobre el mismo directorio de datos escriben en el mismo
+ * archivo: cada lote de líneas completas se agrega con una sola escritura,
+ * así que las líneas no se mezclan. La rotación se hace con el bloqueo
+ * exclusivo del log (FileLocks) y cambia su versión, así que las demás
+ * vuelven a abrir el archivo nuevo.
+ */
+public final class Log {
+
+    public enum Nivel { DEBUG, INFO, WARN, ERROR }
+
+    private static final int CAPACIDAD = 8192; // potencia de 2
+    private static final int MASCARA = CAPACIDAD - 1;
+    private static final int MAX_CAMPOS = 6;
+    // Caracteres acumulados antes de escribir un lote en el archivo
+    private static final int LOTE = 32 * 1024;
+
+    private static final boolean CONSOLA = Boolean.parseBoolean(System.getProperty("inventario.log.consola", "false"));
+    private static final long MAX_BYTES = Long.getLong("inventario.log.maxMB", 10) * 1024 * 1024;
+    private static final int MAX_ARCHIVOS = Integer.getInteger("inventario.log.archivos", 5);
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private static volatile int nivelMinimo = nivelConfigurado();
+
+    private static final Evento[] BUFFER = new Evento[CAPACIDAD];
+    private static final AtomicLong PRODUCIDOS = new AtomicLong();
+    private static final AtomicLong CONSUMIDOS = new AtomicLong();
+    private static final AtomicLong DESCARTADOS = new AtomicLong();
+    // Eventos ya escritos y vaciados a disco
+    private static volatile long vaciados;
+
+    private static final Map<String, Log> LOGGERS = new ConcurrentHashMap<>();
+
+    private static volatile Thread escritor;
+
+    static {
+        for (int i = 0; i < CAPACIDAD; i++) {
+            BUFFER[i] = new Evento(i - CAPACIDAD);
+        }
+    }
+
+    private final String origen;
+
+    private Log(String origen) {
+        this.origen = origen;
+    }
+
+    /**
+     * Logger de una clase (se guarda en un campo estático de quien lo usa)
+     */
+    public static Log get(Class<?> clase) {
+        return LOGGERS.computeIfAbsent(clase.getSimpleName(), Log::new);
+    }
+
+    public static void setNivel(Nivel nivel) {
+        nivelMinimo = nivel.ordinal();
+    }
+
+    public static long getDescartados() {
+        return DESCARTADOS.get();
+    }
+
+    public boolean isDebug() {
+        return nivelMinimo <= Nivel.DEBUG.ordinal();
+    }
+
+    // ===== API (aridad fija para no crear arreglos cuando el nivel está suprimido) =====
+
+    public void debug(String mensaje) {
+        if (nivelMinimo <= 0) publicar(Nivel.DEBUG, mensaje, null, 0, null, null, null, null, null, null);
+    }
+
+    public void debug(String mensaje, String k1, Object v1) {
+        if (nivelMinimo <= 0) publicar(Nivel.DEBUG, mensaje, null, 2, k1, v1, null, null, null, null);
+    }
+
+    public void debug(String mensaje, String k1, Object v1, String k2, Object v2) {
+        if (nivelMinimo <= 0) publicar(Nivel.DEBUG, mensaje, null, 4, k1, v1, k2, v2, null, null);
+    }
+
+    public void info(String mensaje) {
+        if (nivelMinimo <= 1) publicar(Nivel.INFO, mensaje, null, 0, null, null, null, null, null, null);
+    }
+
+    public void info(String mensaje, String k1, Object v1) {
+        if (nivelMinimo <= 1) publicar(Nivel.INFO, mensaje, null, 2, k1, v1, null, null, null, null);
+    }
+
+    public void info(String mensaje, String k1, Object v1, String k2, Object v2) {
+        if (nivelMinimo <= 1) publicar(Nivel.INFO, mensaje, null, 4, k1, v1, k2, v2, null, null);
+    }
+
+    public void info(String mensaje, String k1, Object v1, String k2, Object v2, String k3, Object v3) {
+        if (nivelMinimo <= 1) publicar(Nivel.INFO, mensaje, null, 6, k1, v1, k2, v2, k3, v3);
+    }
+
+    public void warn(String mensaje) {
+        if (nivelMinimo <= 2) publicar(Nivel.WARN, mensaje, null, 0, null, null, null, null, null, null);
+    }
+
+    public void warn(String mensaje, String k1, Object v1) {
+        if (nivelMinimo <= 2) publicar(Nivel.WARN, mensaje, null, 2, k1, v1, null, null, null, null);
+    }
+
+    public void warn(String mensaje, String k1, Object v1, String k2, Object v2) {
+        if (nivelMinimo <= 2) publicar(Nivel.WARN, mensaje, null, 4, k1, v1, k2, v2, null, null);
+    }
+
+    public void error(String mensaje, Throwable error) {
+        publicar(Nivel.ERROR, mensaje, error, 0, null, null, null, null, null, null);
+    }
+
+    public void error(String mensaje, String k1, Object v1, Throwable error) {
+        publicar(Nivel.ERROR, mensaje, error, 2, k1, v1, null, null, null, null);
+    }
+
+    // ===== BUFFER CIRCULAR =====
+
+    private void publicar(Nivel nivel, String mensaje, Throwable error, int campos,
+                          String k1, Object v1, String k2, Object v2, String k3, Object v3) {
+        long secuencia;
+        while (true) {
+            secuencia = PRODUCIDOS.get();
+            if (secuencia - CONSUMIDOS.get() >= CAPACIDAD) {
+                DESCARTADOS.incrementAndGet();
+                return;
+            }
+            if (PRODUCIDOS.compareAndSet(secuencia, secuencia + 1)) {
+                break;
+            }
+        }
+
+        Evento evento = BUFFER[(int) (secuencia & MASCARA)];
+        evento.timestamp = System.currentTimeMillis();
+        evento.nivel = nivel;
+        evento.origen = origen;
+        evento.hilo = Thread.currentThread().getName();
+        evento.mensaje = mensaje;
+        evento.error = error;
+        evento.cantidadCampos = campos;
+        Object[] valores = evento.campos;
+        valores[0] = k1; valores[1] = v1; valores[2] = k2; valores[3] = v2; valores[4] = k3; valores[5] = v3;
+        evento.publicado = secuencia; // escritura volatile: publica la celda al escritor
+
+        if (escritor == null) {
+            iniciarEscritor();
+        }
+    }
+
+    private static synchronized void iniciarEscritor() {
+        if (escritor != null) {
+            return;
+        }
+        Thread thread = new Thread(new Escritor(), "log-escritor");
+        thread.setDaemon(true);
+        escritor = thread;
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::cerrar, "log-cierre"));
+    }
+
+    /**
+     * Espera (hasta 2 s) a que se escriban los eventos pendientes
+     */
+    public static void cerrar() {
+        long objetivo = PRODUCIDOS.get();
+        long limite = System.nanoTime() + 2_000_000_000L;
+        while (escritor != null && vaciados < objetivo && System.nanoTime() < limite) {
+            LockSupport.unpark(escritor);
+            LockSupport.parkNanos(1_000_000);
+        }
+    }
+
+    private static int nivelConfigurado() {
+        try {
+            return Nivel.valueOf(System.getProperty("inventario.log.nivel", "INFO").toUpperCase()).ordinal();
+        } catch (IllegalArgumentException e) {
+            return Nivel.INFO.ordinal();
+        }
+    }
+
+    /**
+     * Celda del buffer; 'publicado' indica la secuencia cuyo evento contiene
+     */
+    private static final class Evento {
+        volatile long publicado;
+        long timestamp;
+        Nivel nivel;
+        String origen;
+        String hilo;
+        String mensaje;
+        Throwable error;
+        int cantidadCampos;
+        final Object[] campos = new Object[MAX_CAMPOS];
+
+        Evento(long publicado) {
+            this.publicado = publicado;
+        }
+
+        void limpiar() {
+            mensaje = null;
+            error = null;
+            Arrays.fill(campos, null);
+        }
+    }
+
+    /**
+     * Hilo de fondo: consume el buffer en orden, da formato y escribe en lotes
+     */
+    private static final class Escritor implements Runnable {
+        private final StringBuilder linea = new StringBuilder(256);
+        private final StringBuilder lote = new StringBuilder(LOTE + 1024);
+        private Path archivo;
+        private OutputStream salida;
+        private long tamano;
+        // Versión del log al abrirlo y próxima vez que se compara con la actual (nanoTime)
+        private long versionVista;
+        private long proximaRevision;
+        private long ultimoMs = -1;
+        private String ultimaFecha;
+
+        @Override
+        public void run() {
+            Metrics.getInstance().gauge("log.descartados", DESCARTADOS::get);
+            abrir();
+            while (true) {
+                long siguiente = CONSUMIDOS.get();
+                Evento evento = BUFFER[(int) (siguiente & MASCARA)];
+                if (evento.publicado != siguiente) {
+                    // Nada pendiente: vaciar a disco y esperar
+                    vaciar();
+                    LockSupport.parkNanos(5_000_000);
+                    continue;
+                }
+                try {
+                    escribir(evento);
+                } catch (RuntimeException e) {
+                    // Un toString() que falla no debe detener al escritor
+                    System.err.println("Error al dar formato a un evento de log: " + e);
+                }
+                evento.limpiar();
+                CONSUMIDOS.lazySet(siguiente + 1);
+                if (CONSUMIDOS.get() == PRODUCIDOS.get()) {
+                    vaciar();
+                }
+            }
+        }
+
+        private void escribir(Evento evento) {
+            if (evento.timestamp != ultimoMs) {
+                // Varios eventos en el mismo milisegundo comparten la fecha ya formateada
+                ultimoMs = evento.timestamp;
+                ultimaFecha = FORMATO_FECHA.format(LocalDateTime.ofInstant(Instant.ofEpochMilli(ultimoMs),
+                        ZoneId.systemDefault()));
+            }
+            linea.setLength(0);
+            linea.append(ultimaFecha);
+            linea.append(' ').append(evento.nivel.name());
+            if (evento.nivel.name().length() == 4) linea.append(' ');
+            linea.append(" [").append(evento.hilo).append("] ").append(evento.origen).append(" - ")
+                    .append(evento.mensaje);
+            for (int i = 0; i < evento.cantidadCampos; i += 2) {
+                linea.append(' ').append(evento.campos[i]).append('=').append(evento.campos[i + 1]);
+            }
+            if (evento.error != null) {
+                linea.append(" error=").append(evento.error);
+            }
+            String texto = linea.toString();
+
+            if (CONSOLA) {
+                PrintStream consola = evento.nivel.ordinal() >= Nivel.WARN.ordinal() ? System.err : System.out;
+                consola.println(texto);
+            }
+            if (salida == null) {
+                return;
+            }
+            int antes = lote.length();
+            lote.append(texto).append(System.lineSeparator());
+            if (evento.error != null) {
+                for (StackTraceElement elemento : evento.error.getStackTrace()) {
+                    lote.append("\tat ").append(elemento).append(System.lineSeparator());
+                }
+            }
+            tamano += lote.length() - antes;
+            try {
+                if (lote.length() >= LOTE) {
+                    escribirLote();
+                }
+                if (tamano >= MAX_BYTES) {
+                    rotar();
+                }
+            } catch (IOException e) {
+                System.err.println("Error al escribir el log: " + e.getMessage());
+                salida = null;
+            }
+        }
+
+        /**
+         * Una sola escritura en modo agregar: otra instancia no puede partir las líneas
+         */
+        private void escribirLote() throws IOException {
+            if (lote.length() == 0) {
+                return;
+            }
+            byte[] bytes = lote.toString().getBytes(StandardCharsets.UTF_8);
+            lote.setLength(0);
+            salida.write(bytes);
+        }
+
+        private void abrir() {
+            try {
+                Path directorio = Paths.get(FileManager.DATA_DIRECTORY, "logs");
+                Files.createDirectories(directorio);
+                archivo = directorio.resolve("inventario.log");
+                versionVista = FileLocks.version(archivo);
+                tamano = Files.exists(archivo) ? Files.size(archivo) : 0;
+                salida = Files.newOutputStream(archivo, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("No se pudo abrir el archivo de log: " + e.getMessage());
+                salida = null;
+            }
+        }
+
+        /**
+         * inventario.log -> inventario.1.log -> ... -> inventario.N.log (se descarta el último)
+         * Si otra instancia ya rotó, el archivo actual es nuevo y solo se vuelve a abrir
+         */
+        private void rotar() throws IOException {
+            escribirLote();
+            salida.close();
+            try (FileLocks.Bloqueo bloqueo = FileLocks.exclusivo(archivo)) {
+                if (Files.exists(archivo) && Files.size(archivo) >= MAX_BYTES) {
+                    Path directorio = archivo.getParent();
+                    Files.deleteIfExists(directorio.resolve("inventario." + MAX_ARCHIVOS + ".log"));
+                    for (int i = MAX_ARCHIVOS - 1; i >= 1; i--) {
+                        Path origen = directorio.resolve("inventario." + i + ".log");
+                        if (Files.exists(origen)) {
+                            Files.move(origen, directorio.resolve("inventario." + (i + 1) + ".log"),
+                                    StandardCopyOption.REPLACE_EXISTING);
+                        }
+                    }
+                    Files.move(archivo, directorio.resolve("inventario.1.log"), StandardCopyOption.REPLACE_EXISTING);
+                    bloqueo.incrementarVersion();
+                }
+                abrir();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * Como mucho una vez por segundo: si otra instancia rotó el log, este
+         * escritor sigue en el archivo ya renombrado y debe abrir el nuevo; si
+         * entre todas lo llenaron, se rota aunque este escritor no llegara al máximo
+         */
+        private void revisarRotacion() {
+            long ahora = System.nanoTime();
+            if (salida == null || ahora < proximaRevision) {
+                return;
+            }
+            proximaRevision = ahora + 1_000_000_000L;
+            try {
+                if (FileLocks.version(archivo) != versionVista) {
+                    salida.close();
+                    abrir();
+                } else if (Files.size(archivo) >= MAX_BYTES) {
+                    rotar();
+                }
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("Error al revisar la rotación del log: " + e.getMessage());
+            }
+        }
+
+        private void vaciar() {
+            if (salida != null) {
+                try {
+                    escribirLote();
+                } catch (IOException e) {
+                    System.err.println("Error al escribir el log: " + e.getMessage());
+                }
+                revisarRotacion();
+            }
+            vaciados = CONSUMIDOS.get();
+        }
+    }
+}
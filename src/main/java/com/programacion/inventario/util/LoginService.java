@@ -0,0 +1,188 @@
+package com.programacion.inventario.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.regex.Pattern;
+
+/**
+ * LoginService - Flujo de login y registro sin interfaz gráfica
+ *
+ * Contiene la lógica que antes vivía en LoginController (límite de intentos,
+ * re-autenticación, validación con actualización del hash, registro de
+ * accesos y apertura de sesión) para que la pantalla de login y las pruebas
+ * de carga ejecuten exactamente el mismo código.
+ */
+public class LoginService {
+
+    private static final Log LOG = Log.get(LoginService.class);
+
+    private static LoginService instance;
+
+    public enum Estado { EXITOSO, INVALIDO, LIMITADO }
+
+    private static final Metrics.Histograma LATENCIA = Metrics.getInstance().histograma("login.latencia");
+    private static final Metrics.Contador EXITOSOS = Metrics.getInstance().contador("login.exitosos");
+    private static final Metrics.Contador INVALIDOS = Metrics.getInstance().contador("login.invalidos");
+    private static final Metrics.Contador LIMITADOS = Metrics.getInstance().contador("login.limitados");
+
+    // Separador de campos, controles ASCII y saltos de línea Unicode en el nombre registrado en accesos.txt
+    private static final Pattern CARACTERES_NO_PERMITIDOS = Pattern.compile("[|\\p{Cntrl}\\u0085\\u2028\\u2029]");
+
+    private final FileManager fileManager;
+
+    private LoginService() {
+        fileManager = new FileManager();
+    }
+
+    public static synchronized LoginService getInstance() {
+        if (instance == null) {
+            instance = new LoginService();
+        }
+        return instance;
+    }
+
+    /**
+     * Intenta iniciar sesión; si es exitoso abre la sesión con el rol del usuario
+     */
+    public Resultado autenticar(String username, String password) {
+        long inicio = System.nanoTime();
+        Resultado resultado = autenticarSinMedir(username, password);
+        LATENCIA.registrarDesde(inicio);
+        switch (resultado.getEstado()) {
+            case EXITOSO: EXITOSOS.incrementar(); break;
+            case INVALIDO: INVALIDOS.incrementar(); break;
+            default: LIMITADOS.incrementar();
+        }
+        return resultado;
+    }
+
+    private Resultado autenticarSinMedir(String username, String password) {
+        // Limitar intentos antes de leer el archivo o calcular hashes
+        long espera = LoginThrottle.getInstance().intentar(username);
+        if (espera > 0) {
+            return new Resultado(Estado.LIMITADO, espera, null, null);
+        }
+
+        // Si el usuario se autenticó hace poco basta con la credencial en memoria
+        SessionManager sessionManager = SessionManager.getInstance();
+        boolean isValid = sessionManager.reautenticar(username, password)
+                || validarCredenciales(username, password);
+        registrarAcceso(username, isValid);
+        if (!isValid) {
+            return new Resultado(Estado.INVALIDO, 0, null, null);
+        }
+
+        LoginThrottle.getInstance().exito(username);
+        // El rol se lee del índice en memoria; sus permisos se compilan al iniciar la sesión
+        UsuarioStore.Registro registro = UsuarioStore.getInstance().getRegistro(username);
+        String rol = registro != null ? registro.getRol() : UsuarioStore.ROL_POR_DEFECTO;
+        String token = sessionManager.iniciar(username, rol, password);
+        return new Resultado(Estado.EXITOSO, 0, rol, token);
+    }
+
+    /**
+     * Valida credenciales de usuario contra hashes almacenados
+     * Si el login es exitoso y el registro está en texto plano o con un hash
+     * más débil que el actual, se regenera con el algoritmo y costo actuales
+     */
+    public boolean validarCredenciales(String username, String password) {
+        try {
+            UsuarioStore store = UsuarioStore.getInstance();
+            if (store.contar(null) == 0) {
+                LOG.info("No hay usuarios registrados, creando usuarios por defecto");
+                crearUsuariosPorDefecto();
+                return false;
+            }
+
+            // Búsqueda O(1) en el índice por nombre, sin leer el archivo
+            UsuarioStore.Registro registro = store.getRegistro(username);
+            if (registro == null) {
+                return false;
+            }
+
+            PasswordHashing hashing = PasswordHashing.getInstance();
+            boolean isValid = registro.isTextoPlano()
+                    ? MessageDigest.isEqual(registro.getHash().getBytes(StandardCharsets.UTF_8),
+                                            password.getBytes(StandardCharsets.UTF_8))
+                    : hashing.verificar(password, registro.getHash(), registro.getSalt());
+
+            if (isValid) {
+                if (registro.isTextoPlano() || hashing.requiereActualizacion(registro.getHash())) {
+                    String salt = SecurityUtils.generateSalt();
+                    if (store.actualizarCredencial(username, hashing.hash(password, salt), salt)) {
+                        LOG.info("Hash actualizado", "usuario", username);
+                    }
+                }
+                LOG.debug("Credenciales válidas", "usuario", username);
+                return true;
+            }
+
+        } catch (Exception e) {
+            LOG.error("Error validando credenciales", "usuario", username, e);
+        }
+        return false;
+    }
+
+    /**
+     * Guarda credenciales de usuario con el hash actual (PBKDF2 calibrado)
+     *
+     * @return false si el usuario ya existe o no se pudo guardar
+     */
+    public boolean registrar(String username, String password, String rol) {
+        try {
+            if (!UsuarioStore.getInstance().agregar(username, password, rol)) {
+                LOG.warn("El usuario ya existe", "usuario", username);
+                return false;
+            }
+            LOG.info("Credenciales cifradas guardadas", "usuario", username);
+            return true;
+        } catch (Exception e) {
+            LOG.error("Error al guardar credenciales cifradas", "usuario", username, e);
+            return false;
+        }
+    }
+
+    public void crearUsuariosPorDefecto() {
+        //SEEDER con cifrado
+        registrar("admin", "admin123", PermissionManager.ROL_ADMINISTRADOR);
+        registrar("profesor", "clase2024", "Profesor");
+    }
+
+    /**
+     * Registra el intento de acceso en accesos.txt (timestamp|usuario|OK o FALLO)
+     * para el reporte de actividad de usuarios. El nombre lo escribe quien
+     * intenta entrar: '|' y los caracteres de control (CR, LF...) se reemplazan
+     * para que no pueda agregar campos ni líneas falsas al reporte
+     */
+    private void registrarAcceso(String username, boolean exitoso) {
+        String usuario = CARACTERES_NO_PERMITIDOS.matcher(username).replaceAll("_");
+        fileManager.writeToFile(ReportEngine.ACCESOS_FILE,
+                System.currentTimeMillis() + "|" + usuario + "|" + (exitoso ? "OK" : "FALLO") + "\n", true);
+    }
+
+    /**
+     * Resultado de un intento de login
+     */
+    public static final class Resultado {
+        private final Estado estado;
+        private final long esperaMs;
+        private final String rol;
+        private final String token;
+
+        Resultado(Estado estado, long esperaMs, String rol, String token) {
+            this.estado = estado;
+            this.esperaMs = esperaMs;
+            this.rol = rol;
+            this.token = token;
+        }
+
+        public Estado getEstado() { return estado; }
+        public long getEsperaMs() { return esperaMs; }
+        public String getRol() { return rol; }
+        public String getToken() { return token; }
+
+        public boolean isExitoso() {
+            return estado == Estado.EXITOSO;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.programacion.inventario.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LoginThrottle - Límite de intentos de login sin bloqueos
+ *
+ * Cada intento pasa por dos buckets de tokens: primero el global y después
+ * uno por usuario, así que con el límite global agotado no se crean buckets
+ * por usuario. Se guardan como máximo MAX_USUARIOS buckets por usuario; con
+ * el mapa lleno los usuarios nuevos comparten un solo bucket.
+ *
+ * Cada bucket es un único AtomicLong con el "tiempo teórico de llegada" del
+ * siguiente intento (algoritmo GCRA), que se actualiza con CAS; así la
+ * decisión cuesta unas pocas operaciones atómicas y se toma antes de leer
+ * usuarios.txt o calcular ningún hash.
+ *
+ * Configuración (propiedades del sistema):
+ * - inventario.login.rafagaUsuario / inventario.login.intervaloUsuarioMs
+ * - inventario.login.rafagaGlobal / inventario.login.intervaloGlobalMs
+ */
+public class LoginThrottle {
+
+    private static LoginThrottle instance;
+
+    // Por usuario: 5 intentos seguidos y luego uno cada 2 segundos
+    private static final int RAFAGA_USUARIO = Integer.getInteger("inventario.login.rafagaUsuario", 5);
+    private static final long INTERVALO_USUARIO_MS = Long.getLong("inventario.login.intervaloUsuarioMs", 2000);
+
+    // Global: 40 intentos seguidos y luego 20 por segundo
+    private static final int RAFAGA_GLOBAL = Integer.getInteger("inventario.login.rafagaGlobal", 40);
+    private static final long INTERVALO_GLOBAL_MS = Long.getLong("inventario.login.intervaloGlobalMs", 50);
+
+    // Con el mapa lleno se descartan los buckets ya recargados, como mucho una vez por intervalo
+    private static final int MAX_USUARIOS = 10_000;
+    private static final int MAX_LONGITUD_USUARIO = 64;
+
+    private final Bucket global = new Bucket(RAFAGA_GLOBAL, INTERVALO_GLOBAL_MS);
+    private final ConcurrentHashMap<String, Bucket> porUsuario = new ConcurrentHashMap<>();
+    // Compartido por los usuarios nuevos mientras el mapa está lleno
+    private final Bucket desbordados = new Bucket(RAFAGA_USUARIO, INTERVALO_USUARIO_MS);
+    private final AtomicLong proximaLimpieza = new AtomicLong(Long.MIN_VALUE);
+
+    private final LongAdder permitidos = new LongAdder();
+    private final LongAdder rechazadosUsuario = new LongAdder();
+    private final LongAdder rechazadosGlobal = new LongAdder();
+
+    private LoginThrottle() {
+    }
+
+    public static synchronized LoginThrottle getInstance() {
+        if (instance == null) {
+            instance = new LoginThrottle();
+        }
+        return instance;
+    }
+
+    /**
+     * Consume un intento para el usuario
+     *
+     * @return 0 si el intento está permitido, o los milisegundos a esperar
+     */
+    public long intentar(String usuario) {
+        long ahora = System.nanoTime();
+
+        long espera = global.consumir(ahora);
+        if (espera > 0) {
+            rechazadosGlobal.increment();
+            return aMillis(espera);
+        }
+
+        espera = bucketDe(usuario, ahora).consumir(ahora);
+        if (espera > 0) {
+            rechazadosUsuario.increment();
+            return aMillis(espera);
+        }
+
+        permitidos.increment();
+        return 0;
+    }
+
+    /**
+     * Tras un login exitoso el usuario recupera todos sus intentos
+     */
+    public void exito(String usuario) {
+        porUsuario.remove(clave(usuario));
+    }
+
+    private Bucket bucketDe(String usuario, long ahora) {
+        String clave = clave(usuario);
+        Bucket bucket = porUsuario.get(clave);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (porUsuario.size() >= MAX_USUARIOS) {
+            limpiar(ahora);
+            if (porUsuario.size() >= MAX_USUARIOS) {
+                // Varios hilos pueden pasar a la vez la comprobación: el mapa
+                // puede superar el máximo como mucho en el número de hilos
+                return desbordados;
+            }
+        }
+        return porUsuario.computeIfAbsent(clave, k -> new Bucket(RAFAGA_USUARIO, INTERVALO_USUARIO_MS));
+    }
+
+    /**
+     * Descarta los buckets ya recargados (equivalen a uno nuevo). El recorrido
+     * es O(n), así que lo hace un solo hilo y como mucho una vez por intervalo
+     */
+    private void limpiar(long ahora) {
+        long proxima = proximaLimpieza.get();
+        if (proxima != Long.MIN_VALUE && ahora < proxima) {
+            return;
+        }
+        if (proximaLimpieza.compareAndSet(proxima, ahora + INTERVALO_USUARIO_MS * 1_000_000)) {
+            porUsuario.values().removeIf(b -> b.recargado(ahora));
+        }
+    }
+
+    private static String clave(String usuario) {
+        return usuario.length() > MAX_LONGITUD_USUARIO ? usuario.substring(0, MAX_LONGITUD_USUARIO) : usuario;
+    }
+
+    private static long aMillis(long nanos) {
+        return Math.max(1, (nanos + 999_999) / 1_000_000);
+    }
+
+    public long getPermitidos() { return permitidos.sum(); }
+    public long getRechazadosUsuario() { return rechazadosUsuario.sum(); }
+    public long getRechazadosGlobal() { return rechazadosGlobal.sum(); }
+
+    public long getRechazados() {
+        return rechazadosUsuario.sum() + rechazadosGlobal.sum();
+    }
+
+    /**
+     * Bucket de tokens en un solo long (GCRA)
+     *
+     * tat es el instante en que el bucket estaría lleno otra vez; un intento
+     * se permite si tat no supera ahora + tolerancia (la ráfaga) y, al
+     * permitirse, tat avanza un intervalo.
+     */
+    private static final class Bucket {
+        private final long intervalo;
+        private final long tolerancia;
+        private final AtomicLong tat = new AtomicLong(Long.MIN_VALUE);
+
+        Bucket(int rafaga, long intervaloMs) {
+            this.intervalo = intervaloMs * 1_000_000;
+            this.tolerancia = (long) (Math.max(1, rafaga) - 1) * intervalo;
+        }
+
+        /**
+         * @return 0 si se consumió un token, o los nanosegundos hasta el próximo
+         */
+        long consumir(long ahora) {
+            while (true) {
+                long actual = tat.get();
+                long base = actual == Long.MIN_VALUE || actual < ahora ? ahora : actual;
+                long espera = base - tolerancia - ahora;
+                if (espera > 0) {
+                    return espera;
+                }
+                if (tat.compareAndSet(actual, base + intervalo)) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean recargado(long ahora) {
+            long actual = tat.get();
+            return actual == Long.MIN_VALUE || actual <= ahora;
+        }
+    }
+}
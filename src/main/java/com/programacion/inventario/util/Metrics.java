@@ -0,0 +1,271 @@
+package com.programacion.inventario.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Metrics - Registro de métricas del proceso (contadores, gauges e histogramas)
+ *
+ * Las métricas se obtienen una vez por nombre y se guardan en campos
+ * estáticos; registrar un valor es entonces un LongAdder.increment o un
+ * incremento atómico en un arreglo, sin locks ni objetos nuevos.
+ *
+ * Los histogramas guardan duraciones en nanosegundos en cubetas log-lineales
+ * (8 por potencia de 2, error relativo menor a 12,5 %), suficientes para
+ * p50/p90/p99 sin guardar cada muestra.
+ *
+ * Un volcado periódico agrega una línea JSON a metrics.jsonl
+ * (inventario.metricas.segundos, 60 por defecto; 0 lo desactiva).
+ */
+public class Metrics {
+
+    private static final Log LOG = Log.get(Metrics.class);
+
+    private static Metrics instance;
+
+    public static final String METRICS_FILE = FileManager.DATA_DIRECTORY + "/metrics.jsonl";
+    private static final long VOLCADO_SEGUNDOS = Long.getLong("inventario.metricas.segundos", 60);
+
+    private final Map<String, Contador> contadores = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final Map<String, Histograma> histogramas = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService volcado;
+
+    private Metrics() {
+        Runtime runtime = Runtime.getRuntime();
+        gauge("jvm.memoriaUsadaMB", () -> (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024));
+        gauge("jvm.hilos", Thread::activeCount);
+    }
+
+    public static synchronized Metrics getInstance() {
+        if (instance == null) {
+            instance = new Metrics();
+        }
+        return instance;
+    }
+
+    public Contador contador(String nombre) {
+        return contadores.computeIfAbsent(nombre, k -> new Contador());
+    }
+
+    public Histograma histograma(String nombre) {
+        return histogramas.computeIfAbsent(nombre, k -> new Histograma());
+    }
+
+    /**
+     * Valor que se lee solo al consultarlo (en la pantalla o en el volcado)
+     */
+    public void gauge(String nombre, LongSupplier valor) {
+        gauges.put(nombre, valor);
+    }
+
+    public Map<String, Long> getContadores() {
+        Map<String, Long> valores = new TreeMap<>();
+        contadores.forEach((nombre, contador) -> valores.put(nombre, contador.get()));
+        return valores;
+    }
+
+    public Map<String, Long> getGauges() {
+        Map<String, Long> valores = new TreeMap<>();
+        gauges.forEach((nombre, gauge) -> {
+            try {
+                valores.put(nombre, gauge.getAsLong());
+            } catch (RuntimeException e) {
+                valores.put(nombre, -1L);
+            }
+        });
+        return valores;
+    }
+
+    public Map<String, Histograma> getHistogramas() {
+        return new TreeMap<>(histogramas);
+    }
+
+    // ===== VOLCADO PERIÓDICO =====
+
+    /**
+     * Inicia el volcado periódico a metrics.jsonl (una sola vez)
+     */
+    public synchronized void iniciarVolcado() {
+        if (volcado != null || VOLCADO_SEGUNDOS <= 0) {
+            return;
+        }
+        volcado = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "volcado-metricas");
+            thread.setDaemon(true);
+            return thread;
+        });
+        volcado.scheduleAtFixedRate(this::volcar, VOLCADO_SEGUNDOS, VOLCADO_SEGUNDOS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Agrega el estado actual de todas las métricas como una línea JSON
+     */
+    public void volcar() {
+        try {
+            Files.writeString(Paths.get(METRICS_FILE), toJson() + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            LOG.error("Error al volcar métricas", "archivo", METRICS_FILE, e);
+        }
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder(512);
+        json.append("{\"timestamp\":").append(System.currentTimeMillis());
+        json.append(",\"contadores\":{");
+        agregarValores(json, getContadores());
+        json.append("},\"gauges\":{");
+        agregarValores(json, getGauges());
+        json.append("},\"histogramas\":{");
+        boolean primero = true;
+        for (Map.Entry<String, Histograma> entrada : getHistogramas().entrySet()) {
+            Histograma h = entrada.getValue();
+            if (!primero) json.append(',');
+            primero = false;
+            json.append('"').append(entrada.getKey()).append("\":").append(String.format(Locale.ROOT,
+                    "{\"n\":%d,\"mediaMs\":%.3f,\"p50Ms\":%.3f,\"p90Ms\":%.3f,\"p99Ms\":%.3f,\"maxMs\":%.3f}",
+                    h.getCantidad(), h.getMedia() / 1e6, h.percentil(50) / 1e6, h.percentil(90) / 1e6,
+                    h.percentil(99) / 1e6, h.getMaximo() / 1e6));
+        }
+        return json.append("}}").toString();
+    }
+
+    private static void agregarValores(StringBuilder json, Map<String, Long> valores) {
+        boolean primero = true;
+        for (Map.Entry<String, Long> entrada : valores.entrySet()) {
+            if (!primero) json.append(',');
+            primero = false;
+            json.append('"').append(entrada.getKey()).append("\":").append(entrada.getValue());
+        }
+    }
+
+    // ===== TIPOS DE MÉTRICA =====
+
+    /**
+     * Contador monótono (LongAdder: sin contención entre hilos)
+     */
+    public static final class Contador {
+        private final LongAdder valor = new LongAdder();
+
+        public void incrementar() {
+            valor.increment();
+        }
+
+        public void sumar(long cantidad) {
+            valor.add(cantidad);
+        }
+
+        public long get() {
+            return valor.sum();
+        }
+    }
+
+    /**
+     * Histograma de duraciones en nanosegundos, sin locks
+     */
+    public static final class Histograma {
+        // 0..15 exactos y luego 8 cubetas por cada potencia de 2 hasta 2^62
+        private static final int SUBCUBETAS_BITS = 3;
+        private static final int SUBCUBETAS = 1 << SUBCUBETAS_BITS;
+        private static final int LINEALES = 2 * SUBCUBETAS;
+        private static final int CUBETAS = LINEALES + (63 - 4) * SUBCUBETAS;
+
+        private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+        private final LongAdder cantidad = new LongAdder();
+        private final LongAdder suma = new LongAdder();
+        private final AtomicLong maximo = new AtomicLong();
+
+        /**
+         * Registra una duración medida desde inicioNanos (System.nanoTime)
+         */
+        public void registrarDesde(long inicioNanos) {
+            registrar(System.nanoTime() - inicioNanos);
+        }
+
+        public void registrar(long nanos) {
+            long valor = Math.max(0, nanos);
+            cubetas.incrementAndGet(indice(valor));
+            cantidad.increment();
+            suma.add(valor);
+            long actual;
+            while (valor > (actual = maximo.get()) && !maximo.compareAndSet(actual, valor)) {
+                // reintentar: otro hilo registró un máximo al mismo tiempo
+            }
+        }
+
+        static int indice(long valor) {
+            if (valor < LINEALES) {
+                return (int) valor;
+            }
+            int exponente = 63 - Long.numberOfLeadingZeros(valor);
+            int sub = (int) (valor >>> (exponente - SUBCUBETAS_BITS)) & (SUBCUBETAS - 1);
+            return LINEALES + (exponente - 4) * SUBCUBETAS + sub;
+        }
+
+        /**
+         * Mayor valor que cae en la cubeta
+         */
+        static long limiteSuperior(int indice) {
+            if (indice < LINEALES) {
+                return indice;
+            }
+            int exponente = (indice - LINEALES) / SUBCUBETAS + 4;
+            int sub = (indice - LINEALES) % SUBCUBETAS;
+            long ancho = 1L << (exponente - SUBCUBETAS_BITS);
+            return (SUBCUBETAS + sub) * ancho + ancho - 1;
+        }
+
+        public long getCantidad() {
+            return cantidad.sum();
+        }
+
+        public double getMedia() {
+            long n = cantidad.sum();
+            return n == 0 ? 0 : (double) suma.sum() / n;
+        }
+
+        public long getMaximo() {
+            return maximo.get();
+        }
+
+        /**
+         * Percentil aproximado (límite superior de la cubeta, acotado por el máximo)
+         */
+        public long percentil(double p) {
+            long[] copia = new long[CUBETAS];
+            long total = 0;
+            for (int i = 0; i < CUBETAS; i++) {
+                copia[i] = cubetas.get(i);
+                total += copia[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long objetivo = Math.max(1, (long) Math.ceil(p / 100.0 * total));
+            long acumulado = 0;
+            for (int i = 0; i < CUBETAS; i++) {
+                acumulado += copia[i];
+                if (acumulado >= objetivo) {
+                    return Math.min(limiteSuperior(i), maximo.get());
+                }
+            }
+            return maximo.get();
+        }
+    }
+}
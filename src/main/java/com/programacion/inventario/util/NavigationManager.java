@@ -25,6 +25,8 @@ import java.util.Map;
  * - Cache de controladores para reutilización
  */
 public class NavigationManager {
+
+    private static final Log LOG = Log.get(NavigationManager.class);
     
     // Instancia única (Singleton)
     private static NavigationManager instance;
@@ -35,6 +37,9 @@ public class NavigationManager {
     // Cache de controladores para evitar recargar
     private Map<String, Object> controllerCache;
     
+    // Tiempo de carga de cada pantalla (FXML + controlador + escena)
+    private static final Metrics.Histograma NAVEGACIONES = Metrics.getInstance().histograma("navegacion");
+
     // Directorio base de las vistas FXML
     private static final String VIEWS_PATH = "/com/programacion/inventario/view/";
     
@@ -46,6 +51,7 @@ public class NavigationManager {
         PRODUCTOS("productos-view.fxml", "Gestión de Productos"),
         PROVEEDORES("proveedores-view.fxml", "Gestión de Proveedores"),
         REPORTES("reportes-view.fxml", "Reportes del Sistema"),
+        DIAGNOSTICO("diagnostico-view.fxml", "Diagnóstico del Sistema"),
         ABOUT("about-view.fxml","Acerca del Sistema");
 
 
@@ -87,7 +93,7 @@ public class NavigationManager {
      */
     public void initialize(Stage primaryStage) {
         this.primaryStage = primaryStage;
-        System.out.println("NavigationManager inicializado con stage principal");
+        LOG.debug("NavigationManager inicializado con stage principal");
     }
     
     /**
@@ -95,13 +101,22 @@ public class NavigationManager {
      * 
      * @param screen La pantalla a la que navegar
      * @param clearCache Si se debe limpiar el cache de controladores
+     * @return false si no se pudo navegar (sin permiso o error de carga)
      */
-    public void navigateTo(Screen screen, boolean clearCache) {
+    public boolean navigateTo(Screen screen, boolean clearCache) {
         if (primaryStage == null) {
             showError("Error de Navegación", "NavigationManager no ha sido inicializado");
-            return;
+            return false;
+        }
+
+        // Verificación de permisos del rol de la sesión (prueba de un bit)
+        if (!PermissionManager.getInstance().puede(screen)) {
+            LOG.warn("Acceso denegado", "pantalla", screen);
+            showError("Acceso Denegado", "Su rol no tiene permiso para acceder a: " + screen.getTitle());
+            return false;
         }
         
+        long inicio = System.nanoTime();
         try {
             // Limpiar cache si se solicita
             if (clearCache) {
@@ -131,20 +146,23 @@ public class NavigationManager {
             // Mostrar la ventana
             primaryStage.show();
             
-            System.out.println("Navegación exitosa a: " + screen.name());
+            NAVEGACIONES.registrarDesde(inicio);
+            LOG.debug("Navegación exitosa", "pantalla", screen);
+            return true;
             
         } catch (IOException e) {
             String errorMsg = "Error al cargar la pantalla: " + screen.name() + "\n" + e.getMessage();
-            System.err.println(errorMsg);
+            LOG.error("Error al cargar la pantalla", "pantalla", screen, e);
             showError("Error de Carga", errorMsg);
+            return false;
         }
     }
     
     /**
      * Navega a una pantalla específica (mantiene cache por defecto)
      */
-    public void navigateTo(Screen screen) {
-        navigateTo(screen, false);
+    public boolean navigateTo(Screen screen) {
+        return navigateTo(screen, false);
     }
     
     /**
@@ -153,14 +171,17 @@ public class NavigationManager {
      * @param screen La pantalla a la que navegar
      * @param parameters Parámetros para pasar al controlador
      */
-    public void navigateTo(Screen screen, Map<String, Object> parameters) {
-        navigateTo(screen, false);
+    public boolean navigateTo(Screen screen, Map<String, Object> parameters) {
+        if (!navigateTo(screen, false)) {
+            return false;
+        }
         
         // Pasar parámetros al controlador si implementa la interfaz
         Object controller = controllerCache.get(screen.name());
         if (controller instanceof ParameterReceiver) {
             ((ParameterReceiver) controller).receiveParameters(parameters);
         }
+        return true;
     }
     
     /**
@@ -192,7 +213,7 @@ public class NavigationManager {
             
         } catch (IOException e) {
             String errorMsg = "Error al abrir modal: " + screen.name() + "\n" + e.getMessage();
-            System.err.println(errorMsg);
+            LOG.error("Error al abrir modal", "pantalla", screen, e);
             showError("Error de Modal", errorMsg);
         }
     }
@@ -209,7 +230,7 @@ public class NavigationManager {
      */
     public void clearCache() {
         controllerCache.clear();
-        System.out.println("Cache de controladores limpiado");
+        LOG.debug("Cache de controladores limpiado");
     }
     
     /**
@@ -0,0 +1,37 @@
+package com.programacion.inventario.util;
+
+/**
+ * PasswordHasher - Algoritmo de hash de contraseñas intercambiable
+ *
+ * Cada implementación reconoce sus propios hashes almacenados, de modo que
+ * en usuarios.txt pueden convivir registros de distintos algoritmos o costos.
+ */
+public interface PasswordHasher {
+
+    /**
+     * Nombre del algoritmo (se muestra en reportes)
+     */
+    String getAlgoritmo();
+
+    /**
+     * Indica si el hash almacenado fue generado por este algoritmo
+     */
+    boolean acepta(String hashAlmacenado);
+
+    /**
+     * Genera el hash a guardar en el campo hash de usuarios.txt
+     */
+    String hash(String password, String salt);
+
+    /**
+     * Verifica una contraseña contra un hash generado por este algoritmo
+     */
+    boolean verificar(String password, String hashAlmacenado, String salt);
+
+    /**
+     * Indica si un hash de este algoritmo es más débil que el costo actual
+     */
+    default boolean requiereActualizacion(String hashAlmacenado) {
+        return false;
+    }
+}
@@ -0,0 +1,111 @@
+package com.programacion.inventario.util;
+
+import java.util.List;
+
+/**
+ * PasswordHashing - Selección del algoritmo de hash de contraseñas
+ *
+ * Al crearse calibra PBKDF2 para que una verificación tarde aproximadamente
+ * el objetivo configurado (propiedad inventario.hash.objetivoMs, 50 ms por
+ * defecto) en esta máquina. Los hashes nuevos usan ese costo; los antiguos
+ * (SHA-256 o PBKDF2 con pocas iteraciones) se siguen verificando con su
+ * algoritmo y se marcan para actualizarse en el siguiente login exitoso.
+ */
+public class PasswordHashing {
+
+    private static final Log LOG = Log.get(PasswordHashing.class);
+
+    private static PasswordHashing instance;
+
+    public static final long OBJETIVO_MS = Long.getLong("inventario.hash.objetivoMs", 50);
+
+    private static final Metrics.Histograma HASHES = Metrics.getInstance().histograma("hash.generar");
+    private static final Metrics.Histograma VERIFICACIONES = Metrics.getInstance().histograma("hash.verificar");
+
+    private final Pbkdf2Hasher actual;
+    private final List<PasswordHasher> hashers;
+
+    private PasswordHashing() {
+        long inicio = System.nanoTime();
+        actual = Pbkdf2Hasher.calibrar(OBJETIVO_MS);
+        hashers = List.of(actual, new Sha256Hasher());
+        LOG.info("PBKDF2 calibrado", "iteraciones", actual.getIteraciones(), "objetivoMs", OBJETIVO_MS,
+                "ms", (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    public static synchronized PasswordHashing getInstance() {
+        if (instance == null) {
+            instance = new PasswordHashing();
+        }
+        return instance;
+    }
+
+    /**
+     * Algoritmo y costo con que se generan los hashes nuevos
+     */
+    public PasswordHasher getActual() {
+        return actual;
+    }
+
+    public String hash(String password, String salt) {
+        long inicio = System.nanoTime();
+        String hash = actual.hash(password, salt);
+        HASHES.registrarDesde(inicio);
+        return hash;
+    }
+
+    /**
+     * Verifica con el algoritmo que generó el hash almacenado
+     */
+    public boolean verificar(String password, String hashAlmacenado, String salt) {
+        long inicio = System.nanoTime();
+        PasswordHasher hasher = hasherDe(hashAlmacenado);
+        boolean valido = hasher != null && hasher.verificar(password, hashAlmacenado, salt);
+        VERIFICACIONES.registrarDesde(inicio);
+        return valido;
+    }
+
+    /**
+     * Indica si el hash debe regenerarse con el algoritmo y costo actuales
+     */
+    public boolean requiereActualizacion(String hashAlmacenado) {
+        PasswordHasher hasher = hasherDe(hashAlmacenado);
+        return hasher != actual || actual.requiereActualizacion(hashAlmacenado);
+    }
+
+    public String algoritmoDe(String hashAlmacenado) {
+        PasswordHasher hasher = hasherDe(hashAlmacenado);
+        return hasher == null ? "desconocido" : hasher.getAlgoritmo();
+    }
+
+    private PasswordHasher hasherDe(String hashAlmacenado) {
+        for (PasswordHasher hasher : hashers) {
+            if (hasher.acepta(hashAlmacenado)) {
+                return hasher;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Curva de costo: tiempo por verificación según las iteraciones
+     * Uso: java ... PasswordHashing [objetivoMs]
+     */
+    public static void main(String[] args) {
+        Pbkdf2Hasher.calentar();
+
+        System.out.println("iteraciones,ms_por_verificacion,verificaciones_por_segundo");
+        for (int iteraciones = 1_000; iteraciones <= 1_024_000; iteraciones *= 2) {
+            long mejor = Long.MAX_VALUE;
+            for (int repeticion = 0; repeticion < 5; repeticion++) {
+                mejor = Math.min(mejor, Pbkdf2Hasher.medir(iteraciones));
+            }
+            System.out.printf("%d,%.2f,%.0f%n", iteraciones, mejor / 1e6, 1e9 / mejor);
+        }
+
+        long objetivo = args.length > 0 ? Long.parseLong(args[0]) : OBJETIVO_MS;
+        Pbkdf2Hasher calibrado = Pbkdf2Hasher.calibrar(objetivo);
+        System.out.printf("Calibrado para %d ms: %d iteraciones (medido %.1f ms)%n", objetivo,
+                calibrado.getIteraciones(), Pbkdf2Hasher.medir(calibrado.getIteraciones()) / 1e6);
+    }
+}
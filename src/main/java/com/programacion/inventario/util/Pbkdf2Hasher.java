@@ -0,0 +1,164 @@
+package com.programacion.inventario.util;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * Pbkdf2Hasher - PBKDF2WithHmacSHA256 con número de iteraciones variable
+ *
+ * El costo se guarda dentro del propio hash: pbkdf2-sha256$iteraciones$hashBase64
+ * (sin ':' para que el registro de usuarios.txt siga teniendo tres campos).
+ * Así cada registro se verifica con las iteraciones con que fue creado.
+ */
+public class Pbkdf2Hasher implements PasswordHasher {
+
+    public static final String PREFIJO = "pbkdf2-sha256$";
+
+    private static final String ALGORITMO_JCA = "PBKDF2WithHmacSHA256";
+    private static final int LONGITUD_BITS = 256;
+
+    // Límites de la calibración
+    public static final int MIN_ITERACIONES = 10_000;
+    private static final int MAX_ITERACIONES = 5_000_000;
+
+    private final int iteraciones;
+
+    public Pbkdf2Hasher(int iteraciones) {
+        this.iteraciones = iteraciones;
+    }
+
+    public int getIteraciones() {
+        return iteraciones;
+    }
+
+    @Override
+    public String getAlgoritmo() {
+        return "pbkdf2_sha256";
+    }
+
+    @Override
+    public boolean acepta(String hashAlmacenado) {
+        return hashAlmacenado.startsWith(PREFIJO);
+    }
+
+    @Override
+    public String hash(String password, String salt) {
+        byte[] derivado = derivar(password, salt, iteraciones);
+        return PREFIJO + iteraciones + "$" + Base64.getEncoder().withoutPadding().encodeToString(derivado);
+    }
+
+    @Override
+    public boolean verificar(String password, String hashAlmacenado, String salt) {
+        int separador = hashAlmacenado.indexOf('$', PREFIJO.length());
+        if (separador < 0) {
+            return false;
+        }
+        try {
+            int iteracionesAlmacenadas = Integer.parseInt(hashAlmacenado.substring(PREFIJO.length(), separador));
+            if (iteracionesAlmacenadas <= 0 || iteracionesAlmacenadas > MAX_ITERACIONES * 4) {
+                return false;
+            }
+            byte[] esperado = Base64.getDecoder().decode(hashAlmacenado.substring(separador + 1));
+            // Comparación en tiempo constante
+            return MessageDigest.isEqual(esperado, derivar(password, salt, iteracionesAlmacenadas));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Un hash con menos de la mitad de las iteraciones actuales se regenera;
+     * el margen evita re-hashear en cada login por variaciones de la calibración
+     */
+    @Override
+    public boolean requiereActualizacion(String hashAlmacenado) {
+        int separador = hashAlmacenado.indexOf('$', PREFIJO.length());
+        try {
+            return separador < 0
+                    || Integer.parseInt(hashAlmacenado.substring(PREFIJO.length(), separador)) < iteraciones / 2;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static byte[] derivar(String password, String salt, int iteraciones) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), saltBytes(salt), iteraciones, LONGITUD_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITMO_JCA).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Error al derivar la contraseña: " + e.getMessage());
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * Los salts de usuarios.txt están en Base64; si no lo están se usan sus bytes
+     */
+    private static byte[] saltBytes(String salt) {
+        try {
+            return Base64.getDecoder().decode(salt);
+        } catch (IllegalArgumentException e) {
+            return salt.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Mide el costo de un hash con las iteraciones indicadas, en nanosegundos
+     */
+    public static long medir(int iteraciones) {
+        long inicio = System.nanoTime();
+        derivar("calibracion", "c2FsdC1jYWxpYnJhY2lvbg==", iteraciones);
+        return System.nanoTime() - inicio;
+    }
+
+    /**
+     * Ejecuta hashes durante unos 200 ms para que el JIT compile HMAC-SHA256;
+     * sin esto las primeras mediciones son varias veces más lentas
+     */
+    public static void calentar() {
+        long fin = System.nanoTime() + 200_000_000L;
+        while (System.nanoTime() < fin) {
+            medir(MIN_ITERACIONES);
+        }
+    }
+
+    /**
+     * Busca las iteraciones con las que una verificación tarda cerca de objetivoMs
+     * en esta máquina (escala lineal a partir de mediciones reales)
+     */
+    public static Pbkdf2Hasher calibrar(long objetivoMs) {
+        long objetivoNanos = Math.max(1, objetivoMs) * 1_000_000;
+
+        calentar();
+        // Duplicar hasta que la medición sea significativa (al menos 1/4 del objetivo)
+        int iteraciones = MIN_ITERACIONES;
+        long medido = medirMinimo(iteraciones);
+        while (medido < objetivoNanos / 4 && iteraciones < MAX_ITERACIONES) {
+            iteraciones *= 2;
+            medido = medirMinimo(iteraciones);
+        }
+
+        for (int ronda = 0; ronda < 2; ronda++) {
+            long estimado = iteraciones * objetivoNanos / Math.max(1, medido);
+            iteraciones = (int) Math.max(MIN_ITERACIONES, Math.min(MAX_ITERACIONES, estimado));
+            medido = medirMinimo(iteraciones);
+        }
+        return new Pbkdf2Hasher(iteraciones);
+    }
+
+    /**
+     * El mínimo de varias mediciones descarta pausas de GC y de planificación
+     */
+    private static long medirMinimo(int iteraciones) {
+        long medido = Long.MAX_VALUE;
+        for (int repeticion = 0; repeticion < 3; repeticion++) {
+            medido = Math.min(medido, medir(iteraciones));
+        }
+        return medido;
+    }
+}
@@ -0,0 +1,145 @@
+package com.programacion.inventario.util;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PermissionManager - Permisos por rol sobre pantallas y acciones
+ *
+ * Al iniciar sesión el rol se compila una vez a dos EnumSet (pantallas y
+ * acciones permitidas) que no se modifican después. Cada verificación de
+ * navegación o de acción es entonces una prueba de bit, sin tocar archivos.
+ *
+ * Los roles desconocidos reciben los permisos de Estudiante (solo lectura).
+ */
+public class PermissionManager {
+
+    private static PermissionManager instance;
+
+    public static final String ROL_ADMINISTRADOR = "Administrador";
+    private static final String ROL_MINIMO = "Estudiante";
+
+    /**
+     * Acciones que modifican datos o los sacan del sistema
+     */
+    public enum Accion {
+        GESTIONAR_USUARIOS,
+        EXPORTAR_USUARIOS,
+        GESTIONAR_PROVEEDORES,
+        IMPORTAR_PROVEEDORES,
+        EXPORTAR_PROVEEDORES,
+        GESTIONAR_PRODUCTOS,
+        REGISTRAR_MOVIMIENTOS
+    }
+
+    // Definición de cada rol (se compila a Permisos la primera vez que se usa)
+    private static final Map<String, Permisos> DEFINICIONES = new HashMap<>();
+
+    static {
+        DEFINICIONES.put(ROL_ADMINISTRADOR, new Permisos(
+                EnumSet.allOf(NavigationManager.Screen.class),
+                EnumSet.allOf(Accion.class)));
+        DEFINICIONES.put("Profesor", new Permisos(
+                EnumSet.of(NavigationManager.Screen.MAIN, NavigationManager.Screen.PRODUCTOS,
+                        NavigationManager.Screen.PROVEEDORES, NavigationManager.Screen.REPORTES,
+                        NavigationManager.Screen.ABOUT),
+                EnumSet.of(Accion.GESTIONAR_PROVEEDORES, Accion.IMPORTAR_PROVEEDORES, Accion.EXPORTAR_PROVEEDORES,
+                        Accion.GESTIONAR_PRODUCTOS, Accion.REGISTRAR_MOVIMIENTOS)));
+        DEFINICIONES.put("Usuario", new Permisos(
+                EnumSet.of(NavigationManager.Screen.MAIN, NavigationManager.Screen.PRODUCTOS,
+                        NavigationManager.Screen.PROVEEDORES, NavigationManager.Screen.ABOUT),
+                EnumSet.of(Accion.GESTIONAR_PROVEEDORES, Accion.REGISTRAR_MOVIMIENTOS)));
+        DEFINICIONES.put(ROL_MINIMO, new Permisos(
+                EnumSet.of(NavigationManager.Screen.MAIN, NavigationManager.Screen.PRODUCTOS,
+                        NavigationManager.Screen.REPORTES, NavigationManager.Screen.ABOUT),
+                EnumSet.noneOf(Accion.class)));
+    }
+
+    private static final Permisos SIN_SESION = new Permisos(
+            EnumSet.of(NavigationManager.Screen.LOGIN), EnumSet.noneOf(Accion.class));
+
+    private final Map<String, Permisos> compilados = new ConcurrentHashMap<>();
+
+    // Permisos de la sesión actual: una sola lectura volatile por verificación
+    private volatile Permisos actuales = SIN_SESION;
+
+    private PermissionManager() {
+    }
+
+    public static synchronized PermissionManager getInstance() {
+        if (instance == null) {
+            instance = new PermissionManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Permisos del rol (se calculan una vez por rol)
+     */
+    public Permisos compilar(String rol) {
+        String clave = rol == null ? ROL_MINIMO : rol;
+        return compilados.computeIfAbsent(clave, r -> {
+            Permisos definicion = DEFINICIONES.getOrDefault(r, DEFINICIONES.get(ROL_MINIMO));
+            // Todo rol con sesión puede volver al login
+            EnumSet<NavigationManager.Screen> pantallas = EnumSet.copyOf(definicion.pantallas);
+            pantallas.add(NavigationManager.Screen.LOGIN);
+            return new Permisos(pantallas, EnumSet.copyOf(definicion.acciones));
+        });
+    }
+
+    /**
+     * Activa los permisos del rol para la sesión que comienza
+     */
+    public void activar(String rol) {
+        actuales = compilar(rol);
+    }
+
+    public void desactivar() {
+        actuales = SIN_SESION;
+    }
+
+    public boolean puede(NavigationManager.Screen screen) {
+        return actuales.puede(screen);
+    }
+
+    public boolean puede(Accion accion) {
+        return actuales.puede(accion);
+    }
+
+    public Permisos getActuales() {
+        return actuales;
+    }
+
+    /**
+     * Conjunto inmutable de pantallas y acciones permitidas
+     */
+    public static final class Permisos {
+        private final EnumSet<NavigationManager.Screen> pantallas;
+        private final EnumSet<Accion> acciones;
+
+        private Permisos(EnumSet<NavigationManager.Screen> pantallas, EnumSet<Accion> acciones) {
+            this.pantallas = pantallas;
+            this.acciones = acciones;
+        }
+
+        public boolean puede(NavigationManager.Screen screen) {
+            return pantallas.contains(screen);
+        }
+
+        public boolean puede(Accion accion) {
+            return acciones.contains(accion);
+        }
+
+        public Set<NavigationManager.Screen> getPantallas() {
+            return Collections.unmodifiableSet(pantallas);
+        }
+
+        public Set<Accion> getAcciones() {
+            return Collections.unmodifiableSet(acciones);
+        }
+    }
+}
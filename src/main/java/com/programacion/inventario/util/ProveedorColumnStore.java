@@ -0,0 +1,270 @@
+package com.programacion.inventario.util;
+
+import com.programacion.inventario.model.Proveedor;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ProveedorColumnStore - Almacenamiento compacto (por columnas) de proveedores
+ *
+ * En lugar de un objeto Proveedor con seis String por fila, cada campo se
+ * guarda en su propia columna:
+ * - id, nombre, telefono y email se empaquetan en un arreglo de bytes
+ *   (Latin-1 cuando es posible, UTF-16 solo para los valores que lo necesitan)
+ * - contacto y direccion, que se repiten mucho, se codifican con diccionario
+ *
+ * Los objetos Proveedor solo se crean al pedir una fila (por ejemplo, las
+ * filas visibles de una tabla a través de asObservableList()).
+ */
+public class ProveedorColumnStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final PackedStringColumn ids = new PackedStringColumn();
+    private final PackedStringColumn nombres = new PackedStringColumn();
+    private final DictionaryColumn contactos = new DictionaryColumn();
+    private final PackedStringColumn telefonos = new PackedStringColumn();
+    private final PackedStringColumn emails = new PackedStringColumn();
+    private final DictionaryColumn direcciones = new DictionaryColumn();
+
+    private int size;
+    private ProveedorListView view;
+
+    /**
+     * Carga proveedores.txt directamente a columnas, sin crear objetos Proveedor
+     */
+    public static ProveedorColumnStore fromFile(FileManager fileManager, String filename) {
+        ProveedorColumnStore store = new ProveedorColumnStore();
+        if (!fileManager.fileExists(filename)) {
+            return store;
+        }
+
+        String[] campos = new String[6];
+        fileManager.forEachLine(filename, linea -> {
+            if (dividirRegistro(linea, campos)) {
+                store.agregar(campos[0], campos[1], campos[2], campos[3], campos[4], campos[5]);
+            }
+        });
+        return store;
+    }
+
+    /**
+     * Divide una línea id|nombre|contacto|telefono|email|direccion en el arreglo dado
+     */
+    private static boolean dividirRegistro(String linea, String[] campos) {
+        int inicio = 0;
+        for (int i = 0; i < 5; i++) {
+            int sep = linea.indexOf('|', inicio);
+            if (sep < 0) return false;
+            campos[i] = linea.substring(inicio, sep);
+            inicio = sep + 1;
+        }
+        int fin = linea.indexOf('|', inicio);
+        campos[5] = linea.substring(inicio, fin < 0 ? linea.length() : fin);
+        return true;
+    }
+
+    public void agregar(Proveedor p) {
+        agregar(p.getId(), p.getNombre(), p.getContacto(), p.getTelefono(), p.getEmail(), p.getDireccion());
+    }
+
+    public void agregar(String id, String nombre, String contacto, String telefono, String email, String direccion) {
+        ids.add(id);
+        nombres.add(nombre);
+        contactos.add(contacto);
+        telefonos.add(telefono);
+        emails.add(email);
+        direcciones.add(direccion);
+        size++;
+
+        if (view != null) {
+            view.filaAgregada(size - 1);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getId(int fila) {
+        return ids.get(fila);
+    }
+
+    /**
+     * Materializa la fila indicada como un Proveedor
+     */
+    public Proveedor get(int fila) {
+        if (fila < 0 || fila >= size) {
+            throw new IndexOutOfBoundsException("Fila " + fila + " fuera de rango (" + size + ")");
+        }
+        return new Proveedor(ids.get(fila), nombres.get(fila), contactos.get(fila),
+                telefonos.get(fila), emails.get(fila), direcciones.get(fila));
+    }
+
+    /**
+     * Vista observable para TableView: solo materializa las filas que se piden
+     */
+    public ObservableList<Proveedor> asObservableList() {
+        if (view == null) {
+            view = new ProveedorListView();
+        }
+        return view;
+    }
+
+    /**
+     * Bytes aproximados ocupados por las columnas (sin cabeceras de objeto)
+     */
+    public long estimarBytes() {
+        return ids.bytes() + nombres.bytes() + telefonos.bytes() + emails.bytes()
+                + contactos.bytes() + direcciones.bytes();
+    }
+
+    public int getValoresDistintosContacto() {
+        return contactos.valores.size();
+    }
+
+    public int getValoresDistintosDireccion() {
+        return direcciones.valores.size();
+    }
+
+    /**
+     * Columna de texto empaquetada en un único arreglo de bytes
+     */
+    private static final class PackedStringColumn {
+        private byte[] data = new byte[INITIAL_CAPACITY * 8];
+        private int[] offsets = new int[INITIAL_CAPACITY + 1];
+        private final BitSet utf16 = new BitSet();
+        private int count;
+
+        void add(String valor) {
+            int length = valor.length();
+            boolean latin1 = true;
+            for (int i = 0; i < length; i++) {
+                if (valor.charAt(i) > 0xFF) {
+                    latin1 = false;
+                    break;
+                }
+            }
+
+            int bytes = latin1 ? length : length * 2;
+            int offset = offsets[count];
+            asegurarCapacidad(offset + bytes);
+
+            if (latin1) {
+                for (int i = 0; i < length; i++) {
+                    data[offset + i] = (byte) valor.charAt(i);
+                }
+            } else {
+                for (int i = 0; i < length; i++) {
+                    char c = valor.charAt(i);
+                    data[offset + 2 * i] = (byte) (c >>> 8);
+                    data[offset + 2 * i + 1] = (byte) c;
+                }
+                utf16.set(count);
+            }
+
+            count++;
+            offsets[count] = offset + bytes;
+        }
+
+        String get(int fila) {
+            int offset = offsets[fila];
+            int length = offsets[fila + 1] - offset;
+            return utf16.get(fila)
+                    ? new String(data, offset, length, StandardCharsets.UTF_16BE)
+                    : new String(data, offset, length, StandardCharsets.ISO_8859_1);
+        }
+
+        private void asegurarCapacidad(int bytesNecesarios) {
+            if (bytesNecesarios > data.length) {
+                data = Arrays.copyOf(data, Math.max(bytesNecesarios, data.length + (data.length >> 1)));
+            }
+            if (count + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length + (offsets.length >> 1));
+            }
+        }
+
+        long bytes() {
+            return data.length + 4L * offsets.length + utf16.size() / 8;
+        }
+    }
+
+    /**
+     * Columna codificada con diccionario: cada fila guarda solo un código
+     */
+    private static final class DictionaryColumn {
+        private final Map<String, Integer> codigos = new HashMap<>();
+        private final List<String> valores = new ArrayList<>();
+        private int[] filas = new int[INITIAL_CAPACITY];
+        private int count;
+
+        void add(String valor) {
+            Integer codigo = codigos.get(valor);
+            if (codigo == null) {
+                codigo = valores.size();
+                valores.add(valor);
+                codigos.put(valor, codigo);
+            }
+            if (count == filas.length) {
+                filas = Arrays.copyOf(filas, filas.length + (filas.length >> 1));
+            }
+            filas[count++] = codigo;
+        }
+
+        String get(int fila) {
+            return valores.get(filas[fila]);
+        }
+
+        long bytes() {
+            long texto = 0;
+            for (String valor : valores) {
+                texto += 40 + valor.length(); // String + arreglo interno Latin-1
+            }
+            return 4L * filas.length + texto + 48L * codigos.size();
+        }
+    }
+
+    /**
+     * Lista observable de solo lectura respaldada por las columnas
+     * Mantiene una pequeña caché de filas recientes para no materializar
+     * la misma fila una vez por cada celda visible
+     */
+    private final class ProveedorListView extends ObservableListBase<Proveedor> {
+        private static final int CACHE_SIZE = 256;
+        private final Proveedor[] cache = new Proveedor[CACHE_SIZE];
+        private final int[] cacheFilas = new int[CACHE_SIZE];
+
+        ProveedorListView() {
+            Arrays.fill(cacheFilas, -1);
+        }
+
+        @Override
+        public Proveedor get(int index) {
+            int slot = index & (CACHE_SIZE - 1);
+            if (cacheFilas[slot] != index) {
+                cache[slot] = ProveedorColumnStore.this.get(index);
+                cacheFilas[slot] = index;
+            }
+            return cache[slot];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        void filaAgregada(int index) {
+            beginChange();
+            nextAdd(index, index + 1);
+            endChange();
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.programacion.inventario.util;
+
+import com.programacion.inventario.model.Proveedor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.LongConsumer;
+
+/**
+ * ProveedorCsvImporter - Importación masiva de proveedores desde CSV
+ *
+ * Lee el CSV por bloques de líneas, parsea y valida cada bloque en un
+ * ForkJoinPool mientras se lee el siguiente, descarta ids duplicados
+ * (contra los ids del repositorio, leídos una sola vez al empezar, y dentro
+ * del propio CSV) y guarda las filas válidas con una sola escritura al
+ * repositorio por bloque. Las filas que ningún repositorio aceptaría (id o
+ * registro demasiado largos) van al archivo de rechazos en vez de abortar
+ * la escritura de su bloque.
+ *
+ * Formato esperado: id,nombre,contacto,telefono,email,direccion
+ * (la cabecera es opcional y se admiten campos entre comillas).
+ */
+public class ProveedorCsvImporter {
+
+    private static final Log LOG = Log.get(ProveedorCsvImporter.class);
+
+    // Líneas por bloque: cada bloque termina en una única escritura al archivo
+    private static final int CHUNK_SIZE = 8192;
+
+    // Por debajo de este tamaño un sub-bloque se parsea sin dividir
+    private static final int PARSE_THRESHOLD = 512;
+
+    private final FileManager fileManager;
+    private final Repository<String, Proveedor> repositorio;
+    private final ForkJoinPool pool;
+
+    public ProveedorCsvImporter(FileManager fileManager, Repository<String, Proveedor> repositorio) {
+        this(fileManager, repositorio, ForkJoinPool.commonPool());
+    }
+
+    public ProveedorCsvImporter(FileManager fileManager, Repository<String, Proveedor> repositorio, ForkJoinPool pool) {
+        this.fileManager = fileManager;
+        this.repositorio = repositorio;
+        this.pool = pool;
+    }
+
+    /**
+     * Importa el CSV indicado y escribe las filas rechazadas en rejectsFile
+     *
+     * @param csvFile Archivo CSV de origen
+     * @param rejectsFile Archivo de rechazos (linea,motivo,contenido)
+     * @param progress Recibe el número de filas procesadas tras cada bloque (opcional)
+     */
+    public ImportResult importar(String csvFile, String rejectsFile, LongConsumer progress) throws IOException {
+        long inicio = System.nanoTime();
+        // Ids ya guardados más los vistos en el CSV: un solo recorrido en lugar
+        // de una consulta (bloqueo y revisión del archivo) por fila
+        Set<String> ids = new HashSet<>();
+        repositorio.forEach(proveedor -> ids.add(proveedor.getId()));
+        ImportResult result = new ImportResult();
+
+        fileManager.writeToFile(rejectsFile, "linea,motivo,contenido\n", false);
+
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(csvFile), StandardCharsets.UTF_8)) {
+            long numeroLinea = 0;
+            List<String> bloque = leerBloque(reader);
+            if (!bloque.isEmpty() && esCabecera(bloque.get(0))) {
+                bloque.remove(0);
+                numeroLinea++;
+            }
+
+            while (!bloque.isEmpty()) {
+                // Parsear el bloque actual en paralelo mientras se lee el siguiente
+                Fila[] filas = new Fila[bloque.size()];
+                ForkJoinTask<Void> parseo = pool.submit(new ParseTask(bloque, filas, 0, filas.length));
+                List<String> siguiente = leerBloque(reader);
+                parseo.join();
+
+                numeroLinea = consolidar(filas, bloque, numeroLinea, ids, rejectsFile, result);
+                if (progress != null) {
+                    progress.accept(result.getTotal());
+                }
+                bloque = siguiente;
+            }
+        }
+
+        result.millis = (System.nanoTime() - inicio) / 1_000_000;
+        LOG.info("Importación CSV finalizada", "resultado", result);
+        return result;
+    }
+
+    /**
+     * Aplica la detección de duplicados en orden y escribe el bloque
+     */
+    private long consolidar(Fila[] filas, List<String> bloque, long numeroLinea, Set<String> ids,
+                            String rejectsFile, ImportResult result) {
+        List<Proveedor> validas = new ArrayList<>(filas.length);
+        StringBuilder rechazos = new StringBuilder();
+
+        for (int i = 0; i < filas.length; i++) {
+            numeroLinea++;
+            Fila fila = filas[i];
+            result.total++;
+
+            String motivo = fila.motivo;
+            if (motivo == null && !ids.add(fila.proveedor.getId())) {
+                motivo = "id duplicado";
+                result.duplicadas++;
+            }
+
+            if (motivo == null) {
+                validas.add(fila.proveedor);
+                result.validas++;
+            } else {
+                rechazos.append(numeroLinea).append(',').append(motivo).append(',')
+                        .append(escaparCsv(bloque.get(i))).append('\n');
+                result.rechazadas++;
+            }
+        }
+
+        if (!validas.isEmpty()) {
+            repositorio.guardarTodos(validas);
+            SystemStatistics.getInstance().proveedoresAgregados(validas.size());
+        }
+        if (rechazos.length() > 0) {
+            fileManager.writeToFile(rejectsFile, rechazos.toString(), true);
+        }
+        return numeroLinea;
+    }
+
+    private static List<String> leerBloque(BufferedReader reader) throws IOException {
+        List<String> lineas = new ArrayList<>(CHUNK_SIZE);
+        String linea;
+        while (lineas.size() < CHUNK_SIZE && (linea = reader.readLine()) != null) {
+            if (linea.trim().isEmpty()) continue; // Saltar líneas vacías
+            lineas.add(linea);
+        }
+        return lineas;
+    }
+
+    private static boolean esCabecera(String linea) {
+        return linea.regionMatches(true, 0, "id,", 0, 3) || linea.regionMatches(true, 0, "\"id\"", 0, 4);
+    }
+
+    /**
+     * Parsea y valida una línea del CSV
+     */
+    static Fila parsearFila(String linea) {
+        List<String> campos = dividirCsv(linea);
+        if (campos == null) {
+            return Fila.rechazo("comillas sin cerrar");
+        }
+        if (campos.size() < 2 || campos.size() > 6) {
+            return Fila.rechazo("se esperaban entre 2 y 6 columnas");
+        }
+        while (campos.size() < 6) {
+            campos.add("");
+        }
+
+        for (String campo : campos) {
+            if (campo.indexOf('|') >= 0) {
+                return Fila.rechazo("caracter '|' no permitido");
+            }
+        }
+
+        String id = campos.get(0);
+        String nombre = campos.get(1);
+        String email = campos.get(4);
+        if (id.isEmpty() || nombre.isEmpty()) {
+            return Fila.rechazo("ID y Nombre son obligatorios");
+        }
+        if (!email.isEmpty() && !esEmailValido(email)) {
+            return Fila.rechazo("email inválido");
+        }
+
+        if (id.getBytes(StandardCharsets.UTF_8).length > BTreeRepository.MAX_CLAVE) {
+            return Fila.rechazo("ID demasiado largo");
+        }
+        Proveedor proveedor = new Proveedor(id, nombre, campos.get(2), campos.get(3), email, campos.get(5));
+        // Un caracter ocupa a lo sumo 3 bytes: solo se codifican las filas que podrían pasarse
+        String registro = proveedor.toRegistro();
+        if (registro.length() * 3L > Repository.MAX_REGISTRO
+                && registro.getBytes(StandardCharsets.UTF_8).length > Repository.MAX_REGISTRO) {
+            return Fila.rechazo("registro demasiado grande");
+        }
+
+        return new Fila(proveedor, null);
+    }
+
+    private static boolean esEmailValido(String email) {
+        int arroba = email.indexOf('@');
+        return arroba > 0 && email.indexOf('.', arroba) > arroba + 1 && !email.endsWith(".");
+    }
+
+    /**
+     * Divide una línea CSV respetando comillas dobles ("" escapa una comilla)
+     * Retorna null si hay comillas sin cerrar
+     */
+    static List<String> dividirCsv(String linea) {
+        List<String> campos = new ArrayList<>(6);
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"') {
+                    if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                        actual.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(actual.toString().trim());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        if (entreComillas) {
+            return null;
+        }
+        campos.add(actual.toString().trim());
+        return campos;
+    }
+
+    private static String escaparCsv(String valor) {
+        return "\"" + valor.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Resultado del parseo de una línea: un proveedor o el motivo de rechazo
+     */
+    static final class Fila {
+        final Proveedor proveedor;
+        final String motivo;
+
+        Fila(Proveedor proveedor, String motivo) {
+            this.proveedor = proveedor;
+            this.motivo = motivo;
+        }
+
+        static Fila rechazo(String motivo) {
+            return new Fila(null, motivo);
+        }
+    }
+
+    /**
+     * Parsea un rango del bloque dividiéndolo recursivamente
+     */
+    // RecursiveAction es Serializable, pero estas tareas solo viven dentro del pool
+    @SuppressWarnings("serial")
+    private static final class ParseTask extends RecursiveAction {
+        private final List<String> lineas;
+        private final Fila[] filas;
+        private final int desde;
+        private final int hasta;
+
+        ParseTask(List<String> lineas, Fila[] filas, int desde, int hasta) {
+            this.lineas = lineas;
+            this.filas = filas;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde <= PARSE_THRESHOLD) {
+                for (int i = desde; i < hasta; i++) {
+                    filas[i] = parsearFila(lineas.get(i));
+                }
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new ParseTask(lineas, filas, desde, medio),
+                      new ParseTask(lineas, filas, medio, hasta));
+        }
+    }
+
+    /**
+     * Resumen de una importación
+     */
+    public static class ImportResult {
+        private long total;
+        private long validas;
+        private long rechazadas;
+        private long duplicadas;
+        private long millis;
+
+        public long getTotal() { return total; }
+        public long getValidas() { return validas; }
+        public long getRechazadas() { return rechazadas; }
+        public long getDuplicadas() { return duplicadas; }
+        public long getMillis() { return millis; }
+
+        public double getFilasPorSegundo() {
+            return millis > 0 ? total * 1000.0 / millis : total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d filas (%d válidas, %d rechazadas, %d duplicadas) en %d ms - %.0f filas/s",
+                    total, validas, rechazadas, duplicadas, millis, getFilasPorSegundo());
+        }
+    }
+}
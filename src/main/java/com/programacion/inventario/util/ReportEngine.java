@@ -0,0 +1,442 @@
+package com.programacion.inventario.util;
+
+import com.programacion.inventario.model.Producto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * ReportEngine - Motor de reportes con agregación paralela y caché incremental
+ *
+ * Los reportes basados en archivos se calculan dividiendo el archivo en
+ * segmentos (alineados a fin de línea) que se agregan en paralelo. El
+ * resultado queda en caché junto con la posición leída, la versión del
+ * archivo (FileLocks), su identidad, fecha y últimos bytes leídos. Si solo
+ * se agregaron líneas (mismo archivo, creció y esos bytes no cambiaron) se
+ * agregan únicamente las nuevas; cualquier otro cambio (reescrito en el
+ * lugar o renombrado encima, truncado, editado por un script) lo recalcula
+ * completo.
+ *
+ * Con proveedores en un repositorio que no es texto plano (árbol B+,
+ * bloques, enmarcados o particiones) se recorren los registros, y el
+ * resultado se reutiliza mientras no cambie ninguno de sus archivos.
+ *
+ * La valoración de stock se calcula en paralelo sobre el catálogo en memoria
+ * y se invalida cuando el StockLedger registra movimientos o productos nuevos.
+ */
+public class ReportEngine {
+
+    private static ReportEngine instance;
+
+    public static final String ACCESOS_FILE = FileManager.DATA_DIRECTORY + "/accesos.txt";
+
+    // Tamaño objetivo de cada segmento agregado en paralelo
+    private static final int SEGMENT_SIZE = 4 * 1024 * 1024;
+
+    // Ventana máxima que se mapea en memoria de una vez
+    private static final long MAP_WINDOW = 256L * 1024 * 1024;
+
+    // Bytes al final de lo ya agregado que se comparan para confirmar que el archivo solo creció
+    private static final int COLA = 64;
+
+    private static final DateTimeFormatter PERIODO = DateTimeFormatter.ofPattern("yyyy-MM")
+            .withZone(ZoneId.systemDefault());
+
+    public enum TipoReporte {
+        PROVEEDORES_POR_REGION("Proveedores por región", "Región", "Proveedores"),
+        VALORACION_STOCK("Valoración de stock", "Categoría", "Valor"),
+        MOVIMIENTOS_POR_PERIODO("Movimientos por periodo", "Periodo", "Movimientos"),
+        ACTIVIDAD_USUARIOS("Actividad de usuarios", "Usuario - resultado", "Intentos de acceso");
+
+        private final String titulo;
+        private final String columnaClave;
+        private final String columnaValor;
+
+        TipoReporte(String titulo, String columnaClave, String columnaValor) {
+            this.titulo = titulo;
+            this.columnaClave = columnaClave;
+            this.columnaValor = columnaValor;
+        }
+
+        public String getTitulo() { return titulo; }
+        public String getColumnaClave() { return columnaClave; }
+        public String getColumnaValor() { return columnaValor; }
+
+        @Override
+        public String toString() {
+            return titulo;
+        }
+    }
+
+    private final Map<TipoReporte, EntradaCache> cache = new EnumMap<>(TipoReporte.class);
+
+    private ReportEngine() {
+    }
+
+    public static synchronized ReportEngine getInstance() {
+        if (instance == null) {
+            instance = new ReportEngine();
+        }
+        return instance;
+    }
+
+    /**
+     * Obtiene un reporte, reutilizando la caché siempre que sea posible
+     */
+    public synchronized Resultado generar(TipoReporte tipo) throws IOException {
+        long inicio = System.nanoTime();
+        EntradaCache entrada = cache.get(tipo);
+        Origen origen;
+
+        if (tipo == TipoReporte.VALORACION_STOCK) {
+            StockLedger ledger = StockLedger.getInstance();
+            long version = ledger.getMovimientosRegistrados() * 31 + ledger.getCantidadProductos();
+            if (entrada != null && entrada.version == version) {
+                origen = Origen.CACHE;
+            } else {
+                entrada = new EntradaCache();
+                entrada.valores = valorarStock(ledger);
+                entrada.version = version;
+                cache.put(tipo, entrada);
+                origen = Origen.COMPLETO;
+            }
+        } else if (tipo == TipoReporte.PROVEEDORES_POR_REGION && !Repositorios.esTextoPlano()) {
+            // El árbol B+, los bloques y los registros enmarcados no son líneas que solo crecen
+            List<Firma> firmas = new ArrayList<>();
+            for (String archivo : Repositorios.archivos("proveedores")) {
+                firmas.add(Firma.de(Paths.get(archivo)));
+            }
+            if (entrada != null && firmas.equals(entrada.firmas)) {
+                origen = Origen.CACHE;
+            } else {
+                Map<String, Long> valores = new HashMap<>();
+                Repositorios.proveedores().forEach(proveedor -> {
+                    String region = regionDeProveedor(proveedor.toRegistro());
+                    if (region != null) {
+                        valores.merge(region, 1L, Long::sum);
+                    }
+                });
+                entrada = new EntradaCache();
+                entrada.valores = valores;
+                entrada.firmas = firmas;
+                cache.put(tipo, entrada);
+                origen = Origen.COMPLETO;
+            }
+        } else {
+            Path archivo = Paths.get(archivoDe(tipo));
+            Firma firma = Firma.de(archivo);
+            Function<String, String> clave = claveDe(tipo);
+
+            if (entrada != null && entrada.firmas.equals(Collections.singletonList(firma))) {
+                origen = Origen.CACHE;
+            } else if (entrada != null && soloCrecio(archivo, entrada, firma)) {
+                // Solo se agregan las líneas nuevas y se suman a lo ya calculado
+                Map<String, Long> valores = entrada.valores;
+                agregarEnParalelo(archivo, entrada.offset, firma.tamano, clave)
+                        .forEach((k, v) -> valores.merge(k, v, Long::sum));
+                origen = Origen.INCREMENTAL;
+            } else {
+                entrada = new EntradaCache();
+                entrada.valores = new HashMap<>(agregarEnParalelo(archivo, 0, firma.tamano, clave));
+                cache.put(tipo, entrada);
+                origen = Origen.COMPLETO;
+            }
+            if (origen != Origen.CACHE) {
+                entrada.offset = firma.tamano;
+                entrada.firmas = Collections.singletonList(firma);
+                entrada.cola = leerCola(archivo, firma.tamano);
+            }
+        }
+
+        long millis = (System.nanoTime() - inicio) / 1_000_000;
+        return new Resultado(tipo, Collections.unmodifiableMap(new TreeMap<>(entrada.valores)), origen, millis);
+    }
+
+    /**
+     * Descarta todos los resultados en caché
+     */
+    public synchronized void invalidar() {
+        cache.clear();
+    }
+
+    /**
+     * Mismo archivo, más grande y con los últimos bytes ya agregados intactos
+     */
+    private static boolean soloCrecio(Path archivo, EntradaCache entrada, Firma firma) throws IOException {
+        Firma anterior = entrada.firmas.get(0);
+        return firma.existe && anterior.existe && Objects.equals(firma.identidad, anterior.identidad)
+                && firma.tamano > entrada.offset && Arrays.equals(entrada.cola, leerCola(archivo, entrada.offset));
+    }
+
+    /**
+     * Hasta COLA bytes que terminan en 'hasta'
+     */
+    private static byte[] leerCola(Path archivo, long hasta) throws IOException {
+        if (hasta <= 0) {
+            return new byte[0];
+        }
+        ByteBuffer cola = ByteBuffer.allocate((int) Math.min(COLA, hasta));
+        try (FileChannel channel = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long desde = hasta - cola.capacity();
+            while (cola.hasRemaining()) {
+                if (channel.read(cola, desde + cola.position()) < 0) {
+                    // El archivo es más corto que lo agregado: no coincide con nada
+                    return null;
+                }
+            }
+        }
+        return cola.array();
+    }
+
+    private static String archivoDe(TipoReporte tipo) {
+        switch (tipo) {
+            case PROVEEDORES_POR_REGION: return Repositorios.PROVEEDORES_FILE;
+            case MOVIMIENTOS_POR_PERIODO: return StockLedger.MOVIMIENTOS_FILE;
+            case ACTIVIDAD_USUARIOS: return ACCESOS_FILE;
+            default: throw new IllegalArgumentException("Reporte sin archivo: " + tipo);
+        }
+    }
+
+    /**
+     * Función que extrae la clave de agregación de cada línea (null = se ignora)
+     */
+    private static Function<String, String> claveDe(TipoReporte tipo) {
+        switch (tipo) {
+            case PROVEEDORES_POR_REGION:
+                return ReportEngine::regionDeProveedor;
+            case MOVIMIENTOS_POR_PERIODO:
+                return linea -> {
+                    int sep = linea.indexOf('|');
+                    if (sep <= 0) return null;
+                    try {
+                        return PERIODO.format(Instant.ofEpochMilli(Long.parseLong(linea.substring(0, sep))));
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                };
+            case ACTIVIDAD_USUARIOS:
+                return linea -> {
+                    int primero = linea.indexOf('|');
+                    int segundo = linea.indexOf('|', primero + 1);
+                    if (primero <= 0 || segundo < 0) return null;
+                    return linea.substring(primero + 1, segundo) + " - " + linea.substring(segundo + 1);
+                };
+            default:
+                throw new IllegalArgumentException("Reporte sin archivo: " + tipo);
+        }
+    }
+
+    /**
+     * La región es el último tramo de la dirección (p. ej. "Av. Amazonas 123, Quito" -> "Quito")
+     */
+    private static String regionDeProveedor(String linea) {
+        int campos = 0;
+        for (int i = 0; i < linea.length(); i++) {
+            if (linea.charAt(i) == '|') campos++;
+        }
+        if (campos < 5) return null;
+
+        String direccion = linea.substring(linea.lastIndexOf('|') + 1).trim();
+        int coma = direccion.lastIndexOf(',');
+        String region = (coma >= 0 ? direccion.substring(coma + 1) : direccion).trim();
+        return region.isEmpty() ? "Sin dirección" : region;
+    }
+
+    /**
+     * Agrega las líneas del rango [desde, hasta) del archivo en paralelo
+     */
+    private static Map<String, Long> agregarEnParalelo(Path archivo, long desde, long hasta,
+                                                       Function<String, String> clave) throws IOException {
+        if (hasta <= desde) {
+            return new HashMap<>();
+        }
+
+        Map<String, Long> total = new HashMap<>();
+        try (FileChannel channel = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long inicioVentana = desde;
+            while (inicioVentana < hasta) {
+                long finVentana = Math.min(hasta, inicioVentana + MAP_WINDOW);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, inicioVentana,
+                        finVentana - inicioVentana);
+
+                // La ventana termina en el último salto de línea (salvo al final del rango)
+                int limite = buffer.limit();
+                if (finVentana < hasta) {
+                    while (limite > 0 && buffer.get(limite - 1) != '\n') limite--;
+                    if (limite == 0) limite = buffer.limit();
+                }
+
+                List<int[]> segmentos = dividirEnSegmentos(buffer, limite);
+                final MappedByteBuffer ventana = buffer;
+                Map<String, Long> parcial = segmentos.parallelStream()
+                        .flatMap(seg -> lineas(ventana, seg[0], seg[1]).stream())
+                        .map(clave)
+                        .filter(k -> k != null)
+                        .collect(Collectors.groupingByConcurrent(k -> k, Collectors.counting()));
+                parcial.forEach((k, v) -> total.merge(k, v, Long::sum));
+
+                inicioVentana += limite;
+            }
+        }
+        return total;
+    }
+
+    private static List<int[]> dividirEnSegmentos(MappedByteBuffer buffer, int limite) {
+        List<int[]> segmentos = new ArrayList<>();
+        int inicio = 0;
+        while (inicio < limite) {
+            int fin = Math.min(limite, inicio + SEGMENT_SIZE);
+            while (fin < limite && buffer.get(fin - 1) != '\n') fin++;
+            segmentos.add(new int[]{inicio, fin});
+            inicio = fin;
+        }
+        return segmentos;
+    }
+
+    private static List<String> lineas(MappedByteBuffer buffer, int inicio, int fin) {
+        byte[] bytes = new byte[fin - inicio];
+        buffer.get(inicio, bytes);
+        List<String> lineas = new ArrayList<>();
+        int desde = 0;
+        for (int i = 0; i <= bytes.length; i++) {
+            if (i == bytes.length || bytes[i] == '\n') {
+                int hasta = i > desde && bytes[i - 1] == '\r' ? i - 1 : i;
+                if (hasta > desde) {
+                    lineas.add(new String(bytes, desde, hasta - desde, StandardCharsets.UTF_8));
+                }
+                desde = i + 1;
+            }
+        }
+        return lineas;
+    }
+
+    /**
+     * Valor del stock por categoría, en centavos
+     */
+    private static Map<String, Long> valorarStock(StockLedger ledger) {
+        return ledger.getProductos().parallelStream()
+                .collect(Collectors.groupingByConcurrent(
+                        p -> p.getCategoria() == null || p.getCategoria().isEmpty() ? "Sin categoría" : p.getCategoria(),
+                        Collectors.summingLong(p -> centavos(p, ledger.getStock(p.getSku())))));
+    }
+
+    private static long centavos(Producto producto, long unidades) {
+        return Math.round(producto.getPrecio() * 100) * unidades;
+    }
+
+    private static final class EntradaCache {
+        Map<String, Long> valores;
+        long offset;
+        byte[] cola;
+        List<Firma> firmas = Collections.emptyList();
+        long version;
+    }
+
+    /**
+     * Estado de un archivo: versión de FileLocks (leída antes que los
+     * atributos), identidad, tamaño y fecha de modificación. Un script que
+     * edita el archivo sin pasar por FileLocks cambia la fecha
+     */
+    private static final class Firma {
+        final long version;
+        final boolean existe;
+        final Object identidad;
+        final long tamano;
+        final FileTime modificado;
+
+        private Firma(long version, BasicFileAttributes atributos) {
+            this.version = version;
+            this.existe = atributos != null;
+            this.identidad = atributos == null ? null : atributos.fileKey();
+            this.tamano = atributos == null ? 0 : atributos.size();
+            this.modificado = atributos == null ? null : atributos.lastModifiedTime();
+        }
+
+        static Firma de(Path archivo) throws IOException {
+            long version;
+            try {
+                version = FileLocks.version(archivo);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            try {
+                return new Firma(version, Files.readAttributes(archivo, BasicFileAttributes.class));
+            } catch (NoSuchFileException e) {
+                return new Firma(version, null);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Firma)) {
+                return false;
+            }
+            Firma otra = (Firma) o;
+            return version == otra.version && existe == otra.existe && tamano == otra.tamano
+                    && Objects.equals(identidad, otra.identidad) && Objects.equals(modificado, otra.modificado);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(version, identidad, tamano, modificado);
+        }
+    }
+
+    public enum Origen { CACHE, INCREMENTAL, COMPLETO }
+
+    /**
+     * Resultado de un reporte: valores por clave, ordenados
+     */
+    public static class Resultado {
+        private final TipoReporte tipo;
+        private final Map<String, Long> valores;
+        private final Origen origen;
+        private final long millis;
+
+        Resultado(TipoReporte tipo, Map<String, Long> valores, Origen origen, long millis) {
+            this.tipo = tipo;
+            this.valores = valores;
+            this.origen = origen;
+            this.millis = millis;
+        }
+
+        public TipoReporte getTipo() { return tipo; }
+        public Map<String, Long> getValores() { return valores; }
+        public Origen getOrigen() { return origen; }
+        public long getMillis() { return millis; }
+
+        /**
+         * Formatea un valor según el tipo de reporte
+         */
+        public String formatear(long valor) {
+            return tipo == TipoReporte.VALORACION_STOCK
+                    ? String.format("$%,.2f", valor / 100.0)
+                    : String.format("%,d", valor);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.programacion.inventario.util;
+
+import com.programacion.inventario.model.Proveedor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Repositorios - Repositorios compartidos de proveedores y usuarios
+ *
+ * -Dinventario.repositorio elige la implementación:
+ * - texto (por defecto): proveedores.txt y usuarios.txt (TextRepository)
+ * - btree: proveedores.db y usuarios.db (BTreeRepository)
+ * - bloques: proveedores.blq y usuarios.blq (BlockRepository, comprimidos)
+ *
+ * La primera vez que se abre un .db o un .blq se llena con el contenido del
+ * .txt correspondiente; desde entonces el .txt deja de actualizarse.
+ *
+ * -Dinventario.particiones=N (N > 1) reparte cada entidad en N archivos por
+ * hash de la clave (proveedores-0de4.txt ... proveedores-3de4.txt, con la
+ * extensión del tipo elegido) que se cargan en paralelo (ShardedRepository).
+ * La primera vez que se abren N particiones se reparten los registros del
+ * archivo sin particionar; desde entonces ese archivo deja de actualizarse.
+ */
+public final class Repositorios {
+
+    private static final Log LOG = Log.get(Repositorios.class);
+
+    public static final String TIPO = System.getProperty("inventario.repositorio", "texto");
+
+    public static final int PARTICIONES = Math.max(1, Integer.getInteger("inventario.particiones", 1));
+
+    public static final String PROVEEDORES_FILE = FileManager.DATA_DIRECTORY + "/proveedores.txt";
+
+    // Registros por escritura al pasar un archivo existente a otro formato o a particiones
+    private static final int LOTE_IMPORTACION = 10_000;
+
+    public static final Repository.Formato<String, Proveedor> FORMATO_PROVEEDOR = Repository.Formato.conClaveTexto(
+            Proveedor::getId, Proveedor::toRegistro, Proveedor::fromRegistro, Repositorios::idDeProveedor);
+
+    public static final Repository.Formato<String, UsuarioStore.Registro> FORMATO_USUARIO =
+            Repository.Formato.conClaveTexto(UsuarioStore.Registro::getNombre, UsuarioStore.Registro::toRegistro,
+                    UsuarioStore::parsear, null);
+
+    private static Repository<String, Proveedor> proveedores;
+    private static Repository<String, UsuarioStore.Registro> usuarios;
+
+    private Repositorios() {
+    }
+
+    public static boolean esArbol() {
+        return "btree".equalsIgnoreCase(TIPO);
+    }
+
+    public static boolean esBloques() {
+        return "bloques".equalsIgnoreCase(TIPO);
+    }
+
+    /**
+     * Los archivos son texto de una línea por registro, que se puede leer
+     * directo (no es el árbol B+, ni bloques comprimidos, ni registros enmarcados)
+     */
+    public static boolean esTextoPlano() {
+        return !esArbol() && !esBloques() && !TextRepository.ENMARCADOS && PARTICIONES == 1;
+    }
+
+    /**
+     * Archivo donde se guarda la entidad ("proveedores", "usuarios") con el tipo de repositorio elegido
+     */
+    public static String archivo(String nombre) {
+        return FileManager.DATA_DIRECTORY + "/" + nombre + extension();
+    }
+
+    /**
+     * Archivos de la entidad: uno, o uno por partición con -Dinventario.particiones
+     */
+    public static List<String> archivos(String nombre) {
+        if (PARTICIONES == 1) {
+            return Collections.singletonList(archivo(nombre));
+        }
+        List<String> archivos = new ArrayList<>(PARTICIONES);
+        for (int i = 0; i < PARTICIONES; i++) {
+            archivos.add(FileManager.DATA_DIRECTORY + "/" + nombre + "-" + i + "de" + PARTICIONES + extension());
+        }
+        return archivos;
+    }
+
+    private static String extension() {
+        return esArbol() ? ".db" : esBloques() ? ".blq" : ".txt";
+    }
+
+    public static synchronized Repository<String, Proveedor> proveedores() {
+        if (proveedores == null) {
+            proveedores = abrir("proveedores", FORMATO_PROVEEDOR);
+        }
+        return proveedores;
+    }
+
+    public static synchronized Repository<String, UsuarioStore.Registro> usuarios() {
+        if (usuarios == null) {
+            usuarios = abrir("usuarios", FORMATO_USUARIO);
+        }
+        return usuarios;
+    }
+
+    /**
+     * Cierra los repositorios abiertos (se vuelven a abrir al pedirlos)
+     */
+    public static synchronized void cerrar() {
+        if (proveedores != null) {
+            proveedores.close();
+            proveedores = null;
+        }
+        if (usuarios != null) {
+            usuarios.close();
+            usuarios = null;
+        }
+    }
+
+    private static <V> Repository<String, V> abrir(String nombre, Repository.Formato<String, V> formato) {
+        if (!esArbol() && !esBloques() && !"texto".equalsIgnoreCase(TIPO)) {
+            LOG.warn("Tipo de repositorio desconocido, se usa texto", "tipo", TIPO);
+        }
+        return PARTICIONES == 1 ? abrirArchivo(nombre, formato) : abrirParticiones(nombre, formato);
+    }
+
+    @SuppressWarnings("try") // El bloqueo solo se toma: el recurso no se usa dentro del try
+    private static <V> Repository<String, V> abrirArchivo(String nombre, Repository.Formato<String, V> formato) {
+        if (!esArbol() && !esBloques()) {
+            return new TextRepository<>(archivo(nombre), formato);
+        }
+
+        String texto = FileManager.DATA_DIRECTORY + "/" + nombre + ".txt";
+        Path destino = Paths.get(archivo(nombre));
+        try {
+            Files.createDirectories(destino.getParent());
+            // Con el bloqueo, si varias instancias arrancan a la vez solo una importa
+            try (FileLocks.Bloqueo bloqueo = FileLocks.exclusivo(destino)) {
+                if (!Files.exists(destino) && Files.exists(Paths.get(texto))) {
+                    importar(texto, destino, formato);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return crear(destino, formato);
+    }
+
+    private static <V> Repository<String, V> crear(Path archivo, Repository.Formato<String, V> formato) {
+        if (esBloques()) {
+            return new BlockRepository<>(archivo.toString(), formato);
+        }
+        if (esArbol()) {
+            return new BTreeRepository<>(archivo.toString(), formato);
+        }
+        return new TextRepository<>(archivo.toString(), formato);
+    }
+
+    /**
+     * La última partición se crea al final del reparto: si no existe, el
+     * reparto no terminó (o nunca se hizo) y se hace de nuevo
+     */
+    @SuppressWarnings("try") // El bloqueo solo se toma: el recurso no se usa dentro del try
+    private static <V> Repository<String, V> abrirParticiones(String nombre, Repository.Formato<String, V> formato) {
+        List<String> archivos = archivos(nombre);
+        Path ultima = Paths.get(archivos.get(archivos.size() - 1));
+        boolean hayOrigen = Files.exists(Paths.get(archivo(nombre)))
+                || Files.exists(Paths.get(FileManager.DATA_DIRECTORY + "/" + nombre + ".txt"));
+        try {
+            Files.createDirectories(ultima.getParent());
+            try (FileLocks.Bloqueo bloqueo = FileLocks.exclusivo(ultima)) {
+                if (!Files.exists(ultima) && hayOrigen) {
+                    particionar(nombre, archivos, formato);
+                } else if (!Files.exists(ultima)) {
+                    Files.createFile(ultima);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ShardedRepository<>(archivos, formato, archivo -> crear(Paths.get(archivo), formato));
+    }
+
+    /**
+     * Reparte los registros del archivo sin particionar en archivos
+     * temporales y los renombra en orden, la última partición al final
+     */
+    private static <V> void particionar(String nombre, List<String> archivos, Repository.Formato<String, V> formato)
+            throws IOException {
+        long inicio = System.nanoTime();
+        List<String> temporales = new ArrayList<>(archivos.size());
+        for (String archivo : archivos) {
+            Path temporal = Paths.get(archivo + ".tmp");
+            Files.deleteIfExists(temporal);
+            temporales.add(temporal.toString());
+        }
+
+        long registros;
+        try (Repository<String, V> origen = abrirArchivo(nombre, formato);
+             Repository<String, V> destino = new ShardedRepository<>(temporales, formato,
+                     archivo -> crear(Paths.get(archivo), formato))) {
+            List<V> lote = new ArrayList<>(LOTE_IMPORTACION);
+            origen.forEach(valor -> {
+                lote.add(valor);
+                if (lote.size() == LOTE_IMPORTACION) {
+                    destino.guardarTodos(lote);
+                    lote.clear();
+                }
+            });
+            destino.guardarTodos(lote);
+            registros = destino.contar();
+        }
+        for (int i = 0; i < archivos.size(); i++) {
+            Path temporal = Paths.get(temporales.get(i));
+            Path archivo = Paths.get(archivos.get(i));
+            if (Files.exists(temporal)) {
+                Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                // Partición sin registros: igual se crea, la última marca el reparto como terminado
+                Files.deleteIfExists(archivo);
+                Files.createFile(archivo);
+            }
+        }
+        LOG.info("Registros repartidos en particiones", "archivo", nombre, "particiones", archivos.size(),
+                "registros", registros);
+        LOG.debug("Reparto terminado", "ms", (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Construye el árbol o el archivo de bloques en un archivo temporal y lo
+     * renombra al terminar, así una importación interrumpida se repite en el
+     * siguiente arranque
+     */
+    private static <V> void importar(String texto, Path destino, Repository.Formato<String, V> formato)
+            throws IOException {
+        long inicio = System.nanoTime();
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+        Files.deleteIfExists(temporal);
+
+        long registros;
+        try (TextRepository<String, V> origen = new TextRepository<>(texto, formato);
+             Repository<String, V> nuevo = crear(temporal, formato)) {
+            List<V> lote = new ArrayList<>(LOTE_IMPORTACION);
+            origen.forEach(valor -> {
+                lote.add(valor);
+                if (lote.size() == LOTE_IMPORTACION) {
+                    nuevo.guardarTodos(lote);
+                    lote.clear();
+                }
+            });
+            nuevo.guardarTodos(lote);
+            registros = nuevo.contar();
+        }
+        Files.move(temporal, destino);
+        LOG.info("Archivo de texto importado", "destino", destino.getFileName(), "registros", registros,
+                "ms", (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Id de una línea id|nombre|contacto|telefono|email|direccion sin dividirla
+     */
+    private static String idDeProveedor(String linea) {
+        int separadores = 0;
+        for (int i = 0; i < linea.length() && separadores < 5; i++) {
+            if (linea.charAt(i) == '|') separadores++;
+        }
+        int sep = linea.indexOf('|');
+        return separadores < 5 || sep <= 0 ? null : linea.substring(0, sep);
+    }
+}
@@ -0,0 +1,150 @@
+package com.programacion.inventario.util;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Repository - Almacenamiento de registros por clave
+ *
+ * Implementaciones:
+ * - TextRepository: el formato de líneas de siempre (proveedores.txt, usuarios.txt)
+ * - BTreeRepository: árbol B+ paginado sobre un FileChannel, con caché de páginas
+ * - BlockRepository: las mismas líneas en bloques comprimidos con un índice de bloques
+ *
+ * Cuál se usa se elige con -Dinventario.repositorio (ver Repositorios).
+ * Los errores de E/S se informan con UncheckedIOException; un registro de
+ * más de MAX_REGISTRO bytes se rechaza con IllegalArgumentException.
+ *
+ * @param <K> clave (única por registro)
+ * @param <V> registro
+ */
+public interface Repository<K extends Comparable<? super K>, V> extends Closeable {
+
+    /**
+     * Tamaño máximo de un registro codificado en UTF-8, igual en todas las implementaciones
+     */
+    int MAX_REGISTRO = 1024 * 1024;
+
+    /**
+     * Registro con la clave dada, o null si no existe
+     */
+    V buscar(K clave);
+
+    default boolean contiene(K clave) {
+        return buscar(clave) != null;
+    }
+
+    /**
+     * Inserta el registro o reemplaza al que tenga la misma clave
+     */
+    void guardar(V valor);
+
+    /**
+     * Guarda varios registros con una sola escritura al final
+     */
+    void guardarTodos(Collection<? extends V> valores);
+
+    /**
+     * @return false si no existía un registro con esa clave
+     */
+    boolean eliminar(K clave);
+
+    /**
+     * Recorre en orden de clave los registros entre desde y hasta (ambos
+     * incluidos; null = sin límite)
+     */
+    void recorrer(K desde, K hasta, Consumer<? super V> accion);
+
+    /**
+     * Recorre todos los registros en el orden propio del almacenamiento
+     * (orden del archivo en texto, orden de clave en el árbol)
+     */
+    void forEach(Consumer<? super V> accion);
+
+    long contar();
+
+    @Override
+    void close();
+
+    /**
+     * Cómo se convierte un registro a texto y a clave
+     *
+     * Las claves se ordenan con compareTo; el árbol las guarda en sus páginas
+     * con codificarClave.
+     */
+    interface Formato<K, V> {
+
+        K clave(V valor);
+
+        /**
+         * Línea de texto del registro (sin salto de línea)
+         */
+        String codificar(V valor);
+
+        /**
+         * Registro a partir de su línea, o null si la línea no es válida
+         */
+        V decodificar(String linea);
+
+        byte[] codificarClave(K clave);
+
+        K decodificarClave(byte[] bytes);
+
+        /**
+         * Clave de una línea sin construir el registro (null si no es válida)
+         */
+        default K claveDeLinea(String linea) {
+            V valor = decodificar(linea);
+            return valor == null ? null : clave(valor);
+        }
+
+        /**
+         * Formato con clave String (UTF-8 en el árbol)
+         *
+         * @param claveDeLinea extrae la clave de una línea sin decodificarla
+         *                     completa (null = decodificar la línea)
+         */
+        static <V> Formato<String, V> conClaveTexto(Function<V, String> clave, Function<V, String> codificar,
+                                                    Function<String, V> decodificar,
+                                                    Function<String, String> claveDeLinea) {
+            return new Formato<>() {
+                @Override
+                public String clave(V valor) {
+                    return clave.apply(valor);
+                }
+
+                @Override
+                public String codificar(V valor) {
+                    return codificar.apply(valor);
+                }
+
+                @Override
+                public V decodificar(String linea) {
+                    return decodificar.apply(linea);
+                }
+
+                @Override
+                public byte[] codificarClave(String texto) {
+                    return texto.getBytes(StandardCharsets.UTF_8);
+                }
+
+                @Override
+                public String decodificarClave(byte[] bytes) {
+                    return new String(bytes, StandardCharsets.UTF_8);
+                }
+
+                @Override
+                public String claveDeLinea(String linea) {
+                    if (claveDeLinea == null) {
+                        V valor = decodificar.apply(linea);
+                        return valor == null ? null : clave.apply(valor);
+                    }
+                    return claveDeLinea.apply(linea);
+                }
+            };
+        }
+    }
+}
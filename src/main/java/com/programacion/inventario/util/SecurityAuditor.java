@@ -0,0 +1,262 @@
+package com.programacion.inventario.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * SecurityAuditor - Auditoría de seguridad de usuarios.txt en una sola pasada
+ *
+ * Cada línea se clasifica una única vez con un escáner de caracteres: formato
+ * (texto plano o cifrado), posición del separador y fortaleza de la contraseña
+ * en texto plano. La clasificación de cada bloque se guarda en arreglos
+ * compactos y se calcula en paralelo; luego el detalle se escribe en orden
+ * directamente al Writer de salida, sin armar el reporte completo en memoria.
+ *
+ * El resumen general va al final del reporte porque se conoce al terminar
+ * la pasada; también queda disponible en el Resultado retornado.
+ */
+public class SecurityAuditor {
+
+    // Líneas clasificadas en paralelo por bloque
+    private static final int CHUNK_SIZE = 8192;
+
+    // Formato de la línea (bits bajos de la clasificación)
+    private static final byte INVALIDA = 0;
+    private static final byte TEXTO_PLANO = 1;
+    private static final byte CIFRADO = 2;
+
+    // Clases de caracteres presentes en la contraseña
+    private static final int MAYUSCULA = 1;
+    private static final int MINUSCULA = 2;
+    private static final int DIGITO = 4;
+    private static final int SIMBOLO = 8;
+
+    public static final String[] FORTALEZAS = {"DEBIL", "MEDIA", "FUERTE", "MUY_FUERTE"};
+
+    private SecurityAuditor() {
+    }
+
+    /**
+     * Audita un archivo de usuarios y escribe el reporte en salida
+     */
+    public static Resultado auditar(String usersFile, Writer salida) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(usersFile), StandardCharsets.UTF_8)) {
+            return auditar(reader.lines().iterator(), salida);
+        }
+    }
+
+    /**
+     * Audita las líneas indicadas y escribe el reporte en salida
+     */
+    public static Resultado auditar(Iterator<String> lineas, Writer salida) throws IOException {
+        Resultado resultado = new Resultado();
+
+        salida.write("=== REPORTE DE SEGURIDAD DEL SISTEMA ===\n\n");
+        salida.write("DETALLES POR USUARIO:\n");
+
+        List<String> bloque = new ArrayList<>(CHUNK_SIZE);
+        byte[] clases = new byte[CHUNK_SIZE];
+        int[] separadores = new int[CHUNK_SIZE];
+
+        while (lineas.hasNext()) {
+            bloque.clear();
+            while (bloque.size() < CHUNK_SIZE && lineas.hasNext()) {
+                String linea = lineas.next();
+                if (!linea.trim().isEmpty()) {
+                    bloque.add(linea);
+                }
+            }
+
+            // Clasificación en paralelo: cada índice escribe solo su posición
+            IntStream.range(0, bloque.size()).parallel()
+                    .forEach(i -> clasificar(bloque.get(i), i, clases, separadores));
+
+            for (int i = 0; i < bloque.size(); i++) {
+                escribirDetalle(bloque.get(i), clases[i], separadores[i], salida, resultado);
+            }
+        }
+
+        escribirResumen(resultado, salida);
+        salida.flush();
+        return resultado;
+    }
+
+    /**
+     * Recorre la línea una vez: cuenta separadores y, si la contraseña está en
+     * texto plano, acumula las clases de caracteres que contiene
+     */
+    private static void clasificar(String linea, int i, byte[] clases, int[] separadores) {
+        int primero = -1;
+        int separadoresEncontrados = 0;
+        int clasesPassword = 0;
+        int longitudPassword = 0;
+
+        for (int p = 0; p < linea.length(); p++) {
+            char c = linea.charAt(p);
+            if (c == ':') {
+                if (separadoresEncontrados++ == 0) {
+                    primero = p;
+                }
+                continue;
+            }
+            if (separadoresEncontrados == 1) {
+                clasesPassword |= claseDe(c);
+                longitudPassword++;
+            }
+        }
+
+        separadores[i] = primero;
+        if (separadoresEncontrados == 1) {
+            clases[i] = (byte) (TEXTO_PLANO | (nivelFortaleza(longitudPassword, clasesPassword) << 2));
+        } else if (separadoresEncontrados >= 2) {
+            clases[i] = CIFRADO;
+        } else {
+            clases[i] = INVALIDA;
+        }
+    }
+
+    private static int claseDe(char c) {
+        if (c >= 'A' && c <= 'Z') return MAYUSCULA;
+        if (c >= 'a' && c <= 'z') return MINUSCULA;
+        if (c >= '0' && c <= '9') return DIGITO;
+        return SIMBOLO;
+    }
+
+    /**
+     * Misma escala que SecurityUtils.checkPasswordStrength (índice en FORTALEZAS)
+     */
+    private static int nivelFortaleza(int longitud, int clases) {
+        if (longitud == 0) return 0;
+
+        int strength = Integer.bitCount(clases);
+        if (longitud >= 8) strength++;
+        if (longitud >= 12) strength++;
+
+        if (strength >= 5) return 3;
+        if (strength >= 4) return 2;
+        if (strength >= 3) return 1;
+        return 0;
+    }
+
+    /**
+     * Fortaleza de una contraseña con un solo recorrido de sus caracteres
+     */
+    public static String fortaleza(String password) {
+        if (password == null || password.isEmpty()) {
+            return FORTALEZAS[0];
+        }
+        int clases = 0;
+        for (int p = 0; p < password.length(); p++) {
+            clases |= claseDe(password.charAt(p));
+        }
+        return FORTALEZAS[nivelFortaleza(password.length(), clases)];
+    }
+
+    private static void escribirDetalle(String linea, byte clase, int separador, Writer salida,
+                                        Resultado resultado) throws IOException {
+        int formato = clase & 3;
+        if (formato == INVALIDA) {
+            resultado.invalidas++;
+            return;
+        }
+        resultado.total++;
+
+        salida.write("• ");
+        salida.write(linea, 0, separador);
+        salida.write(":\n");
+
+        if (formato == TEXTO_PLANO) {
+            int nivel = clase >>> 2;
+            resultado.textoPlano++;
+            resultado.porFortaleza[nivel]++;
+
+            salida.write("  - Formato: texto_plano\n");
+            salida.write("  - Nivel seguridad: BAJO\n");
+            salida.write("  - Fortaleza contraseña: ");
+            salida.write(FORTALEZAS[nivel]);
+            salida.write("\n  - Contraseña: ");
+            salida.write(linea, separador + 1, linea.length() - separador - 1);
+            salida.write(" (VISIBLE - ¡RIESGO!)\n\n");
+        } else {
+            resultado.cifrados++;
+            int finHash = linea.indexOf(':', separador + 1);
+            int finSalt = linea.indexOf(':', finHash + 1);
+            if (finSalt < 0) finSalt = linea.length();
+
+            boolean pbkdf2 = linea.startsWith(Pbkdf2Hasher.PREFIJO, separador + 1);
+            salida.write(pbkdf2 ? "  - Formato: pbkdf2_cifrado\n" : "  - Formato: sha256_cifrado\n");
+            salida.write("  - Nivel seguridad: ALTO\n");
+            salida.write("  - Hash: ");
+            salida.write(linea, separador + 1, Math.min(20, finHash - separador - 1));
+            salida.write("...\n  - Salt: ");
+            salida.write(linea, finHash + 1, Math.min(10, finSalt - finHash - 1));
+            salida.write("...\n\n");
+        }
+    }
+
+    private static void escribirResumen(Resultado resultado, Writer salida) throws IOException {
+        salida.write(resultado.getResumen());
+        salida.write("\nRECOMENDACIONES DE SEGURIDAD:\n");
+        if (resultado.textoPlano > 0) {
+            salida.write("⚠️  MIGRAR USUARIOS A FORMATO CIFRADO INMEDIATAMENTE\n");
+        }
+        salida.write("✅ Todos los usuarios deben usar contraseñas con:\n");
+        salida.write("   - Mínimo 8 caracteres\n");
+        salida.write("   - Mayúsculas, minúsculas y números\n");
+        salida.write("   - Símbolos especiales para mayor seguridad\n");
+    }
+
+    /**
+     * Totales de la auditoría
+     */
+    public static class Resultado {
+        private long total;
+        private long textoPlano;
+        private long cifrados;
+        private long invalidas;
+        private final long[] porFortaleza = new long[FORTALEZAS.length];
+
+        public long getTotal() { return total; }
+        public long getTextoPlano() { return textoPlano; }
+        public long getCifrados() { return cifrados; }
+        public long getInvalidas() { return invalidas; }
+
+        /**
+         * Contraseñas en texto plano con la fortaleza indicada (ver FORTALEZAS)
+         */
+        public long getPorFortaleza(int nivel) { return porFortaleza[nivel]; }
+
+        public double getPorcentajeCifrado() {
+            return total > 0 ? cifrados * 100.0 / total : 0;
+        }
+
+        public String getResumen() {
+            StringBuilder resumen = new StringBuilder();
+            resumen.append("ESTADÍSTICAS GENERALES:\n");
+            resumen.append("• Total de usuarios: ").append(total).append("\n");
+            resumen.append("• Usuarios en texto plano: ").append(textoPlano).append("\n");
+            resumen.append("• Usuarios cifrados: ").append(cifrados).append("\n");
+            resumen.append("• Porcentaje de cifrado: ").append(String.format("%.1f", getPorcentajeCifrado())).append("%\n");
+            if (textoPlano > 0) {
+                resumen.append("• Contraseñas en texto plano por fortaleza:");
+                for (int i = 0; i < FORTALEZAS.length; i++) {
+                    resumen.append(' ').append(FORTALEZAS[i]).append('=').append(porFortaleza[i]);
+                }
+                resumen.append("\n");
+            }
+            if (invalidas > 0) {
+                resumen.append("• Líneas con formato inválido: ").append(invalidas).append("\n");
+            }
+            resumen.append("• Recomendación: ").append(textoPlano > 0 ? "MIGRAR_USUARIOS" : "SEGURIDAD_OK").append("\n");
+            return resumen.toString();
+        }
+    }
+}
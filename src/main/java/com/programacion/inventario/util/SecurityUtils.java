@@ -1,5 +1,8 @@
 package com.programacion.inventario.util;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
@@ -10,7 +13,8 @@ import java.util.List;
 
 /**
  * Clase utilitaria para operaciones de seguridad y cifrado
- * Implementa SHA-256 para hashing de contraseñas y funciones de descifrado
+ * Los hashes nuevos usan PBKDF2 calibrado (ver PasswordHashing); SHA-256
+ * se conserva para verificar los registros antiguos
  */
 public class SecurityUtils {
 
@@ -28,7 +32,7 @@ public class SecurityUtils {
     }
 
     /**
-     * Hashea una contraseña con SHA-256 usando salt
+     * Hashea una contraseña con SHA-256 usando salt (formato antiguo)
      */
     public static String hashPassword(String password, String salt) {
         try {
@@ -54,8 +58,7 @@ public class SecurityUtils {
      * Verifica si una contraseña coincide con el hash almacenado
      */
     public static boolean verifyPassword(String inputPassword, String storedHash, String salt) {
-        String hashedInput = hashPassword(inputPassword, salt);
-        return hashedInput.equals(storedHash);
+        return PasswordHashing.getInstance().verificar(inputPassword, storedHash, salt);
     }
 
     /**
@@ -68,10 +71,11 @@ public class SecurityUtils {
 
     /**
      * Detecta si una línea del archivo está en formato cifrado
+     * (usuario:hash:salt o usuario:hash:salt:rol)
      */
     public static boolean isHashedFormat(String line) {
         String[] parts = line.split(":");
-        return parts.length == 3;
+        return parts.length == 3 || parts.length == 4;
     }
 
     /**
@@ -84,7 +88,7 @@ public class SecurityUtils {
         String username = parts[0];
         String password = parts[1];
         String salt = generateSalt();
-        String hashedPassword = hashPassword(password, salt);
+        String hashedPassword = PasswordHashing.getInstance().hash(password, salt);
 
         return username + ":" + hashedPassword + ":" + salt;
     }
@@ -111,7 +115,7 @@ public class SecurityUtils {
                     userInfo.put("salt", "N/A");
                     userInfo.put("format", "texto_plano");
                     userInfo.put("security_level", "BAJO");
-                } else if (credentials.length == 3) {
+                } else if (credentials.length == 3 || credentials.length == 4) {
                     // Formato cifrado
                     userInfo.put("password", "CIFRADO");
                     userInfo.put("hash", credentials[1]);
@@ -158,76 +162,24 @@ public class SecurityUtils {
 
     /**
      * Verifica la fortaleza de una contraseña
+     * Recorre los caracteres una vez en lugar de evaluar una expresión regular por clase
      */
     public static String checkPasswordStrength(String password) {
-        if (password == null || password.isEmpty()) {
-            return "DEBIL";
-        }
-
-        int strength = 0;
-
-        // Longitud mínima
-        if (password.length() >= 8) strength++;
-        if (password.length() >= 12) strength++;
-
-        // Diversidad de caracteres
-        if (password.matches(".*[A-Z].*")) strength++; // Mayúsculas
-        if (password.matches(".*[a-z].*")) strength++; // Minúsculas
-        if (password.matches(".*[0-9].*")) strength++; // Números
-        if (password.matches(".*[^A-Za-z0-9].*")) strength++; // Símbolos
-
-        if (strength >= 5) return "MUY_FUERTE";
-        if (strength >= 4) return "FUERTE";
-        if (strength >= 3) return "MEDIA";
-        return "DEBIL";
+        return SecurityAuditor.fortaleza(password);
     }
 
     /**
      * Genera un reporte de seguridad completo
+     * Para archivos grandes conviene SecurityAuditor.auditar escribiendo a un archivo
      */
     public static String generateSecurityReport(List<String> userLines) {
-        Map<String, Object> stats = getSecurityStats(userLines);
-        Map<String, Map<String, String>> users = decryptCredentials(userLines);
-
-        StringBuilder report = new StringBuilder();
-        report.append("=== REPORTE DE SEGURIDAD DEL SISTEMA ===\n\n");
-
-        report.append("ESTADÍSTICAS GENERALES:\n");
-        report.append("• Total de usuarios: ").append(stats.get("total_usuarios")).append("\n");
-        report.append("• Usuarios en texto plano: ").append(stats.get("usuarios_texto_plano")).append("\n");
-        report.append("• Usuarios cifrados: ").append(stats.get("usuarios_cifrados")).append("\n");
-        report.append("• Porcentaje de cifrado: ").append(String.format("%.1f", stats.get("porcentaje_cifrado"))).append("%\n");
-        report.append("• Recomendación: ").append(stats.get("recomendacion")).append("\n\n");
-
-        report.append("DETALLES POR USUARIO:\n");
-        for (Map.Entry<String, Map<String, String>> entry : users.entrySet()) {
-            String username = entry.getKey();
-            Map<String, String> userInfo = entry.getValue();
-
-            report.append("• ").append(username).append(":\n");
-            report.append("  - Formato: ").append(userInfo.get("format")).append("\n");
-            report.append("  - Nivel seguridad: ").append(userInfo.get("security_level")).append("\n");
-
-            if ("texto_plano".equals(userInfo.get("format"))) {
-                String strength = checkPasswordStrength(userInfo.get("password"));
-                report.append("  - Fortaleza contraseña: ").append(strength).append("\n");
-                report.append("  - Contraseña: ").append(userInfo.get("password")).append(" (VISIBLE - ¡RIESGO!)\n");
-            } else {
-                report.append("  - Hash: ").append(userInfo.get("hash").substring(0, 20)).append("...\n");
-                report.append("  - Salt: ").append(userInfo.get("salt").substring(0, 10)).append("...\n");
-            }
-            report.append("\n");
-        }
-
-        report.append("RECOMENDACIONES DE SEGURIDAD:\n");
-        if ((Integer)stats.get("usuarios_texto_plano") > 0) {
-            report.append("⚠️  MIGRAR USUARIOS A FORMATO CIFRADO INMEDIATAMENTE\n");
+        StringWriter report = new StringWriter();
+        try {
+            SecurityAuditor.auditar(userLines.iterator(), report);
+        } catch (IOException e) {
+            // StringWriter no lanza IOException
+            throw new UncheckedIOException(e);
         }
-        report.append("✅ Todos los usuarios deben usar contraseñas con:\n");
-        report.append("   - Mínimo 8 caracteres\n");
-        report.append("   - Mayúsculas, minúsculas y números\n");
-        report.append("   - Símbolos especiales para mayor seguridad\n");
-
         return report.toString();
     }
 }
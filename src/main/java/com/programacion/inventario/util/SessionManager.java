@@ -0,0 +1,237 @@
+package com.programacion.inventario.util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SessionManager - Sesiones y re-autenticación sin volver a leer usuarios.txt
+ *
+ * Tras un login exitoso se emite un token aleatorio de sesión y se guarda un
+ * HMAC de la contraseña con una clave aleatoria del proceso (nunca la
+ * contraseña). Mientras ese HMAC esté vigente, volver a autenticarse cuesta
+ * una búsqueda en un mapa y un HMAC, en lugar de leer el archivo y calcular
+ * el hash PBKDF2.
+ *
+ * Ambos mapas son concurrentes, tienen tamaño máximo y sus entradas vencen:
+ * - Sesiones: inventario.sesion.minutos (15 por defecto), renovadas con cada uso
+ * - Credenciales recientes: inventario.sesion.credencialMinutos (5 por defecto)
+ */
+public class SessionManager {
+
+    private static SessionManager instance;
+
+    private static final long SESION_TTL_MS = Long.getLong("inventario.sesion.minutos", 15) * 60_000;
+    private static final long CREDENCIAL_TTL_MS = Long.getLong("inventario.sesion.credencialMinutos", 5) * 60_000;
+
+    private static final int MAX_SESIONES = 1_000;
+    private static final int MAX_CREDENCIALES = 1_000;
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final byte[] claveHmac = new byte[32];
+
+    private final ConcurrentHashMap<String, Sesion> sesiones = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Credencial> credenciales = new ConcurrentHashMap<>();
+
+    // Sesión del usuario que está usando la aplicación de escritorio
+    private volatile Sesion sesionActual;
+
+    private SessionManager() {
+        random.nextBytes(claveHmac);
+        Metrics.getInstance().gauge("sesiones.activas", sesiones::size);
+    }
+
+    public static synchronized SessionManager getInstance() {
+        if (instance == null) {
+            instance = new SessionManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Abre una sesión para un usuario ya validado y activa los permisos de su rol
+     *
+     * @param password Contraseña usada en el login, para re-autenticaciones rápidas
+     * @return el token de la sesión
+     */
+    public String iniciar(String usuario, String rol, String password) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        long ahora = System.currentTimeMillis();
+        Sesion sesion = new Sesion(token, usuario, rol, ahora, ahora + SESION_TTL_MS);
+        limitar(sesiones, MAX_SESIONES, ahora);
+        sesiones.put(token, sesion);
+        sesionActual = sesion;
+        PermissionManager.getInstance().activar(rol);
+
+        limitar(credenciales, MAX_CREDENCIALES, ahora);
+        credenciales.put(usuario, new Credencial(hmac(usuario, password), ahora + CREDENCIAL_TTL_MS));
+        return token;
+    }
+
+    /**
+     * Retorna la sesión del token y renueva su vencimiento, o null si no existe o venció
+     */
+    public Sesion validar(String token) {
+        if (token == null) {
+            return null;
+        }
+        Sesion sesion = sesiones.get(token);
+        if (sesion == null) {
+            return null;
+        }
+        long ahora = System.currentTimeMillis();
+        if (sesion.vencida(ahora)) {
+            sesiones.remove(token, sesion);
+            return null;
+        }
+        sesion.expira = ahora + SESION_TTL_MS;
+        return sesion;
+    }
+
+    /**
+     * Verifica la contraseña contra la credencial reciente del usuario
+     *
+     * @return true si coincide; false si no coincide o no hay credencial vigente
+     *         (en ese caso se debe validar contra usuarios.txt)
+     */
+    public boolean reautenticar(String usuario, String password) {
+        Credencial credencial = credenciales.get(usuario);
+        if (credencial == null) {
+            return false;
+        }
+        if (credencial.expira <= System.currentTimeMillis()) {
+            credenciales.remove(usuario, credencial);
+            return false;
+        }
+        return MessageDigest.isEqual(credencial.hmac, hmac(usuario, password));
+    }
+
+    /**
+     * Descarta la credencial reciente (por ejemplo, si cambia la contraseña)
+     */
+    public void invalidarCredencial(String usuario) {
+        credenciales.remove(usuario);
+    }
+
+    public void cerrar(String token) {
+        if (token == null) {
+            return;
+        }
+        Sesion sesion = sesiones.remove(token);
+        if (sesion != null && sesion == sesionActual) {
+            sesionActual = null;
+            PermissionManager.getInstance().desactivar();
+        }
+    }
+
+    /**
+     * Sesión actual si sigue vigente
+     */
+    public Sesion getSesionActual() {
+        Sesion sesion = sesionActual;
+        return sesion == null ? null : validar(sesion.getToken());
+    }
+
+    public int getSesionesActivas() {
+        return sesiones.size();
+    }
+
+    private byte[] hmac(String usuario, String password) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(claveHmac, "HmacSHA256"));
+            mac.update(usuario.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Error al calcular HMAC: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Antes de insertar en un mapa lleno se eliminan las entradas vencidas y,
+     * si aún no hay espacio, la que vence antes
+     */
+    private static <V extends Vencible> void limitar(ConcurrentHashMap<String, V> mapa, int maximo, long ahora) {
+        if (mapa.size() < maximo) {
+            return;
+        }
+        mapa.values().removeIf(v -> v.vencida(ahora));
+
+        while (mapa.size() >= maximo) {
+            Map.Entry<String, V> primera = null;
+            Iterator<Map.Entry<String, V>> it = mapa.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, V> entrada = it.next();
+                if (primera == null || entrada.getValue().getExpira() < primera.getValue().getExpira()) {
+                    primera = entrada;
+                }
+            }
+            if (primera == null) {
+                return;
+            }
+            mapa.remove(primera.getKey(), primera.getValue());
+        }
+    }
+
+    private interface Vencible {
+        long getExpira();
+
+        default boolean vencida(long ahora) {
+            return getExpira() <= ahora;
+        }
+    }
+
+    private static final class Credencial implements Vencible {
+        final byte[] hmac;
+        final long expira;
+
+        Credencial(byte[] hmac, long expira) {
+            this.hmac = hmac;
+            this.expira = expira;
+        }
+
+        @Override
+        public long getExpira() {
+            return expira;
+        }
+    }
+
+    /**
+     * Sesión abierta por un login exitoso
+     */
+    public static final class Sesion implements Vencible {
+        private final String token;
+        private final String usuario;
+        private final String rol;
+        private final long creada;
+        private volatile long expira;
+
+        Sesion(String token, String usuario, String rol, long creada, long expira) {
+            this.token = token;
+            this.usuario = usuario;
+            this.rol = rol;
+            this.creada = creada;
+            this.expira = expira;
+        }
+
+        public String getToken() { return token; }
+        public String getUsuario() { return usuario; }
+        public String getRol() { return rol; }
+        public long getCreada() { return creada; }
+
+        @Override
+        public long getExpira() { return expira; }
+    }
+}
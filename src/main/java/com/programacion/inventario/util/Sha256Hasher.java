@@ -0,0 +1,47 @@
+package com.programacion.inventario.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Sha256Hasher - Formato original: SHA-256 de password + salt en hexadecimal
+ *
+ * Solo se mantiene para verificar registros antiguos, que se actualizan
+ * a PBKDF2 en el siguiente login exitoso.
+ */
+public class Sha256Hasher implements PasswordHasher {
+
+    @Override
+    public String getAlgoritmo() {
+        return "sha256";
+    }
+
+    @Override
+    public boolean acepta(String hashAlmacenado) {
+        if (hashAlmacenado.length() != 64) {
+            return false;
+        }
+        for (int i = 0; i < hashAlmacenado.length(); i++) {
+            if (Character.digit(hashAlmacenado.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String hash(String password, String salt) {
+        return SecurityUtils.hashPassword(password, salt);
+    }
+
+    @Override
+    public boolean verificar(String password, String hashAlmacenado, String salt) {
+        return MessageDigest.isEqual(hash(password, salt).getBytes(StandardCharsets.US_ASCII),
+                hashAlmacenado.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public boolean requiereActualizacion(String hashAlmacenado) {
+        return true;
+    }
+}
@@ -0,0 +1,179 @@
+package com.programacion.inventario.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * ShardedRepository - Repository repartido en N archivos por hash de la clave
+ *
+ * Cada partición es un repositorio propio (texto, árbol o bloques) y cada
+ * clave vive en la partición floorMod(hashCode, N): buscar, guardar y
+ * eliminar van solo a esa partición. Las particiones se abren (cargando cada
+ * una su índice) y se recorren en paralelo en el pool; forEach entrega los
+ * registros en el hilo que llama, partición por partición, y recorrer
+ * combina los rangos de todas en orden de clave.
+ *
+ * El hashCode de la clave debe ser el mismo en todas las ejecuciones (lo es
+ * para String). Cambiar N cambia los archivos: ver Repositorios. Cada
+ * partición tiene su propio bloqueo, así que un guardarTodos que toca varias
+ * particiones no es atómico entre instancias.
+ */
+public class ShardedRepository<K extends Comparable<? super K>, V> implements Repository<K, V> {
+
+    private static final Log LOG = Log.get(ShardedRepository.class);
+
+    private final Formato<K, V> formato;
+    private final ForkJoinPool pool;
+    private final List<Repository<K, V>> particiones;
+
+    public ShardedRepository(List<String> archivos, Formato<K, V> formato, Function<String, Repository<K, V>> abrir) {
+        this(archivos, formato, abrir, ForkJoinPool.commonPool());
+    }
+
+    public ShardedRepository(List<String> archivos, Formato<K, V> formato, Function<String, Repository<K, V>> abrir,
+                             ForkJoinPool pool) {
+        if (archivos.isEmpty()) {
+            throw new IllegalArgumentException("Se necesita al menos una partición");
+        }
+        this.formato = formato;
+        this.pool = pool;
+        long inicio = System.nanoTime();
+
+        List<ForkJoinTask<Repository<K, V>>> aperturas = new ArrayList<>(archivos.size());
+        for (String archivo : archivos) {
+            aperturas.add(pool.submit(() -> abrir.apply(archivo)));
+        }
+        List<Repository<K, V>> abiertas = new ArrayList<>(archivos.size());
+        RuntimeException error = null;
+        for (ForkJoinTask<Repository<K, V>> apertura : aperturas) {
+            try {
+                abiertas.add(apertura.join());
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            abiertas.forEach(Repository::close);
+            throw error;
+        }
+        particiones = abiertas;
+        LOG.debug("Particiones abiertas", "particiones", particiones.size(),
+                "ms", (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private Repository<K, V> particion(K clave) {
+        return particiones.get(Math.floorMod(clave.hashCode(), particiones.size()));
+    }
+
+    // ===== CONSULTAS =====
+
+    @Override
+    public V buscar(K clave) {
+        return particion(clave).buscar(clave);
+    }
+
+    @Override
+    public boolean contiene(K clave) {
+        return particion(clave).contiene(clave);
+    }
+
+    /**
+     * Cada partición recorre su rango en paralelo; el resultado se ordena por clave
+     */
+    @Override
+    public void recorrer(K desde, K hasta, Consumer<? super V> accion) {
+        List<V> valores = new ArrayList<>();
+        for (List<V> deParticion : enParalelo(particion -> {
+            List<V> lista = new ArrayList<>();
+            particion.recorrer(desde, hasta, lista::add);
+            return lista;
+        })) {
+            valores.addAll(deParticion);
+        }
+        valores.sort(Comparator.comparing(formato::clave));
+        valores.forEach(accion);
+    }
+
+    /**
+     * Las particiones se leen en paralelo; los registros se entregan en el
+     * hilo que llama, en el orden de cada partición
+     */
+    @Override
+    public void forEach(Consumer<? super V> accion) {
+        List<ForkJoinTask<List<V>>> lecturas = enviar(particion -> {
+            List<V> lista = new ArrayList<>();
+            particion.forEach(lista::add);
+            return lista;
+        });
+        for (ForkJoinTask<List<V>> lectura : lecturas) {
+            lectura.join().forEach(accion);
+        }
+    }
+
+    @Override
+    public long contar() {
+        long total = 0;
+        for (Repository<K, V> particion : particiones) {
+            total += particion.contar();
+        }
+        return total;
+    }
+
+    // ===== ESCRITURAS =====
+
+    @Override
+    public void guardar(V valor) {
+        particion(formato.clave(valor)).guardar(valor);
+    }
+
+    /**
+     * Una escritura por partición con los registros que le tocan
+     */
+    @Override
+    public void guardarTodos(Collection<? extends V> valores) {
+        List<List<V>> porParticion = new ArrayList<>(particiones.size());
+        for (int i = 0; i < particiones.size(); i++) {
+            porParticion.add(new ArrayList<>());
+        }
+        for (V valor : valores) {
+            porParticion.get(Math.floorMod(formato.clave(valor).hashCode(), particiones.size())).add(valor);
+        }
+        for (int i = 0; i < particiones.size(); i++) {
+            if (!porParticion.get(i).isEmpty()) {
+                particiones.get(i).guardarTodos(porParticion.get(i));
+            }
+        }
+    }
+
+    @Override
+    public boolean eliminar(K clave) {
+        return particion(clave).eliminar(clave);
+    }
+
+    private <R> List<ForkJoinTask<R>> enviar(Function<Repository<K, V>, R> tarea) {
+        List<ForkJoinTask<R>> tareas = new ArrayList<>(particiones.size());
+        for (Repository<K, V> particion : particiones) {
+            tareas.add(pool.submit(() -> tarea.apply(particion)));
+        }
+        return tareas;
+    }
+
+    private <R> List<R> enParalelo(Function<Repository<K, V>, R> tarea) {
+        List<R> resultados = new ArrayList<>(particiones.size());
+        for (ForkJoinTask<R> pendiente : enviar(tarea)) {
+            resultados.add(pendiente.join());
+        }
+        return resultados;
+    }
+
+    @Override
+    public void close() {
+        particiones.forEach(Repository::close);
+    }
+}
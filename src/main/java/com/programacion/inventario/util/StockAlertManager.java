@@ -0,0 +1,224 @@
+package com.programacion.inventario.util;
+
+import com.programacion.inventario.model.AlertaStock;
+import com.programacion.inventario.model.MovimientoStock;
+import com.programacion.inventario.model.Producto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+
+/**
+ * StockAlertManager - Alertas de reposición calculadas de forma incremental
+ *
+ * Cada movimiento del StockLedger actualiza solo el SKU afectado: su ritmo
+ * de consumo diario (media móvil exponencial de las salidas) y, si quedó en
+ * o bajo su punto de reorden, su posición en una cola de prioridad ordenada
+ * por días de cobertura restantes. Nunca se recorre el catálogo completo
+ * salvo una vez al suscribirse al ledger, cuando además se reproducen las
+ * salidas recientes del log para no arrancar sin ritmo de consumo.
+ *
+ * Los suscriptores (por ejemplo, el dashboard) se guardan con referencia
+ * débil: el controlador debe conservar su listener en un campo.
+ */
+public class StockAlertManager implements StockLedger.StockListener {
+
+    private static StockAlertManager instance;
+
+    private static final long MILLIS_POR_DIA = 24L * 60 * 60 * 1000;
+
+    // Peso del último día cerrado en la media de consumo diario
+    private static final double ALFA = 0.3;
+
+    // Días de historial que se reproducen al arrancar: pasado ese plazo el
+    // peso de un día en la media ya es despreciable (0.7^30 < 0.0001)
+    private static final int DIAS_HISTORIAL = 30;
+
+    private static final Comparator<AlertaStock> POR_COBERTURA = Comparator
+            .comparingDouble(AlertaStock::getDiasCobertura)
+            .thenComparingLong(a -> a.getStock() - a.getPuntoReorden())
+            .thenComparing(AlertaStock::getSku);
+
+    private final StockLedger ledger;
+
+    // Cola de prioridad indexada: alertas activas ordenadas y su índice por SKU
+    private final TreeSet<AlertaStock> cola = new TreeSet<>(POR_COBERTURA);
+    private final Map<String, AlertaStock> alertaPorSku = new HashMap<>();
+
+    private final Map<String, Consumo> consumoPorSku = new HashMap<>();
+    private final Set<AlertListener> listeners = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private StockAlertManager(StockLedger ledger) {
+        this.ledger = ledger;
+    }
+
+    /**
+     * Crea el gestor y lo suscribe al ledger una vez construido. El ritmo de
+     * consumo se reconstruye con las salidas de los últimos DIAS_HISTORIAL
+     * días de movimientos.txt antes de calcular las alertas iniciales
+     */
+    public static StockAlertManager crear(StockLedger ledger) {
+        StockAlertManager manager = new StockAlertManager(ledger);
+        long ahora = System.currentTimeMillis();
+        ledger.addListener(manager, (sku, saldo) -> {
+            Producto producto = ledger.getProducto(sku);
+            if (producto != null) {
+                manager.actualizar(producto, saldo, ahora);
+            }
+        }, ahora - DIAS_HISTORIAL * MILLIS_POR_DIA, movimiento -> {
+            if (movimiento.getTipo() == MovimientoStock.Tipo.SALIDA) {
+                manager.consumo(movimiento.getSku()).registrar(movimiento.getTimestamp(), movimiento.getCantidad());
+            }
+        });
+        return manager;
+    }
+
+    public static synchronized StockAlertManager getInstance() {
+        if (instance == null) {
+            instance = crear(StockLedger.getInstance());
+        }
+        return instance;
+    }
+
+    @Override
+    public void onMovimiento(MovimientoStock movimiento, long nuevoSaldo) {
+        Producto producto = ledger.getProducto(movimiento.getSku());
+        if (producto == null) {
+            return;
+        }
+
+        if (movimiento.getTipo() == MovimientoStock.Tipo.SALIDA) {
+            consumo(movimiento.getSku()).registrar(movimiento.getTimestamp(), movimiento.getCantidad());
+        }
+        if (actualizar(producto, nuevoSaldo, movimiento.getTimestamp())) {
+            notificar();
+        }
+    }
+
+    @Override
+    public void onProductoAgregado(Producto producto) {
+        if (actualizar(producto, 0, System.currentTimeMillis())) {
+            notificar();
+        }
+    }
+
+    /**
+     * Recalcula la alerta de un SKU en O(log n)
+     * Retorna true si cambió el conjunto de alertas activas
+     */
+    private synchronized boolean actualizar(Producto producto, long saldo, long ahora) {
+        String sku = producto.getSku();
+        AlertaStock anterior = alertaPorSku.remove(sku);
+        if (anterior != null) {
+            cola.remove(anterior);
+        }
+
+        if (producto.getPuntoReorden() <= 0 || saldo > producto.getPuntoReorden()) {
+            return anterior != null;
+        }
+
+        Consumo consumo = consumoPorSku.get(sku);
+        double tasa = consumo == null ? 0 : consumo.tasaDiaria(ahora);
+        double dias = tasa > 0 ? saldo / tasa : Double.POSITIVE_INFINITY;
+
+        AlertaStock alerta = new AlertaStock(sku, producto.getNombre(), saldo,
+                producto.getPuntoReorden(), dias, producto.getProveedorId());
+        alertaPorSku.put(sku, alerta);
+        cola.add(alerta);
+        return true;
+    }
+
+    private synchronized Consumo consumo(String sku) {
+        return consumoPorSku.computeIfAbsent(sku, k -> new Consumo());
+    }
+
+    /**
+     * Alertas más urgentes primero (menos días de cobertura)
+     */
+    public synchronized List<AlertaStock> getAlertas(int limite) {
+        List<AlertaStock> resultado = new ArrayList<>(Math.min(limite, cola.size()));
+        Iterator<AlertaStock> it = cola.iterator();
+        while (it.hasNext() && resultado.size() < limite) {
+            resultado.add(it.next());
+        }
+        return resultado;
+    }
+
+    public synchronized int getCantidadAlertas() {
+        return cola.size();
+    }
+
+    public void addAlertListener(AlertListener listener) {
+        synchronized (listeners) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeAlertListener(AlertListener listener) {
+        synchronized (listeners) {
+            listeners.remove(listener);
+        }
+    }
+
+    private void notificar() {
+        List<AlertListener> copia;
+        synchronized (listeners) {
+            copia = new ArrayList<>(listeners);
+        }
+        for (AlertListener listener : copia) {
+            listener.onAlertasCambiadas();
+        }
+    }
+
+    /**
+     * Ritmo de consumo diario de un SKU
+     */
+    private static final class Consumo {
+        private long dia = -1;
+        private long salidasDia;
+        private double media;
+
+        void registrar(long timestamp, long cantidad) {
+            avanzarA(timestamp / MILLIS_POR_DIA);
+            salidasDia += cantidad;
+        }
+
+        double tasaDiaria(long ahora) {
+            if (ahora > 0) {
+                avanzarA(ahora / MILLIS_POR_DIA);
+            }
+            // El día en curso cuenta en cuanto supera la media histórica
+            return Math.max(media, salidasDia);
+        }
+
+        private void avanzarA(long nuevoDia) {
+            if (dia < 0) {
+                dia = nuevoDia;
+                return;
+            }
+            if (nuevoDia <= dia) {
+                return;
+            }
+            // Cerrar el día actual y decaer por los días sin salidas
+            media = ALFA * salidasDia + (1 - ALFA) * media;
+            long diasVacios = Math.min(nuevoDia - dia - 1, 365);
+            media *= Math.pow(1 - ALFA, diasVacios);
+            salidasDia = 0;
+            dia = nuevoDia;
+        }
+    }
+
+    /**
+     * Interfaz para quienes muestran las alertas (se invoca en el hilo del movimiento)
+     */
+    public interface AlertListener {
+        void onAlertasCambiadas();
+    }
+}
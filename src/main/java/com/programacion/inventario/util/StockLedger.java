@@ -0,0 +1,542 @@
+package com.programacion.inventario.util;
+
+import com.programacion.inventario.model.MovimientoStock;
+import com.programacion.inventario.model.Producto;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * StockLedger - Libro de movimientos de stock (solo agregar)
+ *
+ * Cada entrada, salida o ajuste se agrega como una línea a movimientos.txt
+ * y nunca se modifica. El saldo de cada producto se mantiene en un arreglo
+ * de long indexado por SKU, así que consultar el stock actual es O(1) y no
+ * requiere recorrer el historial.
+ *
+ * Bajo el bloqueo del ledger solo se valida y se actualiza el saldo; la
+ * línea se agrega al archivo y se notifica a los listeners después, en lotes:
+ * el hilo que toma la escritura escribe de una vez todos los movimientos
+ * pendientes (también los de otros hilos) y los notifica en el orden en que
+ * se aplicaron. registrar() retorna cuando su movimiento ya está escrito; si
+ * el agregado falla se deshacen los saldos de todos los movimientos sin
+ * escribir (los posteriores se validaron contra ellos) y sus registrar()
+ * lanzan UncheckedIOException.
+ *
+ * Implementa el patrón Singleton, igual que NavigationManager.
+ */
+public class StockLedger {
+
+    private static final Log LOG = Log.get(StockLedger.class);
+
+    private static StockLedger instance;
+
+    public static final String PRODUCTOS_FILE = FileManager.DATA_DIRECTORY + "/productos.txt";
+    public static final String MOVIMIENTOS_FILE = FileManager.DATA_DIRECTORY + "/movimientos.txt";
+    public static final String SNAPSHOT_FILE = FileManager.DATA_DIRECTORY + "/stock.snapshot";
+
+    // Cada cuántos movimientos nuevos se escribe una foto de los saldos
+    private static final long SNAPSHOT_INTERVAL = 10_000;
+
+    private final FileManager fileManager;
+
+    // Índice SKU -> posición en productos y saldos
+    private final Map<String, Integer> indiceSku = new HashMap<>();
+    private final List<Producto> productos = new ArrayList<>();
+    private long[] saldos = new long[256];
+
+    private long movimientosRegistrados;
+
+    // Movimientos aplicados a los saldos que todavía no se escribieron
+    private List<Pendiente> pendientes = new ArrayList<>();
+
+    // Un solo hilo a la vez escribe un lote y lo notifica; protege también
+    // los dos contadores siguientes. Se toma antes que el bloqueo del ledger
+    private final ReentrantLock escritura = new ReentrantLock();
+    private long movimientosEscritos;
+    private long movimientosEnSnapshot;
+
+    // Las fotos se escriben en un hilo aparte para no frenar los movimientos
+    private final ExecutorService snapshotExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "stock-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Componentes interesados en cada movimiento (alertas, estadísticas, reservas...)
+    private final List<StockListener> listeners = new CopyOnWriteArrayList<>();
+
+    private StockLedger() {
+        fileManager = new FileManager();
+        cargar();
+    }
+
+    /**
+     * Obtiene la instancia única (carga los archivos la primera vez)
+     */
+    public static synchronized StockLedger getInstance() {
+        if (instance == null) {
+            instance = new StockLedger();
+        }
+        return instance;
+    }
+
+    /**
+     * Carga el catálogo y reconstruye los saldos: parte de la última foto
+     * válida (si existe) y reproduce solo los movimientos posteriores
+     */
+    private synchronized void cargar() {
+        long inicio = System.nanoTime();
+
+        if (fileManager.fileExists(PRODUCTOS_FILE)) {
+            fileManager.forEachLine(PRODUCTOS_FILE, linea -> {
+                Producto producto = Producto.fromRegistro(linea);
+                if (producto != null && !indiceSku.containsKey(producto.getSku())) {
+                    indexar(producto);
+                }
+            });
+        }
+
+        long tamanoLog = fileManager.fileExists(MOVIMIENTOS_FILE) ? fileManager.getFileSize(MOVIMIENTOS_FILE) : 0;
+        long offset = 0;
+
+        StockSnapshot snapshot = StockSnapshot.leer(SNAPSHOT_FILE, tamanoLog);
+        if (snapshot != null && terminaEnLinea(snapshot.getOffsetLog())) {
+            String[] skus = snapshot.getSkus();
+            long[] saldosFoto = snapshot.getSaldos();
+            for (int i = 0; i < skus.length; i++) {
+                Integer slot = indiceSku.get(skus[i]);
+                if (slot != null) {
+                    saldos[slot] = saldosFoto[i];
+                }
+            }
+            offset = snapshot.getOffsetLog();
+            movimientosRegistrados = snapshot.getMovimientos();
+            movimientosEnSnapshot = movimientosRegistrados;
+        }
+
+        if (tamanoLog > offset) {
+            fileManager.forEachLineFrom(MOVIMIENTOS_FILE, offset, linea -> {
+                MovimientoStock movimiento = MovimientoStock.fromRegistro(linea);
+                Integer slot = movimiento != null ? indiceSku.get(movimiento.getSku()) : null;
+                if (slot != null) {
+                    saldos[slot] += movimiento.getDelta();
+                    movimientosRegistrados++;
+                }
+            });
+        }
+        movimientosEscritos = movimientosRegistrados;
+
+        LOG.info("StockLedger cargado", "productos", productos.size(), "movimientos", movimientosRegistrados,
+                "ms", (System.nanoTime() - inicio) / 1_000_000);
+        LOG.info("Log de movimientos reproducido", "bytes", tamanoLog, "reproducidos", tamanoLog - offset,
+                "desdeSnapshot", offset > 0);
+
+        if (movimientosRegistrados - movimientosEnSnapshot >= SNAPSHOT_INTERVAL) {
+            programarSnapshot();
+        }
+    }
+
+    /**
+     * Verifica que la posición de la foto caiga justo después de un salto de línea
+     */
+    private boolean terminaEnLinea(long offset) {
+        if (offset == 0) {
+            return true;
+        }
+        try (RandomAccessFile log = new RandomAccessFile(MOVIMIENTOS_FILE, "r")) {
+            log.seek(offset - 1);
+            if (log.read() == '\n') {
+                return true;
+            }
+        } catch (IOException e) {
+            LOG.error("Error al validar snapshot de stock", e);
+        }
+        LOG.warn("Snapshot de stock no coincide con movimientos.txt, se ignora", "offset", offset);
+        return false;
+    }
+
+    /**
+     * Posición de la primera línea de movimientos.txt con timestamp >= desde.
+     * El log se agrega en orden de llegada, así que basta una búsqueda
+     * binaria sobre posiciones en bytes en lugar de leerlo desde el inicio
+     */
+    private long offsetDesde(long desde, long tamano) {
+        long bajo = 0;
+        long alto = tamano;
+        try (RandomAccessFile log = new RandomAccessFile(MOVIMIENTOS_FILE, "r")) {
+            while (bajo < alto) {
+                long medio = (bajo + alto) >>> 1;
+                long linea = medio;
+                if (medio > 0) {
+                    // Avanzar al inicio de la línea que empieza en medio o después
+                    log.seek(medio - 1);
+                    log.readLine();
+                    linea = log.getFilePointer();
+                }
+                if (linea >= alto) {
+                    alto = medio;
+                    continue;
+                }
+                log.seek(linea);
+                String texto = log.readLine();
+                MovimientoStock movimiento = texto != null ? MovimientoStock.fromRegistro(texto) : null;
+                if (movimiento != null && movimiento.getTimestamp() < desde) {
+                    bajo = log.getFilePointer();
+                } else {
+                    alto = linea;
+                }
+            }
+            return bajo;
+        } catch (IOException e) {
+            LOG.error("Error al buscar en movimientos.txt", "archivo", MOVIMIENTOS_FILE, e);
+            return 0;
+        }
+    }
+
+    /**
+     * Toma una foto de los saldos que coincide con lo escrito en el archivo y
+     * la escribe en segundo plano. Se llama con la escritura tomada
+     */
+    private void programarSnapshot() {
+        long offset = fileManager.getFileSize(MOVIMIENTOS_FILE);
+        String[] skus;
+        long[] foto;
+        synchronized (this) {
+            skus = new String[productos.size()];
+            for (int i = 0; i < skus.length; i++) {
+                skus[i] = productos.get(i).getSku();
+            }
+            foto = saldosEscritos(skus.length);
+        }
+        StockSnapshot snapshot = new StockSnapshot(offset, movimientosEscritos, skus, foto);
+        movimientosEnSnapshot = movimientosEscritos;
+
+        snapshotExecutor.execute(() -> guardarSnapshot(snapshot));
+    }
+
+    /**
+     * Saldos sin los movimientos pendientes de escribir. Se llama con el ledger bloqueado
+     */
+    private long[] saldosEscritos(int cantidad) {
+        long[] foto = Arrays.copyOf(saldos, cantidad);
+        for (Pendiente pendiente : pendientes) {
+            foto[pendiente.slot] -= pendiente.movimiento.getDelta();
+        }
+        return foto;
+    }
+
+    private void guardarSnapshot(StockSnapshot snapshot) {
+        try {
+            snapshot.escribir(SNAPSHOT_FILE);
+        } catch (IOException e) {
+            LOG.error("Error al escribir snapshot de stock", e);
+        }
+    }
+
+    /**
+     * Escribe una foto final (por ejemplo, al cerrar la aplicación)
+     */
+    public void cerrar() {
+        escritura.lock();
+        try {
+            escribirLote();
+            if (movimientosEscritos > movimientosEnSnapshot && fileManager.fileExists(MOVIMIENTOS_FILE)) {
+                programarSnapshot();
+            }
+        } finally {
+            escritura.unlock();
+        }
+        snapshotExecutor.shutdown();
+        try {
+            snapshotExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int indexar(Producto producto) {
+        int slot = productos.size();
+        productos.add(producto);
+        indiceSku.put(producto.getSku(), slot);
+        if (slot == saldos.length) {
+            saldos = Arrays.copyOf(saldos, saldos.length * 2);
+        }
+        return slot;
+    }
+
+    /**
+     * Agrega un producto nuevo al catálogo (con stock 0)
+     */
+    public synchronized void agregarProducto(Producto producto) {
+        String sku = producto.getSku();
+        if (sku == null || sku.isEmpty() || sku.indexOf('|') >= 0) {
+            throw new IllegalArgumentException("SKU inválido: " + sku);
+        }
+        if (contieneSeparador(producto.getNombre()) || contieneSeparador(producto.getCategoria())
+                || contieneSeparador(producto.getProveedorId())) {
+            throw new IllegalArgumentException("Los campos no pueden contener '|' ni saltos de línea");
+        }
+        if (indiceSku.containsKey(sku)) {
+            throw new IllegalArgumentException("Ya existe un producto con SKU " + sku);
+        }
+
+        if (!fileManager.writeToFile(PRODUCTOS_FILE, producto.toRegistro() + "\n", true)) {
+            throw new UncheckedIOException(new IOException("No se pudo guardar el producto " + sku));
+        }
+        indexar(producto);
+
+        for (StockListener listener : listeners) {
+            listener.onProductoAgregado(producto);
+        }
+    }
+
+    private static boolean contieneSeparador(String valor) {
+        return valor != null && (valor.indexOf('|') >= 0 || valor.indexOf('\n') >= 0);
+    }
+
+    public void registrarEntrada(String sku, long cantidad, String nota) {
+        registrar(new MovimientoStock(System.currentTimeMillis(), sku, MovimientoStock.Tipo.ENTRADA, cantidad, nota));
+    }
+
+    public void registrarSalida(String sku, long cantidad, String nota) {
+        registrar(new MovimientoStock(System.currentTimeMillis(), sku, MovimientoStock.Tipo.SALIDA, cantidad, nota));
+    }
+
+    /**
+     * Registra la diferencia (con signo) encontrada en un conteo físico
+     */
+    public void registrarAjuste(String sku, long diferencia, String nota) {
+        registrar(new MovimientoStock(System.currentTimeMillis(), sku, MovimientoStock.Tipo.AJUSTE, diferencia, nota));
+    }
+
+    /**
+     * Valida y agrega un movimiento al libro, actualizando el saldo en O(1)
+     * Retorna el nuevo saldo del producto
+     *
+     * @throws UncheckedIOException si no se pudo escribir (el saldo queda como antes)
+     */
+    public long registrar(MovimientoStock movimiento) {
+        long saldo;
+        Pendiente propio;
+        synchronized (this) {
+            Integer slot = indiceSku.get(movimiento.getSku());
+            if (slot == null) {
+                throw new IllegalArgumentException("No existe el producto " + movimiento.getSku());
+            }
+            if (movimiento.getTipo() != MovimientoStock.Tipo.AJUSTE && movimiento.getCantidad() <= 0) {
+                throw new IllegalArgumentException("La cantidad debe ser mayor que cero");
+            }
+            if (movimiento.getNota().indexOf('\n') >= 0) {
+                throw new IllegalArgumentException("La nota no puede contener saltos de línea");
+            }
+
+            saldo = saldos[slot] + movimiento.getDelta();
+            if (saldo < 0) {
+                throw new IllegalStateException("Stock insuficiente para " + movimiento.getSku()
+                        + " (disponible: " + saldos[slot] + ")");
+            }
+
+            saldos[slot] = saldo;
+            movimientosRegistrados++;
+            propio = new Pendiente(movimiento, saldo, slot);
+            pendientes.add(propio);
+        }
+
+        escritura.lock();
+        try {
+            // Si otro hilo ya escribió (o descartó) este movimiento en su lote no queda nada por hacer
+            if (propio.estado == Pendiente.PENDIENTE) {
+                escribirLote();
+                if (movimientosEscritos - movimientosEnSnapshot >= SNAPSHOT_INTERVAL) {
+                    programarSnapshot();
+                }
+            }
+            if (propio.estado == Pendiente.FALLIDO) {
+                throw new UncheckedIOException(new IOException("No se pudo escribir el movimiento de "
+                        + movimiento.getSku() + " en " + MOVIMIENTOS_FILE));
+            }
+        } finally {
+            escritura.unlock();
+        }
+        return saldo;
+    }
+
+    /**
+     * Escribe todos los movimientos pendientes con un solo agregado al archivo
+     * y los notifica en el orden en que se aplicaron. Si el agregado falla los
+     * descarta junto con los que se aplicaron después. Se llama con la escritura tomada
+     */
+    private void escribirLote() {
+        List<Pendiente> lote;
+        synchronized (this) {
+            if (pendientes.isEmpty()) {
+                return;
+            }
+            lote = pendientes;
+            pendientes = new ArrayList<>();
+        }
+
+        StringBuilder lineas = new StringBuilder(lote.size() * 64);
+        for (Pendiente pendiente : lote) {
+            lineas.append(pendiente.movimiento.toRegistro()).append('\n');
+        }
+        if (!fileManager.writeToFile(MOVIMIENTOS_FILE, lineas.toString(), true)) {
+            descartar(lote);
+            return;
+        }
+        movimientosEscritos += lote.size();
+
+        for (Pendiente pendiente : lote) {
+            pendiente.estado = Pendiente.ESCRITO;
+            for (StockListener listener : listeners) {
+                try {
+                    listener.onMovimiento(pendiente.movimiento, pendiente.saldo);
+                } catch (RuntimeException e) {
+                    // El lote incluye movimientos de otros hilos: un listener
+                    // que falla no debe dejar a los demás sin notificar
+                    LOG.error("Error en listener de stock", "sku", pendiente.movimiento.getSku(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Deshace los saldos del lote que no se pudo escribir y de los movimientos
+     * registrados después (se validaron contra esos saldos): el ledger vuelve
+     * a lo que hay en el archivo. Se llama con la escritura tomada
+     */
+    private void descartar(List<Pendiente> lote) {
+        List<Pendiente> descartados;
+        synchronized (this) {
+            descartados = new ArrayList<>(lote);
+            descartados.addAll(pendientes);
+            pendientes = new ArrayList<>();
+            for (Pendiente pendiente : descartados) {
+                saldos[pendiente.slot] -= pendiente.movimiento.getDelta();
+                pendiente.estado = Pendiente.FALLIDO;
+            }
+            movimientosRegistrados = movimientosEscritos;
+        }
+        LOG.warn("Movimientos descartados por un error de escritura", "movimientos", descartados.size());
+    }
+
+    /**
+     * Stock actual del producto en O(1); 0 si el SKU no existe
+     */
+    public synchronized long getStock(String sku) {
+        Integer slot = indiceSku.get(sku);
+        return slot == null ? 0 : saldos[slot];
+    }
+
+    public synchronized Producto getProducto(String sku) {
+        Integer slot = indiceSku.get(sku);
+        return slot == null ? null : productos.get(slot);
+    }
+
+    public synchronized List<Producto> getProductos() {
+        return Collections.unmodifiableList(new ArrayList<>(productos));
+    }
+
+    public synchronized int getCantidadProductos() {
+        return productos.size();
+    }
+
+    public synchronized long getMovimientosRegistrados() {
+        return movimientosRegistrados;
+    }
+
+    public void addListener(StockListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Registra un listener entregándole antes el saldo de cada producto sin
+     * los movimientos pendientes de notificar, que le llegarán después por
+     * onMovimiento: ningún movimiento queda fuera ni se cuenta dos veces
+     */
+    public void addListener(StockListener listener, BiConsumer<String, Long> saldoInicial) {
+        addListener(listener, saldoInicial, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Igual que addListener(listener, saldoInicial), pero antes de los saldos
+     * entrega los movimientos ya escritos desde el instante indicado (por
+     * ejemplo, para reconstruir un ritmo de consumo al arrancar). Con la
+     * escritura tomada lo escrito es exactamente lo anterior a los pendientes
+     */
+    public void addListener(StockListener listener, BiConsumer<String, Long> saldoInicial,
+                            long historialDesde, Consumer<MovimientoStock> historial) {
+        escritura.lock();
+        try {
+            synchronized (this) {
+                if (historial != null && fileManager.fileExists(MOVIMIENTOS_FILE)) {
+                    long tamano = fileManager.getFileSize(MOVIMIENTOS_FILE);
+                    fileManager.forEachLineFrom(MOVIMIENTOS_FILE, offsetDesde(historialDesde, tamano), linea -> {
+                        MovimientoStock movimiento = MovimientoStock.fromRegistro(linea);
+                        if (movimiento != null && movimiento.getTimestamp() >= historialDesde
+                                && indiceSku.containsKey(movimiento.getSku())) {
+                            historial.accept(movimiento);
+                        }
+                    });
+                }
+                long[] foto = saldosEscritos(productos.size());
+                for (int slot = 0; slot < foto.length; slot++) {
+                    saldoInicial.accept(productos.get(slot).getSku(), foto[slot]);
+                }
+                listeners.add(listener);
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    public void removeListener(StockListener listener) {
+        listeners.remove(listener);
+    }
+
+    private static final class Pendiente {
+        static final int PENDIENTE = 0;
+        static final int ESCRITO = 1;
+        static final int FALLIDO = 2;
+
+        final MovimientoStock movimiento;
+        final long saldo;
+        final int slot;
+        // Se cambia y se lee con la escritura tomada
+        int estado = PENDIENTE;
+
+        Pendiente(MovimientoStock movimiento, long saldo, int slot) {
+            this.movimiento = movimiento;
+            this.saldo = saldo;
+            this.slot = slot;
+        }
+    }
+
+    /**
+     * Interfaz para componentes que reaccionan a cada movimiento de stock
+     * onMovimiento se invoca fuera del bloqueo del ledger pero desde el hilo
+     * que escribe el lote (no siempre el que registró el movimiento), en el
+     * orden en que se aplicaron: la implementación debe ser breve
+     */
+    public interface StockListener {
+        void onMovimiento(MovimientoStock movimiento, long nuevoSaldo);
+
+        default void onProductoAgregado(Producto producto) {
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.programacion.inventario.util;
+
+import com.programacion.inventario.model.MovimientoStock;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * StockReservationService - Reservas de stock concurrentes sin sobreventa
+ *
+ * Cada SKU tiene un contador de unidades disponibles (stock menos reservas)
+ * que se actualiza con compare-and-set, así que varias cajas pueden reservar
+ * el mismo producto a la vez sin bloqueos y sin perder actualizaciones.
+ *
+ * Flujo de una venta:
+ * - reservar(): descuenta del disponible; falla si no alcanza
+ * - confirmar(): registra la SALIDA en el StockLedger
+ * - liberar(): devuelve las unidades al disponible
+ *
+ * Los demás movimientos del ledger (entradas, ajustes, salidas directas)
+ * llegan por StockListener y se aplican al mismo contador.
+ */
+public class StockReservationService implements StockLedger.StockListener {
+
+    private static StockReservationService instance;
+
+    private final StockLedger ledger;
+
+    // SKU -> unidades disponibles para reservar
+    private final Map<String, AtomicLong> disponibles = new ConcurrentHashMap<>();
+
+    // Reservas pendientes de confirmar o liberar
+    private final Map<Long, Reserva> reservas = new ConcurrentHashMap<>();
+    private final AtomicLong secuencia = new AtomicLong();
+
+    // Salidas que registra confirmar(), para no descontarlas dos veces. El
+    // ledger puede notificarlas desde otro hilo (el que escribe el lote), así
+    // que se marcan por instancia y no por hilo
+    private final Set<MovimientoStock> confirmando = ConcurrentHashMap.newKeySet();
+
+    private StockReservationService(StockLedger ledger) {
+        this.ledger = ledger;
+    }
+
+    /**
+     * Crea el servicio y lo suscribe al ledger una vez construido
+     */
+    public static StockReservationService crear(StockLedger ledger) {
+        StockReservationService servicio = new StockReservationService(ledger);
+        ledger.addListener(servicio, (sku, saldo) -> servicio.disponibles.put(sku, new AtomicLong(saldo)));
+        return servicio;
+    }
+
+    /**
+     * Obtiene la instancia única asociada al StockLedger de la aplicación
+     */
+    public static synchronized StockReservationService getInstance() {
+        if (instance == null) {
+            instance = crear(StockLedger.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Reserva unidades de un SKU
+     *
+     * @return id de la reserva, o -1 si no hay stock disponible suficiente
+     */
+    public long reservar(String sku, long cantidad) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad debe ser mayor que cero");
+        }
+
+        AtomicLong disponible = contador(sku);
+        long actual;
+        do {
+            actual = disponible.get();
+            if (actual < cantidad) {
+                return -1;
+            }
+        } while (!disponible.compareAndSet(actual, actual - cantidad));
+
+        long id = secuencia.incrementAndGet();
+        reservas.put(id, new Reserva(sku, cantidad, System.currentTimeMillis()));
+        return id;
+    }
+
+    /**
+     * Confirma la reserva registrando la salida en el ledger
+     *
+     * @return false si la reserva no existe (ya confirmada, liberada o vencida)
+     */
+    public boolean confirmar(long idReserva, String nota) {
+        Reserva reserva = reservas.remove(idReserva);
+        if (reserva == null) {
+            return false;
+        }
+
+        MovimientoStock salida = new MovimientoStock(System.currentTimeMillis(), reserva.sku,
+                MovimientoStock.Tipo.SALIDA, reserva.cantidad, nota);
+        confirmando.add(salida);
+        try {
+            ledger.registrar(salida);
+            return true;
+        } catch (RuntimeException e) {
+            // El ledger rechazó la salida: las unidades vuelven al disponible
+            contador(reserva.sku).addAndGet(reserva.cantidad);
+            throw e;
+        } finally {
+            confirmando.remove(salida);
+        }
+    }
+
+    /**
+     * Libera una reserva devolviendo sus unidades al disponible
+     */
+    public boolean liberar(long idReserva) {
+        Reserva reserva = reservas.remove(idReserva);
+        if (reserva == null) {
+            return false;
+        }
+        contador(reserva.sku).addAndGet(reserva.cantidad);
+        return true;
+    }
+
+    /**
+     * Reserva y confirma en un solo paso (venta directa)
+     *
+     * @return false si no hay stock disponible suficiente
+     */
+    public boolean vender(String sku, long cantidad, String nota) {
+        long id = reservar(sku, cantidad);
+        return id >= 0 && confirmar(id, nota);
+    }
+
+    /**
+     * Libera las reservas con más antigüedad que la indicada
+     * Retorna el número de reservas liberadas
+     */
+    public int liberarVencidas(long edadMaximaMs) {
+        long limite = System.currentTimeMillis() - edadMaximaMs;
+        int liberadas = 0;
+        Iterator<Map.Entry<Long, Reserva>> it = reservas.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Reserva> entry = it.next();
+            if (entry.getValue().creada < limite && liberar(entry.getKey())) {
+                liberadas++;
+            }
+        }
+        return liberadas;
+    }
+
+    public long getDisponible(String sku) {
+        AtomicLong disponible = disponibles.get(sku);
+        return disponible == null ? 0 : disponible.get();
+    }
+
+    public int getReservasPendientes() {
+        return reservas.size();
+    }
+
+    @Override
+    public void onMovimiento(MovimientoStock movimiento, long nuevoSaldo) {
+        if (confirmando.contains(movimiento)) {
+            return; // Ya se descontó al reservar
+        }
+        contador(movimiento.getSku()).addAndGet(movimiento.getDelta());
+    }
+
+    /**
+     * Un SKU que no estaba en el saldo inicial es un producto nuevo (saldo 0)
+     * cuyos movimientos llegarán todos por onMovimiento
+     */
+    private AtomicLong contador(String sku) {
+        return disponibles.computeIfAbsent(sku, k -> new AtomicLong());
+    }
+
+    private static final class Reserva {
+        final String sku;
+        final long cantidad;
+        final long creada;
+
+        Reserva(String sku, long cantidad, long creada) {
+            this.sku = sku;
+            this.cantidad = cantidad;
+            this.creada = creada;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.programacion.inventario.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * StockSnapshot - Foto binaria de los saldos de stock
+ *
+ * Guarda el saldo de cada SKU junto con la posición (en bytes) de
+ * movimientos.txt hasta la que ese saldo es válido. Al arrancar, el
+ * StockLedger carga la foto y solo reproduce los movimientos posteriores.
+ *
+ * Formato: MAGIC, VERSION, offsetLog, movimientos, cantidad de SKUs,
+ * pares (sku, saldo) y un CRC32 final de todo lo anterior. Cualquier
+ * inconsistencia hace que leer() retorne null y se reproduzca el log completo.
+ */
+public class StockSnapshot {
+
+    private static final Log LOG = Log.get(StockSnapshot.class);
+
+    private static final int MAGIC = 0x494E5653; // "INVS"
+    private static final int VERSION = 1;
+
+    private final long offsetLog;
+    private final long movimientos;
+    private final String[] skus;
+    private final long[] saldos;
+
+    public StockSnapshot(long offsetLog, long movimientos, String[] skus, long[] saldos) {
+        this.offsetLog = offsetLog;
+        this.movimientos = movimientos;
+        this.skus = skus;
+        this.saldos = saldos;
+    }
+
+    public long getOffsetLog() { return offsetLog; }
+    public long getMovimientos() { return movimientos; }
+    public String[] getSkus() { return skus; }
+    public long[] getSaldos() { return saldos; }
+
+    /**
+     * Escribe la foto en un archivo temporal y lo mueve de forma atómica
+     * para que un corte a mitad de escritura nunca deje una foto a medias
+     */
+    public void escribir(String filename) throws IOException {
+        Path destino = Paths.get(filename);
+        Path temporal = Paths.get(filename + ".tmp");
+
+        CRC32 crc = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+            DataOutputStream datos = new DataOutputStream(new CheckedOutputStream(out, crc));
+            datos.writeInt(MAGIC);
+            datos.writeInt(VERSION);
+            datos.writeLong(offsetLog);
+            datos.writeLong(movimientos);
+            datos.writeInt(skus.length);
+            for (int i = 0; i < skus.length; i++) {
+                datos.writeUTF(skus[i]);
+                datos.writeLong(saldos[i]);
+            }
+            datos.flush();
+            out.writeLong(crc.getValue());
+        }
+
+        try {
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Sin movimiento atómico una foto a medias se descarta al leerla por el CRC
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Lee y valida una foto
+     *
+     * @param tamanoLog Tamaño actual de movimientos.txt; si es menor que el
+     *                  offset guardado el log fue reescrito y la foto no sirve
+     * @return la foto, o null si no existe o no es válida
+     */
+    public static StockSnapshot leer(String filename, long tamanoLog) {
+        Path origen = Paths.get(filename);
+        if (!Files.exists(origen)) {
+            return null;
+        }
+
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(origen)))) {
+            DataInputStream datos = new DataInputStream(new CheckedInputStream(in, crc));
+            if (datos.readInt() != MAGIC || datos.readInt() != VERSION) {
+                LOG.warn("Snapshot de stock con formato desconocido, se ignora", "archivo", origen);
+                return null;
+            }
+
+            long offsetLog = datos.readLong();
+            long movimientos = datos.readLong();
+            int cantidad = datos.readInt();
+            // Cada entrada ocupa al menos 10 bytes: evita reservar arreglos enormes si la cabecera está dañada
+            if (cantidad < 0 || cantidad > Files.size(origen) / 10) {
+                LOG.warn("Snapshot de stock corrupto (cabecera), se ignora", "archivo", origen);
+                return null;
+            }
+            if (offsetLog < 0 || movimientos < 0 || offsetLog > tamanoLog) {
+                LOG.warn("Snapshot de stock no coincide con movimientos.txt, se ignora", "offset", offsetLog);
+                return null;
+            }
+
+            String[] skus = new String[cantidad];
+            long[] saldos = new long[cantidad];
+            for (int i = 0; i < cantidad; i++) {
+                skus[i] = datos.readUTF();
+                saldos[i] = datos.readLong();
+            }
+
+            long esperado = crc.getValue();
+            if (in.readLong() != esperado) {
+                LOG.warn("Snapshot de stock corrupto (CRC), se ignora", "archivo", origen);
+                return null;
+            }
+            return new StockSnapshot(offsetLog, movimientos, skus, saldos);
+        } catch (IOException e) {
+            LOG.error("Error al leer snapshot de stock", "archivo", origen, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.programacion.inventario.util;
+
+import com.programacion.inventario.model.MovimientoStock;
+import com.programacion.inventario.model.Producto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SystemStatistics - Contadores del sistema mantenidos en cada escritura
+ *
+ * Los archivos de datos se recorren una sola vez al crear la instancia;
+ * a partir de ahí cada alta, migración o movimiento de stock actualiza su
+ * contador (LongAdder), así que el dashboard los lee en O(1). Si otra
+ * instancia o un script cambia usuarios o proveedores, DataWatcher avisa y
+ * ese contador se vuelve a calcular desde el archivo.
+ *
+ * Los suscriptores se notifican como máximo cada NOTIFY_INTERVAL_MS y solo
+ * si algo cambió, para no saturar la interfaz durante operaciones masivas.
+ */
+public class SystemStatistics implements StockLedger.StockListener {
+
+    private static final Log LOG = Log.get(SystemStatistics.class);
+
+    private static SystemStatistics instance;
+
+    private static final long NOTIFY_INTERVAL_MS = 250;
+
+    private final LongAdder usuarios = new LongAdder();
+    private final LongAdder usuariosTextoPlano = new LongAdder();
+    private final LongAdder proveedores = new LongAdder();
+    private final LongAdder productos = new LongAdder();
+    private final LongAdder valorStockCentavos = new LongAdder();
+
+    // Versión de los contadores: cambia con cada actualización
+    private final AtomicLong version = new AtomicLong();
+    private long versionNotificada;
+
+    private final StockLedger ledger;
+    private final Set<StatisticsListener> listeners = Collections.newSetFromMap(new WeakHashMap<>());
+
+    // Se guardan en campos porque DataWatcher los referencia de forma débil
+    private final DataWatcher.FileListener usuariosListener = this::recontarUsuarios;
+    private final DataWatcher.FileListener proveedoresListener = this::recontarProveedores;
+
+    private SystemStatistics() {
+        long inicio = System.nanoTime();
+
+        recontarUsuarios();
+        recontarProveedores();
+
+        ledger = StockLedger.getInstance();
+        ledger.addListener(this, (sku, saldo) -> {
+            productos.increment();
+            Producto producto = ledger.getProducto(sku);
+            if (producto != null) {
+                valorStockCentavos.add(centavos(producto, saldo));
+            }
+        });
+
+        LOG.info("Estadísticas inicializadas", "ms", (System.nanoTime() - inicio) / 1_000_000);
+
+        ScheduledExecutorService notifier = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "estadisticas-notifier");
+            thread.setDaemon(true);
+            return thread;
+        });
+        notifier.scheduleWithFixedDelay(this::notificarSiCambio, NOTIFY_INTERVAL_MS, NOTIFY_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public static synchronized SystemStatistics getInstance() {
+        if (instance == null) {
+            instance = new SystemStatistics();
+            instance.vigilarArchivos();
+        }
+        return instance;
+    }
+
+    /**
+     * Se suscribe después de construir la instancia: los avisos llegan desde el hilo de vigilancia
+     */
+    private void vigilarArchivos() {
+        DataWatcher watcher = DataWatcher.getInstance();
+        for (String archivo : Repositorios.archivos("usuarios")) {
+            watcher.addListener(archivo, false, usuariosListener);
+        }
+        for (String archivo : Repositorios.archivos("proveedores")) {
+            watcher.addListener(archivo, false, proveedoresListener);
+        }
+    }
+
+    // ===== RECUENTOS DESDE LOS ARCHIVOS =====
+
+    private void recontarUsuarios() {
+        long[] cuenta = new long[2];
+        Repositorios.usuarios().forEach(registro -> {
+            cuenta[0]++;
+            if (registro.isTextoPlano()) {
+                cuenta[1]++;
+            }
+        });
+        ajustar(usuarios, cuenta[0]);
+        ajustar(usuariosTextoPlano, cuenta[1]);
+    }
+
+    /**
+     * Cuenta con el índice del repositorio (compartido con las pantallas de
+     * proveedores): las líneas inválidas o con id repetido no suman
+     */
+    private void recontarProveedores() {
+        ajustar(proveedores, Repositorios.proveedores().contar());
+    }
+
+    /**
+     * Lleva el contador al valor leído del archivo sin reemplazar el LongAdder
+     */
+    private void ajustar(LongAdder contador, long valor) {
+        long diferencia = valor - contador.sum();
+        if (diferencia != 0) {
+            contador.add(diferencia);
+            version.incrementAndGet();
+        }
+    }
+
+    private static long centavos(Producto producto, long unidades) {
+        return Math.round(producto.getPrecio() * 100) * unidades;
+    }
+
+    // ===== ACTUALIZACIONES (se llaman tras cada escritura) =====
+
+    public void usuarioRegistrado(boolean textoPlano) {
+        usuarios.increment();
+        if (textoPlano) {
+            usuariosTextoPlano.increment();
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Usuarios que pasaron de texto plano a formato cifrado
+     */
+    public void usuariosMigrados(long cantidad) {
+        if (cantidad <= 0) return;
+        usuariosTextoPlano.add(-cantidad);
+        version.incrementAndGet();
+    }
+
+    public void proveedoresAgregados(long cantidad) {
+        if (cantidad <= 0) return;
+        proveedores.add(cantidad);
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void onMovimiento(MovimientoStock movimiento, long nuevoSaldo) {
+        Producto producto = ledger.getProducto(movimiento.getSku());
+        if (producto != null) {
+            valorStockCentavos.add(centavos(producto, movimiento.getDelta()));
+            version.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void onProductoAgregado(Producto producto) {
+        productos.increment();
+        version.incrementAndGet();
+    }
+
+    // ===== LECTURAS O(1) =====
+
+    public long getUsuarios() { return usuarios.sum(); }
+    public long getUsuariosTextoPlano() { return usuariosTextoPlano.sum(); }
+    public long getProveedores() { return proveedores.sum(); }
+    public long getProductos() { return productos.sum(); }
+
+    public double getValorStock() {
+        return valorStockCentavos.sum() / 100.0;
+    }
+
+    // ===== SUSCRIPCIÓN =====
+
+    /**
+     * Se guarda con referencia débil: el suscriptor debe conservar su listener
+     */
+    public void addListener(StatisticsListener listener) {
+        synchronized (listeners) {
+            listeners.add(listener);
+        }
+    }
+
+    private void notificarSiCambio() {
+        long actual = version.get();
+        if (actual == versionNotificada) {
+            return;
+        }
+        versionNotificada = actual;
+
+        List<StatisticsListener> copia;
+        synchronized (listeners) {
+            copia = new ArrayList<>(listeners);
+        }
+        for (StatisticsListener listener : copia) {
+            try {
+                listener.onEstadisticasActualizadas();
+            } catch (RuntimeException e) {
+                LOG.error("Error notificando estadísticas", "listener", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    /**
+     * Interfaz para pantallas que muestran estadísticas (se invoca fuera del hilo de JavaFX)
+     */
+    public interface StatisticsListener {
+        void onEstadisticasActualizadas();
+    }
+}
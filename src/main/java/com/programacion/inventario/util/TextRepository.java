@@ -0,0 +1,743 @@
+package com.programacion.inventario.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * TextRepository - Repository sobre un archivo de texto (un registro por línea)
+ *
+ * En memoria solo se guarda el índice clave -> posición en bytes de la línea:
+ * buscar es una lectura posicional de una línea y agregar registros nuevos es
+ * una escritura al final del archivo. Reemplazar o eliminar un registro
+ * reescribe el archivo completo, y un recorrido por rango ordena las claves
+ * que caen en el rango; son los costos propios del formato de líneas.
+ *
+ * Si una clave aparece en varias líneas vale la primera; las líneas inválidas
+ * se omiten y desaparecen en la siguiente reescritura.
+ *
+ * Cada operación toma el bloqueo del archivo (ver FileLocks) y, si otra
+ * instancia o un script lo modificó desde la operación anterior (cambió su
+ * versión, su tamaño o su fecha de modificación), vuelve a cargar el índice
+ * antes de seguir.
+ *
+ * Registros enmarcados (-Dinventario.registros.enmarcados=true): el archivo
+ * empieza con MAGIC y cada línea lleva delante su largo y su CRC32C (4 bytes
+ * cada uno). Así una línea cortada por una caída a mitad de escritura o un
+ * tramo dañado se detectan en vez de interpretarse como un registro. Al
+ * abrir el archivo (con el bloqueo exclusivo) se trunca un registro
+ * incompleto al final y se informan los tramos dañados, que se saltan
+ * buscando el siguiente registro válido. El formato de cada archivo se
+ * reconoce por MAGIC; si no coincide con la propiedad se convierte al abrir.
+ */
+// Las lecturas solo toman el bloqueo compartido: el recurso no se usa dentro del try
+@SuppressWarnings("try")
+public class TextRepository<K extends Comparable<? super K>, V> implements Repository<K, V> {
+
+    private static final Log LOG = Log.get(TextRepository.class);
+
+    public static final boolean ENMARCADOS = Boolean.getBoolean("inventario.registros.enmarcados");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] MAGIC = "INVREG1\n".getBytes(StandardCharsets.US_ASCII);
+    // Largo (4) + CRC32C (4)
+    private static final int CABECERA_REGISTRO = 8;
+
+    private static final Metrics.Contador BYTES_LEIDOS = Metrics.getInstance().contador("repositorio.bytesLeidos");
+    private static final Metrics.Contador TRAMOS_DANADOS = Metrics.getInstance().contador("registros.tramosDanados");
+    private static final Metrics.Contador BYTES_TRUNCADOS = Metrics.getInstance().contador("registros.bytesTruncados");
+
+    private final Path archivo;
+    private final Formato<K, V> formato;
+    // Formato con el que se escriben los archivos nuevos y al que se convierte al abrir
+    private final boolean enmarcado;
+    private final Map<K, Long> indice = new HashMap<>();
+    private final CRC32C crc = new CRC32C();
+
+    private long tamano;
+    // Formato del archivo actual
+    private boolean archivoEnmarcado;
+    // El archivo no termina en salto de línea: la próxima escritura lo agrega
+    private boolean sinSaltoFinal;
+    // Inicio de un registro enmarcado incompleto al final (-1 = no hay)
+    private long colaIncompleta = -1;
+    private FileChannel lector;
+    // Versión y fecha de modificación con las que se cargó el índice (-1 = sin cargar)
+    private long version = -1;
+    private FileTime modificado;
+
+    public TextRepository(String archivo, Formato<K, V> formato) {
+        this(archivo, formato, ENMARCADOS);
+    }
+
+    public TextRepository(String archivo, Formato<K, V> formato, boolean enmarcado) {
+        this.archivo = Paths.get(archivo);
+        this.formato = formato;
+        this.enmarcado = enmarcado;
+        this.archivoEnmarcado = enmarcado;
+        try (FileLocks.Bloqueo bloqueo = bloquear(true)) {
+            if (tamano > 0 && archivoEnmarcado != enmarcado) {
+                reescribir(Collections.emptyMap(), null, Collections.emptyMap());
+                escrito(bloqueo);
+                LOG.info("Archivo convertido", "archivo", this.archivo.getFileName(),
+                        "enmarcado", enmarcado, "registros", indice.size());
+            }
+        }
+    }
+
+    /**
+     * Toma el bloqueo del archivo y recarga el índice si quedó desactualizado;
+     * con el bloqueo exclusivo además trunca un registro incompleto al final
+     */
+    private FileLocks.Bloqueo bloquear(boolean exclusivo) {
+        FileLocks.Bloqueo bloqueo = exclusivo ? FileLocks.exclusivo(archivo) : FileLocks.compartido(archivo);
+        try {
+            BasicFileAttributes atributos = atributos();
+            long tamanoActual = atributos == null ? 0 : atributos.size();
+            FileTime modificadoActual = atributos == null ? null : atributos.lastModifiedTime();
+            if (bloqueo.version() != version || tamanoActual != tamano || !Objects.equals(modificadoActual, modificado)) {
+                if (version >= 0) {
+                    LOG.debug("Archivo modificado fuera de este repositorio, se recarga el índice",
+                            "archivo", archivo.getFileName());
+                }
+                cargarIndice();
+                version = bloqueo.version();
+                modificado = modificadoActual;
+            }
+            if (exclusivo && colaIncompleta >= 0) {
+                truncarCola();
+                escrito(bloqueo);
+            }
+        } catch (RuntimeException e) {
+            bloqueo.close();
+            throw e;
+        }
+        return bloqueo;
+    }
+
+    /**
+     * Marca el índice como vigente después de escribir el archivo
+     */
+    private void escrito(FileLocks.Bloqueo bloqueo) {
+        version = bloqueo.incrementarVersion();
+        BasicFileAttributes atributos = atributos();
+        modificado = atributos == null ? null : atributos.lastModifiedTime();
+    }
+
+    private BasicFileAttributes atributos() {
+        try {
+            return Files.readAttributes(archivo, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void cargarIndice() {
+        indice.clear();
+        cerrarLector();
+        tamano = 0;
+        sinSaltoFinal = false;
+        colaIncompleta = -1;
+        archivoEnmarcado = enmarcado;
+        if (!Files.exists(archivo)) {
+            return;
+        }
+        Recorrido recorrido = recorrerLineas(archivo, true, (posicion, linea) -> {
+            K clave = formato.claveDeLinea(linea);
+            if (clave == null) {
+                LOG.warn("Línea inválida omitida", "archivo", archivo.getFileName(), "posicion", posicion);
+            } else if (indice.putIfAbsent(clave, posicion) != null) {
+                LOG.warn("Clave duplicada omitida", "archivo", archivo.getFileName(), "clave", clave);
+            }
+        });
+        tamano = recorrido.tamano;
+        if (tamano > 0) {
+            archivoEnmarcado = recorrido.enmarcado;
+        }
+        sinSaltoFinal = recorrido.sinSaltoFinal;
+        colaIncompleta = recorrido.colaIncompleta;
+    }
+
+    private void truncarCola() {
+        cerrarLector();
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+            canal.truncate(colaIncompleta);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        LOG.warn("Registro incompleto al final del archivo, se trunca", "archivo", archivo.getFileName(),
+                "bytes", tamano - colaIncompleta);
+        BYTES_TRUNCADOS.sumar(tamano - colaIncompleta);
+        tamano = colaIncompleta;
+        colaIncompleta = -1;
+    }
+
+    // ===== CONSULTAS =====
+
+    @Override
+    public synchronized V buscar(K clave) {
+        try (FileLocks.Bloqueo bloqueo = bloquear(false)) {
+            Long posicion = indice.get(clave);
+            return posicion == null ? null : decodificar(posicion);
+        }
+    }
+
+    @Override
+    public synchronized boolean contiene(K clave) {
+        try (FileLocks.Bloqueo bloqueo = bloquear(false)) {
+            return indice.containsKey(clave);
+        }
+    }
+
+    @Override
+    public synchronized void recorrer(K desde, K hasta, Consumer<? super V> accion) {
+        try (FileLocks.Bloqueo bloqueo = bloquear(false)) {
+            recorrerClaves(desde, hasta, accion);
+        }
+    }
+
+    private void recorrerClaves(K desde, K hasta, Consumer<? super V> accion) {
+        List<K> claves = new ArrayList<>();
+        for (K clave : indice.keySet()) {
+            if ((desde == null || clave.compareTo(desde) >= 0) && (hasta == null || clave.compareTo(hasta) <= 0)) {
+                claves.add(clave);
+            }
+        }
+        Collections.sort(claves);
+        for (K clave : claves) {
+            V valor = decodificar(indice.get(clave));
+            if (valor != null) {
+                accion.accept(valor);
+            }
+        }
+    }
+
+    /**
+     * Lee el archivo de corrido, en el orden de sus líneas
+     */
+    @Override
+    public synchronized void forEach(Consumer<? super V> accion) {
+        try (FileLocks.Bloqueo bloqueo = bloquear(false)) {
+            if (!Files.exists(archivo)) {
+                return;
+            }
+            recorrerLineas(archivo, false, (posicion, linea) -> {
+                if (esVigente(posicion, linea)) {
+                    V valor = formato.decodificar(linea);
+                    if (valor != null) {
+                        accion.accept(valor);
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public synchronized long contar() {
+        try (FileLocks.Bloqueo bloqueo = bloquear(false)) {
+            return indice.size();
+        }
+    }
+
+    private V decodificar(long posicion) {
+        String linea = archivoEnmarcado ? leerRegistro(posicion) : leerLinea(posicion);
+        return linea == null ? null : formato.decodificar(linea);
+    }
+
+    // ===== ESCRITURAS =====
+
+    @Override
+    public void guardar(V valor) {
+        guardarTodos(Collections.singletonList(valor));
+    }
+
+    /**
+     * Los registros nuevos se agregan con una sola escritura; si alguno
+     * reemplaza a uno existente el archivo se reescribe una sola vez
+     */
+    @Override
+    public synchronized void guardarTodos(Collection<? extends V> valores) {
+        if (valores.isEmpty()) {
+            return;
+        }
+        try (FileLocks.Bloqueo bloqueo = bloquear(true)) {
+            Map<K, V> reemplazos = new HashMap<>();
+            Map<K, V> nuevos = new LinkedHashMap<>();
+            for (V valor : valores) {
+                K clave = formato.clave(valor);
+                (indice.containsKey(clave) ? reemplazos : nuevos).put(clave, valor);
+            }
+            if (!reemplazos.isEmpty()) {
+                reescribir(reemplazos, null, nuevos);
+            } else {
+                agregar(nuevos);
+            }
+            escrito(bloqueo);
+        }
+    }
+
+    @Override
+    public synchronized boolean eliminar(K clave) {
+        try (FileLocks.Bloqueo bloqueo = bloquear(true)) {
+            if (!indice.containsKey(clave)) {
+                return false;
+            }
+            reescribir(Collections.emptyMap(), clave, Collections.emptyMap());
+            escrito(bloqueo);
+            return true;
+        }
+    }
+
+    /**
+     * Agrega al final en el formato que ya tiene el archivo
+     */
+    private void agregar(Map<K, V> nuevos) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(nuevos.size() * 104);
+        if (tamano == 0) {
+            archivoEnmarcado = enmarcado;
+            if (enmarcado) {
+                bytes.writeBytes(MAGIC);
+            }
+        }
+        if (sinSaltoFinal) {
+            bytes.write('\n');
+        }
+        Map<K, Long> posiciones = new HashMap<>();
+        long posicion = tamano + bytes.size();
+        try {
+            for (Map.Entry<K, V> entrada : nuevos.entrySet()) {
+                byte[] datos = codificar(entrada.getValue());
+                posiciones.put(entrada.getKey(), posicion);
+                posicion += escribirRegistro(bytes, datos, archivoEnmarcado);
+            }
+            Files.write(archivo, bytes.toByteArray(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        indice.putAll(posiciones);
+        tamano = posicion;
+        sinSaltoFinal = false;
+    }
+
+    /**
+     * Copia el archivo a uno temporal aplicando los cambios y lo reemplaza;
+     * la copia queda en el formato configurado (enmarcado o no)
+     */
+    private void reescribir(Map<K, V> reemplazos, K eliminada, Map<K, V> nuevos) {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        Map<K, Long> nuevoIndice = new HashMap<>(indice.size() + nuevos.size());
+        long[] posicion = {0};
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporal), BUFFER_SIZE)) {
+            if (enmarcado) {
+                out.write(MAGIC);
+                posicion[0] = MAGIC.length;
+            }
+            if (Files.exists(archivo)) {
+                recorrerLineas(archivo, false, (inicio, linea) -> {
+                    if (!esVigente(inicio, linea)) {
+                        return;
+                    }
+                    K clave = formato.claveDeLinea(linea);
+                    if (clave.equals(eliminada)) {
+                        return;
+                    }
+                    V reemplazo = reemplazos.get(clave);
+                    byte[] datos = reemplazo != null ? codificar(reemplazo) : linea.getBytes(StandardCharsets.UTF_8);
+                    escribirEnCopia(out, datos, clave, nuevoIndice, posicion);
+                });
+            }
+            for (Map.Entry<K, V> entrada : nuevos.entrySet()) {
+                escribirEnCopia(out, codificar(entrada.getValue()), entrada.getKey(), nuevoIndice, posicion);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        cerrarLector();
+        try {
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        indice.clear();
+        indice.putAll(nuevoIndice);
+        tamano = posicion[0];
+        archivoEnmarcado = enmarcado;
+        sinSaltoFinal = false;
+        colaIncompleta = -1;
+    }
+
+    private void escribirEnCopia(OutputStream out, byte[] datos, K clave, Map<K, Long> nuevoIndice, long[] posicion) {
+        try {
+            nuevoIndice.put(clave, posicion[0]);
+            posicion[0] += escribirRegistro(out, datos, enmarcado);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return bytes escritos
+     */
+    private int escribirRegistro(OutputStream out, byte[] datos, boolean enmarcar) throws IOException {
+        if (enmarcar) {
+            crc.reset();
+            crc.update(datos, 0, datos.length);
+            escribirEntero(out, datos.length);
+            escribirEntero(out, (int) crc.getValue());
+        }
+        out.write(datos);
+        out.write('\n');
+        return datos.length + 1 + (enmarcar ? CABECERA_REGISTRO : 0);
+    }
+
+    private static void escribirEntero(OutputStream out, int valor) throws IOException {
+        out.write(valor >>> 24);
+        out.write(valor >>> 16);
+        out.write(valor >>> 8);
+        out.write(valor);
+    }
+
+    private byte[] codificar(V valor) {
+        String linea = formato.codificar(valor);
+        if (linea.indexOf('\n') >= 0 || linea.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("El registro no puede contener saltos de línea");
+        }
+        byte[] datos = linea.getBytes(StandardCharsets.UTF_8);
+        if (datos.length > MAX_REGISTRO) {
+            throw new IllegalArgumentException("Registro demasiado grande: " + datos.length + " bytes");
+        }
+        return datos;
+    }
+
+    /**
+     * La línea es la que el índice registra para su clave (no es inválida ni duplicada)
+     */
+    private boolean esVigente(long posicion, String linea) {
+        K clave = formato.claveDeLinea(linea);
+        if (clave == null) {
+            return false;
+        }
+        Long indexada = indice.get(clave);
+        return indexada != null && indexada == posicion;
+    }
+
+    // ===== LECTURA DE LÍNEAS =====
+
+    private interface LineaConsumer {
+        void aceptar(long posicion, String linea);
+    }
+
+    /**
+     * Resultado de recorrer un archivo completo
+     */
+    private static final class Recorrido {
+        long tamano;
+        boolean enmarcado;
+        boolean sinSaltoFinal;
+        long colaIncompleta = -1;
+        // Informar los tramos dañados (solo al cargar el índice, no en cada recorrido)
+        boolean informar;
+    }
+
+    /**
+     * Recorre las líneas no vacías (o los registros válidos, si el archivo
+     * está enmarcado) con su posición en bytes
+     */
+    private Recorrido recorrerLineas(Path origen, boolean informar, LineaConsumer consumer) {
+        Recorrido recorrido = new Recorrido();
+        recorrido.informar = informar;
+        try (FileChannel canal = FileChannel.open(origen, StandardOpenOption.READ)) {
+            recorrido.tamano = canal.size();
+            ByteBuffer inicio = ByteBuffer.allocate(MAGIC.length);
+            while (inicio.hasRemaining() && canal.read(inicio, inicio.position()) > 0) {
+                // Leer hasta tener MAGIC o llegar al final
+            }
+            recorrido.enmarcado = !inicio.hasRemaining() && Arrays.equals(inicio.array(), MAGIC);
+            if (recorrido.enmarcado) {
+                recorrerRegistros(new Ventana(canal, recorrido.tamano, BUFFER_SIZE), recorrido, consumer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!recorrido.enmarcado) {
+            recorrido.sinSaltoFinal = recorrerTexto(origen, consumer);
+        }
+        return recorrido;
+    }
+
+    /**
+     * Texto sin enmarcar
+     *
+     * @return si el archivo no termina en salto de línea
+     */
+    private boolean recorrerTexto(Path origen, LineaConsumer consumer) {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        byte[] linea = new byte[256];
+        int largo = 0;
+        long posicion = 0;
+        long inicioLinea = 0;
+        boolean terminaEnSalto = true;
+
+        try (InputStream in = Files.newInputStream(origen)) {
+            int leidos;
+            while ((leidos = in.read(buffer)) > 0) {
+                for (int i = 0; i < leidos; i++) {
+                    byte b = buffer[i];
+                    if (b == '\n') {
+                        if (largo > 0) {
+                            consumer.aceptar(inicioLinea, texto(linea, largo));
+                        }
+                        largo = 0;
+                        inicioLinea = posicion + i + 1;
+                    } else {
+                        if (largo == linea.length) {
+                            linea = Arrays.copyOf(linea, largo * 2);
+                        }
+                        linea[largo++] = b;
+                    }
+                }
+                posicion += leidos;
+                terminaEnSalto = buffer[leidos - 1] == '\n';
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        BYTES_LEIDOS.sumar(posicion);
+        if (largo > 0) {
+            consumer.aceptar(inicioLinea, texto(linea, largo));
+        }
+        return posicion > 0 && !terminaEnSalto;
+    }
+
+    /**
+     * Registros enmarcados; un tramo que no valida se salta hasta el
+     * siguiente registro válido, y si no hay ninguno es una cola incompleta
+     */
+    private void recorrerRegistros(Ventana ventana, Recorrido recorrido, LineaConsumer consumer) throws IOException {
+        long posicion = MAGIC.length;
+        while (posicion < recorrido.tamano) {
+            int largo = registroValido(ventana, posicion);
+            if (largo >= 0) {
+                consumer.aceptar(posicion, ventana.texto(posicion + CABECERA_REGISTRO, largo));
+                posicion += CABECERA_REGISTRO + largo + 1;
+                continue;
+            }
+            long siguiente = siguienteRegistro(ventana, posicion + 1);
+            if (siguiente < 0) {
+                recorrido.colaIncompleta = posicion;
+                return;
+            }
+            if (recorrido.informar) {
+                LOG.warn("Tramo dañado omitido", "archivo", archivo.getFileName(), "bytes",
+                        posicion + "-" + siguiente);
+                TRAMOS_DANADOS.incrementar();
+            }
+            posicion = siguiente;
+        }
+    }
+
+    /**
+     * Largo del registro que empieza en la posición, o -1 si no es válido
+     * (largo imposible, incompleto, sin salto final o con otro CRC)
+     */
+    private int registroValido(Ventana ventana, long posicion) throws IOException {
+        if (!ventana.asegurar(posicion, CABECERA_REGISTRO)) {
+            return -1;
+        }
+        int largo = ventana.entero(posicion);
+        if (largo < 0 || largo > MAX_REGISTRO || !ventana.asegurar(posicion, CABECERA_REGISTRO + largo + 1)) {
+            return -1;
+        }
+        long datos = posicion + CABECERA_REGISTRO;
+        if (ventana.get(datos + largo) != '\n' || ventana.crc(datos, largo, crc) != ventana.entero(posicion + 4)) {
+            return -1;
+        }
+        return largo;
+    }
+
+    /**
+     * Primer registro válido después de un salto de línea a partir de 'desde' (-1 si no hay)
+     */
+    private long siguienteRegistro(Ventana ventana, long desde) throws IOException {
+        for (long p = desde; ventana.asegurar(p, 1); p++) {
+            if (ventana.get(p) == '\n' && p + 1 < ventana.tamano && registroValido(ventana, p + 1) >= 0) {
+                return p + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Tramo del archivo en memoria para leer registros de corrido
+     */
+    private static final class Ventana {
+        private final FileChannel canal;
+        private final long tamano;
+        private ByteBuffer buffer;
+        // Posición en el archivo del primer byte del buffer y bytes válidos
+        private long inicio;
+        private int largo;
+
+        Ventana(FileChannel canal, long tamano, int capacidad) {
+            this.canal = canal;
+            this.tamano = tamano;
+            this.buffer = ByteBuffer.allocate(capacidad);
+        }
+
+        /**
+         * Deja en el buffer los bytes [posicion, posicion + cantidad); false si el archivo termina antes
+         */
+        boolean asegurar(long posicion, int cantidad) throws IOException {
+            if (posicion + cantidad > tamano) {
+                return false;
+            }
+            if (posicion >= inicio && posicion + cantidad <= inicio + largo) {
+                return true;
+            }
+            if (cantidad > buffer.capacity()) {
+                buffer = ByteBuffer.allocate(Math.max(cantidad, buffer.capacity() * 2));
+            }
+            buffer.clear().limit((int) Math.min(buffer.capacity(), tamano - posicion));
+            inicio = posicion;
+            while (buffer.hasRemaining() && canal.read(buffer, inicio + buffer.position()) > 0) {
+                // Las lecturas posicionales pueden devolver menos de lo pedido
+            }
+            largo = buffer.position();
+            BYTES_LEIDOS.sumar(largo);
+            return largo >= cantidad;
+        }
+
+        byte get(long posicion) {
+            return buffer.get((int) (posicion - inicio));
+        }
+
+        int entero(long posicion) {
+            return buffer.getInt((int) (posicion - inicio));
+        }
+
+        int crc(long posicion, int cantidad, CRC32C crc) {
+            crc.reset();
+            crc.update(buffer.array(), (int) (posicion - inicio), cantidad);
+            return (int) crc.getValue();
+        }
+
+        String texto(long posicion, int cantidad) {
+            return new String(buffer.array(), (int) (posicion - inicio), cantidad, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String texto(byte[] bytes, int largo) {
+        if (largo > 0 && bytes[largo - 1] == '\r') {
+            largo--;
+        }
+        return new String(bytes, 0, largo, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lee la línea que empieza en la posición dada con lecturas posicionales
+     */
+    private String leerLinea(long posicion) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(256);
+            int revisado = 0;
+            while (true) {
+                int leidos = lector().read(buffer, posicion + buffer.position());
+                BYTES_LEIDOS.sumar(Math.max(0, leidos));
+                int fin = buffer.position();
+                for (int i = revisado; i < fin; i++) {
+                    if (buffer.get(i) == '\n') {
+                        return texto(buffer.array(), i);
+                    }
+                }
+                if (leidos < 0) {
+                    return texto(buffer.array(), fin);
+                }
+                revisado = fin;
+                if (!buffer.hasRemaining()) {
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lee y verifica el registro enmarcado que empieza en la posición dada
+     * (null si está dañado)
+     */
+    private String leerRegistro(long posicion) {
+        try {
+            Ventana ventana = new Ventana(lector(), tamano, 256);
+            if (registroValido(ventana, posicion) < 0) {
+                LOG.warn("Registro dañado", "archivo", archivo.getFileName(), "posicion", posicion);
+                TRAMOS_DANADOS.incrementar();
+                return null;
+            }
+            return ventana.texto(posicion + CABECERA_REGISTRO, ventana.entero(posicion));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private FileChannel lector() throws IOException {
+        if (lector == null) {
+            lector = FileChannel.open(archivo, StandardOpenOption.READ);
+        }
+        return lector;
+    }
+
+    private void cerrarLector() {
+        if (lector != null) {
+            try {
+                lector.close();
+            } catch (IOException e) {
+                LOG.warn("Error al cerrar el archivo", "archivo", archivo.getFileName());
+            }
+            lector = null;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        cerrarLector();
+    }
+}
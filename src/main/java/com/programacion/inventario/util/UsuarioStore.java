@@ -0,0 +1,413 @@
+package com.programacion.inventario.util;
+
+import com.programacion.inventario.model.Usuario;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+/**
+ * UsuarioStore - Almacén de usuarios con índices por nombre y por rol
+ *
+ * Los usuarios se leen una vez del repositorio (usuarios.txt o usuarios.db,
+ * ver Repositorios); luego viven en memoria en el orden del repositorio, con
+ * un índice nombre -> posición y otro rol -> posiciones. Buscar por nombre es
+ * O(1) y una página de la tabla se arma con solo las filas pedidas. Agregar
+ * un usuario o cambiar su credencial se guarda en el repositorio (en texto,
+ * los cambios de credencial reescriben el archivo).
+ *
+ * Los cambios que otra instancia o un script hagan en el repositorio llegan
+ * por DataWatcher: los usuarios agregados al final de usuarios.txt se
+ * indexan sin releer el archivo; cualquier otro cambio lo recarga completo.
+ *
+ * Formatos de línea admitidos:
+ * - usuario:password (texto plano, formato antiguo)
+ * - usuario:hash:salt (rol por defecto)
+ * - usuario:hash:salt:rol
+ */
+public class UsuarioStore {
+
+    private static final Log LOG = Log.get(UsuarioStore.class);
+
+    private static UsuarioStore instance;
+
+    public static final String USUARIOS_FILE = FileManager.DATA_DIRECTORY + "/usuarios.txt";
+    public static final String ROL_POR_DEFECTO = "Usuario";
+    // Cuenta creada por defecto (ver LoginService.crearUsuariosPorDefecto)
+    private static final String CUENTA_ADMIN = "admin";
+
+    private final Repository<String, Registro> repositorio;
+
+    private final List<Registro> registros = new ArrayList<>();
+    private final Map<String, Integer> indiceNombre = new HashMap<>();
+    private final Map<String, List<Integer>> indiceRol = new HashMap<>();
+
+    // Se guarda en un campo porque DataWatcher lo referencia de forma débil
+    private final DataWatcher.FileListener archivoListener = new DataWatcher.FileListener() {
+        @Override
+        public void onArchivoReemplazado() {
+            recargar();
+        }
+
+        @Override
+        public void onLineasAgregadas(List<String> lineas) {
+            agregarLineas(lineas);
+        }
+    };
+
+    private UsuarioStore() {
+        repositorio = Repositorios.usuarios();
+        // Antes de cargar: lo que se agregue mientras tanto llega también como líneas (y se ignora si ya está)
+        for (String archivo : Repositorios.archivos("usuarios")) {
+            DataWatcher.getInstance().addListener(archivo, Repositorios.esTextoPlano(), archivoListener);
+        }
+        cargar();
+        Metrics.getInstance().gauge("usuarios.registrados", () -> contar(null));
+    }
+
+    public static synchronized UsuarioStore getInstance() {
+        if (instance == null) {
+            instance = new UsuarioStore();
+        }
+        return instance;
+    }
+
+    private synchronized void cargar() {
+        long inicio = System.nanoTime();
+        // El repositorio ya omite líneas inválidas y nombres repetidos
+        repositorio.forEach(this::indexar);
+        LOG.info("Usuarios cargados", "cantidad", registros.size(),
+                "ms", (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Vuelve a leer el repositorio después de que otra instancia o un script
+     * lo reescribiera; las credenciales en caché de los usuarios que
+     * cambiaron o desaparecieron se invalidan
+     */
+    private void recargar() {
+        List<String> cambiados = new ArrayList<>();
+        synchronized (this) {
+            List<Registro> leidos = new ArrayList<>(registros.size());
+            try {
+                repositorio.forEach(leidos::add);
+            } catch (UncheckedIOException e) {
+                LOG.error("Error al recargar usuarios, se conservan los cargados", e);
+                return;
+            }
+            Map<String, Registro> anteriores = new HashMap<>(indiceNombre.size() * 2);
+            for (Registro registro : registros) {
+                anteriores.put(registro.nombre, registro);
+            }
+            registros.clear();
+            indiceNombre.clear();
+            indiceRol.clear();
+            leidos.forEach(this::indexar);
+            anteriores.forEach((nombre, anterior) -> {
+                Registro actual = getRegistro(nombre);
+                if (actual == null || !actual.toRegistro().equals(anterior.toRegistro())) {
+                    cambiados.add(nombre);
+                }
+            });
+        }
+        SessionManager sesiones = SessionManager.getInstance();
+        cambiados.forEach(sesiones::invalidarCredencial);
+        LOG.info("Usuarios recargados", "cantidad", contar(null), "cambiados", cambiados.size());
+    }
+
+    /**
+     * Usuarios agregados al final de usuarios.txt; los nombres ya cargados se
+     * ignoran (en el archivo vale la primera línea de cada usuario)
+     */
+    private synchronized void agregarLineas(List<String> lineas) {
+        int agregados = 0;
+        for (String linea : lineas) {
+            Registro registro = parsear(linea);
+            if (registro != null && !indiceNombre.containsKey(registro.nombre)) {
+                indexar(registro);
+                agregados++;
+            }
+        }
+        if (agregados > 0) {
+            LOG.info("Usuarios agregados desde el archivo", "cantidad", agregados);
+        }
+    }
+
+    /**
+     * Los archivos anteriores a los roles no tienen ningún Administrador. La
+     * línea sin rol de la cuenta "admin" de esos archivos recibe ese rol al
+     * pasar al formato actual (migración o hash actualizado en el login); una
+     * cuenta registrada después siempre guarda su rol, así que registrarse
+     * como "admin" no da privilegios. Se llama con el lock tomado
+     */
+    private String rolAlMigrar(Registro anterior) {
+        if (anterior.sinRol && CUENTA_ADMIN.equals(anterior.nombre)
+                && !indiceRol.containsKey(PermissionManager.ROL_ADMINISTRADOR)) {
+            LOG.info("Rol de administrador asignado al migrar la cuenta antigua", "usuario", anterior.nombre);
+            return PermissionManager.ROL_ADMINISTRADOR;
+        }
+        return anterior.rol;
+    }
+
+    /**
+     * Reemplaza un registro ya guardado en el repositorio, moviéndolo de rol si cambió
+     */
+    private void reemplazar(int posicion, Registro nuevo) {
+        Registro anterior = registros.set(posicion, nuevo);
+        if (anterior.rol.equals(nuevo.rol)) {
+            return;
+        }
+        List<Integer> delRol = indiceRol.get(anterior.rol);
+        delRol.remove(Integer.valueOf(posicion));
+        if (delRol.isEmpty()) {
+            indiceRol.remove(anterior.rol);
+        }
+        indiceRol.computeIfAbsent(nuevo.rol, k -> new ArrayList<>()).add(posicion);
+    }
+
+    private void indexar(Registro registro) {
+        int posicion = registros.size();
+        registros.add(registro);
+        indiceNombre.put(registro.nombre, posicion);
+        indiceRol.computeIfAbsent(registro.rol, k -> new ArrayList<>()).add(posicion);
+    }
+
+    /**
+     * Interpreta una línea de usuarios.txt; retorna null si no tiene un formato válido
+     */
+    public static Registro parsear(String linea) {
+        String[] campos = linea.split(":");
+        if (campos.length < 2 || campos[0].isEmpty()) {
+            return null;
+        }
+        switch (campos.length) {
+            case 2: return new Registro(campos[0], campos[1], null, ROL_POR_DEFECTO, true);
+            case 3: return new Registro(campos[0], campos[1], campos[2], ROL_POR_DEFECTO, true);
+            case 4: return new Registro(campos[0], campos[1], campos[2], campos[3]);
+            default: return null;
+        }
+    }
+
+    // ===== CONSULTAS =====
+
+    public synchronized boolean existe(String nombre) {
+        return indiceNombre.containsKey(nombre);
+    }
+
+    /**
+     * Registro del usuario (inmutable), o null si no existe
+     */
+    public synchronized Registro getRegistro(String nombre) {
+        Integer posicion = indiceNombre.get(nombre);
+        return posicion == null ? null : registros.get(posicion);
+    }
+
+    public Usuario buscar(String nombre) {
+        Registro registro = getRegistro(nombre);
+        return registro == null ? null : registro.toUsuario();
+    }
+
+    /**
+     * Cantidad de usuarios con el rol indicado (null = todos)
+     */
+    public synchronized int contar(String rol) {
+        if (rol == null) {
+            return registros.size();
+        }
+        List<Integer> posiciones = indiceRol.get(rol);
+        return posiciones == null ? 0 : posiciones.size();
+    }
+
+    /**
+     * Una página de usuarios, en el orden del repositorio (rol null = todos)
+     * Solo se crean objetos Usuario para las filas de la página
+     */
+    public synchronized List<Usuario> pagina(String rol, int desde, int limite) {
+        int total = contar(rol);
+        if (desde < 0 || desde >= total || limite <= 0) {
+            return Collections.emptyList();
+        }
+        int hasta = Math.min(total, desde + limite);
+        List<Usuario> pagina = new ArrayList<>(hasta - desde);
+        List<Integer> posiciones = rol == null ? null : indiceRol.get(rol);
+        for (int i = desde; i < hasta; i++) {
+            pagina.add(registros.get(posiciones == null ? i : posiciones.get(i)).toUsuario());
+        }
+        return pagina;
+    }
+
+    public synchronized Set<String> getRoles() {
+        return new TreeSet<>(indiceRol.keySet());
+    }
+
+    // ===== ESCRITURAS =====
+
+    /**
+     * Crea un usuario con el hash actual y lo guarda en el repositorio
+     *
+     * @return false si ya existe un usuario con ese nombre
+     * @throws IllegalArgumentException si el nombre o el rol no son válidos
+     */
+    public boolean agregar(String nombre, String password, String rol) {
+        if (nombre == null || nombre.isEmpty() || nombre.indexOf(':') >= 0 || nombre.indexOf('\n') >= 0) {
+            throw new IllegalArgumentException("El nombre de usuario no puede estar vacío ni contener ':'");
+        }
+        String rolFinal = rol == null || rol.isEmpty() ? ROL_POR_DEFECTO : rol;
+        if (rolFinal.indexOf(':') >= 0 || rolFinal.indexOf('\n') >= 0) {
+            throw new IllegalArgumentException("El rol no puede contener ':'");
+        }
+        if (existe(nombre)) {
+            return false;
+        }
+
+        // El hash (costoso) se calcula fuera del lock
+        String salt = SecurityUtils.generateSalt();
+        Registro registro = new Registro(nombre, PasswordHashing.getInstance().hash(password, salt), salt, rolFinal);
+
+        synchronized (this) {
+            if (indiceNombre.containsKey(nombre)) {
+                return false;
+            }
+            repositorio.guardar(registro);
+            indexar(registro);
+        }
+        SystemStatistics.getInstance().usuarioRegistrado(false);
+        SessionManager.getInstance().invalidarCredencial(nombre);
+        return true;
+    }
+
+    /**
+     * Reemplaza la credencial de un usuario (p. ej. hash actualizado en el login)
+     */
+    public boolean actualizarCredencial(String nombre, String hash, String salt) {
+        boolean eraTextoPlano;
+        synchronized (this) {
+            Integer posicion = indiceNombre.get(nombre);
+            if (posicion == null) {
+                return false;
+            }
+            Registro anterior = registros.get(posicion);
+            eraTextoPlano = anterior.isTextoPlano();
+            Registro actualizado = new Registro(nombre, hash, salt, rolAlMigrar(anterior));
+            try {
+                repositorio.guardar(actualizado);
+            } catch (UncheckedIOException e) {
+                LOG.error("Error al guardar la credencial", "usuario", nombre, e);
+                return false;
+            }
+            reemplazar(posicion, actualizado);
+        }
+        if (eraTextoPlano) {
+            SystemStatistics.getInstance().usuariosMigrados(1);
+        }
+        return true;
+    }
+
+    /**
+     * Cifra todas las contraseñas en texto plano con una sola escritura al repositorio
+     * Los hashes se calculan en paralelo y fuera del lock
+     *
+     * @return cantidad de usuarios migrados
+     */
+    public int migrarTextoPlano() {
+        List<Registro> pendientes = new ArrayList<>();
+        synchronized (this) {
+            for (Registro registro : registros) {
+                if (registro.isTextoPlano()) {
+                    pendientes.add(registro);
+                }
+            }
+        }
+        if (pendientes.isEmpty()) {
+            return 0;
+        }
+
+        PasswordHashing hashing = PasswordHashing.getInstance();
+        Registro[] migrados = new Registro[pendientes.size()];
+        IntStream.range(0, migrados.length).parallel().forEach(i -> {
+            Registro registro = pendientes.get(i);
+            String salt = SecurityUtils.generateSalt();
+            migrados[i] = new Registro(registro.nombre, hashing.hash(registro.hash, salt), salt, registro.rol);
+        });
+
+        List<Registro> aplicados = new ArrayList<>(migrados.length);
+        List<Integer> posiciones = new ArrayList<>(migrados.length);
+        synchronized (this) {
+            for (int i = 0; i < migrados.length; i++) {
+                Integer posicion = indiceNombre.get(migrados[i].nombre);
+                // Solo si nadie cambió la credencial mientras se calculaban los hashes
+                if (posicion != null && registros.get(posicion) == pendientes.get(i)) {
+                    Registro migrado = migrados[i];
+                    aplicados.add(new Registro(migrado.nombre, migrado.hash, migrado.salt,
+                            rolAlMigrar(pendientes.get(i))));
+                    posiciones.add(posicion);
+                }
+            }
+            if (aplicados.isEmpty()) {
+                return 0;
+            }
+            try {
+                repositorio.guardarTodos(aplicados);
+            } catch (UncheckedIOException e) {
+                LOG.error("Error al guardar las credenciales migradas", e);
+                return 0;
+            }
+            for (int i = 0; i < aplicados.size(); i++) {
+                reemplazar(posiciones.get(i), aplicados.get(i));
+            }
+        }
+        SystemStatistics.getInstance().usuariosMigrados(aplicados.size());
+        return aplicados.size();
+    }
+
+    /**
+     * Credencial almacenada de un usuario
+     */
+    public static final class Registro {
+        private final String nombre;
+        private final String hash;
+        private final String salt;
+        private final String rol;
+        // Línea del formato anterior a los roles (sin el campo rol)
+        private final boolean sinRol;
+
+        Registro(String nombre, String hash, String salt, String rol) {
+            this(nombre, hash, salt, rol, false);
+        }
+
+        private Registro(String nombre, String hash, String salt, String rol, boolean sinRol) {
+            this.nombre = nombre;
+            this.hash = hash;
+            this.salt = salt;
+            this.rol = rol;
+            this.sinRol = sinRol;
+        }
+
+        public String getNombre() { return nombre; }
+        public String getRol() { return rol; }
+
+        /**
+         * Hash almacenado; en el formato antiguo es la contraseña en texto plano
+         */
+        public String getHash() { return hash; }
+        public String getSalt() { return salt; }
+
+        public boolean isTextoPlano() {
+            return salt == null;
+        }
+
+        public String toRegistro() {
+            return isTextoPlano() ? nombre + ":" + hash : nombre + ":" + hash + ":" + salt + ":" + rol;
+        }
+
+        Usuario toUsuario() {
+            return new Usuario(nombre, null, rol);
+        }
+    }
+}
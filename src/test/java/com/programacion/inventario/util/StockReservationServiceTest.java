@@ -0,0 +1,115 @@
+package com.programacion.inventario.util;
+
+import com.programacion.inventario.model.MovimientoStock;
+import com.programacion.inventario.model.Producto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reservas, liberaciones y confirmaciones concurrentes sobre el mismo SKU:
+ * el stock nunca queda negativo y lo descontado es exactamente la suma de
+ * las reservas confirmadas (en memoria y en movimientos.txt)
+ */
+class StockReservationServiceTest {
+
+    private static final int HILOS = 16;
+    private static final int OPERACIONES_POR_HILO = 2_000;
+    private static final long STOCK_INICIAL = 5_000;
+
+    @Test
+    void reservasConcurrentesNoSobrevenden() throws Exception {
+        StockLedger ledger = StockLedger.getInstance();
+        // SKU propio en cada ejecución: el ledger es único y sus archivos persisten
+        String sku = "TEST-" + System.nanoTime();
+        ledger.agregarProducto(new Producto(sku, "Prueba de reservas", "Pruebas", 1.0));
+        ledger.registrarEntrada(sku, STOCK_INICIAL, "stock inicial");
+
+        StockReservationService servicio = StockReservationService.crear(ledger);
+        assertEquals(STOCK_INICIAL, servicio.getDisponible(sku));
+
+        LongAdder confirmadas = new LongAdder();
+        AtomicLong sinStock = new AtomicLong();
+        AtomicBoolean terminado = new AtomicBoolean();
+        AtomicBoolean negativo = new AtomicBoolean();
+        CountDownLatch salida = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS + 1);
+        try {
+            // Vigila el stock mientras los demás hilos trabajan
+            Future<?> vigia = pool.submit(() -> {
+                while (!terminado.get()) {
+                    if (ledger.getStock(sku) < 0 || servicio.getDisponible(sku) < 0) {
+                        negativo.set(true);
+                    }
+                    TimeUnit.MILLISECONDS.sleep(1);
+                }
+                return null;
+            });
+
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < HILOS; h++) {
+                tareas.add(pool.submit(() -> {
+                    salida.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < OPERACIONES_POR_HILO; i++) {
+                        long cantidad = 1 + random.nextInt(5);
+                        long id = servicio.reservar(sku, cantidad);
+                        if (id < 0) {
+                            sinStock.incrementAndGet();
+                        } else if (random.nextInt(3) == 0) {
+                            assertTrue(servicio.liberar(id));
+                        } else {
+                            assertTrue(servicio.confirmar(id, "prueba"));
+                            confirmadas.add(cantidad);
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            salida.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get(2, TimeUnit.MINUTES);
+            }
+            terminado.set(true);
+            vigia.get(10, TimeUnit.SECONDS);
+        } finally {
+            terminado.set(true);
+            pool.shutdownNow();
+        }
+
+        assertFalse(negativo.get(), "El stock quedó negativo durante la prueba");
+        // Con 16 hilos de 2000 operaciones el stock se agota: hay reservas rechazadas
+        assertTrue(sinStock.get() > 0);
+
+        long vendido = confirmadas.sum();
+        assertEquals(STOCK_INICIAL - vendido, ledger.getStock(sku));
+        assertEquals(ledger.getStock(sku), servicio.getDisponible(sku));
+        assertEquals(0, servicio.getReservasPendientes());
+
+        long[] salidasEnArchivo = {0};
+        new FileManager().forEachLine(StockLedger.MOVIMIENTOS_FILE, linea -> {
+            MovimientoStock movimiento = MovimientoStock.fromRegistro(linea);
+            if (movimiento != null && movimiento.getSku().equals(sku)
+                    && movimiento.getTipo() == MovimientoStock.Tipo.SALIDA) {
+                salidasEnArchivo[0] += movimiento.getCantidad();
+            }
+        });
+        assertEquals(vendido, salidasEnArchivo[0]);
+    }
+}